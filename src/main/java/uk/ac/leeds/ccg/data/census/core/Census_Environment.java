@@ -17,20 +17,22 @@ package uk.ac.leeds.ccg.data.census.core;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import uk.ac.leeds.ccg.data.census.io.Census_Files;
+import uk.ac.leeds.ccg.data.census.io.Census_Manifest;
 import uk.ac.leeds.ccg.data.core.Data_Environment;
-import uk.ac.leeds.ccg.data.census.data.id.Census_2001_LSOAID;
-import uk.ac.leeds.ccg.data.census.data.id.Census_2001_OAID;
 import uk.ac.leeds.ccg.data.census.data.id.Census_2011_LADID;
-import uk.ac.leeds.ccg.data.census.data.id.Census_2011_LSOAID;
-import uk.ac.leeds.ccg.data.census.data.id.Census_2011_OAID;
-import uk.ac.leeds.ccg.data.census.data.id.Census_MSOAID;
 import uk.ac.leeds.ccg.data.census.data.luts.Census_2001_LUTs;
 import uk.ac.leeds.ccg.data.census.data.luts.Census_2011_LUTs;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_AreaCodes.Level;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_LUT;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_OACrosswalk;
 
 /**
  * Census Environment.
@@ -43,8 +45,37 @@ public class Census_Environment {
     public transient final Data_Environment de;
     public transient final Census_Files files;
 
-    public transient Census_2001_LUTs c01LUTs;
-    public transient Census_2011_LUTs c11LUTs;
+    public transient volatile Census_2001_LUTs c01LUTs;
+    public transient volatile Census_2011_LUTs c11LUTs;
+
+    /**
+     * The crosswalk between 2001 and 2011 Output Areas.
+     */
+    public transient volatile Census_OACrosswalk oaCrosswalk;
+
+    /**
+     * For sharing the initialisation of {@link #c01LUTs} between threads.
+     */
+    private final transient AtomicReference<CompletableFuture<Census_2001_LUTs>> c01LUTsFuture
+            = new AtomicReference<>();
+
+    /**
+     * For sharing the initialisation of {@link #c11LUTs} between threads.
+     */
+    private final transient AtomicReference<CompletableFuture<Census_2011_LUTs>> c11LUTsFuture
+            = new AtomicReference<>();
+
+    /**
+     * For sharing the initialisation of {@link #oaCrosswalk} between threads.
+     */
+    private final transient AtomicReference<CompletableFuture<Census_OACrosswalk>> oaCrosswalkFuture
+            = new AtomicReference<>();
+
+    /**
+     * The manifest of generated files. This is initialised by
+     * {@link #getManifest()}.
+     */
+    private transient Census_Manifest manifest;
 
     /**
      *
@@ -62,29 +93,176 @@ public class Census_Environment {
     }
 
     /**
-     * If {@link #c01LUTs} is {@code null} is it initialised.
+     * The manifest is read from {@link Census_Files#getGeneratedManifest()}
+     * the first time this is called.
+     *
+     * @return {@link #manifest}
+     * @throws IOException If encountered.
+     */
+    public synchronized Census_Manifest getManifest() throws IOException {
+        if (manifest == null) {
+            manifest = new Census_Manifest(files.getGeneratedManifest());
+        }
+        return manifest;
+    }
+
+    /**
+     * If {@link #c01LUTs} is {@code null} is it initialised. This reads a
+     * snapshot from the generated directory if there is a valid one. It is
+     * safe to call this from many threads: the look ups are only built once
+     * and other callers wait for them.
      *
      * @return {@link #c01LUTs}
      * @throws java.io.IOException
      */
     public Census_2001_LUTs getC01LUTs() throws IOException {
-        if (c01LUTs == null) {
-            c01LUTs = new Census_2001_LUTs(this);
+        Census_2001_LUTs r = c01LUTs;
+        if (r == null) {
+            r = join(getC01LUTsFuture());
         }
-        return c01LUTs;
+        return r;
     }
 
     /**
-     * If {@link #c11LUTs} is {@code null} is it initialised.
+     * If {@link #c11LUTs} is {@code null} is it initialised. This reads a
+     * snapshot from the generated directory if there is a valid one. It is
+     * safe to call this from many threads: the look ups are only built once
+     * and other callers wait for them.
      *
      * @return {@link #c11LUTs}
      * @throws java.io.IOException
      */
     public Census_2011_LUTs getC11LUTs() throws IOException {
-        if (c11LUTs == null) {
-            c11LUTs = new Census_2011_LUTs(this);
+        Census_2011_LUTs r = c11LUTs;
+        if (r == null) {
+            r = join(getC11LUTsFuture());
+        }
+        return r;
+    }
+
+    /**
+     * If the 2001 look ups are not yet being built then they are built in the
+     * calling thread.
+     *
+     * @return A future for {@link #c01LUTs} shared by all callers.
+     */
+    public CompletableFuture<Census_2001_LUTs> getC01LUTsFuture() {
+        return getFuture(c01LUTsFuture, () -> {
+            Census_2001_LUTs r = new Census_2001_LUTs(this,
+                    Census_2001_LUTs.loadCached(this), true);
+            c01LUTs = r;
+            return r;
+        });
+    }
+
+    /**
+     * If the 2011 look ups are not yet being built then they are built in the
+     * calling thread.
+     *
+     * @return A future for {@link #c11LUTs} shared by all callers.
+     */
+    public CompletableFuture<Census_2011_LUTs> getC11LUTsFuture() {
+        return getFuture(c11LUTsFuture, () -> {
+            Census_2011_LUTs r = new Census_2011_LUTs(this,
+                    Census_2011_LUTs.loadCached(this), true);
+            c11LUTs = r;
+            return r;
+        });
+    }
+
+    /**
+     * If {@link #oaCrosswalk} is {@code null} is it initialised. This needs
+     * both {@link #c01LUTs} and {@link #c11LUTs} which are initialised if they
+     * are not already.
+     *
+     * @return {@link #oaCrosswalk}
+     * @throws java.io.IOException If encountered.
+     */
+    public Census_OACrosswalk getOACrosswalk() throws IOException {
+        Census_OACrosswalk r = oaCrosswalk;
+        if (r == null) {
+            r = join(getFuture(oaCrosswalkFuture, () -> {
+                initLUTs();
+                Census_OACrosswalk r2 = Census_OACrosswalk.load(this,
+                        c01LUTs.lut, c11LUTs.lut);
+                oaCrosswalk = r2;
+                return r2;
+            }));
+        }
+        return r;
+    }
+
+    /**
+     * Initialises {@link #c01LUTs} and {@link #c11LUTs} in parallel. The 2001
+     * look ups are built in the common pool and the 2011 look ups in the
+     * calling thread.
+     *
+     * @throws IOException If encountered building either.
+     */
+    public void initLUTs() throws IOException {
+        CompletableFuture<Census_2001_LUTs> c01 = CompletableFuture
+                .supplyAsync(this::getC01LUTsFuture).thenCompose(f -> f);
+        getC11LUTs();
+        join(c01);
+    }
+
+    /**
+     * For loading something that may throw an IOException.
+     */
+    private interface Loader<T> {
+
+        T load() throws IOException;
+    }
+
+    /**
+     * @param <T> The type.
+     * @param ref The future if one has been set.
+     * @param loader For loading if a future has not been set.
+     * @return The future in {@code ref} or a new one completed by
+     * {@code loader} in the calling thread. If loading fails the future
+     * completes exceptionally and {@code ref} is reset so a later call may try
+     * again.
+     */
+    private static <T> CompletableFuture<T> getFuture(
+            AtomicReference<CompletableFuture<T>> ref, Loader<T> loader) {
+        while (true) {
+            CompletableFuture<T> f = ref.get();
+            if (f != null) {
+                return f;
+            }
+            CompletableFuture<T> nf = new CompletableFuture<>();
+            if (ref.compareAndSet(null, nf)) {
+                try {
+                    nf.complete(loader.load());
+                } catch (IOException | RuntimeException | Error ex) {
+                    ref.compareAndSet(nf, null);
+                    nf.completeExceptionally(ex);
+                }
+                return nf;
+            }
+        }
+    }
+
+    /**
+     * @param <T> The type.
+     * @param f The future.
+     * @return The result of {@code f} once it is done.
+     * @throws IOException If {@code f} completed with an IOException.
+     */
+    private static <T> T join(CompletableFuture<T> f) throws IOException {
+        try {
+            return f.join();
+        } catch (CompletionException ex) {
+            Throwable c = ex.getCause();
+            if (c instanceof IOException) {
+                throw (IOException) c;
+            } else if (c instanceof RuntimeException) {
+                throw (RuntimeException) c;
+            } else if (c instanceof Error) {
+                throw (Error) c;
+            }
+            throw new IOException(c);
         }
-        return c11LUTs;
     }
 
     /**
@@ -100,15 +278,116 @@ public class Census_Environment {
      */
     @Deprecated
     public TreeSet<String> getCensusCodes(String area, String level) throws IOException {
-        TreeSet<String> r = new TreeSet<>();
-        if (level.equalsIgnoreCase("OA")) {
-            r.addAll(get2011OACodes(area));
-        } else if (level.equalsIgnoreCase("LSOA")) {
-            r.addAll(get2011LSOACodes(area));
-        } else if (level.equalsIgnoreCase("MSOA")) {
-            r.addAll(get2011MSOACodes(area));
-        } else {
-            throw new IOException("Unrecognised level " + level);
+        for (Level l : Level.values()) {
+            if (l.name().equalsIgnoreCase(level)) {
+                return new TreeSet<>(get2011Codes(l, area));
+            }
+        }
+        throw new IOException("Unrecognised level " + level);
+    }
+
+    /**
+     * @param level The level.
+     * @param name 2011 Local Authority District Name
+     * @return A read only list of all the 2011 codes at {@code level} in the
+     * 2011 Local Authority given by {@code name} in ascending order. The same
+     * list is returned each time.
+     * @throws java.io.IOException If {@code name} is not recognised.
+     */
+    public List<String> get2011Codes(Level level, String name)
+            throws IOException {
+        Census_2011_LUTs c11LUTs = getC11LUTs();
+        return c11LUTs.codes.get(level, getLAD(c11LUTs.lut, name));
+    }
+
+    /**
+     * @param level The level.
+     * @param names 2011 Local Authority District Names
+     * @return A read only list of all the 2011 codes at {@code level} in the
+     * 2011 Local Authorities given by {@code names} in ascending order.
+     * @throws java.io.IOException If any of {@code names} is not recognised.
+     */
+    public List<String> get2011Codes(Level level, Collection<String> names)
+            throws IOException {
+        Census_2011_LUTs c11LUTs = getC11LUTs();
+        return c11LUTs.codes.getAll(level, getLADs(c11LUTs.lut, names));
+    }
+
+    /**
+     * @param level The level.
+     * @param ladids 2011 Local Authority District IDs
+     * @return A read only list of all the 2011 codes at {@code level} in the
+     * 2011 Local Authorities given by {@code ladids} in ascending order.
+     * @throws java.io.IOException If encountered.
+     */
+    public List<String> get2011CodesForIDs(Level level,
+            Collection<Census_2011_LADID> ladids) throws IOException {
+        return getC11LUTs().codes.getAll(level, getLADs(ladids));
+    }
+
+    /**
+     * @param level The level.
+     * @param name 2011 Local Authority District Name
+     * @return A read only list of all the 2001 codes at {@code level} in the
+     * 2011 Local Authority given by {@code name} in ascending order. The same
+     * list is returned each time.
+     * @throws java.io.IOException If {@code name} is not recognised.
+     */
+    public List<String> get2001Codes(Level level, String name)
+            throws IOException {
+        Census_2001_LUTs c01LUTs = getC01LUTs();
+        return c01LUTs.codes.get(level, getLAD(c01LUTs.lut, name));
+    }
+
+    /**
+     * @param level The level.
+     * @param names 2011 Local Authority District Names
+     * @return A read only list of all the 2001 codes at {@code level} in the
+     * 2011 Local Authorities given by {@code names} in ascending order.
+     * @throws java.io.IOException If any of {@code names} is not recognised.
+     */
+    public List<String> get2001Codes(Level level, Collection<String> names)
+            throws IOException {
+        Census_2001_LUTs c01LUTs = getC01LUTs();
+        return c01LUTs.codes.getAll(level, getLADs(c01LUTs.lut, names));
+    }
+
+    /**
+     * @param level The level.
+     * @param ladids 2011 Local Authority District IDs
+     * @return A read only list of all the 2001 codes at {@code level} in the
+     * 2011 Local Authorities given by {@code ladids} in ascending order.
+     * @throws java.io.IOException If encountered.
+     */
+    public List<String> get2001CodesForIDs(Level level,
+            Collection<Census_2011_LADID> ladids) throws IOException {
+        return getC01LUTs().codes.getAll(level, getLADs(ladids));
+    }
+
+    private static int getLAD(Census_LUT lut, String name) throws IOException {
+        int r = lut.getLADForName(name);
+        if (r < 0) {
+            throw new IOException("Local Authority District Name " + name
+                    + " not recognised.");
+        }
+        return r;
+    }
+
+    private static int[] getLADs(Census_LUT lut, Collection<String> names)
+            throws IOException {
+        int[] r = new int[names.size()];
+        int i = 0;
+        for (String name : names) {
+            r[i++] = getLAD(lut, name);
+        }
+        return r;
+    }
+
+    private static int[] getLADs(Collection<Census_2011_LADID> ladids) {
+        int[] r = new int[ladids.size()];
+        int i = 0;
+        for (Census_2011_LADID ladid : ladids) {
+            r[i++] = ladid.getID();
         }
         return r;
     }
@@ -119,26 +398,12 @@ public class Census_Environment {
      *
      * @param name 2011 Local Authority District Name
      * @return A set of all 2011 Output Area Codes in the 2011 Local Authority
-     * given by {@code name}.
+     * given by {@code name}. For a read only list that is not copied use
+     * {@link #get2011Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2011OACodes(String name) throws IOException {
-        c11LUTs = getC11LUTs();
-        if (c11LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c11LUTs.LADNAME2LADID.get(name);
-            Set<Census_2011_OAID> s = c11LUTs.LADID2OAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size() + " 2011 Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_2011_OAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                r.add(c11LUTs.OAID2OA.get(ite.next()));
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2011Codes(Level.OA, name));
     }
 
     /**
@@ -147,27 +412,12 @@ public class Census_Environment {
      *
      * @param name 2011 Local Authority District Name
      * @return A set of all 2011 Lower Layer Super Output Area Codes in the 2011
-     * Local Authority given by {@code name}.
+     * Local Authority given by {@code name}. For a read only list that is not
+     * copied use {@link #get2011Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2011LSOACodes(String name) throws IOException {
-        c11LUTs = getC11LUTs();
-        if (c11LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c11LUTs.LADNAME2LADID.get(name);
-            Set<Census_2011_LSOAID> s = c11LUTs.LADID2LSOAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size()
-                    + " Lower Layer Super Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_2011_LSOAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                r.add(c11LUTs.LSOAID2LSOA.get(ite.next()));
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2011Codes(Level.LSOA, name));
     }
 
     /**
@@ -176,27 +426,12 @@ public class Census_Environment {
      *
      * @param name 2011 Local Authority District Name
      * @return A set of all 2011 Middle Layer Super Output Area Codes in the
-     * 2011 Local Authority given by {@code name}.
+     * 2011 Local Authority given by {@code name}. For a read only list that is
+     * not copied use {@link #get2011Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2011MSOACodes(String name) throws IOException {
-        c11LUTs = getC11LUTs();
-        if (c11LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c11LUTs.LADNAME2LADID.get(name);
-            Set<Census_MSOAID> s = c11LUTs.LADID2MSOAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size()
-                    + " 2011 Middle Layer Super Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_MSOAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                r.add(c11LUTs.MSOAID2MSOA.get(ite.next()));
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2011Codes(Level.MSOA, name));
     }
 
     /**
@@ -205,27 +440,12 @@ public class Census_Environment {
      *
      * @param name 2011 Local Authority District Name
      * @return A set of all 2001 Output Area Codes in the 2011 Local Authority
-     * given by {@code name}.
+     * given by {@code name}. For a read only list that is not copied use
+     * {@link #get2001Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2001OACodes(String name) throws IOException {
-        c01LUTs = getC01LUTs();
-        if (c01LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c01LUTs.LADNAME2LADID.get(name);
-            Set<Census_2001_OAID> s = c01LUTs.LADID2OAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size() + " 2001 Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_2001_OAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                String oa = c01LUTs.OAID2OA.get(ite.next());
-                r.add(oa);
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2001Codes(Level.OA, name));
     }
 
     /**
@@ -234,27 +454,12 @@ public class Census_Environment {
      *
      * @param name 2011 Local Authority District Name
      * @return A set of all 2001 Lower Layer Super Output Area Codes in the 2011
-     * Local Authority given by {@code name}.
+     * Local Authority given by {@code name}. For a read only list that is not
+     * copied use {@link #get2001Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2001LSOACodes(String name) throws IOException {
-        c01LUTs = getC01LUTs();
-        if (c01LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c01LUTs.LADNAME2LADID.get(name);
-            Set<Census_2001_LSOAID> s = c01LUTs.LADID2LSOAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size()
-                    + " 2001 Lower Layer Super Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_2001_LSOAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                r.add(c01LUTs.LSOAID2LSOA.get(ite.next()));
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2001Codes(Level.LSOA, name));
     }
 
     /**
@@ -262,27 +467,12 @@ public class Census_Environment {
      * Authority given by {@code name}.
      *
      * @param name 2011 Local Authority District Name
-     * @return A set of all 2001 Lower Layer Super Output Area Codes in the 2011
-     * Local Authority given by {@code name}.
+     * @return A set of all 2001 Middle Layer Super Output Area Codes in the
+     * 2011 Local Authority given by {@code name}. For a read only list that is
+     * not copied use {@link #get2001Codes(Level, String)}.
      * @throws java.io.IOException
      */
     public HashSet<String> get2001MSOACodes(String name) throws IOException {
-        c01LUTs = getC01LUTs();
-        if (c01LUTs.LADNAME2LADID.containsKey(name)) {
-            Census_2011_LADID ladid = c01LUTs.LADNAME2LADID.get(name);
-            Set<Census_MSOAID> s = c01LUTs.LADID2MSOAIDs.get(ladid);
-            HashSet<String> r = new HashSet<>();
-            de.env.log("There are " + s.size()
-                    + " 2001 Middle Layer Super Output Areas in "
-                    + name + " Local Authority District.");
-            Iterator<Census_MSOAID> ite = s.iterator();
-            while (ite.hasNext()) {
-                r.add(c01LUTs.MSOAID2MSOA.get(ite.next()));
-            }
-            return r;
-        } else {
-            throw new IOException("Local Authority District Name " + name
-                    + " not recognised.");
-        }
+        return new HashSet<>(get2001Codes(Level.MSOA, name));
     }
 }
@@ -26,19 +26,37 @@ import uk.ac.leeds.ccg.data.census.data.id.Census_AreaID;
  */
 public abstract class Census_AreaRecord extends Census_Record {
     
-    public String zoneCode;
+    /**
+     * The zone code packed (see {@link Census_ZoneCode}).
+     */
+    public long zoneCode;
     public Census_AreaID zoneID;
     
     public Census_AreaRecord(Data_RecordID rID) {
         super(rID);
     }
     
+    /**
+     * @return The zone code.
+     */
+    public String getZoneCode() {
+        return Census_ZoneCode.decode(zoneCode);
+    }
+
+    /**
+     * @param zoneCode The zone code.
+     * @throws IllegalArgumentException If {@code zoneCode} cannot be packed.
+     */
+    public void setZoneCode(CharSequence zoneCode) {
+        this.zoneCode = Census_ZoneCode.parse(zoneCode, 0, zoneCode.length());
+    }
+
     /**
      * @return A String representation of this.
      */
     @Override
     public String toString() {
-        return super.toString() + ", zoneCode=" + this.zoneCode;
+        return super.toString() + ", zoneCode=" + getZoneCode();
     }
     
     /**
@@ -46,7 +64,7 @@ public abstract class Census_AreaRecord extends Census_Record {
      */
     @Override
     public String toCSV() {
-        return super.toCSV() + "," + this.zoneCode;
+        return super.toCSV() + "," + getZoneCode();
     }
         
     /**
@@ -55,6 +73,6 @@ public abstract class Census_AreaRecord extends Census_Record {
      */
     @Override
     public String toCSVHeader() {
-        return super.toCSV() + ",zoneCode";
+        return super.toCSVHeader() + ",zoneCode";
     }
 }
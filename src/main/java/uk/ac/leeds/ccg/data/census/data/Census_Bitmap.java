@@ -0,0 +1,648 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable compressed set of non-negative ints such as row indexes. The
+ * ints are split into chunks of 65536 by their high 16 bits. Each chunk that
+ * is not empty has a container: a sorted {@code char[]} of the low 16 bits if
+ * there are at most {@link #ARRAY_MAX} ints in the chunk, otherwise a
+ * {@code long[]} of 1024 words with a bit for each int. Sparse sets take 2
+ * bytes an int and dense sets take 1 bit an int.
+ *
+ * Bitmaps are combined with {@link #and(Census_Bitmap)},
+ * {@link #or(Census_Bitmap)}, {@link #andNot(Census_Bitmap)} and
+ * {@link #not(int)}. These work a container at a time, so only chunks in both
+ * bitmaps are visited for {@link #and(Census_Bitmap)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_Bitmap {
+
+    /**
+     * The most ints in a {@code char[]} container.
+     */
+    public static final int ARRAY_MAX = 4096;
+
+    /**
+     * The number of words in a {@code long[]} container.
+     */
+    private static final int WORDS = 1024;
+
+    /**
+     * A {@code long[]} container with every bit set. Containers are never
+     * changed once built so this is shared.
+     */
+    private static final long[] FULL = fill(new long[WORDS], 0, WORDS * 64);
+
+    /**
+     * An empty bitmap.
+     */
+    public static final Census_Bitmap EMPTY = new Census_Bitmap(new char[0],
+            new Object[0], new int[0], 0);
+
+    /**
+     * The high 16 bits of each chunk in ascending order.
+     */
+    protected final char[] keys;
+
+    /**
+     * The container for each of {@link #keys}: a {@code char[]} or a
+     * {@code long[]}.
+     */
+    protected final Object[] containers;
+
+    /**
+     * The number of ints in each container.
+     */
+    protected final int[] cardinalities;
+
+    /**
+     * The number of chunks.
+     */
+    protected final int size;
+
+    /**
+     * @param keys What {@link #keys} is set to.
+     * @param containers What {@link #containers} is set to.
+     * @param cardinalities What {@link #cardinalities} is set to.
+     * @param size What {@link #size} is set to.
+     */
+    protected Census_Bitmap(char[] keys, Object[] containers,
+            int[] cardinalities, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.cardinalities = cardinalities;
+        this.size = size;
+    }
+
+    /**
+     * For building a bitmap from ints added in ascending order.
+     */
+    public static class Builder {
+
+        private char[] keys = new char[4];
+
+        private Object[] containers = new Object[4];
+
+        private int[] cardinalities = new int[4];
+
+        private int size;
+
+        private int key = -1;
+
+        private char[] array = new char[ARRAY_MAX];
+
+        private long[] bits;
+
+        private int n;
+
+        private int last = -1;
+
+        /**
+         * @param i The int to add. This must be greater than the last int
+         * added.
+         */
+        public void add(int i) {
+            if (i <= last) {
+                throw new IllegalArgumentException(i + " is not more than "
+                        + last);
+            }
+            last = i;
+            int k = i >>> 16;
+            if (k != key) {
+                flush();
+                key = k;
+            }
+            char low = (char) i;
+            if (bits != null) {
+                bits[low >>> 6] |= 1L << low;
+            } else if (n == ARRAY_MAX) {
+                bits = new long[WORDS];
+                for (int j = 0; j < n; j++) {
+                    bits[array[j] >>> 6] |= 1L << array[j];
+                }
+                bits[low >>> 6] |= 1L << low;
+            } else {
+                array[n] = low;
+            }
+            n++;
+        }
+
+        private void flush() {
+            if (n == 0) {
+                return;
+            }
+            Object c = bits == null ? Arrays.copyOf(array, n) : bits;
+            append(key, c, n);
+            bits = null;
+            n = 0;
+        }
+
+        private void append(int k, Object c, int card) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                containers = Arrays.copyOf(containers, size * 2);
+                cardinalities = Arrays.copyOf(cardinalities, size * 2);
+            }
+            keys[size] = (char) k;
+            containers[size] = c;
+            cardinalities[size] = card;
+            size++;
+        }
+
+        /**
+         * @return A new bitmap of the ints added.
+         */
+        public Census_Bitmap build() {
+            flush();
+            key = -1;
+            return new Census_Bitmap(Arrays.copyOf(keys, size),
+                    Arrays.copyOf(containers, size),
+                    Arrays.copyOf(cardinalities, size), size);
+        }
+    }
+
+    /**
+     * @param ints The ints in any order. Repeats are ignored.
+     * @return A new bitmap of {@code ints}.
+     */
+    public static Census_Bitmap of(int... ints) {
+        int[] s = ints.clone();
+        Arrays.sort(s);
+        Builder b = new Builder();
+        for (int i = 0; i < s.length; i++) {
+            if (i == 0 || s[i] != s[i - 1]) {
+                b.add(s[i]);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * @param bs The bit set.
+     * @return A new bitmap of the bits set in {@code bs}.
+     */
+    public static Census_Bitmap of(BitSet bs) {
+        Builder b = new Builder();
+        for (int i = bs.nextSetBit(0); i >= 0; i = bs.nextSetBit(i + 1)) {
+            b.add(i);
+        }
+        return b.build();
+    }
+
+    /**
+     * @param start The first int.
+     * @param end The int after the last.
+     * @return A new bitmap of the ints from {@code start} to {@code end}.
+     */
+    public static Census_Bitmap range(int start, int end) {
+        Builder b = new Builder();
+        for (int i = start; i < end;) {
+            int key = i >>> 16;
+            int e = (int) Math.min(end, (key + 1L) << 16);
+            appendRange(key, i & 0xFFFF, e - (key << 16), b);
+            i = e;
+        }
+        return b.build();
+    }
+
+    /**
+     * @return The number of ints.
+     */
+    public int getCardinality() {
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            r += cardinalities[i];
+        }
+        return r;
+    }
+
+    /**
+     * @return {@code true} if there are no ints.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return The number of bytes used by the containers.
+     */
+    public long getByteCount() {
+        long r = size * 8L;
+        for (int i = 0; i < size; i++) {
+            Object c = containers[i];
+            r += c instanceof long[] ? WORDS * 8L : ((char[]) c).length * 2L;
+        }
+        return r;
+    }
+
+    /**
+     * @param i The int.
+     * @return {@code true} if {@code i} is in this.
+     */
+    public boolean contains(int i) {
+        if (i < 0) {
+            return false;
+        }
+        int k = Arrays.binarySearch(keys, 0, size, (char) (i >>> 16));
+        if (k < 0) {
+            return false;
+        }
+        return contains(containers[k], (char) i);
+    }
+
+    private static boolean contains(Object c, char low) {
+        if (c instanceof long[]) {
+            return (((long[]) c)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) c, low) >= 0;
+    }
+
+    /**
+     * @param o The other bitmap.
+     * @return A new bitmap of the ints in both this and {@code o}.
+     */
+    public Census_Bitmap and(Census_Bitmap o) {
+        Builder b = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < o.size) {
+            if (keys[i] < o.keys[j]) {
+                i++;
+            } else if (keys[i] > o.keys[j]) {
+                j++;
+            } else {
+                and(containers[i], o.containers[j], keys[i], b);
+                i++;
+                j++;
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * @param o The other bitmap.
+     * @return A new bitmap of the ints in this or {@code o}.
+     */
+    public Census_Bitmap or(Census_Bitmap o) {
+        Builder b = new Builder();
+        int i = 0;
+        int j = 0;
+        while (i < size || j < o.size) {
+            if (j == o.size || (i < size && keys[i] < o.keys[j])) {
+                b.append(keys[i], containers[i], cardinalities[i]);
+                i++;
+            } else if (i == size || keys[i] > o.keys[j]) {
+                b.append(o.keys[j], o.containers[j], o.cardinalities[j]);
+                j++;
+            } else {
+                or(containers[i], o.containers[j], keys[i], b);
+                i++;
+                j++;
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * @param o The other bitmap.
+     * @return A new bitmap of the ints in this that are not in {@code o}.
+     */
+    public Census_Bitmap andNot(Census_Bitmap o) {
+        Builder b = new Builder();
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < o.size && o.keys[j] < keys[i]) {
+                j++;
+            }
+            if (j < o.size && o.keys[j] == keys[i]) {
+                andNot(containers[i], o.containers[j], keys[i], b);
+            } else {
+                b.append(keys[i], containers[i], cardinalities[i]);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * @param n The number of rows.
+     * @return A new bitmap of the ints from 0 to {@code n} not in this.
+     */
+    public Census_Bitmap not(int n) {
+        Builder b = new Builder();
+        int j = 0;
+        for (int i = 0; i < n;) {
+            int key = i >>> 16;
+            int e = (int) Math.min(n, (key + 1L) << 16);
+            int hi = e - (key << 16);
+            while (j < size && keys[j] < key) {
+                j++;
+            }
+            if (j < size && keys[j] == key) {
+                long[] r = fill(new long[WORDS], 0, hi);
+                Object c = containers[j];
+                if (c instanceof long[]) {
+                    long[] q = (long[]) c;
+                    for (int w = 0; w < WORDS; w++) {
+                        r[w] &= ~q[w];
+                    }
+                } else {
+                    for (char low : (char[]) c) {
+                        r[low >>> 6] &= ~(1L << low);
+                    }
+                }
+                append(key, r, b);
+            } else {
+                appendRange(key, 0, hi, b);
+            }
+            i = e;
+        }
+        return b.build();
+    }
+
+    /**
+     * Sets the bits from {@code lo} to {@code hi - 1} a word at a time.
+     *
+     * @param bits The words.
+     * @param lo The first bit.
+     * @param hi The bit after the last. This must be more than {@code lo}.
+     * @return {@code bits}.
+     */
+    private static long[] fill(long[] bits, int lo, int hi) {
+        int first = lo >>> 6;
+        int last = (hi - 1) >>> 6;
+        if (first == last) {
+            bits[first] |= (-1L << lo) & (-1L >>> -hi);
+        } else {
+            bits[first] |= -1L << lo;
+            Arrays.fill(bits, first + 1, last, -1L);
+            bits[last] |= -1L >>> -hi;
+        }
+        return bits;
+    }
+
+    /**
+     * Appends a container of the low 16 bits from {@code lo} to
+     * {@code hi - 1} to {@code b}.
+     */
+    private static void appendRange(int key, int lo, int hi, Builder b) {
+        int card = hi - lo;
+        if (card == WORDS * 64) {
+            b.append(key, FULL, card);
+        } else if (card > ARRAY_MAX) {
+            b.append(key, fill(new long[WORDS], lo, hi), card);
+        } else {
+            char[] a = new char[card];
+            for (int i = 0; i < card; i++) {
+                a[i] = (char) (lo + i);
+            }
+            b.append(key, a, card);
+        }
+    }
+
+    private static long[] toBits(Object c) {
+        if (c instanceof long[]) {
+            return (long[]) c;
+        }
+        long[] r = new long[WORDS];
+        for (char low : (char[]) c) {
+            r[low >>> 6] |= 1L << low;
+        }
+        return r;
+    }
+
+    /**
+     * Appends {@code bits} to {@code b} as a {@code char[]} container if it
+     * is small enough.
+     */
+    private static void append(int key, long[] bits, Builder b) {
+        int card = 0;
+        for (long w : bits) {
+            card += Long.bitCount(w);
+        }
+        if (card == 0) {
+            return;
+        }
+        if (card > ARRAY_MAX) {
+            b.append(key, bits, card);
+            return;
+        }
+        char[] a = new char[card];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                a[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        b.append(key, a, card);
+    }
+
+    private static void and(Object x, Object y, int key, Builder b) {
+        if (x instanceof char[] || y instanceof char[]) {
+            char[] a = (char[]) (x instanceof char[] ? x : y);
+            Object o = a == x ? y : x;
+            char[] r = new char[a.length];
+            int n = 0;
+            for (char low : a) {
+                if (contains(o, low)) {
+                    r[n++] = low;
+                }
+            }
+            if (n > 0) {
+                b.append(key, Arrays.copyOf(r, n), n);
+            }
+            return;
+        }
+        long[] p = (long[]) x;
+        long[] q = (long[]) y;
+        long[] r = new long[WORDS];
+        for (int w = 0; w < WORDS; w++) {
+            r[w] = p[w] & q[w];
+        }
+        append(key, r, b);
+    }
+
+    private static void or(Object x, Object y, int key, Builder b) {
+        if (x instanceof char[] && y instanceof char[]) {
+            char[] p = (char[]) x;
+            char[] q = (char[]) y;
+            char[] r = new char[p.length + q.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < p.length || j < q.length) {
+                if (j == q.length || (i < p.length && p[i] < q[j])) {
+                    r[n++] = p[i++];
+                } else if (i == p.length || p[i] > q[j]) {
+                    r[n++] = q[j++];
+                } else {
+                    r[n++] = p[i++];
+                    j++;
+                }
+            }
+            if (n > ARRAY_MAX) {
+                append(key, toBits(Arrays.copyOf(r, n)), b);
+            } else {
+                b.append(key, Arrays.copyOf(r, n), n);
+            }
+            return;
+        }
+        long[] r = toBits(x).clone();
+        long[] q = toBits(y);
+        for (int w = 0; w < WORDS; w++) {
+            r[w] |= q[w];
+        }
+        append(key, r, b);
+    }
+
+    private static void andNot(Object x, Object y, int key, Builder b) {
+        if (x instanceof char[]) {
+            char[] a = (char[]) x;
+            char[] r = new char[a.length];
+            int n = 0;
+            for (char low : a) {
+                if (!contains(y, low)) {
+                    r[n++] = low;
+                }
+            }
+            if (n > 0) {
+                b.append(key, Arrays.copyOf(r, n), n);
+            }
+            return;
+        }
+        long[] r = ((long[]) x).clone();
+        long[] q = toBits(y);
+        for (int w = 0; w < WORDS; w++) {
+            r[w] &= ~q[w];
+        }
+        append(key, r, b);
+    }
+
+    /**
+     * @return An iterator over the ints in ascending order.
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int k = -1;
+
+            private int i;
+
+            private int next = -1;
+
+            {
+                advance();
+            }
+
+            private void advance() {
+                while (true) {
+                    if (k >= 0 && k < size) {
+                        Object c = containers[k];
+                        int high = keys[k] << 16;
+                        if (c instanceof char[]) {
+                            char[] a = (char[]) c;
+                            if (i < a.length) {
+                                next = high | a[i++];
+                                return;
+                            }
+                        } else {
+                            long[] bits = (long[]) c;
+                            while (i < WORDS * 64) {
+                                int w = i >>> 6;
+                                long word = bits[w] & (-1L << i);
+                                if (word != 0) {
+                                    int low = (w << 6)
+                                            + Long.numberOfTrailingZeros(word);
+                                    i = low + 1;
+                                    next = high | low;
+                                    return;
+                                }
+                                i = (w + 1) << 6;
+                            }
+                        }
+                    }
+                    k++;
+                    i = 0;
+                    if (k >= size) {
+                        next = -1;
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int r = next;
+                advance();
+                return r;
+            }
+        };
+    }
+
+    /**
+     * @return A stream of the ints in ascending order.
+     */
+    public IntStream stream() {
+        return StreamSupport.intStream(Spliterators.spliterator(iterator(),
+                getCardinality(), Spliterator.ORDERED | Spliterator.SORTED
+                | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * @return The ints in ascending order.
+     */
+    public int[] toArray() {
+        int[] r = new int[getCardinality()];
+        PrimitiveIterator.OfInt ite = iterator();
+        for (int i = 0; i < r.length; i++) {
+            r[i] = ite.nextInt();
+        }
+        return r;
+    }
+
+    /**
+     * @return A new bit set of the ints.
+     */
+    public BitSet toBitSet() {
+        BitSet r = new BitSet();
+        PrimitiveIterator.OfInt ite = iterator();
+        while (ite.hasNext()) {
+            r.set(ite.nextInt());
+        }
+        return r;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * For getting the numeric cells of a type of {@link Census_AreaRecord}. The
+ * cells are the int fields of the record class named in its
+ * {@value #CELLS} array, in that order. The order is given explicitly rather
+ * than taken from reflection as the order of
+ * {@link Class#getDeclaredFields()} is not specified. The fields are found
+ * once for each class. Cells are got and set as ints, so a record class with
+ * double cells (such as
+ * {@link uk.ac.leeds.ccg.data.census.data.cas.Census_ZoneCodeAreaEastingNorthingRecord})
+ * is rejected rather than having those cells left out.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <R> The type of record.
+ */
+public class Census_Cells<R extends Census_AreaRecord> {
+
+    /**
+     * The name of the {@code public static final String[]} field of a record
+     * class with the names of its cell fields in order.
+     */
+    public static final String CELLS = "CELLS";
+
+    private static final ClassValue<Census_Cells<?>> CACHE
+            = new ClassValue<Census_Cells<?>>() {
+        @Override
+        protected Census_Cells<?> computeValue(Class<?> c) {
+            return new Census_Cells<>(c);
+        }
+    };
+
+    /**
+     * The int fields in the order of the {@value #CELLS} array.
+     */
+    protected final Field[] fields;
+
+    /**
+     * The names of {@link #fields}.
+     */
+    protected final String[] names;
+
+    private Census_Cells(Class<?> c) {
+        fields = getFields(c);
+        for (Field f : fields) {
+            if (f.getType() != int.class) {
+                throw new IllegalArgumentException(f.getName() + " in "
+                        + c.getName() + " is a double cell and only int "
+                        + "cells are supported");
+            }
+            f.setAccessible(true);
+        }
+        names = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            names[i] = fields[i].getName();
+        }
+    }
+
+    /**
+     * @param c A record class.
+     * @return The int and double fields of {@code c} in the order they are
+     * named in its {@value #CELLS} array.
+     * @throws IllegalArgumentException If {@code c} does not declare the
+     * array, if a name in it is not an int or double field of {@code c}, or
+     * if an int or double field of {@code c} is not named in it.
+     */
+    public static Field[] getFields(Class<?> c) {
+        String[] cells;
+        try {
+            Field f = c.getDeclaredField(CELLS);
+            if (!Modifier.isStatic(f.getModifiers())
+                    || f.getType() != String[].class) {
+                throw new IllegalArgumentException(c.getName() + "." + CELLS
+                        + " is not a static String[]");
+            }
+            f.setAccessible(true);
+            cells = (String[]) f.get(null);
+        } catch (NoSuchFieldException | IllegalAccessException ex) {
+            throw new IllegalArgumentException(c.getName()
+                    + " does not declare " + CELLS, ex);
+        }
+        Field[] r = new Field[cells.length];
+        Set<String> s = new HashSet<>();
+        for (int i = 0; i < cells.length; i++) {
+            try {
+                r[i] = c.getDeclaredField(cells[i]);
+            } catch (NoSuchFieldException ex) {
+                throw new IllegalArgumentException("No field " + cells[i]
+                        + " in " + c.getName(), ex);
+            }
+            if (!isCell(r[i]) || !s.add(cells[i])) {
+                throw new IllegalArgumentException(cells[i] + " in "
+                        + c.getName() + "." + CELLS + " is repeated or is "
+                        + "not an int or double field");
+            }
+        }
+        for (Field f : c.getDeclaredFields()) {
+            if (isCell(f) && !s.contains(f.getName())) {
+                throw new IllegalArgumentException(f.getName() + " is not in "
+                        + c.getName() + "." + CELLS);
+            }
+        }
+        return r;
+    }
+
+    private static boolean isCell(Field f) {
+        return (f.getType() == int.class || f.getType() == double.class)
+                && !Modifier.isStatic(f.getModifiers());
+    }
+
+    /**
+     * @param <R> The type of record.
+     * @param c The record class.
+     * @return The cells of {@code c}.
+     * @throws IllegalArgumentException If {@code c} does not name its cells
+     * (see {@link #getFields(Class)}) or has a double cell.
+     */
+    @SuppressWarnings("unchecked")
+    public static <R extends Census_AreaRecord> Census_Cells<R> of(
+            Class<R> c) {
+        return (Census_Cells<R>) CACHE.get(c);
+    }
+
+    /**
+     * @return The number of cells.
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * @return A copy of the names of the cells.
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * @param r The record.
+     * @param cells For the cells of {@code r}. The length must be at least
+     * {@link #size()}.
+     */
+    public void get(R r, int[] cells) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                cells[i] = fields[i].getInt(r);
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param r The record.
+     * @param cells The values the cells of {@code r} are set to.
+     */
+    public void set(R r, int[] cells) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].setInt(r, cells[i]);
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param r The record.
+     * @param cols Columns: {@code cols[cell][row]}. Columns that are
+     * {@code null} are skipped.
+     * @param row The row of {@code cols} to set from the cells of {@code r}.
+     */
+    public void get(R r, int[][] cols, int row) {
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                if (cols[i] != null) {
+                    cols[i][row] = fields[i].getInt(r);
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * @param r The record.
+     * @param cols Columns: {@code cols[cell][row]}.
+     * @param row The row of {@code cols} the cells of {@code r} are set to.
+     * @throws IllegalArgumentException If a column is {@code null}. No cells
+     * of {@code r} are set in this case.
+     */
+    public void set(R r, int[][] cols, int row) {
+        for (int i = 0; i < fields.length; i++) {
+            if (cols[i] == null) {
+                throw new IllegalArgumentException("No column for "
+                        + names[i]);
+            }
+        }
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                fields[i].setInt(r, cols[i][row]);
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
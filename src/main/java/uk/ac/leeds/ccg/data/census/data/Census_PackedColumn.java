@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A column of short values stored as codes into a {@link #dictionary} of the
+ * distinct values. Each code is packed into {@link #bits} bits of
+ * {@link #packed}, so a column with 2 distinct values takes 1 bit a row, one
+ * with 16 distinct values takes 4 bits a row and so on. A column with only one
+ * distinct value takes no bits a row.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_PackedColumn {
+
+    /**
+     * The distinct values in ascending order. The code of a value is its
+     * index.
+     */
+    protected final short[] dictionary;
+
+    /**
+     * The number of bits for each code.
+     */
+    protected final int bits;
+
+    /**
+     * The packed codes.
+     */
+    protected final long[] packed;
+
+    /**
+     * The number of rows.
+     */
+    protected final int size;
+
+    /**
+     * @param dictionary What {@link #dictionary} is set to.
+     * @param bits What {@link #bits} is set to.
+     * @param packed What {@link #packed} is set to.
+     * @param size What {@link #size} is set to.
+     */
+    protected Census_PackedColumn(short[] dictionary, int bits, long[] packed,
+            int size) {
+        this.dictionary = dictionary;
+        this.bits = bits;
+        this.packed = packed;
+        this.size = size;
+    }
+
+    /**
+     * @param values The values.
+     * @param n The number of values in {@code values} to pack.
+     * @return A new column of the first {@code n} of {@code values}.
+     */
+    public static Census_PackedColumn of(short[] values, int n) {
+        boolean[] seen = new boolean[1 << 16];
+        int card = 0;
+        for (int i = 0; i < n; i++) {
+            int v = values[i] - Short.MIN_VALUE;
+            if (!seen[v]) {
+                seen[v] = true;
+                card++;
+            }
+        }
+        short[] d = new short[card];
+        int[] codes = new int[1 << 16];
+        for (int v = 0, c = 0; v < seen.length; v++) {
+            if (seen[v]) {
+                codes[v] = c;
+                d[c++] = (short) (v + Short.MIN_VALUE);
+            }
+        }
+        int b = card > 1 ? 32 - Integer.numberOfLeadingZeros(card - 1) : 0;
+        long[] p = new long[(int) (((long) n * b + 63) >>> 6)];
+        if (b > 0) {
+            for (int i = 0; i < n; i++) {
+                long code = codes[values[i] - Short.MIN_VALUE];
+                long o = (long) i * b;
+                int w = (int) (o >>> 6);
+                int s = (int) (o & 63);
+                p[w] |= code << s;
+                if (s + b > 64) {
+                    p[w + 1] |= code >>> (64 - s);
+                }
+            }
+        }
+        return new Census_PackedColumn(d, b, p, n);
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bits for each code.
+     */
+    public int getBits() {
+        return bits;
+    }
+
+    /**
+     * @return The number of distinct values.
+     */
+    public int getCardinality() {
+        return dictionary.length;
+    }
+
+    /**
+     * @return A copy of the distinct values in ascending order.
+     */
+    public short[] getDictionary() {
+        return dictionary.clone();
+    }
+
+    /**
+     * @return The number of bytes used for the codes and dictionary.
+     */
+    public long getByteCount() {
+        return packed.length * 8L + dictionary.length * 2L;
+    }
+
+    /**
+     * @param row The row.
+     * @return The code of {@code row}.
+     */
+    public int getCode(int row) {
+        if (bits == 0) {
+            return 0;
+        }
+        long o = (long) row * bits;
+        int w = (int) (o >>> 6);
+        int s = (int) (o & 63);
+        long r = packed[w] >>> s;
+        if (s + bits > 64) {
+            r |= packed[w + 1] << (64 - s);
+        }
+        return (int) r & ((1 << bits) - 1);
+    }
+
+    /**
+     * @param row The row.
+     * @return The value of {@code row}.
+     */
+    public short get(int row) {
+        return dictionary[getCode(row)];
+    }
+
+    /**
+     * @param value The value.
+     * @return The code of {@code value} or -1 if it is not in the column.
+     */
+    public int indexOf(short value) {
+        int r = Arrays.binarySearch(dictionary, value);
+        return r < 0 ? -1 : r;
+    }
+
+    /**
+     * @return The number of rows with each code.
+     */
+    public int[] getCounts() {
+        int[] r = new int[dictionary.length];
+        if (bits == 0) {
+            if (r.length > 0) {
+                r[0] = size;
+            }
+            return r;
+        }
+        for (int i = 0; i < size; i++) {
+            r[getCode(i)]++;
+        }
+        return r;
+    }
+
+    /**
+     * @param value The value.
+     * @return The number of rows with {@code value}.
+     */
+    public int count(short value) {
+        int code = indexOf(value);
+        if (code < 0) {
+            return 0;
+        }
+        if (bits == 0) {
+            return size;
+        }
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            if (getCode(i) == code) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param value The value.
+     * @return The rows with {@code value}.
+     */
+    public BitSet select(short value) {
+        BitSet r = new BitSet(size);
+        int code = indexOf(value);
+        if (code < 0) {
+            return r;
+        }
+        if (bits == 0) {
+            r.set(0, size);
+            return r;
+        }
+        for (int i = 0; i < size; i++) {
+            if (getCode(i) == code) {
+                r.set(i);
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+/**
+ * For packing census zone codes into a {@code long}. Codes such as
+ * {@code E00000001}, {@code W06000015} and the 2001 style {@code 00AAFA0001}
+ * are up to {@link #MAX_LENGTH} letters and digits. Each character is
+ * packed as a base 37 digit with 0 used for padding on the right. So packed
+ * codes sort in the same order as the codes and decoding needs no lookup.
+ * Letters are packed as upper case.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ZoneCode {
+
+    /**
+     * The maximum length of a code that can be packed.
+     */
+    public static final int MAX_LENGTH = 12;
+
+    /**
+     * The value returned by the encode methods for something that is not a
+     * code.
+     */
+    public static final long INVALID = -1L;
+
+    private static final int RADIX = 37;
+
+    private Census_ZoneCode() {
+    }
+
+    /**
+     * @param c A character.
+     * @return The base 37 digit for c or -1 if {@code c} is not a letter or
+     * digit.
+     */
+    private static int digit(int c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 1;
+        } else if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 11;
+        } else if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 11;
+        }
+        return -1;
+    }
+
+    /**
+     * @param s The code.
+     * @return {@code s} packed or {@link #INVALID}.
+     */
+    public static long encode(CharSequence s) {
+        return encode(s, 0, s.length());
+    }
+
+    /**
+     * @param s A sequence containing the code.
+     * @param start The index of the first character of the code.
+     * @param end The index after the last character of the code.
+     * @return The code packed or {@link #INVALID}.
+     */
+    public static long encode(CharSequence s, int start, int end) {
+        int n = end - start;
+        if (n < 1 || n > MAX_LENGTH) {
+            return INVALID;
+        }
+        long r = 0L;
+        for (int i = start; i < end; i++) {
+            int d = digit(s.charAt(i));
+            if (d < 0) {
+                return INVALID;
+            }
+            r = r * RADIX + d;
+        }
+        return pad(r, n);
+    }
+
+    /**
+     * @param b Bytes containing a code in ASCII.
+     * @param off The index of the first byte of the code.
+     * @param len The number of bytes in the code.
+     * @return The code packed or {@link #INVALID}.
+     */
+    public static long encode(byte[] b, int off, int len) {
+        if (len < 1 || len > MAX_LENGTH) {
+            return INVALID;
+        }
+        long r = 0L;
+        for (int i = off; i < off + len; i++) {
+            int d = digit(b[i]);
+            if (d < 0) {
+                return INVALID;
+            }
+            r = r * RADIX + d;
+        }
+        return pad(r, len);
+    }
+
+    private static long pad(long r, int n) {
+        for (int i = n; i < MAX_LENGTH; i++) {
+            r *= RADIX;
+        }
+        return r;
+    }
+
+    /**
+     * Packs a code that may be padded with whitespace, such as a fixed width
+     * field of a CAS file. Whitespace and double quotes either side of the
+     * code are trimmed, so a shorter quoted code in the field is also read.
+     * Unlike the encode methods this fails rather than returning
+     * {@link #INVALID}.
+     *
+     * @param s A sequence containing the code.
+     * @param start The index of the first character of the code or of the
+     * whitespace before it.
+     * @param end The index after the last character of the code or of the
+     * whitespace after it.
+     * @return The code packed.
+     * @throws IllegalArgumentException If the characters from {@code start}
+     * to {@code end} are not a code once trimmed.
+     */
+    public static long parse(CharSequence s, int start, int end) {
+        while (start < end && isPadding(s.charAt(start))) {
+            start++;
+        }
+        while (end > start && isPadding(s.charAt(end - 1))) {
+            end--;
+        }
+        long r = encode(s, start, end);
+        if (r == INVALID) {
+            throw new IllegalArgumentException("Not a zone code: "
+                    + s.subSequence(start, end));
+        }
+        return r;
+    }
+
+    private static boolean isPadding(char c) {
+        return c <= ' ' || c == '"';
+    }
+
+    /**
+     * @param code A packed code.
+     * @return The code.
+     */
+    public static String decode(long code) {
+        if (code < 0) {
+            return null;
+        }
+        char[] r = new char[MAX_LENGTH];
+        int n = 0;
+        for (int i = MAX_LENGTH - 1; i >= 0; i--) {
+            int d = (int) (code % RADIX);
+            code /= RADIX;
+            if (d == 0) {
+                r[i] = 0;
+            } else {
+                r[i] = (char) (d <= 10 ? '0' + d - 1 : 'A' + d - 11);
+                n++;
+            }
+        }
+        return new String(r, 0, n);
+    }
+
+    /**
+     * Decodes without creating a String.
+     *
+     * @param code A packed code.
+     * @param b For the code in ASCII. There must be room for
+     * {@link #length(long)} bytes from {@code off}.
+     * @param off The index in {@code b} for the first byte of the code.
+     * @return The number of bytes in the code.
+     */
+    public static int decode(long code, byte[] b, int off) {
+        if (code < 0) {
+            return 0;
+        }
+        int n = length(code);
+        for (int i = MAX_LENGTH - n; i > 0; i--) {
+            code /= RADIX;
+        }
+        for (int i = off + n - 1; i >= off; i--) {
+            int d = (int) (code % RADIX);
+            code /= RADIX;
+            b[i] = (byte) (d <= 10 ? '0' + d - 1 : 'A' + d - 11);
+        }
+        return n;
+    }
+
+    /**
+     * @param code A packed code.
+     * @return The number of characters in the code.
+     */
+    public static int length(long code) {
+        int n = MAX_LENGTH;
+        while (n > 0 && code % RADIX == 0) {
+            code /= RADIX;
+            n--;
+        }
+        return n;
+    }
+}
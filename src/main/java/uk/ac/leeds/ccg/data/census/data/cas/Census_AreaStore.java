@@ -0,0 +1,492 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_ZoneCodeIndex;
+
+/**
+ * A CAS table in a fixed width binary file that is memory mapped for random
+ * access. Each row is an area at its dense index (as in the
+ * {@link Census_CASTable} it was written from) and each cell is an
+ * {@code int} at a fixed offset in the row, so a value is read straight from
+ * the mapped buffer and nothing is deserialised. The table is not read onto
+ * the heap and the mapped pages are shared through the page cache by all the
+ * processes on a host that open the file.
+ *
+ * The file has a header with a magic number, a format version, the number of
+ * rows and the names of the cells. Then there are the packed zone codes in
+ * ascending order with the row of each, for looking up a row by binary
+ * search, then the zone code of each row, then the rows. For example:
+ *
+ * <pre>
+ * Census_AreaStore&lt;Census_CASKS017Record&gt; s = Census_AreaStore.open(
+ *         Census_CASKS017Record.class, f);
+ * int v = s.getRow("E00012345").get("householdsWith0CarsOrVans");
+ * </pre>
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <R> The type of record.
+ */
+public class Census_AreaStore<R extends Census_AreaRecord> {
+
+    /**
+     * The magic number at the start of every file.
+     */
+    public static final int MAGIC = 0x43415353;
+
+    /**
+     * The format version. This is to be incremented if the format changes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The number of bytes written to the channel at a time by
+     * {@link #write(Path, Census_CASTable)}.
+     */
+    public static final int CHUNK_SIZE = 1 << 20;
+
+    /**
+     * The cells of the record type.
+     */
+    protected final Census_Cells<R> cells;
+
+    /**
+     * The mapped file.
+     */
+    protected final ByteBuffer b;
+
+    /**
+     * The number of rows.
+     */
+    protected final int rows;
+
+    /**
+     * The number of cells in a row.
+     */
+    protected final int width;
+
+    /**
+     * The position of the sorted zone codes.
+     */
+    protected final int sortedOffset;
+
+    /**
+     * The position of the rows of the sorted zone codes.
+     */
+    protected final int indexOffset;
+
+    /**
+     * The position of the zone code of each row.
+     */
+    protected final int codeOffset;
+
+    /**
+     * The position of the first row.
+     */
+    protected final int dataOffset;
+
+    /**
+     * @param cells What {@link #cells} is set to.
+     * @param b What {@link #b} is set to.
+     * @param rows What {@link #rows} is set to.
+     * @param headerLength The number of bytes in the header.
+     */
+    protected Census_AreaStore(Census_Cells<R> cells, ByteBuffer b, int rows,
+            int headerLength) {
+        this.cells = cells;
+        this.b = b;
+        this.rows = rows;
+        this.width = cells.size();
+        sortedOffset = headerLength;
+        indexOffset = sortedOffset + 8 * rows;
+        codeOffset = indexOffset + 4 * rows;
+        dataOffset = codeOffset + 8 * rows;
+    }
+
+    /**
+     * Writes {@code t} to a temporary file which then replaces {@code f}, so
+     * a partly written file is never opened.
+     *
+     * @param f The file.
+     * @param t The table.
+     * @throws IOException If encountered or if the file would be too big to
+     * map.
+     * @throws IllegalArgumentException If not all the columns of {@code t}
+     * were read.
+     */
+    public static void write(Path f, Census_CASTable<?> t) throws IOException {
+        if (!t.isComplete()) {
+            throw new IllegalArgumentException("Not all the columns of the "
+                    + "table were read");
+        }
+        int n = t.getRowCount();
+        int w = t.getColumnCount();
+        byte[] h = getHeader(n, t.getColumnNames());
+        long size = h.length + 20L * n + 4L * n * w;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Too big to map: " + size + " bytes");
+        }
+        Census_ZoneCodeIndex index = new Census_ZoneCodeIndex(t.zoneCodes);
+        long[] sorted = t.zoneCodes.clone();
+        Arrays.sort(sorted);
+        int[][] cols = new int[w][];
+        for (int c = 0; c < w; c++) {
+            cols[c] = t.requireColumn(c);
+        }
+        Files.createDirectories(f.toAbsolutePath().getParent());
+        Path tmp = Files.createTempFile(f.toAbsolutePath().getParent(),
+                f.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel fc = FileChannel.open(tmp,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer b = ByteBuffer.allocate(CHUNK_SIZE);
+                fc.write(ByteBuffer.wrap(h));
+                for (long code : sorted) {
+                    ensure(fc, b, 8).putLong(code);
+                }
+                for (long code : sorted) {
+                    ensure(fc, b, 4).putInt(index.get(code));
+                }
+                for (long code : t.zoneCodes) {
+                    ensure(fc, b, 8).putLong(code);
+                }
+                for (int row = 0; row < n; row++) {
+                    for (int c = 0; c < w; c++) {
+                        ensure(fc, b, 4).putInt(cols[c][row]);
+                    }
+                }
+                flush(fc, b);
+            }
+            Files.move(tmp, f, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return {@code b} after writing it to {@code fc} if there are not
+     * {@code n} bytes remaining.
+     */
+    private static ByteBuffer ensure(FileChannel fc, ByteBuffer b, int n)
+            throws IOException {
+        if (b.remaining() < n) {
+            flush(fc, b);
+        }
+        return b;
+    }
+
+    private static void flush(FileChannel fc, ByteBuffer b)
+            throws IOException {
+        b.flip();
+        while (b.hasRemaining()) {
+            fc.write(b);
+        }
+        b.clear();
+    }
+
+    private static byte[] getHeader(int rows, String[] names)
+            throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(rows);
+            dos.writeInt(names.length);
+            for (String name : names) {
+                dos.writeUTF(name);
+            }
+            // Pad so the zone codes and rows are aligned.
+            while ((dos.size() + 4) % 8 != 0) {
+                dos.writeByte(0);
+            }
+            dos.writeInt(dos.size() + 4);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Maps a file written by {@link #write(Path, Census_CASTable)}. The
+     * channel is closed once the file is mapped.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @return A new store.
+     * @throws IOException If encountered or if {@code f} is not a complete
+     * store of this version for {@code type}.
+     */
+    public static <R extends Census_AreaRecord> Census_AreaStore<R> open(
+            Class<R> type, Path f) throws IOException {
+        Census_Cells<R> cells = Census_Cells.of(type);
+        MappedByteBuffer b;
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            if (fc.size() > Integer.MAX_VALUE) {
+                throw new IOException(f + " is too big to map");
+            }
+            b = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+        }
+        if (b.remaining() < 16 || b.getInt() != MAGIC
+                || b.getInt() != VERSION) {
+            throw new IOException(f + " is not an area store of version "
+                    + VERSION);
+        }
+        int rows = b.getInt();
+        String[] names = cells.getNames();
+        int w = b.getInt();
+        if (rows < 0 || w != names.length) {
+            throw new IOException(f + " does not have the cells of " + type);
+        }
+        int h;
+        try {
+            for (int c = 0; c < w; c++) {
+                int len = b.getShort() & 0xFFFF;
+                if (len > b.remaining()) {
+                    throw new IOException(f + " is not complete");
+                }
+                byte[] s = new byte[len];
+                b.get(s);
+                if (!names[c].equals(new String(s, StandardCharsets.UTF_8))) {
+                    throw new IOException(f + " does not have the cells of "
+                            + type);
+                }
+            }
+            while (b.position() % 8 != 4) {
+                b.get();
+            }
+            h = b.getInt();
+        } catch (BufferUnderflowException ex) {
+            throw new IOException(f + " is not complete", ex);
+        }
+        if (h != b.position()
+                || (long) h + 20L * rows + 4L * rows * w != b.capacity()) {
+            throw new IOException(f + " is not complete");
+        }
+        return new Census_AreaStore<>(cells, b, rows, h);
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return width;
+    }
+
+    /**
+     * @param name The name of a column.
+     * @return The index of the column or -1 if there is no column called
+     * {@code name}.
+     */
+    public int getColumnIndex(String name) {
+        String[] names = cells.getNames();
+        for (int c = 0; c < names.length; c++) {
+            if (names[c].equals(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param code A packed zone code.
+     * @return The row for {@code code} or -1 if there is none.
+     */
+    public int getRowIndex(long code) {
+        if (code == Census_ZoneCode.INVALID) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = rows - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = b.getLong(sortedOffset + 8 * mid);
+            if (v < code) {
+                lo = mid + 1;
+            } else if (v > code) {
+                hi = mid - 1;
+            } else {
+                return b.getInt(indexOffset + 4 * mid);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param code The zone code.
+     * @return The row for {@code code} or -1 if there is none.
+     */
+    public int getRowIndex(CharSequence code) {
+        return getRowIndex(Census_ZoneCode.encode(code));
+    }
+
+    /**
+     * @param row The row.
+     * @return The packed zone code of {@code row}.
+     */
+    public long getZoneCode(int row) {
+        return b.getLong(codeOffset + 8 * checkRow(row));
+    }
+
+    /**
+     * @param row The row.
+     * @param c The column index.
+     * @return The value of cell {@code c} in {@code row}.
+     */
+    public int get(int row, int c) {
+        if (c < 0 || c >= width) {
+            throw new IndexOutOfBoundsException("Column " + c);
+        }
+        return b.getInt(dataOffset + 4 * (checkRow(row) * width + c));
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= rows) {
+            throw new IndexOutOfBoundsException("Row " + row);
+        }
+        return row;
+    }
+
+    /**
+     * @param row The row.
+     * @param cells For the values of the cells in {@code row}. The length
+     * must be at least {@link #getColumnCount()}.
+     */
+    public void getRow(int row, int[] cells) {
+        int o = dataOffset + 4 * checkRow(row) * width;
+        for (int c = 0; c < width; c++) {
+            cells[c] = b.getInt(o + 4 * c);
+        }
+    }
+
+    /**
+     * @param row The row.
+     * @return A view of {@code row}.
+     */
+    public Row getRow(int row) {
+        return new Row(checkRow(row));
+    }
+
+    /**
+     * @param code The zone code.
+     * @return A view of the row for {@code code} or {@code null} if there is
+     * none.
+     */
+    public Row getRow(CharSequence code) {
+        int row = getRowIndex(code);
+        return row < 0 ? null : new Row(row);
+    }
+
+    /**
+     * For getting a row as a record.
+     *
+     * @param row The row.
+     * @param r The record to set the zone code and cells of. Its ID is not
+     * changed.
+     * @return {@code r}.
+     */
+    public R getRecord(int row, R r) {
+        int[] v = new int[width];
+        getRow(row, v);
+        cells.set(r, v);
+        r.zoneCode = getZoneCode(row);
+        return r;
+    }
+
+    /**
+     * A view of a row that reads from the mapped buffer.
+     */
+    public class Row {
+
+        /**
+         * The row.
+         */
+        protected final int row;
+
+        /**
+         * The position of the row.
+         */
+        protected final int offset;
+
+        /**
+         * @param row What {@link #row} is set to.
+         */
+        protected Row(int row) {
+            this.row = row;
+            this.offset = dataOffset + 4 * row * width;
+        }
+
+        /**
+         * @return {@link #row}.
+         */
+        public int getIndex() {
+            return row;
+        }
+
+        /**
+         * @return The packed zone code.
+         */
+        public long getZoneCode() {
+            return b.getLong(codeOffset + 8 * row);
+        }
+
+        /**
+         * @param c The column index.
+         * @return The value of cell {@code c}.
+         */
+        public int get(int c) {
+            if (c < 0 || c >= width) {
+                throw new IndexOutOfBoundsException("Column " + c);
+            }
+            return b.getInt(offset + 4 * c);
+        }
+
+        /**
+         * @param name The column name.
+         * @return The value of the cell called {@code name}.
+         */
+        public int get(String name) {
+            int c = getColumnIndex(name);
+            if (c < 0) {
+                throw new IllegalArgumentException("No column " + name);
+            }
+            return b.getInt(offset + 4 * c);
+        }
+    }
+}
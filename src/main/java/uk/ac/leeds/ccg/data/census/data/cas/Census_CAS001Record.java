@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 
 /**
@@ -932,6 +933,164 @@ public class Census_CAS001Record extends Census_AreaRecord {
      */
     protected int communalEstablishmentResidentsFemalesAge90AndOver;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allPeople", "householdResidentsMales", "householdResidentsFemales",
+        "communalEstablishmentResidentsMales",
+        "communalEstablishmentResidentsFemales", "allPeopleAge0to4",
+        "householdResidentsMalesAge0to4", "householdResidentsFemalesAge0to4",
+        "communalEstablishmentResidentsMalesAge0to4",
+        "communalEstablishmentResidentsFemalesAge0to4", "allPeopleAge0",
+        "householdResidentsMalesAge0", "householdResidentsFemalesAge0",
+        "communalEstablishmentResidentsMalesAge0",
+        "communalEstablishmentResidentsFemalesAge0", "allPeopleAge1",
+        "householdResidentsMalesAge1", "householdResidentsFemalesAge1",
+        "communalEstablishmentResidentsMalesAge1",
+        "communalEstablishmentResidentsFemalesAge1", "allPeopleAge2",
+        "householdResidentsMalesAge2", "householdResidentsFemalesAge2",
+        "communalEstablishmentResidentsMalesAge2",
+        "communalEstablishmentResidentsFemalesAge2", "allPeopleAge3",
+        "householdResidentsMalesAge3", "householdResidentsFemalesAge3",
+        "communalEstablishmentResidentsMalesAge3",
+        "communalEstablishmentResidentsFemalesAge3", "allPeopleAge4",
+        "householdResidentsMalesAge4", "householdResidentsFemalesAge4",
+        "communalEstablishmentResidentsMalesAge4",
+        "communalEstablishmentResidentsFemalesAge4", "allPeopleAge5to9",
+        "householdResidentsMalesAge5to9", "householdResidentsFemalesAge5to9",
+        "communalEstablishmentResidentsMalesAge5to9",
+        "communalEstablishmentResidentsFemalesAge5to9", "allPeopleAge5",
+        "householdResidentsMalesAge5", "householdResidentsFemalesAge5",
+        "communalEstablishmentResidentsMalesAge5",
+        "communalEstablishmentResidentsFemalesAge5", "allPeopleAge6",
+        "householdResidentsMalesAge6", "householdResidentsFemalesAge6",
+        "communalEstablishmentResidentsMalesAge6",
+        "communalEstablishmentResidentsFemalesAge6", "allPeopleAge7",
+        "householdResidentsMalesAge7", "householdResidentsFemalesAge7",
+        "communalEstablishmentResidentsMalesAge7",
+        "communalEstablishmentResidentsFemalesAge7", "allPeopleAge8",
+        "householdResidentsMalesAge8", "householdResidentsFemalesAge8",
+        "communalEstablishmentResidentsMalesAge8",
+        "communalEstablishmentResidentsFemalesAge8", "allPeopleAge9",
+        "householdResidentsMalesAge9", "householdResidentsFemalesAge9",
+        "communalEstablishmentResidentsMalesAge9",
+        "communalEstablishmentResidentsFemalesAge9", "allPeopleAge10to14",
+        "householdResidentsMalesAge10to14",
+        "householdResidentsFemalesAge10to14",
+        "communalEstablishmentResidentsMalesAge10to14",
+        "communalEstablishmentResidentsFemalesAge10to14", "allPeopleAge10",
+        "householdResidentsMalesAge10", "householdResidentsFemalesAge10",
+        "communalEstablishmentResidentsMalesAge10",
+        "communalEstablishmentResidentsFemalesAge10", "allPeopleAge11",
+        "householdResidentsMalesAge11", "householdResidentsFemalesAge11",
+        "communalEstablishmentResidentsMalesAge11",
+        "communalEstablishmentResidentsFemalesAge11", "allPeopleAge12",
+        "householdResidentsMalesAge12", "householdResidentsFemalesAge12",
+        "communalEstablishmentResidentsMalesAge12",
+        "communalEstablishmentResidentsFemalesAge12", "allPeopleAge13",
+        "householdResidentsMalesAge13", "householdResidentsFemalesAge13",
+        "communalEstablishmentResidentsMalesAge13",
+        "communalEstablishmentResidentsFemalesAge13", "allPeopleAge14",
+        "householdResidentsMalesAge14", "householdResidentsFemalesAge14",
+        "communalEstablishmentResidentsMalesAge14",
+        "communalEstablishmentResidentsFemalesAge14", "allPeopleAge15to19",
+        "householdResidentsMalesAge15to19",
+        "householdResidentsFemalesAge15to19",
+        "communalEstablishmentResidentsMalesAge15to19",
+        "communalEstablishmentResidentsFemalesAge15to19", "allPeopleAge15",
+        "householdResidentsMalesAge15", "householdResidentsFemalesAge15",
+        "communalEstablishmentResidentsMalesAge15",
+        "communalEstablishmentResidentsFemalesAge15", "allPeopleAge16",
+        "householdResidentsMalesAge16", "householdResidentsFemalesAge16",
+        "communalEstablishmentResidentsMalesAge16",
+        "communalEstablishmentResidentsFemalesAge16", "allPeopleAge17",
+        "householdResidentsMalesAge17", "householdResidentsFemalesAge17",
+        "communalEstablishmentResidentsMalesAge17",
+        "communalEstablishmentResidentsFemalesAge17", "allPeopleAge18",
+        "householdResidentsMalesAge18", "householdResidentsFemalesAge18",
+        "communalEstablishmentResidentsMalesAge18",
+        "communalEstablishmentResidentsFemalesAge18", "allPeopleAge19",
+        "householdResidentsMalesAge19", "householdResidentsFemalesAge19",
+        "communalEstablishmentResidentsMalesAge19",
+        "communalEstablishmentResidentsFemalesAge19", "allPeopleAge20to24",
+        "householdResidentsMalesAge20to24",
+        "householdResidentsFemalesAge20to24",
+        "communalEstablishmentResidentsMalesAge20to24",
+        "communalEstablishmentResidentsFemalesAge20to24", "allPeopleAge20",
+        "householdResidentsMalesAge20", "householdResidentsFemalesAge20",
+        "communalEstablishmentResidentsMalesAge20",
+        "communalEstablishmentResidentsFemalesAge20", "allPeopleAge21",
+        "householdResidentsMalesAge21", "householdResidentsFemalesAge21",
+        "communalEstablishmentResidentsMalesAge21",
+        "communalEstablishmentResidentsFemalesAge21", "allPeopleAge22",
+        "householdResidentsMalesAge22", "householdResidentsFemalesAge22",
+        "communalEstablishmentResidentsMalesAge22",
+        "communalEstablishmentResidentsFemalesAge22", "allPeopleAge23",
+        "householdResidentsMalesAge23", "householdResidentsFemalesAge23",
+        "communalEstablishmentResidentsMalesAge23",
+        "communalEstablishmentResidentsFemalesAge23", "allPeopleAge24",
+        "householdResidentsMalesAge24", "householdResidentsFemalesAge24",
+        "communalEstablishmentResidentsMalesAge24",
+        "communalEstablishmentResidentsFemalesAge24", "allPeopleAge25to29",
+        "householdResidentsMalesAge25to29",
+        "householdResidentsFemalesAge25to29",
+        "communalEstablishmentResidentsMalesAge25to29",
+        "communalEstablishmentResidentsFemalesAge25to29", "allPeopleAge30to34",
+        "householdResidentsMalesAge30to34",
+        "householdResidentsFemalesAge30to34",
+        "communalEstablishmentResidentsMalesAge30to34",
+        "communalEstablishmentResidentsFemalesAge30to34", "allPeopleAge35to39",
+        "householdResidentsMalesAge35to39",
+        "householdResidentsFemalesAge35to39",
+        "communalEstablishmentResidentsMalesAge35to39",
+        "communalEstablishmentResidentsFemalesAge35to39", "allPeopleAge40to44",
+        "householdResidentsMalesAge40to44",
+        "householdResidentsFemalesAge40to44",
+        "communalEstablishmentResidentsMalesAge40to44",
+        "communalEstablishmentResidentsFemalesAge40to44", "allPeopleAge45to49",
+        "householdResidentsMalesAge45to49",
+        "householdResidentsFemalesAge45to49",
+        "communalEstablishmentResidentsMalesAge45to49",
+        "communalEstablishmentResidentsFemalesAge45to49", "allPeopleAge50to54",
+        "householdResidentsMalesAge50to54",
+        "householdResidentsFemalesAge50to54",
+        "communalEstablishmentResidentsMalesAge50to54",
+        "communalEstablishmentResidentsFemalesAge50to54", "allPeopleAge55to59",
+        "householdResidentsMalesAge55to59",
+        "householdResidentsFemalesAge55to59",
+        "communalEstablishmentResidentsMalesAge55to59",
+        "communalEstablishmentResidentsFemalesAge55to59", "allPeopleAge60to64",
+        "householdResidentsMalesAge60to64",
+        "householdResidentsFemalesAge60to64",
+        "communalEstablishmentResidentsMalesAge60to64",
+        "communalEstablishmentResidentsFemalesAge60to64", "allPeopleAge65to69",
+        "householdResidentsMalesAge65to69",
+        "householdResidentsFemalesAge65to69",
+        "communalEstablishmentResidentsMalesAge65to69",
+        "communalEstablishmentResidentsFemalesAge65to69", "allPeopleAge70to74",
+        "householdResidentsMalesAge70to74",
+        "householdResidentsFemalesAge70to74",
+        "communalEstablishmentResidentsMalesAge70to74",
+        "communalEstablishmentResidentsFemalesAge70to74", "allPeopleAge75to79",
+        "householdResidentsMalesAge75to79",
+        "householdResidentsFemalesAge75to79",
+        "communalEstablishmentResidentsMalesAge75to79",
+        "communalEstablishmentResidentsFemalesAge75to79", "allPeopleAge80to84",
+        "householdResidentsMalesAge80to84",
+        "householdResidentsFemalesAge80to84",
+        "communalEstablishmentResidentsMalesAge80to84",
+        "communalEstablishmentResidentsFemalesAge80to84", "allPeopleAge85to89",
+        "householdResidentsMalesAge85to89",
+        "householdResidentsFemalesAge85to89",
+        "communalEstablishmentResidentsMalesAge85to89",
+        "communalEstablishmentResidentsFemalesAge85to89",
+        "allPeopleAge90AndOver", "householdResidentsMalesAge90AndOver",
+        "householdResidentsFemalesAge90AndOver",
+        "communalEstablishmentResidentsMalesAge90AndOver",
+        "communalEstablishmentResidentsFemalesAge90AndOver"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -946,11 +1105,14 @@ public class Census_CAS001Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CAS001Record(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table CAS001
         this.allPeople = Integer.valueOf(fields[1]);
         this.householdResidentsMales = Integer.valueOf(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -649,6 +650,78 @@ public class Census_CAS002Record extends Census_AreaRecord {
      */
     protected int femalesSingleAge90AndOver;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allPeopleTotal", "allPeopleMarried", "allPeopleSingle", "malesTotal",
+        "malesMarried", "malesSingle", "femalesTotal", "femalesMarried",
+        "femalesSingle", "allPeopleTotalAge0to15", "allPeopleMarriedAge0to15",
+        "allPeopleSingleAge0to15", "malesTotalAge0to15", "malesMarriedAge0to15",
+        "malesSingleAge0to15", "femalesTotalAge0to15", "femalesMarriedAge0to15",
+        "femalesSingleAge0to15", "allPeopleTotalAge16to19",
+        "allPeopleMarriedAge16to19", "allPeopleSingleAge16to19",
+        "malesTotalAge16to19", "malesMarriedAge16to19", "malesSingleAge16to19",
+        "femalesTotalAge16to19", "femalesMarriedAge16to19",
+        "femalesSingleAge16to19", "allPeopleTotalAge20to24",
+        "allPeopleMarriedAge20to24", "allPeopleSingleAge20to24",
+        "malesTotalAge20to24", "malesMarriedAge20to24", "malesSingleAge20to24",
+        "femalesTotalAge20to24", "femalesMarriedAge20to24",
+        "femalesSingleAge20to24", "allPeopleTotalAge25to29",
+        "allPeopleMarriedAge25to29", "allPeopleSingleAge25to29",
+        "malesTotalAge25to29", "malesMarriedAge25to29", "malesSingleAge25to29",
+        "femalesTotalAge25to29", "femalesMarriedAge25to29",
+        "femalesSingleAge25to29", "allPeopleTotalAge30to34",
+        "allPeopleMarriedAge30to34", "allPeopleSingleAge30to34",
+        "malesTotalAge30to34", "malesMarriedAge30to34", "malesSingleAge30to34",
+        "femalesTotalAge30to34", "femalesMarriedAge30to34",
+        "femalesSingleAge30to34", "allPeopleTotalAge35to39",
+        "allPeopleMarriedAge35to39", "allPeopleSingleAge35to39",
+        "malesTotalAge35to39", "malesMarriedAge35to39", "malesSingleAge35to39",
+        "femalesTotalAge35to39", "femalesMarriedAge35to39",
+        "femalesSingleAge35to39", "allPeopleTotalAge40to44",
+        "allPeopleMarriedAge40to44", "allPeopleSingleAge40to44",
+        "malesTotalAge40to44", "malesMarriedAge40to44", "malesSingleAge40to44",
+        "femalesTotalAge40to44", "femalesMarriedAge40to44",
+        "femalesSingleAge40to44", "allPeopleTotalAge45to49",
+        "allPeopleMarriedAge45to49", "allPeopleSingleAge45to49",
+        "malesTotalAge45to49", "malesMarriedAge45to49", "malesSingleAge45to49",
+        "femalesTotalAge45to49", "femalesMarriedAge45to49",
+        "femalesSingleAge45to49", "allPeopleTotalAge50to54",
+        "allPeopleMarriedAge50to54", "allPeopleSingleAge50to54",
+        "malesTotalAge50to54", "malesMarriedAge50to54", "malesSingleAge50to54",
+        "femalesTotalAge50to54", "femalesMarriedAge50to54",
+        "femalesSingleAge50to54", "allPeopleTotalAge55to59",
+        "allPeopleMarriedAge55to59", "allPeopleSingleAge55to59",
+        "malesTotalAge55to59", "malesMarriedAge55to59", "malesSingleAge55to59",
+        "femalesTotalAge55to59", "femalesMarriedAge55to59",
+        "femalesSingleAge55to59", "allPeopleTotalAge60to64",
+        "allPeopleMarriedAge60to64", "allPeopleSingleAge60to64",
+        "malesTotalAge60to64", "malesMarriedAge60to64", "malesSingleAge60to64",
+        "femalesTotalAge60to64", "femalesMarriedAge60to64",
+        "femalesSingleAge60to64", "allPeopleTotalAge65to74",
+        "allPeopleMarriedAge65to74", "allPeopleSingleAge65to74",
+        "malesTotalAge65to74", "malesMarriedAge65to74", "malesSingleAge65to74",
+        "femalesTotalAge65to74", "femalesMarriedAge65to74",
+        "femalesSingleAge65to74", "allPeopleTotalAge75to79",
+        "allPeopleMarriedAge75to79", "allPeopleSingleAge75to79",
+        "malesTotalAge75to79", "malesMarriedAge75to79", "malesSingleAge75to79",
+        "femalesTotalAge75to79", "femalesMarriedAge75to79",
+        "femalesSingleAge75to79", "allPeopleTotalAge80to84",
+        "allPeopleMarriedAge80to84", "allPeopleSingleAge80to84",
+        "malesTotalAge80to84", "malesMarriedAge80to84", "malesSingleAge80to84",
+        "femalesTotalAge80to84", "femalesMarriedAge80to84",
+        "femalesSingleAge80to84", "allPeopleTotalAge85to89",
+        "allPeopleMarriedAge85to89", "allPeopleSingleAge85to89",
+        "malesTotalAge85to89", "malesMarriedAge85to89", "malesSingleAge85to89",
+        "femalesTotalAge85to89", "femalesMarriedAge85to89",
+        "femalesSingleAge85to89", "allPeopleTotalAge90AndOver",
+        "allPeopleMarriedAge90AndOver", "allPeopleSingleAge90AndOver",
+        "malesTotalAge90AndOver", "malesMarriedAge90AndOver",
+        "malesSingleAge90AndOver", "femalesTotalAge90AndOver",
+        "femalesMarriedAge90AndOver", "femalesSingleAge90AndOver"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -663,11 +736,14 @@ public class Census_CAS002Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CAS002Record(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table CAS002
         this.allPeopleTotal = Math_Integer.parseInt(fields[1]);
         this.allPeopleMarried = Math_Integer.parseInt(fields[2]);
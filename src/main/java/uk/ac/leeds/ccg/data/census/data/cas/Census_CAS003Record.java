@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -447,6 +448,66 @@ public class Census_CAS003Record extends Census_AreaRecord {
      */
     protected int femaleHRPHouseholdsSingleAge85AndOver;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allHouseholdsTotal", "allHouseholdsMarried", "allHouseholdsSingle",
+        "maleHRPHouseholdsTotal", "maleHRPHouseholdsMarried",
+        "maleHRPHouseholdsSingle", "femaleHRPHouseholdsTotal",
+        "femaleHRPHouseholdsMarried", "femaleHRPHouseholdsSingle",
+        "allHouseholdsTotalAge19AndUnder", "allHouseholdsMarriedAge19AndUnder",
+        "allHouseholdsSingleAge19AndUnder",
+        "maleHRPHouseholdsTotalAge19AndUnder",
+        "maleHRPHouseholdsMarriedAge19AndUnder",
+        "maleHRPHouseholdsSingleAge19AndUnder",
+        "femaleHRPHouseholdsTotalAge19AndUnder",
+        "femaleHRPHouseholdsMarriedAge19AndUnder",
+        "femaleHRPHouseholdsSingleAge19AndUnder", "allHouseholdsTotalAge20to24",
+        "allHouseholdsMarriedAge20to24", "allHouseholdsSingleAge20to24",
+        "maleHRPHouseholdsTotalAge20to24", "maleHRPHouseholdsMarriedAge20to24",
+        "maleHRPHouseholdsSingleAge20to24", "femaleHRPHouseholdsTotalAge20to24",
+        "femaleHRPHouseholdsMarriedAge20to24",
+        "femaleHRPHouseholdsSingleAge20to24", "allHouseholdsTotalAge25to29",
+        "allHouseholdsMarriedAge25to29", "allHouseholdsSingleAge25to29",
+        "maleHRPHouseholdsTotalAge25to29", "maleHRPHouseholdsMarriedAge25to29",
+        "maleHRPHouseholdsSingleAge25to29", "femaleHRPHouseholdsTotalAge25to29",
+        "femaleHRPHouseholdsMarriedAge25to29",
+        "femaleHRPHouseholdsSingleAge25to29", "allHouseholdsTotalAge30to44",
+        "allHouseholdsMarriedAge30to44", "allHouseholdsSingleAge30to44",
+        "maleHRPHouseholdsTotalAge30to44", "maleHRPHouseholdsMarriedAge30to44",
+        "maleHRPHouseholdsSingleAge30to44", "femaleHRPHouseholdsTotalAge30to44",
+        "femaleHRPHouseholdsMarriedAge30to44",
+        "femaleHRPHouseholdsSingleAge30to44", "allHouseholdsTotalAge45to59",
+        "allHouseholdsMarriedAge45to59", "allHouseholdsSingleAge45to59",
+        "maleHRPHouseholdsTotalAge45to59", "maleHRPHouseholdsMarriedAge45to59",
+        "maleHRPHouseholdsSingleAge45to59", "femaleHRPHouseholdsTotalAge45to59",
+        "femaleHRPHouseholdsMarriedAge45to59",
+        "femaleHRPHouseholdsSingleAge45to59", "allHouseholdsTotalAge60to64",
+        "allHouseholdsMarriedAge60to64", "allHouseholdsSingleAge60to64",
+        "maleHRPHouseholdsTotalAge60to64", "maleHRPHouseholdsMarriedAge60to64",
+        "maleHRPHouseholdsSingleAge60to64", "femaleHRPHouseholdsTotalAge60to64",
+        "femaleHRPHouseholdsMarriedAge60to64",
+        "femaleHRPHouseholdsSingleAge60to64", "allHouseholdsTotalAge65to74",
+        "allHouseholdsMarriedAge65to74", "allHouseholdsSingleAge65to74",
+        "maleHRPHouseholdsTotalAge65to74", "maleHRPHouseholdsMarriedAge65to74",
+        "maleHRPHouseholdsSingleAge65to74", "femaleHRPHouseholdsTotalAge65to74",
+        "femaleHRPHouseholdsMarriedAge65to74",
+        "femaleHRPHouseholdsSingleAge65to74", "allHouseholdsTotalAge75to84",
+        "allHouseholdsMarriedAge75to84", "allHouseholdsSingleAge75to84",
+        "maleHRPHouseholdsTotalAge75to84", "maleHRPHouseholdsMarriedAge75to84",
+        "maleHRPHouseholdsSingleAge75to84", "femaleHRPHouseholdsTotalAge75to84",
+        "femaleHRPHouseholdsMarriedAge75to84",
+        "femaleHRPHouseholdsSingleAge75to84", "allHouseholdsTotalAge85AndOver",
+        "allHouseholdsMarriedAge85AndOver", "allHouseholdsSingleAge85AndOver",
+        "maleHRPHouseholdsTotalAge85AndOver",
+        "maleHRPHouseholdsMarriedAge85AndOver",
+        "maleHRPHouseholdsSingleAge85AndOver",
+        "femaleHRPHouseholdsTotalAge85AndOver",
+        "femaleHRPHouseholdsMarriedAge85AndOver",
+        "femaleHRPHouseholdsSingleAge85AndOver"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -461,11 +522,14 @@ public class Census_CAS003Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CAS003Record(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table CAS003
         this.allHouseholdsTotal = Math_Integer.parseInt(fields[1]);
         this.allHouseholdsMarried = Math_Integer.parseInt(fields[2]);
@@ -567,6 +631,9 @@ public class Census_CAS003Record extends Census_AreaRecord {
      * @param n The flag is added for loading data from Northern
      * Island which is a little different to that from England and Wales and
      * Scotland!
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CAS003Record(Census_RecordID rID, String line, boolean n) {
         super(rID);
@@ -580,7 +647,7 @@ public class Census_CAS003Record extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(dummy, 0, fields, 0, fields.length);
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table CAS003
         this.allHouseholdsTotal = Math_Integer.parseInt(fields[1]);
         this.allHouseholdsMarried = Math_Integer.parseInt(fields[2]);
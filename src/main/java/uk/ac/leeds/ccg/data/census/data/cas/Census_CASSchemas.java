@@ -0,0 +1,299 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.util.HashMap;
+import java.util.Map;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS002Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS006Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS008Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS010Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS013Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS015Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS016Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS017Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS020Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS09bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS09cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS12bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS12cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS14bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS14cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.uv.Census_CASUV003Record;
+
+/**
+ * The {@link Census_TableSchema}s of the CAS tables. These give the same
+ * values as the line constructors of the record classes. Where the layout of
+ * a table differs for Scotland or Northern Ireland there is a separate schema.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CASSchemas {
+
+    /**
+     * CAS001.
+     */
+    public static final Census_TableSchema CAS001 = Census_TableSchema.of(
+            Census_CAS001Record.class, "CAS001", "CS001");
+
+    /**
+     * CAS002.
+     */
+    public static final Census_TableSchema CAS002 = Census_TableSchema.of(
+            Census_CAS002Record.class, "CAS002", "CS002");
+
+    /**
+     * CAS003 for Northern Ireland.
+     */
+    public static final Census_TableSchema CAS003_NI = Census_TableSchema.of(
+            Census_CAS003Record.class, "CAS003", "CS003");
+
+    /**
+     * CAS003 for England, Wales and Scotland. Some age bands in the files are
+     * merged.
+     */
+    public static final Census_TableSchema CAS003 = getCAS003();
+
+    /**
+     * KS002.
+     */
+    public static final Census_TableSchema KS002 = Census_TableSchema.of(
+            Census_CASKS002Record.class, "KS002", "KS002");
+
+    /**
+     * KS006.
+     */
+    public static final Census_TableSchema KS006 = Census_TableSchema.of(
+            Census_CASKS006Record.class, "KS006", "KS006");
+
+    /**
+     * KS008.
+     */
+    public static final Census_TableSchema KS008 = Census_TableSchema.of(
+            Census_CASKS008Record.class, "KS008", "KS008");
+
+    /**
+     * KS09b.
+     */
+    public static final Census_TableSchema KS09b = getKS09(
+            Census_CASKS09bRecord.class, "KS09b", "males");
+
+    /**
+     * KS09c.
+     */
+    public static final Census_TableSchema KS09c = getKS09(
+            Census_CASKS09cRecord.class, "KS09c", "females");
+
+    /**
+     * KS010.
+     */
+    public static final Census_TableSchema KS010 = Census_TableSchema.of(
+            Census_CASKS010Record.class, "KS010", "KS010");
+
+    /**
+     * KS12b.
+     */
+    public static final Census_TableSchema KS12b = Census_TableSchema.of(
+            Census_CASKS12bRecord.class, "KS12b", "KS12b");
+
+    /**
+     * KS12c.
+     */
+    public static final Census_TableSchema KS12c = Census_TableSchema.of(
+            Census_CASKS12cRecord.class, "KS12c", "KS12c");
+
+    /**
+     * KS013 for England, Wales and Scotland.
+     */
+    public static final Census_TableSchema KS013 = Census_TableSchema.of(
+            Census_CASKS013Record.class, "KS013", "KS013");
+
+    /**
+     * KS013 for Northern Ireland.
+     */
+    public static final Census_TableSchema KS013_NI = KS013
+            .withPositions("peopleAged16to74WithHighestQualificationAttainedLevel4and5", 6, 7)
+            .withPositions("fullTimeStudentsAndSchoolchildrenAged16to17", 8)
+            .withPositions("fullTimeStudentsAndSchoolchildrenAged18to74", 9)
+            .withPositions("fullTimeStudentsAged18to74EconomicallyActiveInEmployment", 10)
+            .withPositions("fullTimeStudentsAged18to74EconomicallyActiveUnemployed", 11)
+            .withPositions("fullTimeStudentsAged18to74EconomicallyInactive", 12);
+
+    /**
+     * KS14b.
+     */
+    public static final Census_TableSchema KS14b = Census_TableSchema.of(
+            Census_CASKS14bRecord.class, "KS14b", "KS14b");
+
+    /**
+     * KS14c.
+     */
+    public static final Census_TableSchema KS14c = Census_TableSchema.of(
+            Census_CASKS14cRecord.class, "KS14c", "KS14c");
+
+    /**
+     * KS015 for England and Wales.
+     */
+    public static final Census_TableSchema KS015 = Census_TableSchema.of(
+            Census_CASKS015Record.class, "KS015", "KS015");
+
+    /**
+     * KS015 for Scotland. There is no average distance in the same place as
+     * for England and Wales, so as in the Scotland line constructor of
+     * {@link Census_CASKS015Record} it is left 0.
+     */
+    public static final Census_TableSchema KS015_SCOTLAND = KS015
+            .withPositions("averageDistanceInKMTravelledToFixedPlaceOfWork")
+            .withPositions("publicTransportUsersInHouseholdsWithACarOrVan", 16)
+            .withPositions("publicTransportUsersInHouseholdsWithoutACarOrVan", 17);
+
+    /**
+     * KS015 for Northern Ireland. There is no underground and no average
+     * distance and car or van pool is counted as other.
+     */
+    public static final Census_TableSchema KS015_NI = KS015
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByUndergroundMetroLightRailTram")
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByTrain", 3)
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByBusMinibusOrCoach", 4)
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByMotorcycleScooterOrMoped", 5)
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByDrivingACarOrVan", 6)
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByPassengerInACarOrVan", 7)
+            .withPositions("peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByOther", 12, 8)
+            .withPositions("averageDistanceInKMTravelledToFixedPlaceOfWork")
+            .withPositions("publicTransportUsersInHouseholdsWithACarOrVan", 13)
+            .withPositions("publicTransportUsersInHouseholdsWithoutACarOrVan", 14);
+
+    /**
+     * KS016.
+     */
+    public static final Census_TableSchema KS016 = Census_TableSchema.of(
+            Census_CASKS016Record.class, "KS016", "KS016");
+
+    /**
+     * KS017.
+     */
+    public static final Census_TableSchema KS017 = Census_TableSchema.of(
+            Census_CASKS017Record.class, "KS017", "KS017");
+
+    /**
+     * KS020.
+     */
+    public static final Census_TableSchema KS020 = Census_TableSchema.of(
+            Census_CASKS020Record.class, "KS020", "KS020");
+
+    /**
+     * UV003.
+     */
+    public static final Census_TableSchema UV003 = Census_TableSchema.of(
+            Census_CASUV003Record.class, "UV003", "UV003");
+
+    /**
+     * Zone code, area, easting and northing.
+     */
+    public static final Census_TableSchema CAS044 = Census_TableSchema.of(
+            Census_ZoneCodeAreaEastingNorthingRecord.class, "CAS044",
+            "CAS044");
+
+    private static final Map<Class<?>, Census_TableSchema> SCHEMAS
+            = new HashMap<>();
+
+    static {
+        SCHEMAS.put(Census_CAS001Record.class, CAS001);
+        SCHEMAS.put(Census_CAS002Record.class, CAS002);
+        SCHEMAS.put(Census_CAS003Record.class, CAS003);
+        SCHEMAS.put(Census_CASKS002Record.class, KS002);
+        SCHEMAS.put(Census_CASKS006Record.class, KS006);
+        SCHEMAS.put(Census_CASKS008Record.class, KS008);
+        SCHEMAS.put(Census_CASKS09bRecord.class, KS09b);
+        SCHEMAS.put(Census_CASKS09cRecord.class, KS09c);
+        SCHEMAS.put(Census_CASKS010Record.class, KS010);
+        SCHEMAS.put(Census_CASKS12bRecord.class, KS12b);
+        SCHEMAS.put(Census_CASKS12cRecord.class, KS12c);
+        SCHEMAS.put(Census_CASKS013Record.class, KS013);
+        SCHEMAS.put(Census_CASKS14bRecord.class, KS14b);
+        SCHEMAS.put(Census_CASKS14cRecord.class, KS14c);
+        SCHEMAS.put(Census_CASKS015Record.class, KS015);
+        SCHEMAS.put(Census_CASKS016Record.class, KS016);
+        SCHEMAS.put(Census_CASKS017Record.class, KS017);
+        SCHEMAS.put(Census_CASKS020Record.class, KS020);
+        SCHEMAS.put(Census_CASUV003Record.class, UV003);
+        SCHEMAS.put(Census_ZoneCodeAreaEastingNorthingRecord.class, CAS044);
+    }
+
+    private Census_CASSchemas() {
+    }
+
+    /**
+     * @param type The record class.
+     * @return The schema for England and Wales for {@code type} or, if there
+     * is not one, a schema from {@link Census_TableSchema#of} with the cells
+     * in the order of the record fields.
+     */
+    public static Census_TableSchema get(
+            Class<? extends Census_AreaRecord> type) {
+        Census_TableSchema r = SCHEMAS.get(type);
+        if (r == null) {
+            r = Census_TableSchema.of(type, type.getSimpleName(),
+                    type.getSimpleName());
+        }
+        return r;
+    }
+
+    /**
+     * In the files the age bands 30 to 44 and 45 to 59 are each 3 five year
+     * bands and the age bands from 65 are each 2 five year bands. In
+     * {@link Census_CAS003Record} these are merged. Each band has 9 cells.
+     */
+    private static Census_TableSchema getCAS003() {
+        Census_TableSchema r = CAS003_NI;
+        // The number of bands in the file for each band of the record.
+        int[] bands = {1, 1, 1, 1, 3, 3, 1, 2, 2, 2};
+        int f = 1;
+        int cell = 0;
+        for (int b : bands) {
+            for (int j = 0; j < 9; j++) {
+                int[] p = new int[b];
+                for (int k = 0; k < b; k++) {
+                    p[k] = f + j + 9 * k;
+                }
+                r = r.withPositions(cell++, p);
+            }
+            f += 9 * b;
+        }
+        return r;
+    }
+
+    /**
+     * In the KS09b and KS09c files the retired are before full time students
+     * and there is no separate field for economically inactive students.
+     */
+    private static Census_TableSchema getKS09(
+            Class<? extends Census_AreaRecord> type, String table, String s) {
+        return Census_TableSchema.of(type, table, table)
+                .withPositions(s + "Aged16to74EconomicallyActiveFullTimeStudent", 7)
+                .withPositions(s + "Aged16to74EconomicallyInactiveRetired", 6)
+                .withPositions(s + "Aged16to74EconomicallyInactiveStudent")
+                .withPositions(s + "Aged16to74EconomicallyInactiveLookingAfterHomeOrFamily", 8)
+                .withPositions(s + "Aged16to74EconomicallyInactivePermanentlySickOrDisabled", 9)
+                .withPositions(s + "Aged16to74EconomicallyInactiveOther", 10)
+                .withPositions(s + "Aged16to24Unemployed", 11)
+                .withPositions(s + "Aged50AndOverUnemployed", 12)
+                .withPositions(s + "Aged16to74UnemployedWhoHaveNeverWorked", 13)
+                .withPositions(s + "Aged16to74WhoAreLongTermUnemployed", 14);
+    }
+}
@@ -0,0 +1,527 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_ZoneCodeIndex;
+import uk.ac.leeds.ccg.data.census.io.Census_Archives;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+import uk.ac.leeds.ccg.data.census.io.Census_ColumnFile;
+import uk.ac.leeds.ccg.data.census.io.Census_Manifest;
+
+/**
+ * A CAS table held in columns. There is an {@code int[]} for each cell of the
+ * record type {@code R} indexed by row. Each row is an area and the zone code
+ * of each row is in {@link #zoneCodes}. If a table is loaded for the OA codes
+ * of a {@link uk.ac.leeds.ccg.data.census.data.luts.Census_LUT} then the row
+ * indexes are the OA indexes, so the columns can be passed straight to
+ * {@link uk.ac.leeds.ccg.data.census.process.Census_RollUp}.
+ *
+ * Rows can be got as records of type {@code R} so the record accessors can be
+ * used with a table.
+ *
+ * A table can be written to a {@link Census_ColumnFile} with
+ * {@link #write(Path)} and read back, or just some of its columns read back,
+ * with {@link #read(Class, Path, String...)}, which is much quicker than
+ * parsing the CAS file again.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <R> The type of record.
+ */
+public class Census_CASTable<R extends Census_AreaRecord> {
+
+    /**
+     * The name of the column of zone codes in a column file.
+     */
+    public static final String ZONECODE = "ZONECODE";
+
+    /**
+     * The version of {@link #load(Census_Manifest, Class, Path, Path)}. This
+     * is to be incremented if what it writes changes.
+     */
+    public static final int LOAD_VERSION = 1;
+
+    /**
+     * The record class.
+     */
+    protected final Class<R> type;
+
+    /**
+     * The cells of {@link #type}.
+     */
+    protected final Census_Cells<R> cells;
+
+    /**
+     * The packed zone code of each row.
+     */
+    public final long[] zoneCodes;
+
+    /**
+     * For looking up the row for a zone code.
+     */
+    public final Census_ZoneCodeIndex index;
+
+    /**
+     * The columns: {@code cols[cell][row]}.
+     */
+    public final int[][] cols;
+
+    /**
+     * For constructing records.
+     */
+    private final Constructor<R> constructor;
+
+    /**
+     * Creates a new table with all the cells set to 0.
+     *
+     * @param type What {@link #type} is set to.
+     * @param zoneCodes What {@link #zoneCodes} is set to. These must be
+     * unique.
+     */
+    public Census_CASTable(Class<R> type, long[] zoneCodes) {
+        this(type, zoneCodes, new int[Census_Cells.of(type).size()]
+                [zoneCodes.length]);
+    }
+
+    /**
+     * @param type What {@link #type} is set to.
+     * @param zoneCodes What {@link #zoneCodes} is set to. These must be
+     * unique.
+     * @param cols What {@link #cols} is set to.
+     */
+    public Census_CASTable(Class<R> type, long[] zoneCodes, int[][] cols) {
+        this.type = type;
+        this.cells = Census_Cells.of(type);
+        this.zoneCodes = zoneCodes;
+        this.cols = cols;
+        index = new Census_ZoneCodeIndex(zoneCodes);
+        try {
+            constructor = type.getConstructor(Census_RecordID.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(type
+                    + " has no constructor for a Census_RecordID", ex);
+        }
+    }
+
+    /**
+     * Loads a table from a CAS file with a row for each of {@code zoneCodes}
+     * using the schema from {@link Census_CASSchemas#get(Class)}.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @param zoneCodes The packed zone code of each row.
+     * @return A new table.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> load(
+            Class<R> type, Path f, long[] zoneCodes) throws IOException {
+        return load(type, f, zoneCodes, Census_CASSchemas.get(type));
+    }
+
+    /**
+     * Loads a table from a CAS file with a row for each of {@code zoneCodes}.
+     * Each line is parsed as given by {@code schema}. Lines with a zone code
+     * field that is not a zone code, such as a header, or a zone code not in
+     * {@code zoneCodes} are skipped. Rows with no line are left 0.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @param zoneCodes The packed zone code of each row.
+     * @param schema The schema of the file.
+     * @return A new table.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> load(
+            Class<R> type, Path f, long[] zoneCodes,
+            Census_TableSchema schema) throws IOException {
+        Census_CASTable<R> r = new Census_CASTable<>(type, zoneCodes);
+        Census_TableParser<R> p = new Census_TableParser<>(schema, type);
+        int[] cells = getCells(r.cells, schema);
+        try (Census_CSVScanner s = Census_Archives.newScanner(f)) {
+            while (s.next()) {
+                int row = r.index.get(p.getZoneCode(s));
+                if (row >= 0) {
+                    for (int c = 0; c < cells.length; c++) {
+                        if (cells[c] >= 0) {
+                            r.cols[c][row] = p.getInt(s, cells[c]);
+                        }
+                    }
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Reads the table from the column file {@code cache} if {@code m} has it
+     * as current for {@code f}, otherwise loads the table from {@code f} as
+     * with {@link #load(Class, Path)}, writes it to {@code cache} and records
+     * it in {@code m}. The name of the loader recorded includes a hash of the
+     * schema (see {@link Census_TableSchema#getLayoutHash()}), so the cache
+     * is replaced if the cells of {@code type} or their layout change.
+     *
+     * @param <R> The type of record.
+     * @param m The manifest.
+     * @param type The record class.
+     * @param f The file.
+     * @param cache The column file.
+     * @return A table.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> load(
+            Census_Manifest m, Class<R> type, Path f, Path cache)
+            throws IOException {
+        return m.get(cache, Census_CASTable.class.getSimpleName() + " "
+                + type.getSimpleName() + " " + Integer.toHexString(
+                Census_CASSchemas.get(type).getLayoutHash()),
+                LOAD_VERSION, List.of(f),
+                p -> read(type, p), p -> {
+                    Census_CASTable<R> r = load(type, f);
+                    r.write(p);
+                    return r;
+                });
+    }
+
+    /**
+     * Loads a table from a CAS file with a row for each line in the order
+     * they are read using the schema from {@link Census_CASSchemas#get(Class)}.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @return A new table.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> load(
+            Class<R> type, Path f) throws IOException {
+        return load(type, f, Census_CASSchemas.get(type));
+    }
+
+    /**
+     * Loads a table from a CAS file with a row for each line in the order
+     * they are read. Each line is parsed as given by {@code schema}. Lines
+     * with a zone code field that is not a zone code, such as a header, are
+     * skipped.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @param schema The schema of the file.
+     * @return A new table.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> load(
+            Class<R> type, Path f, Census_TableSchema schema)
+            throws IOException {
+        Census_TableParser<R> p = new Census_TableParser<>(schema, type);
+        int[] cells = getCells(Census_Cells.of(type), schema);
+        int n = cells.length;
+        long[] codes = new long[1024];
+        int[][] cols = new int[n][codes.length];
+        int rows = 0;
+        try (Census_CSVScanner s = Census_Archives.newScanner(f)) {
+            while (s.next()) {
+                long code = p.getZoneCode(s);
+                if (code == Census_ZoneCode.INVALID) {
+                    continue;
+                }
+                if (rows == codes.length) {
+                    codes = Arrays.copyOf(codes, rows * 2);
+                    for (int c = 0; c < n; c++) {
+                        cols[c] = Arrays.copyOf(cols[c], rows * 2);
+                    }
+                }
+                codes[rows] = code;
+                for (int c = 0; c < n; c++) {
+                    if (cells[c] >= 0) {
+                        cols[c][rows] = p.getInt(s, cells[c]);
+                    }
+                }
+                rows++;
+            }
+        }
+        for (int c = 0; c < n; c++) {
+            cols[c] = Arrays.copyOf(cols[c], rows);
+        }
+        return new Census_CASTable<>(type, Arrays.copyOf(codes, rows), cols);
+    }
+
+    /**
+     * Writes the zone codes and columns to a {@link Census_ColumnFile}. The
+     * zone codes are in a column called {@link #ZONECODE} and each other
+     * column is named by its cell.
+     *
+     * @param f The file.
+     * @throws IOException If encountered.
+     */
+    public void write(Path f) throws IOException {
+        Census_ColumnFile.Writer w = new Census_ColumnFile.Writer(
+                getRowCount());
+        w.add(ZONECODE, zoneCodes);
+        String[] names = cells.getNames();
+        for (int c = 0; c < cols.length; c++) {
+            if (cols[c] != null) {
+                w.add(names[c], cols[c]);
+            }
+        }
+        w.write(f);
+    }
+
+    /**
+     * Reads a table written with {@link #write(Path)}. Only the columns named
+     * are read. The other columns are {@code null} and getting their cells
+     * throws an {@link IllegalStateException}.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param f The file.
+     * @param columns The names of the columns to read. If there are none, all
+     * the columns are read.
+     * @return A new table.
+     * @throws IOException If encountered or if a column to read is not in
+     * {@code f}.
+     */
+    public static <R extends Census_AreaRecord> Census_CASTable<R> read(
+            Class<R> type, Path f, String... columns) throws IOException {
+        String[] names = Census_Cells.of(type).getNames();
+        Set<String> read = new HashSet<>(Arrays.asList(columns));
+        for (String c : read) {
+            if (!Arrays.asList(names).contains(c)) {
+                throw new IllegalArgumentException(type + " has no cell " + c);
+            }
+        }
+        try (Census_ColumnFile.Reader r = new Census_ColumnFile.Reader(f)) {
+            int[][] cols = new int[names.length][];
+            for (int c = 0; c < names.length; c++) {
+                if (read.isEmpty() || read.contains(names[c])) {
+                    if (r.getColumn(names[c]) == null) {
+                        throw new IOException("No column " + names[c]
+                                + " in " + f);
+                    }
+                    cols[c] = r.getInts(names[c]);
+                }
+            }
+            return new Census_CASTable<>(type, r.getLongs(ZONECODE), cols);
+        }
+    }
+
+    /**
+     * @param cells The cells of a record class.
+     * @param schema The schema.
+     * @return The index of the cell in {@code schema} for each of
+     * {@code cells} or -1 if there is none.
+     */
+    private static int[] getCells(Census_Cells<?> cells,
+            Census_TableSchema schema) {
+        String[] names = cells.getNames();
+        int[] r = new int[names.length];
+        for (int c = 0; c < names.length; c++) {
+            r[c] = schema.indexOf(names[c]);
+        }
+        return r;
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int getRowCount() {
+        return zoneCodes.length;
+    }
+
+    /**
+     * @return The number of columns.
+     */
+    public int getColumnCount() {
+        return cols.length;
+    }
+
+    /**
+     * @return A copy of the names of the columns.
+     */
+    public String[] getColumnNames() {
+        return cells.getNames();
+    }
+
+    /**
+     * @param name The name of a column.
+     * @return The index of the column or -1 if there is no column called
+     * {@code name}.
+     */
+    public int getColumnIndex(String name) {
+        String[] names = cells.getNames();
+        for (int c = 0; c < names.length; c++) {
+            if (names[c].equals(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param c The column index.
+     * @return The column. This is not a copy. It is {@code null} if it was
+     * not read.
+     */
+    public int[] getColumn(int c) {
+        return cols[c];
+    }
+
+    /**
+     * @param c The column index.
+     * @return The column. This is not a copy.
+     * @throws IllegalStateException If the column was not read (see
+     * {@link #read(Class, Path, String...)}).
+     */
+    public int[] requireColumn(int c) {
+        int[] r = cols[c];
+        if (r == null) {
+            throw new IllegalStateException(cells.getNames()[c]
+                    + " was not read");
+        }
+        return r;
+    }
+
+    /**
+     * @return {@code true} if all the columns were read.
+     */
+    public boolean isComplete() {
+        for (int[] col : cols) {
+            if (col == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param code The zone code.
+     * @return The row for {@code code} or -1 if there is none.
+     */
+    public int getRow(CharSequence code) {
+        return index.get(code);
+    }
+
+    /**
+     * @param row The row.
+     * @param c The column index.
+     * @return The value of cell {@code c} in {@code row}.
+     * @throws IllegalStateException If the column was not read.
+     */
+    public int get(int row, int c) {
+        return requireColumn(c)[row];
+    }
+
+    /**
+     * @param c The column index.
+     * @return The sum of column {@code c}.
+     * @throws IllegalStateException If the column was not read.
+     */
+    public long sum(int c) {
+        long r = 0L;
+        for (int v : requireColumn(c)) {
+            r += v;
+        }
+        return r;
+    }
+
+    /**
+     * @return The sum of each column.
+     * @throws IllegalStateException If a column was not read.
+     */
+    public long[] sums() {
+        long[] r = new long[cols.length];
+        for (int c = 0; c < cols.length; c++) {
+            r[c] = sum(c);
+        }
+        return r;
+    }
+
+    /**
+     * @param row The row.
+     * @param cells For the values of the cells in {@code row}. The length
+     * must be at least {@link #getColumnCount()}.
+     * @throws IllegalStateException If a column was not read.
+     */
+    public void getRow(int row, int[] cells) {
+        for (int c = 0; c < cols.length; c++) {
+            cells[c] = requireColumn(c)[row];
+        }
+    }
+
+    /**
+     * @param row The row.
+     * @return A new record with the ID {@code row} and the zone code and
+     * cells of {@code row}.
+     * @throws IllegalStateException If a column was not read.
+     */
+    public R getRecord(int row) {
+        R r;
+        try {
+            r = constructor.newInstance(new Census_RecordID(row));
+        } catch (InstantiationException | IllegalAccessException
+                | InvocationTargetException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return getRecord(row, r);
+    }
+
+    /**
+     * For getting many rows as records without creating a record for each.
+     *
+     * @param row The row.
+     * @param r The record to set the zone code and cells of. Its ID is not
+     * changed.
+     * @return {@code r}.
+     * @throws IllegalStateException If a column was not read. In this case
+     * {@code r} is not changed.
+     */
+    public R getRecord(int row, R r) {
+        for (int c = 0; c < cols.length; c++) {
+            requireColumn(c);
+        }
+        cells.set(r, cols, row);
+        r.zoneCode = zoneCodes[row];
+        return r;
+    }
+
+    /**
+     * Sets the cells of the row for the zone code of {@code r}.
+     *
+     * @param r The record.
+     * @return The row or -1 if there is no row for the zone code of {@code r}.
+     */
+    public int set(R r) {
+        int row = index.get(r.zoneCode);
+        if (row >= 0) {
+            cells.get(r, cols, row);
+        }
+        return row;
+    }
+}
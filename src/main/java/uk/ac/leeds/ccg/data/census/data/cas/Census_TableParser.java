@@ -0,0 +1,175 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.lang.reflect.Field;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+
+/**
+ * For parsing the current line of a {@link Census_CSVScanner} as described by
+ * a {@link Census_TableSchema}. Values are parsed from the bytes of the line
+ * straight into columns or into the fields of a record, so no Strings are
+ * created.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <R> The type of record.
+ */
+public class Census_TableParser<R extends Census_AreaRecord> {
+
+    /**
+     * The schema.
+     */
+    public final Census_TableSchema schema;
+
+    /**
+     * The record field for each cell.
+     */
+    protected final Field[] fields;
+
+    /**
+     * The positions for each cell.
+     */
+    private final int[][] positions;
+
+    /**
+     * Set if the cell is {@link Census_TableSchema.Type#INT}.
+     */
+    private final boolean[] isInt;
+
+    /**
+     * @param schema What {@link #schema} is set to.
+     * @param type The record class. Each cell in {@code schema} must have a
+     * field of the same name.
+     */
+    public Census_TableParser(Census_TableSchema schema, Class<R> type) {
+        this.schema = schema;
+        int n = schema.getCellCount();
+        fields = new Field[n];
+        positions = new int[n][];
+        isInt = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            fields[i] = getField(type, schema.getName(i));
+            positions[i] = schema.getPositions(i);
+            isInt[i] = schema.getType(i) == Census_TableSchema.Type.INT;
+        }
+    }
+
+    private static Field getField(Class<?> type, String name) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(name);
+                f.setAccessible(true);
+                return f;
+            } catch (NoSuchFieldException ex) {
+                // Try the super class.
+            }
+        }
+        throw new IllegalArgumentException(type + " has no field " + name);
+    }
+
+    /**
+     * @param s The scanner.
+     * @return The packed zone code of the current line of {@code s}.
+     */
+    public long getZoneCode(Census_CSVScanner s) {
+        return s.getZoneCode(schema.zoneCodeField);
+    }
+
+    /**
+     * @param s The scanner.
+     * @param cell The cell index.
+     * @return The value of {@code cell} in the current line of {@code s}.
+     */
+    public int getInt(Census_CSVScanner s, int cell) {
+        int[] p = positions[cell];
+        int r = 0;
+        for (int i = 0; i < p.length; i++) {
+            r += s.getInt(p[i]);
+        }
+        return r;
+    }
+
+    /**
+     * @param s The scanner.
+     * @param cell The cell index.
+     * @return The value of {@code cell} in the current line of {@code s}.
+     */
+    public double getDouble(Census_CSVScanner s, int cell) {
+        int[] p = positions[cell];
+        double r = 0d;
+        for (int i = 0; i < p.length; i++) {
+            r += s.getDouble(p[i]);
+        }
+        return r;
+    }
+
+    /**
+     * Parses the current line of {@code s} into a row of int columns.
+     *
+     * @param s The scanner.
+     * @param cols The columns: {@code cols[cell][row]}.
+     * @param row The row.
+     * @throws IllegalStateException If the schema has cells that are not
+     * {@link Census_TableSchema.Type#INT}.
+     */
+    public void parse(Census_CSVScanner s, int[][] cols, int row) {
+        for (int c = 0; c < positions.length; c++) {
+            if (!isInt[c]) {
+                throw new IllegalStateException(schema.getName(c)
+                        + " is not an int");
+            }
+            cols[c][row] = getInt(s, c);
+        }
+    }
+
+    /**
+     * Parses the current line of {@code s} into a row of double columns.
+     *
+     * @param s The scanner.
+     * @param cols The columns: {@code cols[cell][row]}.
+     * @param row The row.
+     */
+    public void parse(Census_CSVScanner s, double[][] cols, int row) {
+        for (int c = 0; c < positions.length; c++) {
+            cols[c][row] = isInt[c] ? getInt(s, c) : getDouble(s, c);
+        }
+    }
+
+    /**
+     * Parses the current line of {@code s} into {@code r}.
+     *
+     * @param s The scanner.
+     * @param r The record to set the zone code and cells of.
+     * @return {@code r}.
+     */
+    public R parse(Census_CSVScanner s, R r) {
+        r.zoneCode = getZoneCode(s);
+        try {
+            for (int c = 0; c < fields.length; c++) {
+                if (isInt[c]) {
+                    fields[c].setInt(r, getInt(s, c));
+                } else {
+                    fields[c].setDouble(r, getDouble(s, c));
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+}
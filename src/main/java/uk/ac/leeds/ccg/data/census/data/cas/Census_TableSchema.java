@@ -0,0 +1,258 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+
+/**
+ * Describes the layout of a line of a CAS table file. Field
+ * {@link #zoneCodeField} of a line is the zone code. Each cell has a code
+ * (e.g. {@code CS0010001}), the name of the record field it is stored in, a
+ * {@link Type} and the positions of the fields in a line that are added to
+ * give its value. Most cells have one position. Some tables have cells that
+ * are the sum of several fields (e.g. age bands that are merged) and some
+ * have cells with no position (left 0).
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_TableSchema {
+
+    /**
+     * The types of cell.
+     */
+    public enum Type {
+        /**
+         * An int.
+         */
+        INT,
+        /**
+         * A double.
+         */
+        DOUBLE
+    }
+
+    /**
+     * The table name (e.g. {@code CAS001} or {@code KS002}).
+     */
+    public final String table;
+
+    /**
+     * The index of the field in a line with the zone code.
+     */
+    public final int zoneCodeField;
+
+    /**
+     * The cell codes.
+     */
+    protected final String[] codes;
+
+    /**
+     * The names of the record fields for the cells.
+     */
+    protected final String[] names;
+
+    /**
+     * The type of each cell.
+     */
+    protected final Type[] types;
+
+    /**
+     * The positions of the fields added for each cell.
+     */
+    protected final int[][] positions;
+
+    /**
+     * @param table What {@link #table} is set to.
+     * @param zoneCodeField What {@link #zoneCodeField} is set to.
+     * @param codes What {@link #codes} is set to.
+     * @param names What {@link #names} is set to.
+     * @param types What {@link #types} is set to.
+     * @param positions What {@link #positions} is set to.
+     */
+    public Census_TableSchema(String table, int zoneCodeField, String[] codes,
+            String[] names, Type[] types, int[][] positions) {
+        if (codes.length != names.length || types.length != names.length
+                || positions.length != names.length) {
+            throw new IllegalArgumentException("Expected the same number of "
+                    + "codes, names, types and positions.");
+        }
+        this.table = table;
+        this.zoneCodeField = zoneCodeField;
+        this.codes = codes;
+        this.names = names;
+        this.types = types;
+        this.positions = positions;
+    }
+
+    /**
+     * Creates a schema for a record class where the zone code is field 0 and
+     * each int or double field of the record, in the order of its
+     * {@link Census_Cells#CELLS} array, is the next field of a line. The cell
+     * codes are {@code codePrefix} followed by a four digit cell number
+     * starting at 0001.
+     *
+     * @param type The record class.
+     * @param table The table name.
+     * @param codePrefix The prefix for the cell codes (e.g. {@code CS001}).
+     * @return A new schema.
+     * @throws IllegalArgumentException If {@code type} does not name its
+     * fields (see {@link Census_Cells#getFields(Class)}).
+     */
+    public static Census_TableSchema of(
+            Class<? extends Census_AreaRecord> type, String table,
+            String codePrefix) {
+        Field[] fs = Census_Cells.getFields(type);
+        int n = fs.length;
+        String[] codes = new String[n];
+        String[] names = new String[n];
+        Type[] types = new Type[n];
+        int[][] positions = new int[n][];
+        for (int i = 0; i < n; i++) {
+            codes[i] = codePrefix + String.format("%04d", i + 1);
+            names[i] = fs[i].getName();
+            types[i] = fs[i].getType() == int.class ? Type.INT : Type.DOUBLE;
+            positions[i] = new int[]{i + 1};
+        }
+        return new Census_TableSchema(table, 0, codes, names, types,
+                positions);
+    }
+
+    /**
+     * @param cell The cell index.
+     * @param positions The positions of the fields added for the cell.
+     * @return A copy of this schema with {@code positions} for {@code cell}.
+     */
+    public Census_TableSchema withPositions(int cell, int... positions) {
+        int[][] p = this.positions.clone();
+        p[cell] = positions.clone();
+        return new Census_TableSchema(table, zoneCodeField, codes, names,
+                types, p);
+    }
+
+    /**
+     * @param name The name of a cell.
+     * @param positions The positions of the fields added for the cell.
+     * @return A copy of this schema with {@code positions} for the cell
+     * called {@code name}.
+     */
+    public Census_TableSchema withPositions(String name, int... positions) {
+        int cell = indexOf(name);
+        if (cell < 0) {
+            throw new IllegalArgumentException("No cell " + name + " in "
+                    + table);
+        }
+        return withPositions(cell, positions);
+    }
+
+    /**
+     * @return The number of cells.
+     */
+    public int getCellCount() {
+        return names.length;
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The code of {@code cell}.
+     */
+    public String getCode(int cell) {
+        return codes[cell];
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The name of {@code cell}.
+     */
+    public String getName(int cell) {
+        return names[cell];
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return The type of {@code cell}.
+     */
+    public Type getType(int cell) {
+        return types[cell];
+    }
+
+    /**
+     * @param cell The cell index.
+     * @return A copy of the positions of the fields added for {@code cell}.
+     */
+    public int[] getPositions(int cell) {
+        return positions[cell].clone();
+    }
+
+    /**
+     * @param name The name of a cell.
+     * @return The index of the cell called {@code name} or -1 if there is no
+     * such cell.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param code The code of a cell.
+     * @return The index of the cell with {@code code} or -1 if there is no
+     * such cell.
+     */
+    public int indexOfCode(String code) {
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i].equals(code)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return A hash of the table name, the zone code field and the codes,
+     * names, types and positions of the cells, so that a change to any of
+     * these can be detected. This is the same in every run.
+     */
+    public int getLayoutHash() {
+        int r = 31 * table.hashCode() + zoneCodeField;
+        for (int i = 0; i < names.length; i++) {
+            r = 31 * r + codes[i].hashCode();
+            r = 31 * r + names[i].hashCode();
+            r = 31 * r + types[i].ordinal();
+            r = 31 * r + Arrays.hashCode(positions[i]);
+        }
+        return r;
+    }
+
+    /**
+     * @return {@code true} if all the cells are {@link Type#INT}.
+     */
+    public boolean isInt() {
+        for (Type t : types) {
+            if (t != Type.INT) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 
 /**
@@ -45,6 +46,13 @@ public class Census_ZoneCodeAreaEastingNorthingRecord extends Census_AreaRecord
      */
     protected double Northing;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "Area", "Easting", "Northing"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -59,11 +67,14 @@ public class Census_ZoneCodeAreaEastingNorthingRecord extends Census_AreaRecord
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_ZoneCodeAreaEastingNorthingRecord(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         this.Area = Double.parseDouble(fields[1]);
         this.Easting = Double.parseDouble(fields[2]);
         this.Northing = Double.parseDouble(fields[3]);
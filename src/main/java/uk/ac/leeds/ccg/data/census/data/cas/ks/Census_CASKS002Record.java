@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -100,6 +101,16 @@ public class Census_CASKS002Record extends Census_AreaRecord {
      */
     protected int ages90AndOver;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "agesAll", "ages0to4", "ages5to7", "ages8to9", "ages10to14", "age15",
+        "ages16to17", "ages18to19", "ages20to24", "ages25to29", "ages30to44",
+        "ages45to59", "ages60to64", "ages65to74", "ages75to84", "ages85to89",
+        "ages90AndOver"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -114,6 +125,9 @@ public class Census_CASKS002Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS002Record(Census_RecordID rID, String line) {
         super(rID);
@@ -127,7 +141,7 @@ public class Census_CASKS002Record extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        this.zoneCode = fields[0].substring(1, 11);
+        this.zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS002
         this.agesAll = Math_Integer.parseInt(fields[1]);
         this.ages0to4 = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -76,6 +77,20 @@ public class Census_CASKS008Record extends Census_AreaRecord {
      */
     protected int peopleWhoProvideUnpaidCare50rMoreHoursAWeek;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allPeople", "peopleWithLimitingLongTermIllness",
+        "peopleOfWorkingAgeWithLimitingLongTermIllness",
+        "peopleWhoseGeneralHealthWasGood",
+        "peopleWhoseGeneralHealthWasFairlyGood",
+        "peopleWhoseGeneralHealthWasNotGood",
+        "peopleWhoProvideUnpaidCare1to19HoursAWeek",
+        "peopleWhoProvideUnpaidCare20to49HoursAWeek",
+        "peopleWhoProvideUnpaidCare50rMoreHoursAWeek"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -90,6 +105,9 @@ public class Census_CASKS008Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS008Record(Census_RecordID rID, String line) {
         super(rID);
@@ -103,7 +121,7 @@ public class Census_CASKS008Record extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS008
         this.allPeople = Math_Integer.parseInt(fields[1]);
         this.peopleWithLimitingLongTermIllness = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -91,6 +92,26 @@ public class Census_CASKS010Record extends Census_AreaRecord {
      */
     protected int femalesAged16to74InEmploymentWorkingHoursAWeekPartTime49OrMore;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "malesAged16to74InEmployment",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime1to5",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime6to15",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime16to30",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime31to37",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime38to48",
+        "malesAged16to74InEmploymentWorkingHoursAWeekPartTime49OrMore",
+        "femalesAged16to74InEmployment",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime1to5",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime6to15",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime16to30",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime31to37",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime38to48",
+        "femalesAged16to74InEmploymentWorkingHoursAWeekPartTime49OrMore"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -105,6 +126,9 @@ public class Census_CASKS010Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS010Record(Census_RecordID rID, String line) {
         super(rID);
@@ -118,7 +142,7 @@ public class Census_CASKS010Record extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS010
         this.malesAged16to74InEmployment = Math_Integer.parseInt(fields[1]);
         this.malesAged16to74InEmploymentWorkingHoursAWeekPartTime1to5 = Math_Integer.parseInt(fields[2]);
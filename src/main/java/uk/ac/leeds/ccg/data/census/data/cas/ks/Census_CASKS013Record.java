@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -79,6 +80,22 @@ public class Census_CASKS013Record extends Census_AreaRecord {
     protected int fullTimeStudentsAged18to74EconomicallyActiveUnemployed;
     protected int fullTimeStudentsAged18to74EconomicallyInactive;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allPeopleAged16to74", "peopleAged16to74WithNoQualifications",
+        "peopleAged16to74WithHighestQualificationAttainedLevel1",
+        "peopleAged16to74WithHighestQualificationAttainedLevel2",
+        "peopleAged16to74WithHighestQualificationAttainedLevel3",
+        "peopleAged16to74WithHighestQualificationAttainedLevel4and5",
+        "fullTimeStudentsAndSchoolchildrenAged16to17",
+        "fullTimeStudentsAndSchoolchildrenAged18to74",
+        "fullTimeStudentsAged18to74EconomicallyActiveInEmployment",
+        "fullTimeStudentsAged18to74EconomicallyActiveUnemployed",
+        "fullTimeStudentsAged18to74EconomicallyInactive"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -95,6 +112,9 @@ public class Census_CASKS013Record extends Census_AreaRecord {
      * @param line A line for a CSV file.
      * @param country Expecting "Scotland" or "Northern Ireland" or defaulting
      * to anything else.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS013Record(Census_RecordID rID, String line, String country) {
         super(rID);
@@ -105,7 +125,7 @@ public class Census_CASKS013Record extends Census_AreaRecord {
                 fields[i] = "";
             }
             System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-            zoneCode = fields[0].substring(1, 11);
+            zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
             // From Table KS013
             this.allPeopleAged16to74 = Math_Integer.parseInt(fields[1]);
             this.peopleAged16to74WithNoQualifications = Math_Integer.parseInt(fields[2]);
@@ -128,7 +148,7 @@ public class Census_CASKS013Record extends Census_AreaRecord {
                     fields[i] = "";
                 }
                 System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-                zoneCode = fields[0].substring(1, 11);
+                zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
                 // From Table KS013
                 this.allPeopleAged16to74 = Math_Integer.parseInt(fields[1]);
                 this.peopleAged16to74WithNoQualifications = Math_Integer.parseInt(fields[2]);
@@ -148,7 +168,7 @@ public class Census_CASKS013Record extends Census_AreaRecord {
                     fields[i] = "";
                 }
                 System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-                zoneCode = fields[0].substring(1, 11);
+                zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
                 // From Table KS013
                 this.allPeopleAged16to74 = Math_Integer.parseInt(fields[1]);
                 this.peopleAged16to74WithNoQualifications = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -109,6 +110,27 @@ public class Census_CASKS015Record extends Census_AreaRecord {
      */
     protected int publicTransportUsersInHouseholdsWithoutACarOrVan;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "peopleAged16to74InEmployment",
+        "peopleAged16to74InEmploymentWhoWorkMainlyAtOrFromHome",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByUndergroundMetroLightRailTram",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByTrain",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByBusMinibusOrCoach",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByMotorcycleScooterOrMoped",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByDrivingACarOrVan",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByPassengerInACarOrVan",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByTaxiOrMinicab",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByBicycle",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByOnFoot",
+        "peopleAged16to74InEmploymentWhoUsuallyTravelToWorkByOther",
+        "averageDistanceInKMTravelledToFixedPlaceOfWork",
+        "publicTransportUsersInHouseholdsWithACarOrVan",
+        "publicTransportUsersInHouseholdsWithoutACarOrVan"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -125,6 +147,9 @@ public class Census_CASKS015Record extends Census_AreaRecord {
      * @param line A line for a CSV file.
      * @param country Expecting "Scotland" or "Northern Ireland" or defaulting
      * to anything else.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS015Record(Census_RecordID rID, String line, String country) {
         super(rID);
@@ -136,7 +161,7 @@ public class Census_CASKS015Record extends Census_AreaRecord {
         if (country.equalsIgnoreCase("Scotland")) {
             System.arraycopy(fieldsDummy, 0, fields, 0, 13);
             System.arraycopy(fieldsDummy, 16, fields, 14, 2);
-            zoneCode = fields[0].substring(1, 11);
+            zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
             // From Table KS015
             this.peopleAged16to74InEmployment = Math_Integer.parseInt(fields[1]);
             this.peopleAged16to74InEmploymentWhoWorkMainlyAtOrFromHome = Math_Integer.parseInt(fields[2]);
@@ -157,7 +182,7 @@ public class Census_CASKS015Record extends Census_AreaRecord {
             if (country.equalsIgnoreCase("Northern Ireland")) {
                 fields = new String[15];
                 System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-                zoneCode = fields[0].substring(1, 11);
+                zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
                 // From Table KS015
                 this.peopleAged16to74InEmployment = Math_Integer.parseInt(fields[1]);
                 this.peopleAged16to74InEmploymentWhoWorkMainlyAtOrFromHome = Math_Integer.parseInt(fields[2]);
@@ -180,7 +205,7 @@ public class Census_CASKS015Record extends Census_AreaRecord {
                 // if ( country.equalsIgnoreCase( "England" ) ||
                 // country.equalsIgnoreCase( "Wales" ) ) {
                 System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-                zoneCode = fields[0].substring(1, 11);
+                zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
                 // From Table KS015
                 this.peopleAged16to74InEmployment = Math_Integer.parseInt(fields[1]);
                 this.peopleAged16to74InEmploymentWhoWorkMainlyAtOrFromHome = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -82,6 +83,22 @@ public class Census_CASKS016Record extends Census_AreaRecord {
      */
     protected int allHouseholdSpacesWhichAreOfAccommodationTypeCaravanOrOtherMobileOrTemporaryStructure;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allHouseholdSpacesWithResidents",
+        "allHouseholdSpacesWithNoResidentsVacant",
+        "allHouseholdSpacesWithNoResidentsSecondResidenceHolidayAccommodation",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeWholeHouseOrbungalowDetached",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeWholeHouseOrbungalowSemiDetached",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeWholeHouseOrbungalowTerracedIncludingEndTerrace",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeFlatMaisonetteOrApartmentPurposeBuiltBlockOfFlatsOrTenement",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeFlatMaisonetteOrApartmentPartOfAConvertedOrSharedHouseIncludingBedSits",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeFlatMaisonetteOrApartmentInACommercialBuilding",
+        "allHouseholdSpacesWhichAreOfAccommodationTypeCaravanOrOtherMobileOrTemporaryStructure"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -96,11 +113,14 @@ public class Census_CASKS016Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS016Record(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         this.allHouseholdSpacesWithResidents = Math_Integer.parseInt(fields[1]);
         this.allHouseholdSpacesWithNoResidentsVacant = Math_Integer.parseInt(fields[2]);
         this.allHouseholdSpacesWithNoResidentsSecondResidenceHolidayAccommodation = Math_Integer.parseInt(fields[3]);
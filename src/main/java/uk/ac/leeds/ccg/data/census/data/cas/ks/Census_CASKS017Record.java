@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -64,6 +65,15 @@ public class Census_CASKS017Record extends Census_AreaRecord {
      */
     protected int allCarsOrVansInTheArea;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allHouseholds", "householdsWith0CarsOrVans", "householdsWith1CarOrVan",
+        "householdsWith2CarsOrVans", "householdsWith3CarsOrVans",
+        "householdsWith4OrMoreCarsOrVans", "allCarsOrVansInTheArea"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -78,6 +88,9 @@ public class Census_CASKS017Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS017Record(Census_RecordID rID, String line) {
         super(rID);
@@ -91,7 +104,7 @@ public class Census_CASKS017Record extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS017
         this.allHouseholds = Math_Integer.parseInt(fields[1]);
         this.householdsWith0CarsOrVans = Math_Integer.parseInt(fields[2]);
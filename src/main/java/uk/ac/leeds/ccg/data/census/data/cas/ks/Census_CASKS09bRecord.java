@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -95,6 +96,25 @@ public class Census_CASKS09bRecord extends Census_AreaRecord {
      */
     protected int malesAged16to74WhoAreLongTermUnemployed;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "malesAged16to74", "malesAged16to74EconomicallyActiveEmployeesPartTime",
+        "malesAged16to74EconomicallyActiveEmployeesFullTime",
+        "malesAged16to74EconomicallyActiveSelfEmployed",
+        "malesAged16to74EconomicallyActiveUnemployed",
+        "malesAged16to74EconomicallyActiveFullTimeStudent",
+        "malesAged16to74EconomicallyInactiveRetired",
+        "malesAged16to74EconomicallyInactiveStudent",
+        "malesAged16to74EconomicallyInactiveLookingAfterHomeOrFamily",
+        "malesAged16to74EconomicallyInactivePermanentlySickOrDisabled",
+        "malesAged16to74EconomicallyInactiveOther", "malesAged16to24Unemployed",
+        "malesAged50AndOverUnemployed",
+        "malesAged16to74UnemployedWhoHaveNeverWorked",
+        "malesAged16to74WhoAreLongTermUnemployed"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -109,6 +129,9 @@ public class Census_CASKS09bRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS09bRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -122,7 +145,7 @@ public class Census_CASKS09bRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS09b
         this.malesAged16to74 = Math_Integer.parseInt(fields[1]);
         this.malesAged16to74EconomicallyActiveEmployeesPartTime = Math_Integer.parseInt(fields[2]);
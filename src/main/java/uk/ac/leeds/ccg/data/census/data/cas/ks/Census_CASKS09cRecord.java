@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -97,6 +98,26 @@ public class Census_CASKS09cRecord extends Census_AreaRecord {
      */
     protected int femalesAged16to74WhoAreLongTermUnemployed;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "femalesAged16to74",
+        "femalesAged16to74EconomicallyActiveEmployeesPartTime",
+        "femalesAged16to74EconomicallyActiveEmployeesFullTime",
+        "femalesAged16to74EconomicallyActiveSelfEmployed",
+        "femalesAged16to74EconomicallyActiveUnemployed",
+        "femalesAged16to74EconomicallyActiveFullTimeStudent",
+        "femalesAged16to74EconomicallyInactiveRetired",
+        "femalesAged16to74EconomicallyInactiveStudent",
+        "femalesAged16to74EconomicallyInactiveLookingAfterHomeOrFamily",
+        "femalesAged16to74EconomicallyInactivePermanentlySickOrDisabled",
+        "femalesAged16to74EconomicallyInactiveOther",
+        "femalesAged16to24Unemployed", "femalesAged50AndOverUnemployed",
+        "femalesAged16to74UnemployedWhoHaveNeverWorked",
+        "femalesAged16to74WhoAreLongTermUnemployed"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -111,6 +132,9 @@ public class Census_CASKS09cRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS09cRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -124,7 +148,7 @@ public class Census_CASKS09cRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS09c
         this.femalesAged16to74 = Math_Integer.parseInt(fields[1]);
         this.femalesAged16to74EconomicallyActiveEmployeesPartTime = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -78,6 +79,22 @@ public class Census_CASKS12bRecord extends Census_AreaRecord {
      */
     protected int malesAged16to74InEmploymentWorkingAsElementaryOccupations;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "malesAged16to74InEmployment",
+        "malesAged16to74InEmploymentWorkingAsManagersAndSeniorOfficials",
+        "malesAged16to74InEmploymentWorkingAsProfessionalOccupations",
+        "malesAged16to74InEmploymentWorkingAsAssociateProfessionalAndTechnicalOccupations",
+        "malesAged16to74InEmploymentWorkingAsAdministrativeAndSecretarialOccupations",
+        "malesAged16to74InEmploymentWorkingAsSkilledTradesOccupations",
+        "malesAged16to74InEmploymentWorkingAsPersonalServiceOccupations",
+        "malesAged16to74InEmploymentWorkingAsSalesAndCustomerServiceOccupations",
+        "malesAged16to74InEmploymentWorkingAsProcessPlantAndMachineOperatives",
+        "malesAged16to74InEmploymentWorkingAsElementaryOccupations"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -92,6 +109,9 @@ public class Census_CASKS12bRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS12bRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -105,7 +125,7 @@ public class Census_CASKS12bRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS12b
         this.malesAged16to74InEmployment = Math_Integer.parseInt(fields[1]);
         this.malesAged16to74InEmploymentWorkingAsManagersAndSeniorOfficials = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 
 /**
@@ -78,6 +79,22 @@ public class Census_CASKS12cRecord extends Census_AreaRecord {
      */
     protected int femalesAged16to74InEmploymentWorkingAsElementaryOccupations;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "femalesAged16to74InEmployment",
+        "femalesAged16to74InEmploymentWorkingAsManagersAndSeniorOfficials",
+        "femalesAged16to74InEmploymentWorkingAsProfessionalOccupations",
+        "femalesAged16to74InEmploymentWorkingAsAssociateProfessionalAndTechnicalOccupations",
+        "femalesAged16to74InEmploymentWorkingAsAdministrativeAndSecretarialOccupations",
+        "femalesAged16to74InEmploymentWorkingAsSkilledTradesOccupations",
+        "femalesAged16to74InEmploymentWorkingAsPersonalServiceOccupations",
+        "femalesAged16to74InEmploymentWorkingAsSalesAndCustomerServiceOccupations",
+        "femalesAged16to74InEmploymentWorkingAsProcessPlantAndMachineOperatives",
+        "femalesAged16to74InEmploymentWorkingAsElementaryOccupations"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -92,6 +109,9 @@ public class Census_CASKS12cRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS12cRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -105,7 +125,7 @@ public class Census_CASKS12cRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS12c
         this.femalesAged16to74InEmployment = Integer.valueOf(fields[1]);
         this.femalesAged16to74InEmploymentWorkingAsManagersAndSeniorOfficials = Integer.valueOf(fields[2]);
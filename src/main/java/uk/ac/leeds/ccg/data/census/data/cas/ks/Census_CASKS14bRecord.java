@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -86,6 +87,22 @@ public class Census_CASKS14bRecord extends Census_AreaRecord {
      */
     protected int malesAged16to74FullTimeStudents;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "malesAged16to74",
+        "malesAged16to74LargeEmployersAndHigherManagerialOccupations",
+        "malesAged16to74HigherProfessionalOccupations",
+        "malesAged16to74LowerManagerialAndProfessionalOccupationsIntermediate",
+        "malesAged16to74IntermediateOccupations",
+        "malesAged16to74SmallEmployersAndOwnAccountWorkers",
+        "malesAged16to74LowerSupervisoryAndTechnicalOccupations",
+        "malesAged16to74SemiRoutineOccupations",
+        "malesAged16to74RoutineOccupations", "malesAged16to74NeverWorked",
+        "malesAged16to74LongTermUnemployed", "malesAged16to74FullTimeStudents"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -100,6 +117,9 @@ public class Census_CASKS14bRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS14bRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -113,7 +133,7 @@ public class Census_CASKS14bRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS14b
         this.malesAged16to74 = Math_Integer.parseInt(fields[1]);
         this.malesAged16to74LargeEmployersAndHigherManagerialOccupations = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.ks;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -92,6 +93,23 @@ public class Census_CASKS14cRecord extends Census_AreaRecord {
      */
     protected int femalesAged16to74FullTimeStudents;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "femalesAged16to74",
+        "femalesAged16to74LargeEmployersAndHigherManagerialOccupations",
+        "femalesAged16to74HigherProfessionalOccupations",
+        "femalesAged16to74LowerManagerialAndProfessionalOccupationsIntermediate",
+        "femalesAged16to74IntermediateOccupations",
+        "femalesAged16to74SmallEmployersAndOwnAccountWorkers",
+        "femalesAged16to74LowerSupervisoryAndTechnicalOccupations",
+        "femalesAged16to74SemiRoutineOccupations",
+        "femalesAged16to74RoutineOccupations", "femalesAged16to74NeverWorked",
+        "femalesAged16to74LongTermUnemployed",
+        "femalesAged16to74FullTimeStudents"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -106,6 +124,9 @@ public class Census_CASKS14cRecord extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASKS14cRecord(Census_RecordID rID, String line) {
         super(rID);
@@ -119,7 +140,7 @@ public class Census_CASKS14cRecord extends Census_AreaRecord {
             fields[i] = "";
         }
         System.arraycopy(fieldsDummy, 0, fields, 0, fields.length);
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table KS14c
         this.femalesAged16to74 = Math_Integer.parseInt(fields[1]);
         this.femalesAged16to74LargeEmployersAndHigherManagerialOccupations = Math_Integer.parseInt(fields[2]);
@@ -16,6 +16,7 @@
 package uk.ac.leeds.ccg.data.census.data.cas.uv;
 
 import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
 import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
 import uk.ac.leeds.ccg.math.Math_Integer;
 
@@ -40,6 +41,13 @@ public class Census_CASUV003Record extends Census_AreaRecord {
      */
     protected int females;
 
+    /**
+     * The names of the cells in the order of the fields of a line after
+     * the zone code.
+     */
+    public static final String[] CELLS = {
+        "allPeople", "males", "females"};
+
     /**
      * Creates a new record with all numerical fields set to 0.
      *
@@ -54,11 +62,14 @@ public class Census_CASUV003Record extends Census_AreaRecord {
      *
      * @param rID What {@link #ID} is set to.
      * @param line A line for a CSV file.
+     * @throws IllegalArgumentException If the first field of {@code line}
+     * is not a zone code (see
+     * {@link Census_ZoneCode#parse(CharSequence, int, int)}).
      */
     public Census_CASUV003Record(Census_RecordID rID, String line) {
         super(rID);
         String[] fields = line.split(",");
-        zoneCode = fields[0].substring(1, 11);
+        zoneCode = Census_ZoneCode.parse(fields[0], 1, 11);
         // From Table UV003
         this.allPeople = Math_Integer.parseInt(fields[1]);
         this.males = Math_Integer.parseInt(fields[2]);
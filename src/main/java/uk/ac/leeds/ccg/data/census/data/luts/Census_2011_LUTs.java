@@ -15,18 +15,16 @@
  */
 package uk.ac.leeds.ccg.data.census.data.luts;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.StreamTokenizer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import uk.ac.leeds.ccg.data.core.Data_Environment;
-import uk.ac.leeds.ccg.data.format.Data_ReadTXT;
 import uk.ac.leeds.ccg.generic.core.Generic_Environment;
 import uk.ac.leeds.ccg.data.census.core.Census_Environment;
 import uk.ac.leeds.ccg.data.census.core.Census_Object;
@@ -35,8 +33,10 @@ import uk.ac.leeds.ccg.data.census.data.id.Census_2011_LADID;
 import uk.ac.leeds.ccg.data.census.data.id.Census_2011_LSOAID;
 import uk.ac.leeds.ccg.data.census.data.id.Census_2011_OAID;
 import uk.ac.leeds.ccg.data.census.data.id.Census_MSOAID;
+import uk.ac.leeds.ccg.data.census.io.Census_Archives;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+import uk.ac.leeds.ccg.data.census.io.Census_Files;
 import uk.ac.leeds.ccg.generic.io.Generic_Defaults;
-import uk.ac.leeds.ccg.generic.io.Generic_IO;
 import uk.ac.leeds.ccg.generic.util.Generic_Collections;
 
 /**
@@ -180,9 +180,127 @@ public class Census_2011_LUTs extends Census_Object {
      */
     public HashMap<Census_MSOAID, Census_2011_LADID> MSOAID2LADID;
 
+    /**
+     * The dense look up from which the maps are initialised.
+     */
+    public final Census_LUT lut;
+
+    /**
+     * For getting the codes of the areas in each LAD.
+     */
+    public final Census_AreaCodes codes;
+
+    /**
+     * Creates a new instance by reading the lookup file and initialising all
+     * the maps.
+     *
+     * @param e What {@link #env} is set to.
+     * @throws FileNotFoundException If the lookup file is not found.
+     * @throws IOException If encountered.
+     */
     public Census_2011_LUTs(Census_Environment e) throws FileNotFoundException, IOException {
+        this(e, true);
+    }
+
+    /**
+     * Creates a new instance by reading the lookup file.
+     *
+     * @param e What {@link #env} is set to.
+     * @param initMaps If {@code false} then only {@link #lut} is initialised
+     * and all the map and set fields are left {@code null}. This takes a
+     * small fraction of the memory.
+     * @throws FileNotFoundException If the lookup file is not found.
+     * @throws IOException If encountered.
+     */
+    public Census_2011_LUTs(Census_Environment e, boolean initMaps)
+            throws FileNotFoundException, IOException {
+        this(e, load(e), initMaps);
+    }
+
+    /**
+     * @param e What {@link #env} is set to.
+     * @param lut What {@link #lut} is set to.
+     * @param initMaps If {@code true} then the map and set fields are
+     * initialised from {@code lut}, otherwise they are left {@code null}.
+     */
+    public Census_2011_LUTs(Census_Environment e, Census_LUT lut,
+            boolean initMaps) {
         super(e);
-        // Initialise collections.
+        this.lut = lut;
+        codes = new Census_AreaCodes(lut);
+        if (initMaps) {
+            initMaps();
+        }
+    }
+
+    /**
+     * Reads the lookup file into a new {@link Census_LUT}.
+     *
+     * @param env The environment.
+     * @return A new look up.
+     * @throws FileNotFoundException If the lookup file is not found.
+     * @throws IOException If encountered.
+     */
+    public static Census_LUT load(Census_Environment env)
+            throws FileNotFoundException, IOException {
+        Census_LUTBuilder b = new Census_LUTBuilder();
+        /**
+         * Initialise LUTs between OA, LSOA, MSOA and LAD.
+         */
+        Path f = getInputFiles(env.files).get(0);
+        try (Census_CSVScanner s = Census_Archives.newScanner(f)) {
+            if (s.next()) {                 // Skip header...
+                env.de.env.log("Reading " + f); // ...
+                env.de.env.log(s.getLine());    // ... but log it.
+            }
+            while (s.next()) {
+                int oa = b.addOA(s.getZoneCode(0));
+                b.OA2LSOA[oa] = b.LSOAs.index(s.getZoneCode(1));
+                b.OA2MSOA[oa] = b.MSOAs.index(s.getZoneCode(3));
+                b.OA2LAD[oa] = b.addLAD(s.getZoneCode(5), s, 6);
+            }
+        }
+        return b.build();
+    }
+
+    /**
+     * @param files The files.
+     * @return The lookup files that are read by {@link #load}.
+     * @throws IOException If encountered.
+     */
+    public static List<Path> getInputFiles(Census_Files files)
+            throws IOException {
+        String fn = "Output_Area_to_Lower_Layer_Super_Output_Area_to_Middle_Layer_"
+                + "Super_Output_Area_to_Local_Authority_District_December_"
+                + "2011_Lookup_in_England_and_Wales.csv";
+        return List.of(Paths.get(files.getInput2011LUTDir().toString(), fn));
+    }
+
+    /**
+     * Reads the look up from the snapshot in the generated directory if that
+     * is valid for the input files, otherwise reads the input files and
+     * writes a new snapshot.
+     *
+     * @param env The environment.
+     * @return The look up.
+     * @throws IOException If encountered.
+     */
+    public static Census_LUT loadCached(Census_Environment env)
+            throws IOException {
+        return Census_LUTSnapshot.load(env,
+                env.files.getGenerated2011LUTSnapshot(),
+                getInputFiles(env.files), () -> load(env));
+    }
+
+    /**
+     * Initialises all the map and set fields from {@link #lut}.
+     */
+    public final void initMaps() {
+        // ID arrays
+        Census_2011_OAID[] oaids = new Census_2011_OAID[lut.getOACount()];
+        Census_2011_LSOAID[] lsoaids = new Census_2011_LSOAID[lut.getLSOACount()];
+        Census_MSOAID[] msoaids = new Census_MSOAID[lut.getMSOACount()];
+        Census_2011_LADID[] ladids = new Census_2011_LADID[lut.getLADCount()];
         // ID sets
         OAIDs = new HashSet<>();
         LSOAIDs = new HashSet<>();
@@ -199,6 +317,36 @@ public class Census_2011_LUTs extends Census_Object {
         LADID2LAD = new HashMap<>();
         LADNAME2LADID = new HashMap<>();
         LADID2LADNAME = new HashMap<>();
+        for (int i = 0; i < oaids.length; i++) {
+            oaids[i] = new Census_2011_OAID(i);
+            String code = lut.getOACode(i);
+            OAIDs.add(oaids[i]);
+            OA2OAID.put(code, oaids[i]);
+            OAID2OA.put(oaids[i], code);
+        }
+        for (int i = 0; i < lsoaids.length; i++) {
+            lsoaids[i] = new Census_2011_LSOAID(i);
+            String code = lut.getLSOACode(i);
+            LSOAIDs.add(lsoaids[i]);
+            LSOA2LSOAID.put(code, lsoaids[i]);
+            LSOAID2LSOA.put(lsoaids[i], code);
+        }
+        for (int i = 0; i < msoaids.length; i++) {
+            msoaids[i] = new Census_MSOAID(i);
+            String code = lut.getMSOACode(i);
+            MSOAIDs.add(msoaids[i]);
+            MSOA2MSOAID.put(code, msoaids[i]);
+            MSOAID2MSOA.put(msoaids[i], code);
+        }
+        for (int i = 0; i < ladids.length; i++) {
+            ladids[i] = new Census_2011_LADID(i);
+            String code = lut.getLADCode(i);
+            LADIDs.add(ladids[i]);
+            LAD2LADID.put(code, ladids[i]);
+            LADID2LAD.put(ladids[i], code);
+            LADNAME2LADID.put(lut.LADNAMEs[i], ladids[i]);
+            LADID2LADNAME.put(ladids[i], lut.LADNAMEs[i]);
+        }
         // Lookups
         OAID2LSOAID = new HashMap<>();
         LSOAID2OAIDs = new HashMap<>();
@@ -212,89 +360,202 @@ public class Census_2011_LUTs extends Census_Object {
         LSOAID2LADID = new HashMap<>();
         LADID2MSOAIDs = new HashMap<>();
         MSOAID2LADID = new HashMap<>();
-
-        // Common things for loading from the files.
-        String fn;
-        Path f;
-        Data_ReadTXT reader = new Data_ReadTXT(env.de);
-        String line;
-
-        /**
-         * Initialise LUTs between OA, LSOA and MSOA.
-         */
-        fn = "Output_Area_to_Lower_Layer_Super_Output_Area_to_Middle_Layer_"
-                + "Super_Output_Area_to_Local_Authority_District_December_"
-                + "2011_Lookup_in_England_and_Wales.csv";
-        f = Paths.get(env.files.getInput2011LUTDir().toString(), fn);
-        try (BufferedReader br = Generic_IO.getBufferedReader(f)) {
-            StreamTokenizer st = new StreamTokenizer(br);
-            Generic_IO.setStreamTokenizerSyntax1(st);
-            Generic_IO.setStreamTokenizerSyntaxNumbersAsWords1(st);
-            line = reader.readLine();       // Skip header...
-            env.de.env.log("Reading " + f); // ...
-            env.de.env.log(line);           // ... but log it.
-            while (line != null) {
-                //env.de.env.log(line); // For testing.
-                String[] split = line.split(",");
-                // Add to OAIDs, OA2OAID and OAID2OA
-                Census_2011_OAID oaid = new Census_2011_OAID(OAIDs.size());
-                OAIDs.add(oaid);
-                OA2OAID.put(split[0], oaid);
-                OAID2OA.put(oaid, split[0]);
-                // Add to LSOAIDs, LSOA2LSOAID and LSOAID2LSOA
-                Census_2011_LSOAID lsoaid;
-                if (LSOA2LSOAID.containsKey(split[1])) {
-                    lsoaid = LSOA2LSOAID.get(split[1]);
-                } else {
-                    lsoaid = new Census_2011_LSOAID(LSOAIDs.size());
-                    LSOAIDs.add(lsoaid);
-                    LSOA2LSOAID.put(split[1], lsoaid);
-                    LSOAID2LSOA.put(lsoaid, split[1]);
-                    // Add to OAID2LSOAID and LSOAID2OAIDs
-                    OAID2LSOAID.put(oaid, lsoaid);
-                    Generic_Collections.addToMap(LSOAID2OAIDs, lsoaid, oaid);
-                }
-                // Add to MSOAIDs, MSOA2MSOAID and MSOAID2MSOA                
-                Census_MSOAID msoaid;
-                if (MSOA2MSOAID.containsKey(split[3])) {
-                    msoaid = MSOA2MSOAID.get(split[3]);
-                } else {
-                    msoaid = new Census_MSOAID(MSOAIDs.size());
-                    MSOAIDs.add(msoaid);
-                    MSOA2MSOAID.put(split[3], msoaid);
-                    MSOAID2MSOA.put(msoaid, split[3]);
-                    // Add to OAID2MSOAID and MSOAID2OAIDs
-                    OAID2MSOAID.put(oaid, msoaid);
-                    Generic_Collections.addToMap(MSOAID2OAIDs, msoaid, oaid);
-                }
-                // Add to LADIDs, LAD2LADID and LADID2LAD, and LADNAME2LADID and LADID2LADNAME                
-                Census_2011_LADID ladid;
-                if (LAD2LADID.containsKey(split[5])) {
-                    ladid = LAD2LADID.get(split[5]);
-                } else {
-                    ladid = new Census_2011_LADID(LADIDs.size());
-                    LADIDs.add(ladid);
-                    LAD2LADID.put(split[5], ladid);
-                    LADID2LAD.put(ladid, split[5]);
-                    LADNAME2LADID.put(split[6], ladid);
-                    LADID2LADNAME.put(ladid, split[6]);
-                }
-                // Add to OAID2LADID and LADID2OAIDs
+        for (int i = 0; i < oaids.length; i++) {
+            Census_2011_OAID oaid = oaids[i];
+            if (lut.OA2LSOA[i] >= 0) {
+                Census_2011_LSOAID lsoaid = lsoaids[lut.OA2LSOA[i]];
+                OAID2LSOAID.put(oaid, lsoaid);
+                Generic_Collections.addToMap(LSOAID2OAIDs, lsoaid, oaid);
+            }
+            if (lut.OA2MSOA[i] >= 0) {
+                Census_MSOAID msoaid = msoaids[lut.OA2MSOA[i]];
+                OAID2MSOAID.put(oaid, msoaid);
+                Generic_Collections.addToMap(MSOAID2OAIDs, msoaid, oaid);
+            }
+            if (lut.OA2LAD[i] >= 0) {
+                Census_2011_LADID ladid = ladids[lut.OA2LAD[i]];
                 OAID2LADID.put(oaid, ladid);
                 Generic_Collections.addToMap(LADID2OAIDs, ladid, oaid);
-                // Add to LSOAID2MSOAID and MSOAID2LSOAIDs
+            }
+        }
+        for (int i = 0; i < lsoaids.length; i++) {
+            Census_2011_LSOAID lsoaid = lsoaids[i];
+            if (lut.LSOA2MSOA[i] >= 0) {
+                Census_MSOAID msoaid = msoaids[lut.LSOA2MSOA[i]];
                 LSOAID2MSOAID.put(lsoaid, msoaid);
-                Generic_Collections.addToMap(MSOAID2LSOAIDs, msoaid, lsoaid);
-                // Add to LSOAID2LADID and LADID2LSOAIDs 
+            }
+            if (lut.LSOA2LAD[i] >= 0) {
+                Census_2011_LADID ladid = ladids[lut.LSOA2LAD[i]];
                 LSOAID2LADID.put(lsoaid, ladid);
-                Generic_Collections.addToMap(LADID2LSOAIDs, ladid, lsoaid);
-                // Add to MSOAID2LADID and LADID2MSOAIDs 
+            }
+        }
+        for (int i = 0; i < msoaids.length; i++) {
+            Census_MSOAID msoaid = msoaids[i];
+            if (lut.MSOA2LAD[i] >= 0) {
+                Census_2011_LADID ladid = ladids[lut.MSOA2LAD[i]];
                 MSOAID2LADID.put(msoaid, ladid);
-                Generic_Collections.addToMap(LADID2MSOAIDs, ladid, msoaid);
-                // Get next line.
-                line = reader.readLine();
             }
         }
+        // Areas that span parents are in each of them.
+        for (int i = 0; i < msoaids.length; i++) {
+            Census_MSOAID msoaid = msoaids[i];
+            lut.MSOA2LSOAs.forEach(i, j -> Generic_Collections.addToMap(
+                    MSOAID2LSOAIDs, msoaid, lsoaids[j]));
+        }
+        for (int i = 0; i < ladids.length; i++) {
+            Census_2011_LADID ladid = ladids[i];
+            lut.LAD2LSOAs.forEach(i, j -> Generic_Collections.addToMap(
+                    LADID2LSOAIDs, ladid, lsoaids[j]));
+            lut.LAD2MSOAs.forEach(i, j -> Generic_Collections.addToMap(
+                    LADID2MSOAIDs, ladid, msoaids[j]));
+        }
+    }
+
+    /**
+     * @param oaid The OAID.
+     * @return The OA code for {@code oaid}.
+     */
+    public String getOA(Census_2011_OAID oaid) {
+        return lut.getOACode(oaid.getID());
+    }
+
+    /**
+     * @param lsoaid The LSOAID.
+     * @return The LSOA code for {@code lsoaid}.
+     */
+    public String getLSOA(Census_2011_LSOAID lsoaid) {
+        return lut.getLSOACode(lsoaid.getID());
+    }
+
+    /**
+     * @param msoaid The MSOAID.
+     * @return The MSOA code for {@code msoaid}.
+     */
+    public String getMSOA(Census_MSOAID msoaid) {
+        return lut.getMSOACode(msoaid.getID());
+    }
+
+    /**
+     * @param ladid The LADID.
+     * @return The LAD code for {@code ladid}.
+     */
+    public String getLAD(Census_2011_LADID ladid) {
+        return lut.getLADCode(ladid.getID());
+    }
+
+    /**
+     * @param ladid The LADID.
+     * @return The LAD name for {@code ladid}.
+     */
+    public String getLADNAME(Census_2011_LADID ladid) {
+        return lut.LADNAMEs[ladid.getID()];
+    }
+
+    /**
+     * @param code The OA code.
+     * @return The OAID for {@code code} or {@code null} if there is no such
+     * OA.
+     */
+    public Census_2011_OAID getOAID(CharSequence code) {
+        int i = lut.getOAIndex(code);
+        return i < 0 ? null : new Census_2011_OAID(i);
+    }
+
+    /**
+     * @param code The LSOA code.
+     * @return The LSOAID for {@code code} or {@code null} if there is no such
+     * LSOA.
+     */
+    public Census_2011_LSOAID getLSOAID(CharSequence code) {
+        int i = lut.getLSOAIndex(code);
+        return i < 0 ? null : new Census_2011_LSOAID(i);
+    }
+
+    /**
+     * @param code The MSOA code.
+     * @return The MSOAID for {@code code} or {@code null} if there is no such
+     * MSOA.
+     */
+    public Census_MSOAID getMSOAID(CharSequence code) {
+        int i = lut.getMSOAIndex(code);
+        return i < 0 ? null : new Census_MSOAID(i);
+    }
+
+    /**
+     * @param code The LAD code.
+     * @return The LADID for {@code code} or {@code null} if there is no such
+     * LAD.
+     */
+    public Census_2011_LADID getLADID(CharSequence code) {
+        int i = lut.getLADIndex(code);
+        return i < 0 ? null : new Census_2011_LADID(i);
+    }
+
+    /**
+     * @param name The LAD name.
+     * @return The LADID for {@code name} or {@code null} if there is no such
+     * LAD.
+     */
+    public Census_2011_LADID getLADIDForName(String name) {
+        int i = lut.getLADForName(name);
+        return i < 0 ? null : new Census_2011_LADID(i);
+    }
+
+    /**
+     * @param oaid The OAID.
+     * @return The LSOAID for {@code oaid} or {@code null} if there is none.
+     */
+    public Census_2011_LSOAID getLSOAID(Census_2011_OAID oaid) {
+        int i = lut.OA2LSOA[oaid.getID()];
+        return i < 0 ? null : new Census_2011_LSOAID(i);
+    }
+
+    /**
+     * @param oaid The OAID.
+     * @return The MSOAID for {@code oaid} or {@code null} if there is none.
+     */
+    public Census_MSOAID getMSOAID(Census_2011_OAID oaid) {
+        int i = lut.OA2MSOA[oaid.getID()];
+        return i < 0 ? null : new Census_MSOAID(i);
+    }
+
+    /**
+     * @param lsoaid The LSOAID.
+     * @return The MSOAID for {@code lsoaid} or {@code null} if there is
+     * none or more than one.
+     */
+    public Census_MSOAID getMSOAID(Census_2011_LSOAID lsoaid) {
+        int i = lut.LSOA2MSOA[lsoaid.getID()];
+        return i < 0 ? null : new Census_MSOAID(i);
+    }
+
+    /**
+     * @param oaid The OAID.
+     * @return The LADID for {@code oaid} or {@code null} if there is none.
+     */
+    public Census_2011_LADID getLADID(Census_2011_OAID oaid) {
+        int i = lut.OA2LAD[oaid.getID()];
+        return i < 0 ? null : new Census_2011_LADID(i);
+    }
+
+    /**
+     * @param lsoaid The LSOAID.
+     * @return The LADID for {@code lsoaid} or {@code null} if there is
+     * none or more than one.
+     */
+    public Census_2011_LADID getLADID(Census_2011_LSOAID lsoaid) {
+        int i = lut.LSOA2LAD[lsoaid.getID()];
+        return i < 0 ? null : new Census_2011_LADID(i);
+    }
+
+    /**
+     * @param msoaid The MSOAID.
+     * @return The LADID for {@code msoaid} or {@code null} if there is
+     * none or more than one.
+     */
+    public Census_2011_LADID getLADID(Census_MSOAID msoaid) {
+        int i = lut.MSOA2LAD[msoaid.getID()];
+        return i < 0 ? null : new Census_2011_LADID(i);
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * For getting the codes of the areas in a Local Authority District (LAD). For
+ * each LAD and level the codes are sorted and decoded once, the first time
+ * they are wanted, and then the same read only list is returned every time.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_AreaCodes {
+
+    /**
+     * The levels of area within an LAD.
+     */
+    public enum Level {
+        /**
+         * Output Area.
+         */
+        OA,
+        /**
+         * Lower Layer Super Output Area.
+         */
+        LSOA,
+        /**
+         * Middle Layer Super Output Area.
+         */
+        MSOA
+    }
+
+    /**
+     * The look up.
+     */
+    protected final Census_LUT lut;
+
+    /**
+     * The codes for each level and LAD once they have been wanted.
+     */
+    protected final AtomicReferenceArray<List<String>> codes;
+
+    /**
+     * @param lut What {@link #lut} is set to.
+     */
+    public Census_AreaCodes(Census_LUT lut) {
+        this.lut = lut;
+        codes = new AtomicReferenceArray<>(Level.values().length
+                * lut.getLADCount());
+    }
+
+    /**
+     * @param level The level.
+     * @param lad The LAD index.
+     * @return A read only list of the codes of the areas at {@code level} in
+     * {@code lad} in ascending order.
+     */
+    public List<String> get(Level level, int lad) {
+        int i = level.ordinal() * lut.getLADCount() + lad;
+        List<String> r = codes.get(i);
+        if (r == null) {
+            r = Collections.unmodifiableList(Arrays.asList(decode(level, lad)));
+            if (!codes.compareAndSet(i, null, r)) {
+                r = codes.get(i);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param level The level.
+     * @param lads The LAD indexes. Repeats are ignored.
+     * @return A read only list of the codes of the areas at {@code level} in
+     * all of {@code lads} in ascending order.
+     */
+    public List<String> getAll(Level level, int[] lads) {
+        BitSet seen = new BitSet(lut.getLADCount());
+        int n = 0;
+        for (int lad : lads) {
+            if (!seen.get(lad)) {
+                seen.set(lad);
+                n += get(level, lad).size();
+            }
+        }
+        if (seen.cardinality() == 1) {
+            return get(level, lads[0]);
+        }
+        String[] r = new String[n];
+        n = 0;
+        for (int lad = seen.nextSetBit(0); lad >= 0;
+                lad = seen.nextSetBit(lad + 1)) {
+            List<String> l = get(level, lad);
+            for (int i = 0; i < l.size(); i++) {
+                r[n++] = l.get(i);
+            }
+        }
+        // The runs are already sorted so this is a merge.
+        Arrays.sort(r);
+        return Collections.unmodifiableList(Arrays.asList(r));
+    }
+
+    /**
+     * @param level The level.
+     * @param lad The LAD index.
+     * @return The codes of the areas at {@code level} in {@code lad} sorted.
+     */
+    private String[] decode(Level level, int lad) {
+        Census_CSR csr;
+        long[] packed;
+        switch (level) {
+            case OA:
+                csr = lut.LAD2OAs;
+                packed = lut.OAs;
+                break;
+            case LSOA:
+                csr = lut.LAD2LSOAs;
+                packed = lut.LSOAs;
+                break;
+            default:
+                csr = lut.LAD2MSOAs;
+                packed = lut.MSOAs;
+        }
+        int o = csr.offsets[lad];
+        long[] p = new long[csr.size(lad)];
+        for (int i = 0; i < p.length; i++) {
+            p[i] = packed[csr.indexes[o + i]];
+        }
+        // Packed codes sort in the same order as the codes.
+        Arrays.sort(p);
+        String[] r = new String[p.length];
+        for (int i = 0; i < p.length; i++) {
+            r[i] = Census_ZoneCode.decode(p[i]);
+        }
+        return r;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A Compressed Sparse Row (CSR) lookup from a dense parent index to the dense
+ * indexes of its children. The children of parent {@code p} are
+ * {@code indexes[offsets[p]]} to {@code indexes[offsets[p + 1] - 1]} in
+ * ascending order.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CSR {
+
+    /**
+     * For storing where the children of each parent start in
+     * {@link #indexes}. The length is the number of parents plus one.
+     */
+    public final int[] offsets;
+
+    /**
+     * For storing the children of all the parents.
+     */
+    public final int[] indexes;
+
+    /**
+     * @param offsets What {@link #offsets} is set to.
+     * @param indexes What {@link #indexes} is set to.
+     */
+    public Census_CSR(int[] offsets, int[] indexes) {
+        this.offsets = offsets;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Creates the inverse of a child to parent lookup. Children with a
+     * negative parent are left out.
+     *
+     * @param child2parent A lookup from a child index to a parent index.
+     * @param nParents The number of parents.
+     * @return A lookup from each parent to its children.
+     */
+    public static Census_CSR of(int[] child2parent, int nParents) {
+        int[] offsets = new int[nParents + 1];
+        for (int p : child2parent) {
+            if (p >= 0) {
+                offsets[p + 1]++;
+            }
+        }
+        for (int p = 0; p < nParents; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+        int[] next = Arrays.copyOf(offsets, nParents);
+        int[] indexes = new int[offsets[nParents]];
+        for (int c = 0; c < child2parent.length; c++) {
+            int p = child2parent[c];
+            if (p >= 0) {
+                indexes[next[p]++] = c;
+            }
+        }
+        return new Census_CSR(offsets, indexes);
+    }
+
+    /**
+     * Creates a lookup from each parent to the distinct children that share
+     * an element with it. Unlike {@link #of(int[], int)} a child that shares
+     * elements with more than one parent is a child of each of them. Elements
+     * with a negative child or parent are left out.
+     *
+     * @param e2child A lookup from an element index to a child index.
+     * @param e2parent A lookup from an element index to a parent index.
+     * @param nParents The number of parents.
+     * @return A lookup from each parent to its children.
+     */
+    public static Census_CSR of(int[] e2child, int[] e2parent, int nParents) {
+        long[] pairs = new long[e2child.length];
+        int n = 0;
+        for (int e = 0; e < e2child.length; e++) {
+            int c = e2child[e];
+            int p = e2parent[e];
+            if (c >= 0 && p >= 0) {
+                pairs[n++] = ((long) p << 32) | c;
+            }
+        }
+        Arrays.sort(pairs, 0, n);
+        int[] offsets = new int[nParents + 1];
+        int[] indexes = new int[n];
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                offsets[(int) (pairs[i] >>> 32) + 1]++;
+                indexes[m++] = (int) pairs[i];
+            }
+        }
+        for (int p = 0; p < nParents; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+        return new Census_CSR(offsets, Arrays.copyOf(indexes, m));
+    }
+
+    /**
+     * @return The number of parents.
+     */
+    public int getParentCount() {
+        return offsets.length - 1;
+    }
+
+    /**
+     * @param p The parent index.
+     * @return The number of children of {@code p}.
+     */
+    public int size(int p) {
+        return offsets[p + 1] - offsets[p];
+    }
+
+    /**
+     * @param p The parent index.
+     * @return A copy of the children of {@code p}.
+     */
+    public int[] get(int p) {
+        return Arrays.copyOfRange(indexes, offsets[p], offsets[p + 1]);
+    }
+
+    /**
+     * @param p The parent index.
+     * @param action What is applied to each child of {@code p} in turn.
+     */
+    public void forEach(int p, IntConsumer action) {
+        for (int i = offsets[p]; i < offsets[p + 1]; i++) {
+            action.accept(indexes[i]);
+        }
+    }
+}
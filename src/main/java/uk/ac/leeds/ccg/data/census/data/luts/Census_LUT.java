@@ -0,0 +1,350 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * A dense look up between Output Areas (OAs), Lower Layer Super Output Areas
+ * (LSOAs), Middle Layer Super Output Areas (MSOAs) and Local Authority
+ * Districts (LADs). Areas are identified by the same dense indexes that are
+ * used for the IDs (e.g. {@link uk.ac.leeds.ccg.data.census.data.id.Census_2011_OAID}),
+ * so each child to parent lookup is a single array load and each parent to
+ * children lookup is a {@link Census_CSR}. Where there is no parent for a
+ * child the parent index is {@code -1}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_LUT {
+
+    /**
+     * OA codes packed (see {@link Census_ZoneCode}) indexed by OA index.
+     */
+    public final long[] OAs;
+
+    /**
+     * For a lookup from an OA code to an OA index.
+     */
+    public final Census_ZoneCodeIndex OAIndex;
+
+    /**
+     * LSOA codes packed (see {@link Census_ZoneCode}) indexed by LSOA index.
+     */
+    public final long[] LSOAs;
+
+    /**
+     * For a lookup from an LSOA code to an LSOA index.
+     */
+    public final Census_ZoneCodeIndex LSOAIndex;
+
+    /**
+     * MSOA codes packed (see {@link Census_ZoneCode}) indexed by MSOA index.
+     */
+    public final long[] MSOAs;
+
+    /**
+     * For a lookup from an MSOA code to an MSOA index.
+     */
+    public final Census_ZoneCodeIndex MSOAIndex;
+
+    /**
+     * LAD codes packed (see {@link Census_ZoneCode}) indexed by LAD index.
+     */
+    public final long[] LADs;
+
+    /**
+     * For a lookup from an LAD code to an LAD index.
+     */
+    public final Census_ZoneCodeIndex LADIndex;
+
+    /**
+     * LAD names indexed by LAD index.
+     */
+    public final String[] LADNAMEs;
+
+    /**
+     * For a lookup from an OA index to an LSOA index.
+     */
+    public final int[] OA2LSOA;
+
+    /**
+     * For a lookup from an OA index to an MSOA index.
+     */
+    public final int[] OA2MSOA;
+
+    /**
+     * For a lookup from an OA index to an LAD index.
+     */
+    public final int[] OA2LAD;
+
+    /**
+     * For a lookup from an LSOA index to an MSOA index. This is {@code -1}
+     * if the LSOA has OAs in more than one MSOA (see {@link #MSOA2LSOAs}).
+     */
+    public final int[] LSOA2MSOA;
+
+    /**
+     * For a lookup from an LSOA index to an LAD index. This is {@code -1}
+     * if the LSOA has OAs in more than one LAD (see {@link #LAD2LSOAs}).
+     */
+    public final int[] LSOA2LAD;
+
+    /**
+     * For a lookup from an MSOA index to an LAD index. This is {@code -1}
+     * if the MSOA has OAs in more than one LAD (see {@link #LAD2MSOAs}).
+     */
+    public final int[] MSOA2LAD;
+
+    /**
+     * For a lookup from an LSOA index to OA indexes.
+     */
+    public final Census_CSR LSOA2OAs;
+
+    /**
+     * For a lookup from an MSOA index to OA indexes.
+     */
+    public final Census_CSR MSOA2OAs;
+
+    /**
+     * For a lookup from an LAD index to OA indexes.
+     */
+    public final Census_CSR LAD2OAs;
+
+    /**
+     * For a lookup from an MSOA index to the indexes of LSOAs with an OA in
+     * it.
+     */
+    public final Census_CSR MSOA2LSOAs;
+
+    /**
+     * For a lookup from an LAD index to the indexes of LSOAs with an OA in
+     * it. An LSOA that spans LADs is in each of them.
+     */
+    public final Census_CSR LAD2LSOAs;
+
+    /**
+     * For a lookup from an LAD index to the indexes of MSOAs with an OA in
+     * it. An MSOA that spans LADs is in each of them.
+     */
+    public final Census_CSR LAD2MSOAs;
+
+    /**
+     * For a lookup from an LAD name to an LAD index. There are only a few
+     * hundred LADs so this is kept as a map.
+     */
+    protected final HashMap<String, Integer> LADNAME2LAD;
+
+    /**
+     * Creates a new instance deriving all the lookups from the OA parent
+     * lookups. An LSOA or MSOA has a parent only if all its OAs that have a
+     * parent have the same one. The parent to child lookups are built from
+     * the distinct pairs across all OAs so they include areas that span
+     * parents.
+     *
+     * @param OAs What {@link #OAs} is set to.
+     * @param LSOAs What {@link #LSOAs} is set to.
+     * @param MSOAs What {@link #MSOAs} is set to.
+     * @param LADs What {@link #LADs} is set to.
+     * @param LADNAMEs What {@link #LADNAMEs} is set to.
+     * @param OA2LSOA What {@link #OA2LSOA} is set to.
+     * @param OA2MSOA What {@link #OA2MSOA} is set to.
+     * @param OA2LAD What {@link #OA2LAD} is set to.
+     */
+    public Census_LUT(long[] OAs, long[] LSOAs, long[] MSOAs,
+            long[] LADs, String[] LADNAMEs, int[] OA2LSOA, int[] OA2MSOA,
+            int[] OA2LAD) {
+        this.OAs = OAs;
+        this.LSOAs = LSOAs;
+        this.MSOAs = MSOAs;
+        this.LADs = LADs;
+        this.LADNAMEs = LADNAMEs;
+        this.OA2LSOA = OA2LSOA;
+        this.OA2MSOA = OA2MSOA;
+        this.OA2LAD = OA2LAD;
+        OAIndex = new Census_ZoneCodeIndex(OAs);
+        LSOAIndex = new Census_ZoneCodeIndex(LSOAs);
+        MSOAIndex = new Census_ZoneCodeIndex(MSOAs);
+        LADIndex = new Census_ZoneCodeIndex(LADs);
+        LSOA2MSOA = getParents(OA2LSOA, OA2MSOA, LSOAs.length);
+        LSOA2LAD = getParents(OA2LSOA, OA2LAD, LSOAs.length);
+        MSOA2LAD = getParents(OA2MSOA, OA2LAD, MSOAs.length);
+        LSOA2OAs = Census_CSR.of(OA2LSOA, LSOAs.length);
+        MSOA2OAs = Census_CSR.of(OA2MSOA, MSOAs.length);
+        LAD2OAs = Census_CSR.of(OA2LAD, LADs.length);
+        MSOA2LSOAs = Census_CSR.of(OA2LSOA, OA2MSOA, MSOAs.length);
+        LAD2LSOAs = Census_CSR.of(OA2LSOA, OA2LAD, LADs.length);
+        LAD2MSOAs = Census_CSR.of(OA2MSOA, OA2LAD, LADs.length);
+        LADNAME2LAD = new HashMap<>();
+        for (int i = 0; i < LADNAMEs.length; i++) {
+            LADNAME2LAD.put(LADNAMEs[i], i);
+        }
+    }
+
+    /**
+     * @param a2b A lookup from a child to a parent.
+     * @param a2c A lookup from a child to a grandparent.
+     * @param nb The number of parents.
+     * @return A lookup from parent to grandparent which is {@code -1} where
+     * the children of a parent have no grandparent or more than one.
+     */
+    private static int[] getParents(int[] a2b, int[] a2c, int nb) {
+        int[] r = new int[nb];
+        Arrays.fill(r, -1);
+        boolean[] split = new boolean[nb];
+        for (int a = 0; a < a2b.length; a++) {
+            int b = a2b[a];
+            int c = a2c[a];
+            if (b >= 0 && c >= 0 && !split[b]) {
+                if (r[b] < 0) {
+                    r[b] = c;
+                } else if (r[b] != c) {
+                    r[b] = -1;
+                    split[b] = true;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return The number of OAs.
+     */
+    public int getOACount() {
+        return OAs.length;
+    }
+
+    /**
+     * @return The number of LSOAs.
+     */
+    public int getLSOACount() {
+        return LSOAs.length;
+    }
+
+    /**
+     * @return The number of MSOAs.
+     */
+    public int getMSOACount() {
+        return MSOAs.length;
+    }
+
+    /**
+     * @return The number of LADs.
+     */
+    public int getLADCount() {
+        return LADs.length;
+    }
+
+    /**
+     * @param oa The OA index.
+     * @return The OA code.
+     */
+    public String getOACode(int oa) {
+        return Census_ZoneCode.decode(OAs[oa]);
+    }
+
+    /**
+     * @param lsoa The LSOA index.
+     * @return The LSOA code.
+     */
+    public String getLSOACode(int lsoa) {
+        return Census_ZoneCode.decode(LSOAs[lsoa]);
+    }
+
+    /**
+     * @param msoa The MSOA index.
+     * @return The MSOA code.
+     */
+    public String getMSOACode(int msoa) {
+        return Census_ZoneCode.decode(MSOAs[msoa]);
+    }
+
+    /**
+     * @param lad The LAD index.
+     * @return The LAD code.
+     */
+    public String getLADCode(int lad) {
+        return Census_ZoneCode.decode(LADs[lad]);
+    }
+
+    /**
+     * @param code The OA code.
+     * @return The OA index for {@code code} or -1 if there is none.
+     */
+    public int getOAIndex(CharSequence code) {
+        return OAIndex.get(code);
+    }
+
+    /**
+     * @param code The LSOA code.
+     * @return The LSOA index for {@code code} or -1 if there is none.
+     */
+    public int getLSOAIndex(CharSequence code) {
+        return LSOAIndex.get(code);
+    }
+
+    /**
+     * @param code The MSOA code.
+     * @return The MSOA index for {@code code} or -1 if there is none.
+     */
+    public int getMSOAIndex(CharSequence code) {
+        return MSOAIndex.get(code);
+    }
+
+    /**
+     * @param code The LAD code.
+     * @return The LAD index for {@code code} or -1 if there is none.
+     */
+    public int getLADIndex(CharSequence code) {
+        return LADIndex.get(code);
+    }
+
+    /**
+     * @param oa The OA index.
+     * @return The LSOA index for {@code oa}.
+     */
+    public int getLSOA(int oa) {
+        return OA2LSOA[oa];
+    }
+
+    /**
+     * @param oa The OA index.
+     * @return The MSOA index for {@code oa}.
+     */
+    public int getMSOA(int oa) {
+        return OA2MSOA[oa];
+    }
+
+    /**
+     * @param oa The OA index.
+     * @return The LAD index for {@code oa}.
+     */
+    public int getLAD(int oa) {
+        return OA2LAD[oa];
+    }
+
+    /**
+     * @param name The LAD name.
+     * @return The LAD index for {@code name} or {@code -1} if there is no such
+     * LAD.
+     */
+    public int getLADForName(String name) {
+        Integer r = LADNAME2LAD.get(name);
+        return r == null ? -1 : r;
+    }
+}
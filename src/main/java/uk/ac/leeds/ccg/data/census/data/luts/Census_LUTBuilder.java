@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+
+/**
+ * For building a {@link Census_LUT} whilst reading lookup files. Indexes are
+ * handed out in the order codes are first seen.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+class Census_LUTBuilder {
+
+    final Codes OAs = new Codes();
+    final Codes LSOAs = new Codes();
+    final Codes MSOAs = new Codes();
+    final Codes LADs = new Codes();
+    final ArrayList<String> LADNAMEs = new ArrayList<>();
+    int[] OA2LSOA = grow(new int[0], 1024);
+    int[] OA2MSOA = grow(new int[0], 1024);
+    int[] OA2LAD = grow(new int[0], 1024);
+
+    /**
+     * @param oa The packed OA code.
+     * @return The OA index, added if it is new.
+     */
+    int addOA(long oa) {
+        int r = OAs.index(oa);
+        if (r == OA2LSOA.length) {
+            int n = r * 2;
+            OA2LSOA = grow(OA2LSOA, n);
+            OA2MSOA = grow(OA2MSOA, n);
+            OA2LAD = grow(OA2LAD, n);
+        }
+        return r;
+    }
+
+    /**
+     * @param lad The packed LAD code.
+     * @param s The scanner positioned on the line with the LAD name.
+     * @param f The index of the field with the LAD name. This is only made a
+     * String if the LAD is new.
+     * @return The LAD index, added if it is new.
+     */
+    int addLAD(long lad, Census_CSVScanner s, int f) {
+        int r = LADs.index(lad);
+        if (r == LADNAMEs.size()) {
+            LADNAMEs.add(s.getString(f));
+        }
+        return r;
+    }
+
+    private static int[] grow(int[] a, int n) {
+        int l = a.length;
+        a = Arrays.copyOf(a, n);
+        Arrays.fill(a, l, n, -1);
+        return a;
+    }
+
+    /**
+     * @return A new look up.
+     */
+    Census_LUT build() {
+        int n = OAs.size;
+        return new Census_LUT(OAs.toArray(), LSOAs.toArray(), MSOAs.toArray(),
+                LADs.toArray(), LADNAMEs.toArray(new String[LADNAMEs.size()]),
+                Arrays.copyOf(OA2LSOA, n), Arrays.copyOf(OA2MSOA, n),
+                Arrays.copyOf(OA2LAD, n));
+    }
+
+    /**
+     * For assigning dense indexes to packed codes. This is an open addressing
+     * hash table so adding and getting create no objects.
+     */
+    static class Codes {
+
+        /**
+         * The packed codes in the order they were added.
+         */
+        long[] list = new long[1024];
+
+        /**
+         * The number of codes.
+         */
+        int size;
+
+        /**
+         * The hash table of codes. Empty slots are -1 as packed codes are
+         * never negative.
+         */
+        long[] keys = newKeys(2048);
+
+        /**
+         * The index of each code in {@link #keys}.
+         */
+        int[] values = new int[2048];
+
+        private static long[] newKeys(int n) {
+            long[] r = new long[n];
+            Arrays.fill(r, -1L);
+            return r;
+        }
+
+        private int slot(long code) {
+            int mask = keys.length - 1;
+            int i = Long.hashCode(code * 0x9E3779B97F4A7C15L) & mask;
+            while (keys[i] != -1L && keys[i] != code) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        /**
+         * @param code The packed code.
+         * @return The index of code, added if it is new.
+         * @throws IllegalArgumentException If code is
+         * {@link Census_ZoneCode#INVALID}.
+         */
+        int index(long code) {
+            if (code == Census_ZoneCode.INVALID) {
+                throw new IllegalArgumentException("Not a zone code");
+            }
+            int i = slot(code);
+            if (keys[i] == code) {
+                return values[i];
+            }
+            int r = size;
+            keys[i] = code;
+            values[i] = r;
+            if (size == list.length) {
+                list = Arrays.copyOf(list, size * 2);
+            }
+            list[size++] = code;
+            if (size * 2 > keys.length) {
+                keys = newKeys(keys.length * 2);
+                values = new int[keys.length];
+                for (int j = 0; j < size; j++) {
+                    int k = slot(list[j]);
+                    keys[k] = list[j];
+                    values[k] = j;
+                }
+            }
+            return r;
+        }
+
+        /**
+         * @param code The packed code.
+         * @return The index of code or -1 if it has not been added.
+         */
+        int get(long code) {
+            if (code == Census_ZoneCode.INVALID) {
+                return -1;
+            }
+            int i = slot(code);
+            return keys[i] == code ? values[i] : -1;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(list, size);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import uk.ac.leeds.ccg.data.census.core.Census_Environment;
+import uk.ac.leeds.ccg.data.census.io.Census_Archives;
+import uk.ac.leeds.ccg.data.census.io.Census_FileFingerprint;
+
+/**
+ * For writing and reading a binary snapshot of a {@link Census_LUT}. A
+ * snapshot starts with a header that has a magic number, a format version and
+ * a {@link Census_FileFingerprint} for each of the files the look up was read
+ * from. The body has the packed code arrays, the LAD names and the OA parent
+ * arrays which are read back with bulk gets from a memory mapped buffer. The
+ * other lookups are derived from these on construction of the
+ * {@link Census_LUT}. An input that is read from an archive is fingerprinted
+ * by the archive (see {@link Census_Archives#resolve(Path)}). Snapshots
+ * written by {@link #load} are also recorded in the
+ * {@link Census_Environment#getManifest()}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_LUTSnapshot {
+
+    /**
+     * The magic number at the start of every snapshot.
+     */
+    public static final int MAGIC = 0x43454C55;
+
+    /**
+     * The format version. This is to be incremented if the format changes.
+     */
+    public static final int VERSION = 2;
+
+    /**
+     * For loading a look up from the source files.
+     */
+    public interface Loader {
+
+        /**
+         * @return The look up.
+         * @throws IOException If encountered.
+         */
+        Census_LUT load() throws IOException;
+    }
+
+    private Census_LUTSnapshot() {
+    }
+
+    /**
+     * Reads the snapshot {@code f} if it is valid for {@code inputs},
+     * otherwise uses {@code loader} and writes a new snapshot to {@code f}.
+     *
+     * @param env The environment for logging.
+     * @param f The snapshot file.
+     * @param inputs The files the look up is loaded from.
+     * @param loader For loading the look up from {@code inputs}.
+     * @return The look up.
+     * @throws IOException If encountered.
+     */
+    public static Census_LUT load(Census_Environment env, Path f,
+            List<Path> inputs, Loader loader) throws IOException {
+        Census_LUT r = read(f, inputs);
+        if (r == null) {
+            r = loader.load();
+            env.de.env.log("Writing " + f);
+            write(f, inputs, r);
+            env.getManifest().record(f, Census_LUTSnapshot.class
+                    .getSimpleName(), VERSION, inputs);
+        } else {
+            env.de.env.log("Read " + f);
+        }
+        return r;
+    }
+
+    /**
+     * @param f The snapshot file.
+     * @param inputs The files the look up was loaded from.
+     * @return The look up read from {@code f} or {@code null} if {@code f}
+     * does not exist, is not a complete and consistent snapshot of this
+     * version, or was not written for {@code inputs} as they are now.
+     * @throws IOException If encountered.
+     */
+    public static Census_LUT read(Path f, List<Path> inputs)
+            throws IOException {
+        if (!Files.exists(f)) {
+            return null;
+        }
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY, 0,
+                    fc.size());
+            if (b.remaining() < 8 || b.getInt() != MAGIC
+                    || b.getInt() != VERSION) {
+                return null;
+            }
+            byte[] h = new byte[getLength(b, 1)];
+            b.get(h);
+            DataInputStream dis = new DataInputStream(
+                    new ByteArrayInputStream(h));
+            int n = dis.readInt();
+            if (n != inputs.size()) {
+                return null;
+            }
+            for (int i = 0; i < n; i++) {
+                if (!Census_FileFingerprint.read(dis).matches(
+                        Census_Archives.resolve(inputs.get(i)))) {
+                    return null;
+                }
+            }
+            long[] oas = getLongs(b);
+            long[] lsoas = getLongs(b);
+            long[] msoas = getLongs(b);
+            long[] lads = getLongs(b);
+            String[] ladnames = getStrings(b);
+            int[] oa2lsoa = getInts(b);
+            int[] oa2msoa = getInts(b);
+            int[] oa2lad = getInts(b);
+            if (!isValid(oa2lsoa, oas.length, lsoas.length)
+                    || !isValid(oa2msoa, oas.length, msoas.length)
+                    || !isValid(oa2lad, oas.length, lads.length)
+                    || ladnames.length != lads.length) {
+                return null;
+            }
+            return new Census_LUT(oas, lsoas, msoas, lads, ladnames, oa2lsoa,
+                    oa2msoa, oa2lad);
+        } catch (BufferUnderflowException | EOFException
+                | UTFDataFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @param b The buffer.
+     * @param bytes The number of bytes of each element.
+     * @return The number of elements read from {@code b}.
+     * @throws BufferUnderflowException If the number is negative or there
+     * are not that many elements remaining in {@code b}, so a corrupt length
+     * is never used to allocate an array.
+     */
+    private static int getLength(ByteBuffer b, int bytes) {
+        int n = b.getInt();
+        if (n < 0 || (long) n * bytes > b.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return n;
+    }
+
+    /**
+     * @param parents The index of the parent of each child.
+     * @param children The number of children.
+     * @param n The number of parents.
+     * @return {@code true} if there is a parent index for each child and each
+     * is -1 (none) or less than {@code n}.
+     */
+    private static boolean isValid(int[] parents, int children, int n) {
+        if (parents.length != children) {
+            return false;
+        }
+        for (int p : parents) {
+            if (p < -1 || p >= n) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a snapshot to a temporary file which then replaces {@code f}, so
+     * a partly written snapshot is never read.
+     *
+     * @param f The snapshot file.
+     * @param inputs The files the look up was loaded from.
+     * @param lut The look up.
+     * @throws IOException If encountered.
+     */
+    public static void write(Path f, List<Path> inputs, Census_LUT lut)
+            throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeInt(inputs.size());
+            for (Path p : inputs) {
+                Census_FileFingerprint.of(Census_Archives.resolve(p))
+                        .write(dos);
+            }
+        }
+        byte[] h = baos.toByteArray();
+        byte[][] ladnames = getBytes(lut.LADNAMEs);
+        long size = 12L + h.length;
+        size += 16L + 8L * (lut.getOACount() + lut.getLSOACount()
+                + lut.getMSOACount() + lut.getLADCount());
+        size += 8L + 4L * ladnames.length;
+        for (byte[] s : ladnames) {
+            size += s.length;
+        }
+        size += 12L + 12L * lut.getOACount();
+        ByteBuffer b = ByteBuffer.allocate(Math.toIntExact(size));
+        b.putInt(MAGIC);
+        b.putInt(VERSION);
+        b.putInt(h.length);
+        b.put(h);
+        putLongs(b, lut.OAs);
+        putLongs(b, lut.LSOAs);
+        putLongs(b, lut.MSOAs);
+        putLongs(b, lut.LADs);
+        putStrings(b, ladnames);
+        putInts(b, lut.OA2LSOA);
+        putInts(b, lut.OA2MSOA);
+        putInts(b, lut.OA2LAD);
+        b.flip();
+        Files.createDirectories(f.getParent());
+        Path t = Files.createTempFile(f.getParent(), f.getFileName().toString(),
+                ".tmp");
+        try {
+            try (FileChannel fc = FileChannel.open(t,
+                    StandardOpenOption.WRITE)) {
+                while (b.hasRemaining()) {
+                    fc.write(b);
+                }
+            }
+            Files.move(t, f, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(t);
+        }
+    }
+
+    private static byte[][] getBytes(String[] s) {
+        byte[][] r = new byte[s.length][];
+        for (int i = 0; i < s.length; i++) {
+            r[i] = s[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return r;
+    }
+
+    private static void putStrings(ByteBuffer b, byte[][] s) {
+        b.putInt(s.length);
+        int n = 0;
+        for (byte[] s2 : s) {
+            b.putInt(s2.length);
+            n += s2.length;
+        }
+        b.putInt(n);
+        for (byte[] s2 : s) {
+            b.put(s2);
+        }
+    }
+
+    private static String[] getStrings(ByteBuffer b) {
+        int[] lengths = getInts(b);
+        byte[] bytes = new byte[getLength(b, 1)];
+        b.get(bytes);
+        long total = 0L;
+        for (int l : lengths) {
+            if (l < 0) {
+                throw new BufferUnderflowException();
+            }
+            total += l;
+        }
+        if (total != bytes.length) {
+            throw new BufferUnderflowException();
+        }
+        String[] r = new String[lengths.length];
+        int off = 0;
+        for (int i = 0; i < r.length; i++) {
+            r[i] = new String(bytes, off, lengths[i], StandardCharsets.UTF_8);
+            off += lengths[i];
+        }
+        return r;
+    }
+
+    private static void putInts(ByteBuffer b, int[] a) {
+        b.putInt(a.length);
+        b.asIntBuffer().put(a);
+        b.position(b.position() + 4 * a.length);
+    }
+
+    private static void putLongs(ByteBuffer b, long[] a) {
+        b.putInt(a.length);
+        b.asLongBuffer().put(a);
+        b.position(b.position() + 8 * a.length);
+    }
+
+    private static long[] getLongs(ByteBuffer b) {
+        long[] r = new long[getLength(b, 8)];
+        b.asLongBuffer().get(r);
+        b.position(b.position() + 8 * r.length);
+        return r;
+    }
+
+    private static int[] getInts(ByteBuffer b) {
+        int[] r = new int[getLength(b, 4)];
+        b.asIntBuffer().get(r);
+        b.position(b.position() + 4 * r.length);
+        return r;
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.core.Census_Environment;
+import uk.ac.leeds.ccg.data.census.io.Census_Archives;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+
+/**
+ * A crosswalk between 2001 Output Areas (OAs) and 2011 OAs. Each row of the
+ * ONS lookup is a link from a 2001 OA to a 2011 OA with a change indicator.
+ * The links are held in flat arrays ordered by 2001 OA index so
+ * {@link #OA01ToOA11} gives the links of each 2001 OA and {@link #OA11ToOA01}
+ * gives the links of each 2011 OA. OA indexes are those of the 2001 and 2011
+ * {@link Census_LUT}s.
+ *
+ * Each link has a weight which is the share of the 2001 OA that is
+ * apportioned to the 2011 OA. By default the weights of the links from a 2001
+ * OA are equal. Other weights can be set using {@link #withWeights(double[])}
+ * or {@link #weightedBy(double[])}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_OACrosswalk {
+
+    /**
+     * The change indicator for a 2001 OA that is the same 2011 OA.
+     */
+    public static final byte UNCHANGED = 'U';
+
+    /**
+     * The change indicator for a 2001 OA that is split into 2011 OAs.
+     */
+    public static final byte SPLIT = 'S';
+
+    /**
+     * The change indicator for 2001 OAs that are merged into a 2011 OA.
+     */
+    public static final byte MERGED = 'M';
+
+    /**
+     * The change indicator for a complex change.
+     */
+    public static final byte COMPLEX = 'X';
+
+    /**
+     * For a lookup from a 2001 OA index to the 2011 OA indexes it links to.
+     * The position of each in {@link Census_CSR#indexes} is the link index.
+     */
+    public final Census_CSR OA01ToOA11;
+
+    /**
+     * For a lookup from a 2011 OA index to the 2001 OA indexes that link to
+     * it.
+     */
+    public final Census_CSR OA11ToOA01;
+
+    /**
+     * The link index of each position in {@link #OA11ToOA01}.
+     */
+    public final int[] OA11ToOA01Links;
+
+    /**
+     * The change indicator of each link.
+     */
+    public final byte[] changes;
+
+    /**
+     * The weight of each link. The weights of the links from each 2001 OA sum
+     * to 1.
+     */
+    public final double[] weights;
+
+    /**
+     * @param OA01ToOA11 What {@link #OA01ToOA11} is set to.
+     * @param OA11ToOA01 What {@link #OA11ToOA01} is set to.
+     * @param OA11ToOA01Links What {@link #OA11ToOA01Links} is set to.
+     * @param changes What {@link #changes} is set to.
+     * @param weights What {@link #weights} is set to.
+     */
+    protected Census_OACrosswalk(Census_CSR OA01ToOA11, Census_CSR OA11ToOA01,
+            int[] OA11ToOA01Links, byte[] changes, double[] weights) {
+        this.OA01ToOA11 = OA01ToOA11;
+        this.OA11ToOA01 = OA11ToOA01;
+        this.OA11ToOA01Links = OA11ToOA01Links;
+        this.changes = changes;
+        this.weights = weights;
+    }
+
+    /**
+     * Creates a new instance with equal weights.
+     *
+     * @param oa01s The 2001 OA index of each link.
+     * @param oa11s The 2011 OA index of each link.
+     * @param changes The change indicator of each link.
+     * @param nOA01 The number of 2001 OAs.
+     * @param nOA11 The number of 2011 OAs.
+     * @return A new crosswalk.
+     */
+    public static Census_OACrosswalk of(int[] oa01s, int[] oa11s,
+            byte[] changes, int nOA01, int nOA11) {
+        int n = oa01s.length;
+        /**
+         * Order the links by 2001 OA and then 2011 OA with a stable counting
+         * sort by 2001 OA of the links ordered by 2011 OA.
+         */
+        int[] order = Census_CSR.of(oa11s, nOA11).indexes;
+        int[] offsets = Census_CSR.of(oa01s, nOA01).offsets;
+        int[] next = Arrays.copyOf(offsets, nOA01);
+        int[] to = new int[n];
+        byte[] c = new byte[n];
+        for (int i : order) {
+            int l = next[oa01s[i]]++;
+            to[l] = oa11s[i];
+            c[l] = changes[i];
+        }
+        Census_CSR fwd = new Census_CSR(offsets, to);
+        // The reverse lookup via the links ordered by 2011 OA.
+        Census_CSR byOA11 = Census_CSR.of(to, nOA11);
+        int[] links = byOA11.indexes;
+        int[] oa01 = getFrom(fwd);
+        int[] from = new int[n];
+        for (int i = 0; i < n; i++) {
+            from[i] = oa01[links[i]];
+        }
+        Census_CSR rev = new Census_CSR(byOA11.offsets, from);
+        double[] w = new double[n];
+        for (int o = 0; o < nOA01; o++) {
+            int s = fwd.size(o);
+            Arrays.fill(w, fwd.offsets[o], fwd.offsets[o + 1], 1d / s);
+        }
+        return new Census_OACrosswalk(fwd, rev, links, c, w);
+    }
+
+    /**
+     * @param fwd A lookup from 2001 OAs to 2011 OAs.
+     * @return The 2001 OA index of each link.
+     */
+    private static int[] getFrom(Census_CSR fwd) {
+        int[] r = new int[fwd.indexes.length];
+        for (int o = 0; o < fwd.getParentCount(); o++) {
+            Arrays.fill(r, fwd.offsets[o], fwd.offsets[o + 1], o);
+        }
+        return r;
+    }
+
+    /**
+     * Reads the 2001 OA to 2011 OA to 2011 LAD lookup file. Rows with an OA
+     * code not in {@code lut01} or {@code lut11} are logged and left out.
+     *
+     * @param env The environment.
+     * @param lut01 The 2001 look up.
+     * @param lut11 The 2011 look up.
+     * @return A new crosswalk.
+     * @throws IOException If encountered.
+     */
+    public static Census_OACrosswalk load(Census_Environment env,
+            Census_LUT lut01, Census_LUT lut11) throws IOException {
+        Path f = Census_2001_LUTs.getInputFiles(env.files).get(1);
+        int[] oa01s = new int[lut01.getOACount() + 1024];
+        int[] oa11s = new int[oa01s.length];
+        byte[] changes = new byte[oa01s.length];
+        int n = 0;
+        try (Census_CSVScanner s = Census_Archives.newScanner(f)) {
+            if (s.next()) {                 // Skip header...
+                env.de.env.log("Reading " + f); // ...
+                env.de.env.log(s.getLine());    // ... but log it.
+            }
+            while (s.next()) {
+                int oa01 = lut01.OAIndex.get(s.getZoneCode(0));
+                int oa11 = lut11.OAIndex.get(s.getZoneCode(2));
+                if (oa01 < 0 || oa11 < 0) {
+                    env.de.env.log("No OA for line " + s.getLineNumber()
+                            + " " + s.getLine());
+                    continue;
+                }
+                if (n == oa01s.length) {
+                    oa01s = Arrays.copyOf(oa01s, n * 2);
+                    oa11s = Arrays.copyOf(oa11s, n * 2);
+                    changes = Arrays.copyOf(changes, n * 2);
+                }
+                oa01s[n] = oa01;
+                oa11s[n] = oa11;
+                changes[n] = s.getLength(3) > 0
+                        ? s.getBuffer()[s.getStart(3)] : COMPLEX;
+                n++;
+            }
+        }
+        return of(Arrays.copyOf(oa01s, n), Arrays.copyOf(oa11s, n),
+                Arrays.copyOf(changes, n), lut01.getOACount(),
+                lut11.getOACount());
+    }
+
+    /**
+     * @param weights The weight of each link. The weights of the links from
+     * each 2001 OA are expected to sum to 1.
+     * @return A crosswalk the same as this one but with {@code weights}.
+     */
+    public Census_OACrosswalk withWeights(double[] weights) {
+        if (weights.length != this.weights.length) {
+            throw new IllegalArgumentException("Expected "
+                    + this.weights.length + " weights not " + weights.length);
+        }
+        return new Census_OACrosswalk(OA01ToOA11, OA11ToOA01, OA11ToOA01Links,
+                changes, weights);
+    }
+
+    /**
+     * Weights the links from each 2001 OA in proportion to the size of the
+     * 2011 OAs linked to (e.g. 2011 population counts). Where the sizes of all
+     * the 2011 OAs linked to sum to 0 the weights are equal.
+     *
+     * @param sizes11 The size of each 2011 OA.
+     * @return A crosswalk the same as this one but weighted by
+     * {@code sizes11}.
+     */
+    public Census_OACrosswalk weightedBy(double[] sizes11) {
+        double[] w = new double[weights.length];
+        int[] o = OA01ToOA11.offsets;
+        int[] to = OA01ToOA11.indexes;
+        for (int oa01 = 0; oa01 < o.length - 1; oa01++) {
+            double sum = 0d;
+            for (int l = o[oa01]; l < o[oa01 + 1]; l++) {
+                sum += sizes11[to[l]];
+            }
+            for (int l = o[oa01]; l < o[oa01 + 1]; l++) {
+                w[l] = sum > 0d ? sizes11[to[l]] / sum
+                        : 1d / (o[oa01 + 1] - o[oa01]);
+            }
+        }
+        return withWeights(w);
+    }
+
+    /**
+     * @return The number of links.
+     */
+    public int getLinkCount() {
+        return weights.length;
+    }
+
+    /**
+     * @return The number of 2001 OAs.
+     */
+    public int getOA01Count() {
+        return OA01ToOA11.getParentCount();
+    }
+
+    /**
+     * @return The number of 2011 OAs.
+     */
+    public int getOA11Count() {
+        return OA11ToOA01.getParentCount();
+    }
+
+    /**
+     * @param oa01 The 2001 OA index.
+     * @return {@code true} if {@code oa01} links to more than one 2011 OA.
+     */
+    public boolean isSplit(int oa01) {
+        return OA01ToOA11.size(oa01) > 1;
+    }
+
+    /**
+     * @param oa11 The 2011 OA index.
+     * @return {@code true} if more than one 2001 OA links to {@code oa11}.
+     */
+    public boolean isMerged(int oa11) {
+        return OA11ToOA01.size(oa11) > 1;
+    }
+
+    /**
+     * @param oa01 The 2001 OA index.
+     * @return The change indicator of the first link from {@code oa01} or
+     * {@code 0} if there are no links from it.
+     */
+    public byte getChange(int oa01) {
+        int o = OA01ToOA11.offsets[oa01];
+        return o < OA01ToOA11.offsets[oa01 + 1] ? changes[o] : 0;
+    }
+
+    /**
+     * Apportions counts for 2001 OAs to 2011 OAs using {@link #weights}.
+     *
+     * @param counts01 The count for each 2001 OA.
+     * @return The count for each 2011 OA.
+     */
+    public double[] apportion(double[] counts01) {
+        double[] r = new double[getOA11Count()];
+        int[] o = OA01ToOA11.offsets;
+        int[] to = OA01ToOA11.indexes;
+        for (int oa01 = 0; oa01 < o.length - 1; oa01++) {
+            double c = counts01[oa01];
+            if (c != 0d) {
+                for (int l = o[oa01]; l < o[oa01 + 1]; l++) {
+                    r[to[l]] += c * weights[l];
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Apportions counts for 2001 OAs to 2011 OAs using {@link #weights}. The
+     * count of each 2001 OA is split into whole numbers by largest remainder
+     * so the total of each 2001 OA is kept.
+     *
+     * @param counts01 The count for each 2001 OA.
+     * @return The count for each 2011 OA.
+     */
+    public int[] apportion(int[] counts01) {
+        int[] r = new int[getOA11Count()];
+        int[] o = OA01ToOA11.offsets;
+        int[] to = OA01ToOA11.indexes;
+        double[] rem = new double[16];
+        for (int oa01 = 0; oa01 < o.length - 1; oa01++) {
+            int c = counts01[oa01];
+            int s = o[oa01];
+            int n = o[oa01 + 1] - s;
+            if (c == 0 || n == 0) {
+                continue;
+            }
+            if (n == 1) {
+                r[to[s]] += c;
+                continue;
+            }
+            if (n > rem.length) {
+                rem = new double[n];
+            }
+            int left = c;
+            for (int i = 0; i < n; i++) {
+                double x = c * weights[s + i];
+                int x2 = (int) Math.floor(x);
+                r[to[s + i]] += x2;
+                rem[i] = x - x2;
+                left -= x2;
+            }
+            // Hand out what is left to the largest remainders.
+            for (; left > 0; left--) {
+                int m = 0;
+                for (int i = 1; i < n; i++) {
+                    if (rem[i] > rem[m]) {
+                        m = i;
+                    }
+                }
+                r[to[s + m]]++;
+                rem[m] = -1d;
+            }
+        }
+        return r;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * For looking up the dense index of a zone code. The packed codes (see
+ * {@link Census_ZoneCode}) are held in a sorted array alongside the index of
+ * each, so a lookup is a binary search and creates no objects.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ZoneCodeIndex {
+
+    /**
+     * The packed codes in ascending order.
+     */
+    protected final long[] codes;
+
+    /**
+     * The index of each code in {@link #codes}.
+     */
+    protected final int[] indexes;
+
+    /**
+     * @param codes Packed codes indexed by dense index. These must be unique.
+     */
+    public Census_ZoneCodeIndex(long[] codes) {
+        int n = codes.length;
+        this.codes = new long[n];
+        this.indexes = new int[n];
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = codes[i - 1] < codes[i];
+        }
+        if (sorted) {
+            System.arraycopy(codes, 0, this.codes, 0, n);
+            for (int i = 0; i < n; i++) {
+                this.indexes[i] = i;
+            }
+        } else {
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (x, y) -> Long.compare(codes[x], codes[y]));
+            for (int i = 0; i < n; i++) {
+                this.codes[i] = codes[order[i]];
+                this.indexes[i] = order[i];
+            }
+        }
+    }
+
+    /**
+     * @return The number of codes.
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * @param code A packed code.
+     * @return The index for {@code code} or -1 if there is none.
+     */
+    public int get(long code) {
+        if (code == Census_ZoneCode.INVALID) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(codes, code);
+        return i < 0 ? -1 : indexes[i];
+    }
+
+    /**
+     * @param code The code.
+     * @return The index for {@code code} or -1 if there is none.
+     */
+    public int get(CharSequence code) {
+        return get(Census_ZoneCode.encode(code));
+    }
+
+    /**
+     * @param s A sequence containing the code.
+     * @param start The index of the first character of the code.
+     * @param end The index after the last character of the code.
+     * @return The index for the code or -1 if there is none.
+     */
+    public int get(CharSequence s, int start, int end) {
+        return get(Census_ZoneCode.encode(s, start, end));
+    }
+
+    /**
+     * @param b Bytes containing a code in ASCII.
+     * @param off The index of the first byte of the code.
+     * @param len The number of bytes in the code.
+     * @return The index for the code or -1 if there is none.
+     */
+    public int get(byte[] b, int off, int len) {
+        return get(Census_ZoneCode.encode(b, off, len));
+    }
+
+    /**
+     * Looks up many packed codes at once.
+     *
+     * @param in The packed codes.
+     * @param out For the indexes. Each is -1 where there is none.
+     */
+    public void get(long[] in, int[] out) {
+        for (int i = 0; i < in.length; i++) {
+            out[i] = get(in[i]);
+        }
+    }
+}
@@ -0,0 +1,493 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.LongPredicate;
+import uk.ac.leeds.ccg.data.census.data.Census_PackedColumn;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+
+/**
+ * HSAR persons grouped into households and held in columns. The persons are
+ * in order of HHID and then PNUM, so the persons of each household are a
+ * contiguous range of every column, and households are indexed in order of
+ * HHID. Each short variable is a {@link Census_PackedColumn}, the booleans are
+ * {@link BitSet}s, {@code ISCO3} and {@code SOCMIN} are {@code int[]}s and
+ * {@code ID2} is a {@code long[]}. {@code HHID} is held once for each
+ * household.
+ *
+ * Variables are indexed in the order of the fields of a line of an HSAR file
+ * as given in {@link #VARIABLES}. Household aggregates are got by a pass over
+ * a column, for example the number of persons aged under 16 in each
+ * household:
+ *
+ * <pre>
+ * int[] n = hhs.count(Census_HSARHouseholds.indexOf("AGEH"), a -&gt; a &lt; 16);
+ * </pre>
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_HSARHouseholds {
+
+    /**
+     * The variable names in the order of the fields of a line of an HSAR
+     * file.
+     */
+    public static final String[] VARIABLES = {"HHID", "PNUM", "ID2", "ACCTYPE",
+        "AGEH", "BATHWC", "CARSH", "CENHEAT0", "COBIRT0", "DENSITY", "DISTMOV0",
+        "DISTWRK0", "ECONACH", "EDISDONO", "ETHEW", "EVERWORK", "FAMNUMB",
+        "FAMTYP", "FRP", "GENIND", "HEALTH", "HEDIND", "HEDISDON", "HEMPIND",
+        "HHLTHIND", "HHSGIND", "HMIGIND", "HNRESIDN", "HOURSPW", "HRP",
+        "HRSOCGRD", "INDSTRY0", "ISCO3", "LASTWORK", "LLTI", "LOWFLOR0",
+        "MARSTAH", "MIGIND", "NSSEC", "ONCPERIM", "POPBASE", "PROFQUAL",
+        "PROVCARE", "QUALVEWN", "RELGEW", "RELTOHR", "ROOMREQ", "ROOMSNMH",
+        "SELFCONT", "SEX", "SOCMIN", "STAHUKH", "STAPUK", "STUDENT", "SUPERVSR",
+        "TENUREH", "TERMTIME", "TRANWRK0", "WORKFORC", "WRKPLCE0"};
+
+    /**
+     * The index of HHID.
+     */
+    public static final int HHID = 0;
+
+    /**
+     * The index of PNUM.
+     */
+    public static final int PNUM = 1;
+
+    /**
+     * The index of ID2.
+     */
+    public static final int ID2 = 2;
+
+    /**
+     * The index of HRP.
+     */
+    public static final int HRP = 29;
+
+    /**
+     * The fields of {@link Census_HSARRecord} for {@link #VARIABLES}.
+     */
+    private static final Field[] FIELDS = new Field[VARIABLES.length];
+
+    static {
+        try {
+            for (int v = 0; v < VARIABLES.length; v++) {
+                FIELDS[v] = Census_HSARRecord.class.getDeclaredField(
+                        VARIABLES[v]);
+                FIELDS[v].setAccessible(true);
+            }
+        } catch (NoSuchFieldException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /**
+     * The HHID of each household in ascending order.
+     */
+    protected final int[] hhids;
+
+    /**
+     * The index of the first person of each household and then the number of
+     * persons, so the persons of household {@code h} are those from index
+     * {@code offsets[h]} inclusive to {@code offsets[h + 1]} exclusive. There
+     * is one more offset than there are households.
+     */
+    protected final int[] offsets;
+
+    /**
+     * ID2 for each person.
+     */
+    protected final long[] id2s;
+
+    /**
+     * The columns of the short variables indexed by variable. The others are
+     * {@code null}.
+     */
+    protected final Census_PackedColumn[] columns;
+
+    /**
+     * The columns of the int variables other than {@link #HHID} indexed by
+     * variable. The others are {@code null}.
+     */
+    protected final int[][] ints;
+
+    /**
+     * The persons where each boolean variable is set indexed by variable. The
+     * others are {@code null}.
+     */
+    protected final BitSet[] flags;
+
+    /**
+     * @param hhids What {@link #hhids} is set to.
+     * @param offsets What {@link #offsets} is set to.
+     * @param id2s What {@link #id2s} is set to.
+     * @param columns What {@link #columns} is set to.
+     * @param ints What {@link #ints} is set to.
+     * @param flags What {@link #flags} is set to.
+     */
+    protected Census_HSARHouseholds(int[] hhids, int[] offsets, long[] id2s,
+            Census_PackedColumn[] columns, int[][] ints, BitSet[] flags) {
+        this.hhids = hhids;
+        this.offsets = offsets;
+        this.id2s = id2s;
+        this.columns = columns;
+        this.ints = ints;
+        this.flags = flags;
+    }
+
+    /**
+     * Groups {@code records} into households. If the records are already in
+     * order of HHID and PNUM, as in the HSAR files, the columns are filled in
+     * one pass, otherwise the records are sorted first.
+     *
+     * @param records The persons.
+     * @return The households.
+     */
+    public static Census_HSARHouseholds of(
+            Collection<? extends Census_HSARRecord> records) {
+        Census_HSARRecord[] ps = records.toArray(
+                new Census_HSARRecord[records.size()]);
+        int n = ps.length;
+        boolean sorted = true;
+        for (int i = 1; i < n && sorted; i++) {
+            sorted = compare(ps[i - 1], ps[i]) <= 0;
+        }
+        if (!sorted) {
+            Arrays.sort(ps, Census_HSARHouseholds::compare);
+        }
+        return ofSorted(ps);
+    }
+
+    private static int compare(Census_HSARRecord a, Census_HSARRecord b) {
+        int r = Integer.compare(a.HHID, b.HHID);
+        return r != 0 ? r : Short.compare(a.PNUM, b.PNUM);
+    }
+
+    /**
+     * @param ps The persons in order of HHID and PNUM.
+     */
+    private static Census_HSARHouseholds ofSorted(Census_HSARRecord[] ps) {
+        int n = ps.length;
+        int nHH = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || ps[i].HHID != ps[i - 1].HHID) {
+                nHH++;
+            }
+        }
+        int[] hhids = new int[nHH];
+        int[] offsets = new int[nHH + 1];
+        long[] id2s = new long[n];
+        short[][] shorts = new short[VARIABLES.length][];
+        int[][] ints = new int[VARIABLES.length][];
+        BitSet[] flags = new BitSet[VARIABLES.length];
+        for (int v = 0; v < VARIABLES.length; v++) {
+            Class<?> t = FIELDS[v].getType();
+            if (t == short.class) {
+                shorts[v] = new short[n];
+            } else if (t == int.class && v != HHID) {
+                ints[v] = new int[n];
+            } else if (t == boolean.class) {
+                flags[v] = new BitSet(n);
+            }
+        }
+        int h = -1;
+        try {
+            for (int i = 0; i < n; i++) {
+                Census_HSARRecord p = ps[i];
+                if (i == 0 || p.HHID != ps[i - 1].HHID) {
+                    h++;
+                    hhids[h] = p.HHID;
+                    offsets[h] = i;
+                }
+                id2s[i] = p.ID2;
+                for (int v = 0; v < VARIABLES.length; v++) {
+                    if (shorts[v] != null) {
+                        shorts[v][i] = FIELDS[v].getShort(p);
+                    } else if (ints[v] != null) {
+                        ints[v][i] = FIELDS[v].getInt(p);
+                    } else if (flags[v] != null) {
+                        flags[v].set(i, FIELDS[v].getBoolean(p));
+                    }
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        offsets[nHH] = n;
+        Census_PackedColumn[] columns
+                = new Census_PackedColumn[VARIABLES.length];
+        for (int v = 0; v < VARIABLES.length; v++) {
+            if (shorts[v] != null) {
+                columns[v] = Census_PackedColumn.of(shorts[v], n);
+            }
+        }
+        return new Census_HSARHouseholds(hhids, offsets, id2s, columns, ints,
+                flags);
+    }
+
+    /**
+     * @param name The variable name.
+     * @return The index of the variable called {@code name} or -1 if there is
+     * none.
+     */
+    public static int indexOf(String name) {
+        for (int v = 0; v < VARIABLES.length; v++) {
+            if (VARIABLES[v].equals(name)) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of households.
+     */
+    public int getHouseholdCount() {
+        return hhids.length;
+    }
+
+    /**
+     * @return The number of persons.
+     */
+    public int getPersonCount() {
+        return id2s.length;
+    }
+
+    /**
+     * @param h The household index.
+     * @return The HHID of household {@code h}.
+     */
+    public int getHHID(int h) {
+        return hhids[h];
+    }
+
+    /**
+     * @param hhid The HHID.
+     * @return The index of the household with {@code hhid} or -1 if there is
+     * none.
+     */
+    public int indexOfHHID(int hhid) {
+        int r = Arrays.binarySearch(hhids, hhid);
+        return r < 0 ? -1 : r;
+    }
+
+    /**
+     * @param i The person index.
+     * @return The index of the household of person {@code i}.
+     */
+    public int getHousehold(int i) {
+        // Households are not empty so the offsets are strictly ascending.
+        int r = Arrays.binarySearch(offsets, i);
+        return r < 0 ? -r - 2 : r;
+    }
+
+    /**
+     * @param h The household index.
+     * @return The index of the first person of household {@code h}.
+     */
+    public int getStart(int h) {
+        return offsets[h];
+    }
+
+    /**
+     * @param h The household index.
+     * @return The index after the last person of household {@code h}.
+     */
+    public int getEnd(int h) {
+        return offsets[h + 1];
+    }
+
+    /**
+     * @param h The household index.
+     * @return The number of persons in household {@code h}.
+     */
+    public int getSize(int h) {
+        return offsets[h + 1] - offsets[h];
+    }
+
+    /**
+     * @return The number of persons in each household.
+     */
+    public int[] getSizes() {
+        int[] r = new int[hhids.length];
+        for (int h = 0; h < r.length; h++) {
+            r[h] = offsets[h + 1] - offsets[h];
+        }
+        return r;
+    }
+
+    /**
+     * @param v The variable index of a short variable.
+     * @return The column for variable {@code v}.
+     * @throws IllegalArgumentException If {@code v} is not a short variable.
+     */
+    public Census_PackedColumn getColumn(int v) {
+        if (columns[v] == null) {
+            throw new IllegalArgumentException(VARIABLES[v]
+                    + " is not a short");
+        }
+        return columns[v];
+    }
+
+    /**
+     * @param i The person index.
+     * @param v The variable index.
+     * @return The value of variable {@code v} for person {@code i}. Booleans
+     * are 1 if set and 0 otherwise.
+     */
+    public long get(int i, int v) {
+        if (columns[v] != null) {
+            return columns[v].get(i);
+        } else if (ints[v] != null) {
+            return ints[v][i];
+        } else if (flags[v] != null) {
+            return flags[v].get(i) ? 1L : 0L;
+        } else if (v == ID2) {
+            return id2s[i];
+        }
+        return hhids[getHousehold(i)];
+    }
+
+    /**
+     * @param i The person index.
+     * @return A new record with the ID {@code i} and the values of person
+     * {@code i}.
+     */
+    public Census_HSARRecord getRecord(int i) {
+        Census_HSARRecord r = new Census_HSARRecord(new Census_RecordID(i));
+        try {
+            for (int v = 0; v < VARIABLES.length; v++) {
+                Class<?> t = FIELDS[v].getType();
+                long x = get(i, v);
+                if (t == short.class) {
+                    FIELDS[v].setShort(r, (short) x);
+                } else if (t == int.class) {
+                    FIELDS[v].setInt(r, (int) x);
+                } else if (t == long.class) {
+                    FIELDS[v].setLong(r, x);
+                } else {
+                    FIELDS[v].setBoolean(r, x == 1L);
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+
+    /**
+     * @param h The household index.
+     * @return New records of the persons of household {@code h}.
+     */
+    public List<Census_HSARRecord> getRecords(int h) {
+        List<Census_HSARRecord> r = new ArrayList<>(getSize(h));
+        for (int i = offsets[h]; i < offsets[h + 1]; i++) {
+            r.add(getRecord(i));
+        }
+        return r;
+    }
+
+    /**
+     * @param h The household index.
+     * @return The index of the household reference person of household
+     * {@code h} or -1 if there is none.
+     */
+    public int getHRP(int h) {
+        int i = flags[HRP].nextSetBit(offsets[h]);
+        return i >= 0 && i < offsets[h + 1] ? i : -1;
+    }
+
+    /**
+     * @param v The variable index.
+     * @param p The test for a value of variable {@code v}.
+     * @return The number of persons in each household for which {@code p} is
+     * {@code true}.
+     */
+    public int[] count(int v, LongPredicate p) {
+        return count(i -> p.test(get(i, v)));
+    }
+
+    /**
+     * @param p The test for a person index.
+     * @return The number of persons in each household for which {@code p} is
+     * {@code true}.
+     */
+    public int[] count(IntPredicate p) {
+        int[] r = new int[hhids.length];
+        for (int h = 0; h < r.length; h++) {
+            int c = 0;
+            for (int i = offsets[h]; i < offsets[h + 1]; i++) {
+                if (p.test(i)) {
+                    c++;
+                }
+            }
+            r[h] = c;
+        }
+        return r;
+    }
+
+    /**
+     * @param v The variable index.
+     * @param p The test for a value of variable {@code v}.
+     * @return The households with any person for which {@code p} is
+     * {@code true}.
+     */
+    public BitSet any(int v, LongPredicate p) {
+        return any(i -> p.test(get(i, v)));
+    }
+
+    /**
+     * @param p The test for a person index.
+     * @return The households with any person for which {@code p} is
+     * {@code true}.
+     */
+    public BitSet any(IntPredicate p) {
+        BitSet r = new BitSet(hhids.length);
+        for (int h = 0; h < hhids.length; h++) {
+            for (int i = offsets[h]; i < offsets[h + 1]; i++) {
+                if (p.test(i)) {
+                    r.set(h);
+                    break;
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param v The variable index.
+     * @return The sum of variable {@code v} over the persons of each
+     * household.
+     */
+    public long[] sum(int v) {
+        long[] r = new long[hhids.length];
+        for (int h = 0; h < r.length; h++) {
+            long s = 0L;
+            for (int i = offsets[h]; i < offsets[h + 1]; i++) {
+                s += get(i, v);
+            }
+            r[h] = s;
+        }
+        return r;
+    }
+}
@@ -0,0 +1,547 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import uk.ac.leeds.ccg.data.census.data.Census_PackedColumn;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.io.Census_ColumnFile;
+
+/**
+ * Individual SAR persons held in columns. Each short variable is a
+ * {@link Census_PackedColumn}, {@code SEX} and {@code STUDENT} are
+ * {@link BitSet}s and {@code ID2} and {@code PNUM} are {@code long[]}s. Each
+ * row is a person. Most variables have a few values, so a person takes a few
+ * tens of bytes rather than the few hundred bytes of a
+ * {@link Census_ISARRecord}, and a whole variable can be scanned without
+ * touching the others.
+ *
+ * Variables are indexed in the order of the fields of a line of an ISAR file
+ * as given in {@link #VARIABLES}.
+ *
+ * A frame can be written to a {@link Census_ColumnFile} with
+ * {@link #write(Path)} and read back, or just some of its variables read
+ * back, with {@link #read(Path, String...)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ISARFrame {
+
+    /**
+     * The variable names in the order of the fields of a line of an ISAR
+     * file.
+     */
+    public static final String[] VARIABLES = {"ID2", "PNUM", "ACCTYPE", "AGE0",
+        "BATHWC", "CARS0", "CENHEAT0", "CESTATUS", "CETYPE", "COBIRT0",
+        "COMBGN", "COUNTRY", "DENSITY", "DISTMOV0", "DISTWRK0", "ECONACT",
+        "EDISDONO", "ETHEW", "ETHN", "ETHS", "EVERWORK", "FAMTYP", "FNDEPCH",
+        "FRECONAC", "FRNSSEC", "FRSEX", "FURN", "GAELREAD", "GAELSPK",
+        "GAELSTND", "GAELWRIT", "GENIND", "HEALTH", "HEDIND", "HEMPIND",
+        "HHLTHIND", "HHSGIND", "HNCARERS", "HNEARNRS", "HNELDERS", "HNFAMS",
+        "HNLLTI", "HNPRHLTH", "HNRESDNT", "HOURSPW", "HOURSPWG", "HRSOCGRD",
+        "INDSTRY0", "IRISLANG", "ISCO", "LASTWORK", "LLTI", "LOWFLOR0",
+        "MARSTAT", "MIGORGN", "MULTETH", "NSSEC", "OCCUPNCY", "ONCPERIM",
+        "PROFQUAL", "PROVCARE", "QUALVEWN", "QUALVS", "REGION", "RELGEW",
+        "RELGS1", "RELIGN", "RELTOHR", "ROOMSFLR", "ROOMSNUM", "SELFCONT",
+        "SEX", "SOCMIN", "SOCSUBMJ", "STAHUK", "STUDENT", "SUPERVSR", "TENUREW",
+        "TENURSN", "TERMTIME", "TRANWRK0", "WLSHREAD", "WLSHSPK", "WLSHSTND",
+        "WLSHWRIT", "WORKFORC", "WRKPLCE0", "MIGIND"};
+
+    /**
+     * The index of ID2.
+     */
+    public static final int ID2 = 0;
+
+    /**
+     * The index of PNUM.
+     */
+    public static final int PNUM = 1;
+
+    /**
+     * The index of SEX.
+     */
+    public static final int SEX = 71;
+
+    /**
+     * The index of STUDENT.
+     */
+    public static final int STUDENT = 75;
+
+    /**
+     * The fields of {@link Census_ISARRecord} for {@link #VARIABLES}.
+     */
+    private static final Field[] FIELDS = new Field[VARIABLES.length];
+
+    static {
+        try {
+            for (int v = 0; v < VARIABLES.length; v++) {
+                FIELDS[v] = Census_ISARRecord.class.getDeclaredField(
+                        VARIABLES[v]);
+                FIELDS[v].setAccessible(true);
+            }
+        } catch (NoSuchFieldException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /**
+     * The number of rows.
+     */
+    protected final int size;
+
+    /**
+     * ID2 for each row.
+     */
+    protected final long[] id2s;
+
+    /**
+     * PNUM for each row.
+     */
+    protected final long[] pnums;
+
+    /**
+     * The rows where SEX is set.
+     */
+    protected final BitSet sex;
+
+    /**
+     * The rows where STUDENT is set.
+     */
+    protected final BitSet student;
+
+    /**
+     * The columns indexed by variable. Those for {@link #ID2}, {@link #PNUM},
+     * {@link #SEX} and {@link #STUDENT} are {@code null}.
+     */
+    protected final Census_PackedColumn[] columns;
+
+    /**
+     * @param size What {@link #size} is set to.
+     * @param id2s What {@link #id2s} is set to.
+     * @param pnums What {@link #pnums} is set to.
+     * @param sex What {@link #sex} is set to.
+     * @param student What {@link #student} is set to.
+     * @param columns What {@link #columns} is set to.
+     */
+    protected Census_ISARFrame(int size, long[] id2s, long[] pnums, BitSet sex,
+            BitSet student, Census_PackedColumn[] columns) {
+        this.size = size;
+        this.id2s = id2s;
+        this.pnums = pnums;
+        this.sex = sex;
+        this.student = student;
+        this.columns = columns;
+    }
+
+    /**
+     * @param records The records.
+     * @return A new frame with a row for each of {@code records} in iteration
+     * order.
+     */
+    public static Census_ISARFrame of(
+            Collection<? extends Census_ISARRecord> records) {
+        Builder b = new Builder(records.size());
+        records.forEach(b::add);
+        return b.build();
+    }
+
+    /**
+     * Writes the frame to a {@link Census_ColumnFile} with a column for each
+     * variable named as in {@link #VARIABLES}. Booleans are 1 if set and 0
+     * otherwise.
+     *
+     * @param f The file.
+     * @throws IOException If encountered.
+     */
+    public void write(Path f) throws IOException {
+        Census_ColumnFile.Writer w = new Census_ColumnFile.Writer(size);
+        int[] values = new int[size];
+        for (int v = 0; v < VARIABLES.length; v++) {
+            switch (v) {
+                case ID2:
+                    w.add(VARIABLES[v], id2s);
+                    break;
+                case PNUM:
+                    w.add(VARIABLES[v], pnums);
+                    break;
+                default:
+                    if (isShort(v) && columns[v] == null) {
+                        continue;
+                    }
+                    for (int row = 0; row < size; row++) {
+                        values[row] = (int) get(row, v);
+                    }
+                    w.add(VARIABLES[v], values);
+            }
+        }
+        w.write(f);
+    }
+
+    /**
+     * Reads a frame written with {@link #write(Path)}. {@code ID2},
+     * {@code PNUM}, {@code SEX} and {@code STUDENT} are always read. Of the
+     * short variables only those named are read. The columns of the others
+     * are {@code null}.
+     *
+     * @param f The file.
+     * @param variables The names of the short variables to read. If there are
+     * none, all the variables are read.
+     * @return A new frame.
+     * @throws IOException If encountered.
+     */
+    public static Census_ISARFrame read(Path f, String... variables)
+            throws IOException {
+        Set<String> read = new HashSet<>();
+        for (String name : variables) {
+            if (indexOf(name) < 0) {
+                throw new IllegalArgumentException("No variable " + name);
+            }
+            read.add(name);
+        }
+        try (Census_ColumnFile.Reader r = new Census_ColumnFile.Reader(f)) {
+            int n = r.getRowCount();
+            Census_PackedColumn[] cols
+                    = new Census_PackedColumn[VARIABLES.length];
+            short[] values = new short[n];
+            for (int v = 0; v < VARIABLES.length; v++) {
+                if (isShort(v) && (read.isEmpty()
+                        || read.contains(VARIABLES[v]))) {
+                    int[] c = r.getInts(VARIABLES[v]);
+                    for (int row = 0; row < n; row++) {
+                        values[row] = (short) c[row];
+                    }
+                    cols[v] = Census_PackedColumn.of(values, n);
+                }
+            }
+            return new Census_ISARFrame(n, r.getLongs(VARIABLES[ID2]),
+                    r.getLongs(VARIABLES[PNUM]),
+                    getBitSet(r.getInts(VARIABLES[SEX])),
+                    getBitSet(r.getInts(VARIABLES[STUDENT])), cols);
+        }
+    }
+
+    private static BitSet getBitSet(int[] values) {
+        BitSet r = new BitSet(values.length);
+        for (int row = 0; row < values.length; row++) {
+            r.set(row, values[row] != 0);
+        }
+        return r;
+    }
+
+    /**
+     * @param name The variable name.
+     * @return The index of the variable called {@code name} or -1 if there is
+     * none.
+     */
+    public static int indexOf(String name) {
+        for (int v = 0; v < VARIABLES.length; v++) {
+            if (VARIABLES[v].equals(name)) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param v The variable index.
+     * @return {@code true} if variable {@code v} is a short.
+     */
+    public static boolean isShort(int v) {
+        return v != ID2 && v != PNUM && v != SEX && v != STUDENT;
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of bytes used for the columns.
+     */
+    public long getByteCount() {
+        long r = (id2s.length + pnums.length) * 8L
+                + (sex.size() + student.size()) / 8L;
+        for (Census_PackedColumn c : columns) {
+            if (c != null) {
+                r += c.getByteCount();
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param v The variable index of a short variable.
+     * @return The column for variable {@code v} or {@code null} if it was not
+     * read.
+     * @throws IllegalArgumentException If {@code v} is not a short variable.
+     */
+    public Census_PackedColumn getColumn(int v) {
+        if (!isShort(v)) {
+            throw new IllegalArgumentException(VARIABLES[v]
+                    + " is not a short");
+        }
+        return columns[v];
+    }
+
+    /**
+     * @param v The variable index of a short variable.
+     * @return The column for variable {@code v}.
+     * @throws IllegalArgumentException If {@code v} is not a short variable.
+     * @throws IllegalStateException If the column was not read (see
+     * {@link #read(Path, String...)}).
+     */
+    public Census_PackedColumn requireColumn(int v) {
+        Census_PackedColumn r = getColumn(v);
+        if (r == null) {
+            throw new IllegalStateException(VARIABLES[v] + " was not read");
+        }
+        return r;
+    }
+
+    /**
+     * @param name The name of a short variable.
+     * @return The column for the variable called {@code name} or
+     * {@code null} if it was not read.
+     */
+    public Census_PackedColumn getColumn(String name) {
+        int v = indexOf(name);
+        if (v < 0) {
+            throw new IllegalArgumentException("No variable " + name);
+        }
+        return getColumn(v);
+    }
+
+    /**
+     * @param row The row.
+     * @return ID2 of {@code row}.
+     */
+    public long getID2(int row) {
+        return id2s[row];
+    }
+
+    /**
+     * @param row The row.
+     * @return PNUM of {@code row}.
+     */
+    public long getPNUM(int row) {
+        return pnums[row];
+    }
+
+    /**
+     * @param row The row.
+     * @return SEX of {@code row}.
+     */
+    public boolean getSEX(int row) {
+        return sex.get(row);
+    }
+
+    /**
+     * @param row The row.
+     * @return STUDENT of {@code row}.
+     */
+    public boolean getSTUDENT(int row) {
+        return student.get(row);
+    }
+
+    /**
+     * @return A copy of the rows where SEX is set.
+     */
+    public BitSet getSEX() {
+        return (BitSet) sex.clone();
+    }
+
+    /**
+     * @return A copy of the rows where STUDENT is set.
+     */
+    public BitSet getSTUDENT() {
+        return (BitSet) student.clone();
+    }
+
+    /**
+     * @param row The row.
+     * @param v The variable index.
+     * @return The value of variable {@code v} in {@code row}. Booleans are 1
+     * if set and 0 otherwise.
+     * @throws IllegalStateException If the column of {@code v} was not read
+     * (see {@link #read(Path, String...)}).
+     */
+    public long get(int row, int v) {
+        switch (v) {
+            case ID2:
+                return id2s[row];
+            case PNUM:
+                return pnums[row];
+            case SEX:
+                return sex.get(row) ? 1L : 0L;
+            case STUDENT:
+                return student.get(row) ? 1L : 0L;
+            default:
+                return requireColumn(v).get(row);
+        }
+    }
+
+    /**
+     * @param row The row.
+     * @return A new record with the ID {@code row} and the values of
+     * {@code row}. Variables whose columns were not read are left 0.
+     */
+    public Census_ISARRecord getRecord(int row) {
+        Census_ISARRecord r = new Census_ISARRecord(new Census_RecordID(row));
+        try {
+            for (int v = 0; v < FIELDS.length; v++) {
+                switch (v) {
+                    case ID2:
+                    case PNUM:
+                        FIELDS[v].setLong(r, get(row, v));
+                        break;
+                    case SEX:
+                    case STUDENT:
+                        FIELDS[v].setBoolean(r, get(row, v) == 1L);
+                        break;
+                    default:
+                        if (columns[v] != null) {
+                            FIELDS[v].setShort(r, columns[v].get(row));
+                        }
+                }
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return r;
+    }
+
+    /**
+     * For building a {@link Census_ISARFrame} a row at a time. The short
+     * variables are held as {@code short[]}s until {@link #build()}.
+     */
+    public static class Builder {
+
+        private int size;
+
+        private long[] id2s;
+
+        private long[] pnums;
+
+        private final BitSet sex = new BitSet();
+
+        private final BitSet student = new BitSet();
+
+        private final short[][] values = new short[VARIABLES.length][];
+
+        /**
+         * @param capacity The expected number of rows.
+         */
+        public Builder(int capacity) {
+            int c = Math.max(16, capacity);
+            id2s = new long[c];
+            pnums = new long[c];
+            for (int v = 0; v < values.length; v++) {
+                if (isShort(v)) {
+                    values[v] = new short[c];
+                }
+            }
+        }
+
+        /**
+         * @return The number of rows added.
+         */
+        public int size() {
+            return size;
+        }
+
+        private void ensureCapacity() {
+            if (size == id2s.length) {
+                int c = size * 2;
+                id2s = Arrays.copyOf(id2s, c);
+                pnums = Arrays.copyOf(pnums, c);
+                for (int v = 0; v < values.length; v++) {
+                    if (values[v] != null) {
+                        values[v] = Arrays.copyOf(values[v], c);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds a row.
+         *
+         * @param row The value of each variable in the order of
+         * {@link #VARIABLES}. Booleans are set if not 0.
+         */
+        public void add(long[] row) {
+            ensureCapacity();
+            id2s[size] = row[ID2];
+            pnums[size] = row[PNUM];
+            sex.set(size, row[SEX] != 0L);
+            student.set(size, row[STUDENT] != 0L);
+            for (int v = 0; v < values.length; v++) {
+                if (values[v] != null) {
+                    values[v][size] = (short) row[v];
+                }
+            }
+            size++;
+        }
+
+        /**
+         * Adds a row.
+         *
+         * @param r The record.
+         */
+        public void add(Census_ISARRecord r) {
+            ensureCapacity();
+            try {
+                id2s[size] = FIELDS[ID2].getLong(r);
+                pnums[size] = FIELDS[PNUM].getLong(r);
+                sex.set(size, FIELDS[SEX].getBoolean(r));
+                student.set(size, FIELDS[STUDENT].getBoolean(r));
+                for (int v = 0; v < values.length; v++) {
+                    if (values[v] != null) {
+                        values[v][size] = FIELDS[v].getShort(r);
+                    }
+                }
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+            size++;
+        }
+
+        /**
+         * @return A new frame of the rows added.
+         */
+        public Census_ISARFrame build() {
+            Census_PackedColumn[] cols
+                    = new Census_PackedColumn[VARIABLES.length];
+            for (int v = 0; v < values.length; v++) {
+                if (values[v] != null) {
+                    cols[v] = Census_PackedColumn.of(values[v], size);
+                }
+            }
+            return new Census_ISARFrame(size, Arrays.copyOf(id2s, size),
+                    Arrays.copyOf(pnums, size), (BitSet) sex.clone(),
+                    (BitSet) student.clone(), cols);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.util.PrimitiveIterator;
+import uk.ac.leeds.ccg.data.census.data.Census_Bitmap;
+import uk.ac.leeds.ccg.data.census.data.Census_PackedColumn;
+
+/**
+ * Bitmap indexes on chosen variables of a {@link Census_ISARFrame}. For each
+ * indexed variable there is a {@link Census_Bitmap} of the rows with each
+ * value. Filters are built by combining the bitmaps from
+ * {@link #eq(String, short)}, {@link #in(String, short...)} and
+ * {@link #is(String)} with {@link Census_Bitmap#and(Census_Bitmap)},
+ * {@link Census_Bitmap#or(Census_Bitmap)} and {@link #not(Census_Bitmap)}.
+ * For example, the number of students in region 3 with a limiting long term
+ * illness is:
+ *
+ * <pre>
+ * i.is("STUDENT").and(i.eq("REGION", (short) 3)).and(i.eq("LLTI", (short) 1))
+ *         .getCardinality();
+ * </pre>
+ *
+ * Variables that are not indexed can still be used, but each use scans the
+ * column.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ISARIndex {
+
+    /**
+     * The frame.
+     */
+    public final Census_ISARFrame frame;
+
+    /**
+     * The bitmaps for each variable and code. Those for variables that are
+     * not indexed are {@code null}.
+     */
+    protected final Census_Bitmap[][] bitmaps;
+
+    /**
+     * The rows where SEX is set.
+     */
+    protected final Census_Bitmap sex;
+
+    /**
+     * The rows where STUDENT is set.
+     */
+    protected final Census_Bitmap student;
+
+    /**
+     * All the rows.
+     */
+    protected final Census_Bitmap all;
+
+    /**
+     * @param frame What {@link #frame} is set to.
+     * @param variables The names of the short variables to index.
+     * @throws IllegalArgumentException If there is no variable with one of
+     * the names in {@code variables}.
+     */
+    public Census_ISARIndex(Census_ISARFrame frame, String... variables) {
+        this.frame = frame;
+        bitmaps = new Census_Bitmap[Census_ISARFrame.VARIABLES.length][];
+        for (String n : variables) {
+            int v = Census_ISARFrame.indexOf(n);
+            if (v < 0) {
+                throw new IllegalArgumentException("No variable " + n);
+            }
+            if (Census_ISARFrame.isShort(v) && bitmaps[v] == null) {
+                bitmaps[v] = index(frame.requireColumn(v));
+            }
+        }
+        sex = Census_Bitmap.of(frame.getSEX());
+        student = Census_Bitmap.of(frame.getSTUDENT());
+        all = Census_Bitmap.range(0, frame.size());
+    }
+
+    private static Census_Bitmap[] index(Census_PackedColumn c) {
+        Census_Bitmap.Builder[] bs
+                = new Census_Bitmap.Builder[c.getCardinality()];
+        for (int i = 0; i < bs.length; i++) {
+            bs[i] = new Census_Bitmap.Builder();
+        }
+        for (int row = 0; row < c.size(); row++) {
+            bs[c.getCode(row)].add(row);
+        }
+        Census_Bitmap[] r = new Census_Bitmap[bs.length];
+        for (int i = 0; i < bs.length; i++) {
+            r[i] = bs[i].build();
+        }
+        return r;
+    }
+
+    /**
+     * @param name The variable name.
+     * @return {@code true} if the variable called {@code name} is indexed.
+     */
+    public boolean isIndexed(String name) {
+        int v = Census_ISARFrame.indexOf(name);
+        return v == Census_ISARFrame.SEX || v == Census_ISARFrame.STUDENT
+                || (v >= 0 && bitmaps[v] != null);
+    }
+
+    /**
+     * @return All the rows.
+     */
+    public Census_Bitmap all() {
+        return all;
+    }
+
+    /**
+     * @param b The rows.
+     * @return The rows not in {@code b}.
+     */
+    public Census_Bitmap not(Census_Bitmap b) {
+        return all.andNot(b);
+    }
+
+    /**
+     * @param name The name of a boolean variable (SEX or STUDENT).
+     * @return The rows where the variable is set.
+     */
+    public Census_Bitmap is(String name) {
+        int v = Census_ISARFrame.indexOf(name);
+        if (v == Census_ISARFrame.SEX) {
+            return sex;
+        } else if (v == Census_ISARFrame.STUDENT) {
+            return student;
+        }
+        throw new IllegalArgumentException(name + " is not a boolean");
+    }
+
+    /**
+     * @param name The variable name.
+     * @param value The value. For a boolean variable 1 is set and 0 is not
+     * set.
+     * @return The rows where the variable called {@code name} is
+     * {@code value}.
+     */
+    public Census_Bitmap eq(String name, short value) {
+        int v = Census_ISARFrame.indexOf(name);
+        if (v == Census_ISARFrame.SEX || v == Census_ISARFrame.STUDENT) {
+            Census_Bitmap b = is(name);
+            return value == 1 ? b : value == 0 ? not(b) : Census_Bitmap.EMPTY;
+        }
+        if (v < 0) {
+            throw new IllegalArgumentException("No variable " + name);
+        }
+        Census_PackedColumn c = frame.requireColumn(v);
+        int code = c.indexOf(value);
+        if (code < 0) {
+            return Census_Bitmap.EMPTY;
+        }
+        if (bitmaps[v] != null) {
+            return bitmaps[v][code];
+        }
+        return Census_Bitmap.of(c.select(value));
+    }
+
+    /**
+     * @param name The variable name.
+     * @param values The values.
+     * @return The rows where the variable called {@code name} is any of
+     * {@code values}.
+     */
+    public Census_Bitmap in(String name, short... values) {
+        Census_Bitmap r = Census_Bitmap.EMPTY;
+        for (short value : values) {
+            r = r.or(eq(name, value));
+        }
+        return r;
+    }
+
+    /**
+     * @param b The rows.
+     * @return The number of rows in {@code b}.
+     */
+    public int count(Census_Bitmap b) {
+        return b.getCardinality();
+    }
+
+    /**
+     * @param b The rows.
+     * @return An iterator over the rows in {@code b} in ascending order.
+     */
+    public PrimitiveIterator.OfInt rows(Census_Bitmap b) {
+        return b.iterator();
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.io.Census_Archives;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+import uk.ac.leeds.ccg.data.census.io.Census_Manifest;
+
+/**
+ * For decoding the lines of an ISAR or HSAR file straight from bytes. The
+ * decoder is a cursor: {@link #next()} moves to the next line and the fields
+ * of that line can then be got as primitives, copied into a {@code long[]}
+ * row or set in a reused record. Fields missing from the end of a line are
+ * empty and decode as 0 or {@code false}. Blank lines are skipped.
+ *
+ * Values may have spaces before or after them as in the ISAR files where
+ * fields are separated by a space and a tab.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_SARDecoder implements Closeable {
+
+    /**
+     * The number of fields in an ISAR line.
+     */
+    public static final int ISAR_FIELD_COUNT = 88;
+
+    /**
+     * The number of fields in an HSAR line.
+     */
+    public static final int HSAR_FIELD_COUNT = 60;
+
+    /**
+     * The version of {@link #loadISARFrame(Census_Manifest, Path, Path)}.
+     * This is to be incremented if what it writes changes.
+     */
+    public static final int LOAD_VERSION = 1;
+
+    /**
+     * The scanner.
+     */
+    protected final Census_CSVScanner s;
+
+    /**
+     * @param s What {@link #s} is set to.
+     */
+    public Census_SARDecoder(Census_CSVScanner s) {
+        this.s = s;
+    }
+
+    /**
+     * Creates a decoder for a tab separated file.
+     *
+     * @param f The file.
+     * @throws IOException If encountered.
+     */
+    public Census_SARDecoder(Path f) throws IOException {
+        this(Census_Archives.newScanner(f, '\t'));
+    }
+
+    /**
+     * Moves to the next line that is not blank.
+     *
+     * @return {@code false} if there are no more lines.
+     * @throws IOException If encountered.
+     */
+    public boolean next() throws IOException {
+        while (s.next()) {
+            if (!isBlank()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return {@code true} if the current line has only spaces.
+     */
+    public boolean isBlank() {
+        if (s.getFieldCount() > 1) {
+            return false;
+        }
+        byte[] b = s.getBuffer();
+        for (int i = s.getStart(0); i < s.getEnd(0); i++) {
+            if (b[i] != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of lines read so far.
+     */
+    public long getLineNumber() {
+        return s.getLineNumber();
+    }
+
+    /**
+     * @param f The field index.
+     * @return Field {@code f} of the current line.
+     */
+    public long getLong(int f) {
+        return s.getLong(f);
+    }
+
+    /**
+     * @param f The field index.
+     * @return Field {@code f} of the current line.
+     */
+    public int getInt(int f) {
+        return s.getInt(f);
+    }
+
+    /**
+     * @param f The field index.
+     * @return Field {@code f} of the current line.
+     * @throws NumberFormatException If field {@code f} is not a short.
+     */
+    public short getShort(int f) {
+        int r = s.getInt(f);
+        if (r < Short.MIN_VALUE || r > Short.MAX_VALUE) {
+            throw new NumberFormatException("For field " + f + " \""
+                    + s.getString(f) + "\" of line " + s.getLineNumber());
+        }
+        return (short) r;
+    }
+
+    /**
+     * @param f The field index.
+     * @return {@code true} if field {@code f} of the current line is 1.
+     */
+    public boolean getBoolean(int f) {
+        return s.getLong(f) == 1L;
+    }
+
+    /**
+     * Copies the fields of the current line into {@code row}.
+     *
+     * @param row The row. Field {@code i} is copied to {@code row[i]} for
+     * each index of {@code row}.
+     * @return {@code row}.
+     */
+    public long[] getRow(long[] row) {
+        for (int f = 0; f < row.length; f++) {
+            row[f] = s.getLong(f);
+        }
+        return row;
+    }
+
+    /**
+     * Sets the fields of {@code r} from the current line which is expected to
+     * be an ISAR line. The ID of {@code r} is not changed.
+     *
+     * @param r The record.
+     * @return {@code r}.
+     */
+    public Census_ISARRecord getISARRecord(Census_ISARRecord r) {
+        r.ID2 = getLong(0);
+        r.PNUM = getLong(1);
+        r.ACCTYPE = getShort(2);
+        r.AGE0 = getShort(3);
+        r.BATHWC = getShort(4);
+        r.CARS0 = getShort(5);
+        r.CENHEAT0 = getShort(6);
+        r.CESTATUS = getShort(7);
+        r.CETYPE = getShort(8);
+        r.COBIRT0 = getShort(9);
+        r.COMBGN = getShort(10);
+        r.COUNTRY = getShort(11);
+        r.DENSITY = getShort(12);
+        r.DISTMOV0 = getShort(13);
+        r.DISTWRK0 = getShort(14);
+        r.ECONACT = getShort(15);
+        r.EDISDONO = getShort(16);
+        r.ETHEW = getShort(17);
+        r.ETHN = getShort(18);
+        r.ETHS = getShort(19);
+        r.EVERWORK = getShort(20);
+        r.FAMTYP = getShort(21);
+        r.FNDEPCH = getShort(22);
+        r.FRECONAC = getShort(23);
+        r.FRNSSEC = getShort(24);
+        r.FRSEX = getShort(25);
+        r.FURN = getShort(26);
+        r.GAELREAD = getShort(27);
+        r.GAELSPK = getShort(28);
+        r.GAELSTND = getShort(29);
+        r.GAELWRIT = getShort(30);
+        r.GENIND = getShort(31);
+        r.HEALTH = getShort(32);
+        r.HEDIND = getShort(33);
+        r.HEMPIND = getShort(34);
+        r.HHLTHIND = getShort(35);
+        r.HHSGIND = getShort(36);
+        r.HNCARERS = getShort(37);
+        r.HNEARNRS = getShort(38);
+        r.HNELDERS = getShort(39);
+        r.HNFAMS = getShort(40);
+        r.HNLLTI = getShort(41);
+        r.HNPRHLTH = getShort(42);
+        r.HNRESDNT = getShort(43);
+        r.HOURSPW = getShort(44);
+        r.HOURSPWG = getShort(45);
+        r.HRSOCGRD = getShort(46);
+        r.INDSTRY0 = getShort(47);
+        r.IRISLANG = getShort(48);
+        r.ISCO = getShort(49);
+        r.LASTWORK = getShort(50);
+        r.LLTI = getShort(51);
+        r.LOWFLOR0 = getShort(52);
+        r.MARSTAT = getShort(53);
+        r.MIGORGN = getShort(54);
+        r.MULTETH = getShort(55);
+        r.NSSEC = getShort(56);
+        r.OCCUPNCY = getShort(57);
+        r.ONCPERIM = getShort(58);
+        r.PROFQUAL = getShort(59);
+        r.PROVCARE = getShort(60);
+        r.QUALVEWN = getShort(61);
+        r.QUALVS = getShort(62);
+        r.REGION = getShort(63);
+        r.RELGEW = getShort(64);
+        r.RELGS1 = getShort(65);
+        r.RELIGN = getShort(66);
+        r.RELTOHR = getShort(67);
+        r.ROOMSFLR = getShort(68);
+        r.ROOMSNUM = getShort(69);
+        r.SELFCONT = getShort(70);
+        r.SEX = getBoolean(71);
+        r.SOCMIN = getShort(72);
+        r.SOCSUBMJ = getShort(73);
+        r.STAHUK = getShort(74);
+        r.STUDENT = getBoolean(75);
+        r.SUPERVSR = getShort(76);
+        r.TENUREW = getShort(77);
+        r.TENURSN = getShort(78);
+        r.TERMTIME = getShort(79);
+        r.TRANWRK0 = getShort(80);
+        r.WLSHREAD = getShort(81);
+        r.WLSHSPK = getShort(82);
+        r.WLSHSTND = getShort(83);
+        r.WLSHWRIT = getShort(84);
+        r.WORKFORC = getShort(85);
+        r.WRKPLCE0 = getShort(86);
+        r.MIGIND = getShort(87);
+        return r;
+    }
+
+    /**
+     * @param id The record ID.
+     * @return A new record from the current line which is expected to be an
+     * ISAR line.
+     */
+    public Census_ISARRecord getISARRecord(Census_RecordID id) {
+        return getISARRecord(new Census_ISARRecord(id));
+    }
+
+    /**
+     * Sets the fields of {@code r} from the current line which is expected to
+     * be an HSAR line. The ID of {@code r} is not changed.
+     *
+     * @param r The record.
+     * @return {@code r}.
+     */
+    public Census_HSARRecord getHSARRecord(Census_HSARRecord r) {
+        r.HHID = getInt(0);
+        r.PNUM = getShort(1);
+        r.ID2 = getLong(2);
+        r.ACCTYPE = getShort(3);
+        r.AGEH = getShort(4);
+        r.BATHWC = getShort(5);
+        r.CARSH = getShort(6);
+        r.CENHEAT0 = getShort(7);
+        r.COBIRT0 = getShort(8);
+        r.DENSITY = getShort(9);
+        r.DISTMOV0 = getShort(10);
+        r.DISTWRK0 = getShort(11);
+        r.ECONACH = getShort(12);
+        r.EDISDONO = getShort(13);
+        r.ETHEW = getShort(14);
+        r.EVERWORK = getShort(15);
+        r.FAMNUMB = getShort(16);
+        r.FAMTYP = getShort(17);
+        r.FRP = getShort(18);
+        r.GENIND = getShort(19);
+        r.HEALTH = getShort(20);
+        r.HEDIND = getShort(21);
+        r.HEDISDON = getBoolean(22);
+        r.HEMPIND = getShort(23);
+        r.HHLTHIND = getShort(24);
+        r.HHSGIND = getShort(25);
+        r.HMIGIND = getShort(26);
+        r.HNRESIDN = getShort(27);
+        r.HOURSPW = getShort(28);
+        r.HRP = getBoolean(29);
+        r.HRSOCGRD = getShort(30);
+        r.INDSTRY0 = getShort(31);
+        r.ISCO3 = getInt(32);
+        r.LASTWORK = getShort(33);
+        r.LLTI = getShort(34);
+        r.LOWFLOR0 = getShort(35);
+        r.MARSTAH = getShort(36);
+        r.MIGIND = getShort(37);
+        r.NSSEC = getShort(38);
+        r.ONCPERIM = getShort(39);
+        r.POPBASE = getShort(40);
+        r.PROFQUAL = getShort(41);
+        r.PROVCARE = getShort(42);
+        r.QUALVEWN = getShort(43);
+        r.RELGEW = getShort(44);
+        r.RELTOHR = getShort(45);
+        r.ROOMREQ = getShort(46);
+        r.ROOMSNMH = getShort(47);
+        r.SELFCONT = getBoolean(48);
+        r.SEX = getBoolean(49);
+        r.SOCMIN = getInt(50);
+        r.STAHUKH = getShort(51);
+        r.STAPUK = getShort(52);
+        r.STUDENT = getBoolean(53);
+        r.SUPERVSR = getShort(54);
+        r.TENUREH = getShort(55);
+        r.TERMTIME = getShort(56);
+        r.TRANWRK0 = getShort(57);
+        r.WORKFORC = getShort(58);
+        r.WRKPLCE0 = getShort(59);
+        return r;
+    }
+
+    /**
+     * @param id The record ID.
+     * @return A new record from the current line which is expected to be an
+     * HSAR line.
+     */
+    public Census_HSARRecord getHSARRecord(Census_RecordID id) {
+        return getHSARRecord(new Census_HSARRecord(id));
+    }
+
+    /**
+     * Decodes the remaining lines into {@code b}.
+     *
+     * @param b The builder to add a row to for each line.
+     * @return {@code b}.
+     * @throws IOException If encountered.
+     */
+    public Census_ISARFrame.Builder getISARFrame(Census_ISARFrame.Builder b)
+            throws IOException {
+        long[] row = new long[ISAR_FIELD_COUNT];
+        while (next()) {
+            b.add(getRow(row));
+        }
+        return b;
+    }
+
+    /**
+     * @param f An ISAR file.
+     * @return A new frame with a row for each line of {@code f}.
+     * @throws IOException If encountered.
+     */
+    public static Census_ISARFrame loadISARFrame(Path f) throws IOException {
+        try (Census_SARDecoder d = new Census_SARDecoder(f)) {
+            return d.getISARFrame(new Census_ISARFrame.Builder(1 << 16))
+                    .build();
+        }
+    }
+
+    /**
+     * Reads the frame from the column file {@code cache} if {@code m} has it
+     * as current for {@code f}, otherwise loads the frame from {@code f} as
+     * with {@link #loadISARFrame(Path)}, writes it to {@code cache} and
+     * records it in {@code m}. The name of the loader recorded includes a
+     * hash of {@link Census_ISARFrame#VARIABLES}, so the cache is replaced if
+     * the variables change.
+     *
+     * @param m The manifest.
+     * @param f An ISAR file.
+     * @param cache The column file.
+     * @return A frame.
+     * @throws IOException If encountered.
+     */
+    public static Census_ISARFrame loadISARFrame(Census_Manifest m, Path f,
+            Path cache) throws IOException {
+        return m.get(cache, Census_ISARFrame.class.getSimpleName() + " "
+                + Integer.toHexString(Arrays.hashCode(
+                        Census_ISARFrame.VARIABLES)),
+                LOAD_VERSION, List.of(f),
+                Census_ISARFrame::read, p -> {
+                    Census_ISARFrame r = loadISARFrame(f);
+                    r.write(p);
+                    return r;
+                });
+    }
+
+    @Override
+    public void close() throws IOException {
+        s.close();
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * For reading files straight from the zip and gzip archives they are
+ * distributed in, so they need not be unpacked. A file {@code x.csv} is
+ * looked for as {@code x.csv}, then {@code x.csv.gz}, then {@code x.csv.zip}
+ * and then {@code x.zip}. A zip is read from the entry with the same file name
+ * or, if there is none, its only entry.
+ *
+ * Compressed bytes are inflated through a buffer of {@link #BUFFER_SIZE}
+ * bytes. The entries of a zip can be read in parallel with
+ * {@link #readEntries(Path, String, char, EntryReader, int)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_Archives {
+
+    /**
+     * The size of the buffer for inflating.
+     */
+    public static final int BUFFER_SIZE = 1 << 18;
+
+    /**
+     * For reading an entry of a zip.
+     *
+     * @param <T> The type of result.
+     */
+    @FunctionalInterface
+    public interface EntryReader<T> {
+
+        /**
+         * @param name The entry name.
+         * @param s A scanner of the entry which is closed after this returns.
+         * @return The result.
+         * @throws IOException If encountered.
+         */
+        T read(String name, Census_CSVScanner s) throws IOException;
+    }
+
+    private Census_Archives() {
+    }
+
+    /**
+     * @param f The file.
+     * @return {@code f} if it exists, otherwise the first of
+     * {@code f.gz}, {@code f.zip} and {@code f} with its extension replaced
+     * by {@code .zip} that exists, otherwise {@code f}.
+     */
+    public static Path resolve(Path f) {
+        if (Files.exists(f)) {
+            return f;
+        }
+        String n = f.getFileName().toString();
+        List<String> ns = new ArrayList<>();
+        ns.add(n + ".gz");
+        ns.add(n + ".zip");
+        int i = n.lastIndexOf('.');
+        if (i > 0) {
+            ns.add(n.substring(0, i) + ".zip");
+        }
+        for (String a : ns) {
+            Path p = f.resolveSibling(a);
+            if (Files.exists(p)) {
+                return p;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * @param f The file.
+     * @return A new scanner of {@link #resolve(Path)} for comma separated
+     * values.
+     * @throws IOException If encountered.
+     */
+    public static Census_CSVScanner newScanner(Path f) throws IOException {
+        return newScanner(f, ',');
+    }
+
+    /**
+     * @param f The file.
+     * @param delimiter The field delimiter.
+     * @return A new scanner of {@link #resolve(Path)}.
+     * @throws IOException If encountered.
+     */
+    public static Census_CSVScanner newScanner(Path f, char delimiter)
+            throws IOException {
+        return new Census_CSVScanner(open(f), (byte) delimiter,
+                Census_CSVScanner.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param f The file.
+     * @return A new channel for reading the uncompressed bytes of
+     * {@link #resolve(Path)}.
+     * @throws IOException If encountered.
+     */
+    public static ReadableByteChannel open(Path f) throws IOException {
+        Path p = resolve(f);
+        String n = p.getFileName().toString().toLowerCase();
+        if (n.endsWith(".gz")) {
+            return Channels.newChannel(new GZIPInputStream(
+                    Files.newInputStream(p), BUFFER_SIZE));
+        } else if (n.endsWith(".zip")) {
+            String entry = f.getFileName().toString();
+            if (!p.equals(f) && hasEntry(p, entry)) {
+                return open(p, entry);
+            }
+            List<String> es = getEntries(p, ".*");
+            if (es.size() != 1) {
+                throw new FileNotFoundException("No entry " + entry + " in "
+                        + p);
+            }
+            return open(p, es.get(0));
+        }
+        return FileChannel.open(p, StandardOpenOption.READ);
+    }
+
+    private static boolean hasEntry(Path zip, String name) throws IOException {
+        try (ZipFile z = new ZipFile(zip.toFile())) {
+            return getEntry(z, name) != null;
+        }
+    }
+
+    /**
+     * @return The entry called {@code name} or with the file name
+     * {@code name} or {@code null} if there is none.
+     */
+    private static ZipEntry getEntry(ZipFile z, String name) {
+        ZipEntry e = z.getEntry(name);
+        if (e == null) {
+            Enumeration<? extends ZipEntry> es = z.entries();
+            while (es.hasMoreElements()) {
+                ZipEntry x = es.nextElement();
+                if (!x.isDirectory() && Paths.get(x.getName()).getFileName()
+                        .toString().equals(name)) {
+                    return x;
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * @param zip The zip file.
+     * @param regex The pattern for the entry names.
+     * @return The names of the entries of {@code zip} that are not
+     * directories and match {@code regex} in the order they are in the zip.
+     * @throws IOException If encountered.
+     */
+    public static List<String> getEntries(Path zip, String regex)
+            throws IOException {
+        Pattern p = Pattern.compile(regex);
+        List<String> r = new ArrayList<>();
+        try (ZipFile z = new ZipFile(zip.toFile())) {
+            Enumeration<? extends ZipEntry> es = z.entries();
+            while (es.hasMoreElements()) {
+                ZipEntry e = es.nextElement();
+                if (!e.isDirectory() && p.matcher(e.getName()).matches()) {
+                    r.add(e.getName());
+                }
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param zip The zip file.
+     * @param entry The entry name or file name.
+     * @return A new channel for reading the uncompressed bytes of
+     * {@code entry}. Closing this closes the zip.
+     * @throws IOException If encountered.
+     */
+    public static ReadableByteChannel open(Path zip, String entry)
+            throws IOException {
+        ZipFile z = new ZipFile(zip.toFile());
+        try {
+            ZipEntry e = getEntry(z, entry);
+            if (e == null) {
+                throw new FileNotFoundException("No entry " + entry + " in "
+                        + zip);
+            }
+            InputStream in = new BufferedInputStream(z.getInputStream(e),
+                    BUFFER_SIZE);
+            return Channels.newChannel(new FilterInputStream(in) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        z.close();
+                    }
+                }
+            });
+        } catch (IOException | RuntimeException ex) {
+            z.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads each entry of {@code zip} that matches {@code regex}. Each entry
+     * is inflated and read by a different task with its own handle on the
+     * zip.
+     *
+     * @param <T> The type of result.
+     * @param zip The zip file.
+     * @param regex The pattern for the entry names.
+     * @param delimiter The field delimiter.
+     * @param reader The reader for each entry.
+     * @param parallelism The most entries to read at once.
+     * @return The result for each entry in the order they are in the zip.
+     * @throws IOException If encountered.
+     */
+    public static <T> List<T> readEntries(Path zip, String regex,
+            char delimiter, EntryReader<T> reader, int parallelism)
+            throws IOException {
+        List<String> es = getEntries(zip, regex);
+        ExecutorService x = Executors.newFixedThreadPool(Math.max(1,
+                Math.min(parallelism, es.size())));
+        try {
+            List<CompletableFuture<T>> fs = new ArrayList<>();
+            for (String e : es) {
+                fs.add(CompletableFuture.supplyAsync(() -> {
+                    try (Census_CSVScanner s = new Census_CSVScanner(
+                            open(zip, e), (byte) delimiter,
+                            Census_CSVScanner.DEFAULT_BUFFER_SIZE)) {
+                        return reader.read(e, s);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }, x));
+            }
+            List<T> r = new ArrayList<>();
+            for (CompletableFuture<T> f : fs) {
+                try {
+                    r.add(f.join());
+                } catch (CompletionException ex) {
+                    if (ex.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) ex.getCause())
+                                .getCause();
+                    }
+                    throw ex;
+                }
+            }
+            return r;
+        } finally {
+            x.shutdown();
+        }
+    }
+}
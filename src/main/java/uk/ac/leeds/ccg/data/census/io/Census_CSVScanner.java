@@ -0,0 +1,503 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * For scanning delimited text a line at a time without creating objects. The
+ * bytes are read from a channel into a buffer that is reused, and for each
+ * line the start and end of each field in the buffer is recorded. Fields can
+ * then be parsed straight from the buffer and Strings only need be created
+ * for fields that are wanted as Strings.
+ *
+ * Fields may be enclosed in double quotes, in which case the quotes are not
+ * part of the field and the delimiter may appear within the field. Lines may
+ * end with {@code \n} or {@code \r\n}. The bytes are expected to be ASCII or
+ * UTF-8.
+ *
+ * The buffer is a heap {@code byte[]} filled from a channel rather than a
+ * mapped file. This is so any channel can be scanned, including entries of
+ * archives (see {@link Census_Archives}) which cannot be mapped, and so files
+ * larger than 2GB need no remapping as a {@code MappedByteBuffer} is int
+ * indexed. Fields are parsed with plain array indexing and a line that
+ * straddles two reads is moved to the start of the buffer.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CSVScanner implements Closeable {
+
+    /**
+     * The default size of the buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * The channel read from or {@code null} if the bytes are all in
+     * {@link #buf}.
+     */
+    protected final ReadableByteChannel ch;
+
+    /**
+     * The field delimiter.
+     */
+    protected final byte delimiter;
+
+    /**
+     * The buffer.
+     */
+    protected byte[] buf;
+
+    /**
+     * For reading into {@link #buf}.
+     */
+    protected ByteBuffer bb;
+
+    /**
+     * The index in {@link #buf} of the start of the next line.
+     */
+    protected int pos;
+
+    /**
+     * The index in {@link #buf} after the last byte read.
+     */
+    protected int limit;
+
+    /**
+     * Set to {@code true} when the end of {@link #ch} is reached.
+     */
+    protected boolean eof;
+
+    /**
+     * The start of the current line.
+     */
+    protected int lineStart;
+
+    /**
+     * The end of the current line excluding the line terminator.
+     */
+    protected int lineEnd;
+
+    /**
+     * The number of fields in the current line.
+     */
+    protected int n;
+
+    /**
+     * The start of each field in the current line.
+     */
+    protected int[] starts;
+
+    /**
+     * The end of each field in the current line.
+     */
+    protected int[] ends;
+
+    /**
+     * Set for each field in the current line that was enclosed in quotes.
+     */
+    protected boolean[] quoted;
+
+    /**
+     * The number of lines read.
+     */
+    protected long lineNumber;
+
+    /**
+     * The number of bytes read from {@link #ch} before {@code buf[0]}.
+     */
+    protected long offset;
+
+    /**
+     * @param f The file to read.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVScanner(Path f) throws IOException {
+        this(FileChannel.open(f, StandardOpenOption.READ), (byte) ',',
+                DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param f The file to read.
+     * @param delimiter What {@link #delimiter} is set to.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVScanner(Path f, char delimiter) throws IOException {
+        this(FileChannel.open(f, StandardOpenOption.READ), (byte) delimiter,
+                DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param ch What {@link #ch} is set to. This is closed on {@link #close()}.
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param bufferSize The initial size of the buffer. The buffer grows if a
+     * line is longer than this.
+     */
+    public Census_CSVScanner(ReadableByteChannel ch, byte delimiter,
+            int bufferSize) {
+        this.ch = ch;
+        this.delimiter = delimiter;
+        buf = new byte[Math.max(bufferSize, 16)];
+        bb = ByteBuffer.wrap(buf);
+        starts = new int[16];
+        ends = new int[16];
+        quoted = new boolean[16];
+    }
+
+    /**
+     * Creates a scanner of the lines in {@code b} from {@code off} to
+     * {@code off + len}. These bytes are scanned where they are and are not
+     * modified. {@link #getPosition()} is relative to {@code off}.
+     *
+     * @param b The bytes.
+     * @param off The index in {@code b} of the start of the first line.
+     * @param len The number of bytes.
+     * @param delimiter What {@link #delimiter} is set to.
+     */
+    public Census_CSVScanner(byte[] b, int off, int len, byte delimiter) {
+        this.ch = null;
+        this.delimiter = delimiter;
+        buf = b;
+        pos = off;
+        limit = off + len;
+        eof = true;
+        offset = -off;
+        starts = new int[16];
+        ends = new int[16];
+        quoted = new boolean[16];
+    }
+
+    /**
+     * Reads more bytes into the buffer keeping those from {@link #pos}.
+     *
+     * @return {@code false} if no more bytes were read.
+     * @throws IOException If encountered.
+     */
+    protected boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (pos > 0) {
+            offset += pos;
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            buf = Arrays.copyOf(buf, buf.length * 2);
+            bb = ByteBuffer.wrap(buf);
+        }
+        bb.limit(buf.length);
+        bb.position(limit);
+        int r;
+        do {
+            r = ch.read(bb);
+        } while (r == 0);
+        if (r < 0) {
+            eof = true;
+            return false;
+        }
+        limit += r;
+        return true;
+    }
+
+    /**
+     * Advances to the next line.
+     *
+     * @return {@code false} if there are no more lines.
+     * @throws IOException If encountered.
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            int end = scan();
+            if (end >= 0) {
+                int next = end + 1;
+                if (end > pos && buf[end - 1] == '\r') {
+                    end--;
+                }
+                split(pos, end);
+                pos = next;
+                lineNumber++;
+                return true;
+            }
+            if (!fill()) {
+                if (pos < limit) {
+                    int e = limit;
+                    if (buf[e - 1] == '\r') {
+                        e--;
+                    }
+                    split(pos, e);
+                    pos = limit;
+                    lineNumber++;
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return The index of the next line terminator from {@link #pos} or -1
+     * if there is not one before {@link #limit}. A line terminator within
+     * quotes does not count.
+     */
+    private int scan() {
+        boolean q = false;
+        for (int i = pos; i < limit; i++) {
+            byte b = buf[i];
+            if (b == '"') {
+                q = !q;
+            } else if (b == '\n' && !q) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the fields for the line from {@code start} to {@code end}.
+     */
+    private void split(int start, int end) {
+        lineStart = start;
+        lineEnd = end;
+        n = 0;
+        int i = start;
+        while (true) {
+            if (n == starts.length) {
+                starts = Arrays.copyOf(starts, n * 2);
+                ends = Arrays.copyOf(ends, n * 2);
+                quoted = Arrays.copyOf(quoted, n * 2);
+            }
+            if (i < end && buf[i] == '"') {
+                int s = i + 1;
+                int j = s;
+                while (j < end) {
+                    if (buf[j] == '"') {
+                        if (j + 1 < end && buf[j + 1] == '"') {
+                            j += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    j++;
+                }
+                starts[n] = s;
+                ends[n] = j;
+                quoted[n] = true;
+                n++;
+                i = j + 1;
+                while (i < end && buf[i] != delimiter) {
+                    i++;
+                }
+            } else {
+                int s = i;
+                while (i < end && buf[i] != delimiter) {
+                    i++;
+                }
+                starts[n] = s;
+                ends[n] = i;
+                quoted[n] = false;
+                n++;
+            }
+            if (i >= end) {
+                break;
+            }
+            i++;
+        }
+    }
+
+    /**
+     * @return The number of lines read so far.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return The number of bytes read from the channel before the start of
+     * the current line. For a file this is the position of the line.
+     */
+    public long getPosition() {
+        return offset + lineStart;
+    }
+
+    /**
+     * @return The number of fields in the current line.
+     */
+    public int getFieldCount() {
+        return n;
+    }
+
+    /**
+     * @return The buffer. Only the current line is valid and only until
+     * {@link #next()} is called.
+     */
+    public byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * @param f The field index.
+     * @return The index in {@link #getBuffer()} of the start of field
+     * {@code f}.
+     */
+    public int getStart(int f) {
+        return f < n ? starts[f] : lineEnd;
+    }
+
+    /**
+     * @param f The field index.
+     * @return The index in {@link #getBuffer()} after the end of field
+     * {@code f}.
+     */
+    public int getEnd(int f) {
+        return f < n ? ends[f] : lineEnd;
+    }
+
+    /**
+     * @param f The field index.
+     * @return The number of bytes in field {@code f}. Fields beyond the end of
+     * the line are empty.
+     */
+    public int getLength(int f) {
+        return f < n ? ends[f] - starts[f] : 0;
+    }
+
+    /**
+     * @return The current line as a String.
+     */
+    public String getLine() {
+        return new String(buf, lineStart, lineEnd - lineStart,
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param f The field index.
+     * @return Field {@code f} as a String.
+     */
+    public String getString(int f) {
+        if (f >= n) {
+            return "";
+        }
+        String r = new String(buf, starts[f], ends[f] - starts[f],
+                StandardCharsets.UTF_8);
+        if (quoted[f] && r.indexOf('"') >= 0) {
+            r = r.replace("\"\"", "\"");
+        }
+        return r;
+    }
+
+    /**
+     * @param f The field index.
+     * @return Field {@code f} packed as a zone code or
+     * {@link Census_ZoneCode#INVALID}.
+     */
+    public long getZoneCode(int f) {
+        return Census_ZoneCode.encode(buf, getStart(f), getLength(f));
+    }
+
+    /**
+     * Parses an int. Spaces before and after are ignored and an empty field is
+     * 0.
+     *
+     * @param f The field index.
+     * @return Field {@code f} as an int.
+     * @throws NumberFormatException If field {@code f} is not an int.
+     */
+    public int getInt(int f) {
+        long r = getLong(f);
+        if (r < Integer.MIN_VALUE || r > Integer.MAX_VALUE) {
+            throw numberFormatException(f);
+        }
+        return (int) r;
+    }
+
+    /**
+     * Parses a long. Spaces before and after are ignored and an empty field
+     * is 0.
+     *
+     * @param f The field index.
+     * @return Field {@code f} as a long.
+     * @throws NumberFormatException If field {@code f} is not a long.
+     */
+    public long getLong(int f) {
+        int i = getStart(f);
+        int e = getEnd(f);
+        while (i < e && buf[i] == ' ') {
+            i++;
+        }
+        while (e > i && buf[e - 1] == ' ') {
+            e--;
+        }
+        if (i == e) {
+            return 0L;
+        }
+        boolean neg = false;
+        if (buf[i] == '-' || buf[i] == '+') {
+            neg = buf[i] == '-';
+            i++;
+            if (i == e) {
+                throw numberFormatException(f);
+            }
+        }
+        if (e - i > 18) {
+            return Long.parseLong(getString(f).trim());
+        }
+        long r = 0L;
+        for (; i < e; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                throw numberFormatException(f);
+            }
+            r = r * 10 + d;
+        }
+        return neg ? -r : r;
+    }
+
+    /**
+     * Parses a double. An empty field is 0.
+     *
+     * @param f The field index.
+     * @return Field {@code f} as a double.
+     * @throws NumberFormatException If field {@code f} is not a double.
+     */
+    public double getDouble(int f) {
+        String s = getString(f).trim();
+        return s.isEmpty() ? 0d : Double.parseDouble(s);
+    }
+
+    private NumberFormatException numberFormatException(int f) {
+        return new NumberFormatException("For field " + f + " \""
+                + getString(f) + "\" of line " + lineNumber);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ch != null) {
+            ch.close();
+        }
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_CASTable;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARFrame;
+
+/**
+ * For writing comma separated values to a file in bulk. Values are formatted
+ * straight into a byte buffer which is written through a {@link FileChannel}
+ * each time it fills, so no String is created for a number or zone code.
+ * This is the counterpart of {@link Census_CSVScanner}.
+ *
+ * The static methods write a {@link Census_CASTable}, a collection of area
+ * records or a {@link Census_ISARFrame} in the same layout as
+ * {@link Census_AreaRecord#toCSV()} and
+ * {@link Census_AreaRecord#toCSVHeader()}: the ID, the zone code and then the
+ * cells. Several files can be written in parallel with
+ * {@link #writeAll(Map, int)}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CSVWriter implements Closeable {
+
+    /**
+     * The default size of the buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * For writing a file with a writer.
+     */
+    @FunctionalInterface
+    public interface Export {
+
+        /**
+         * @param w The writer.
+         * @throws IOException If encountered.
+         */
+        void write(Census_CSVWriter w) throws IOException;
+    }
+
+    /**
+     * The channel.
+     */
+    protected final FileChannel ch;
+
+    /**
+     * The buffer.
+     */
+    protected final byte[] buf;
+
+    /**
+     * For writing {@link #buf}.
+     */
+    protected final ByteBuffer bb;
+
+    /**
+     * The number of bytes in {@link #buf}.
+     */
+    protected int n;
+
+    /**
+     * The delimiter.
+     */
+    protected final byte delimiter;
+
+    /**
+     * Creates or replaces {@code f}.
+     *
+     * @param f The file.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter(Path f) throws IOException {
+        this(f, ',', DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates or replaces {@code f}.
+     *
+     * @param f The file.
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param bufferSize The size of the buffer. This is at least 64.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter(Path f, char delimiter, int bufferSize)
+            throws IOException {
+        Path p = f.toAbsolutePath().getParent();
+        if (p != null) {
+            Files.createDirectories(p);
+        }
+        this.ch = FileChannel.open(f, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        this.buf = new byte[Math.max(64, bufferSize)];
+        this.bb = ByteBuffer.wrap(buf);
+        this.delimiter = (byte) delimiter;
+    }
+
+    /**
+     * Makes sure there is room for {@code len} bytes in {@link #buf}.
+     */
+    private void ensure(int len) throws IOException {
+        if (n + len > buf.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffer to the channel.
+     *
+     * @throws IOException If encountered.
+     */
+    public void flush() throws IOException {
+        bb.clear();
+        bb.limit(n);
+        while (bb.hasRemaining()) {
+            ch.write(bb);
+        }
+        n = 0;
+    }
+
+    /**
+     * Writes the delimiter.
+     *
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter delimiter() throws IOException {
+        ensure(1);
+        buf[n++] = delimiter;
+        return this;
+    }
+
+    /**
+     * Writes a line terminator.
+     *
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter newLine() throws IOException {
+        ensure(1);
+        buf[n++] = '\n';
+        return this;
+    }
+
+    /**
+     * @param v The value.
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter put(int v) throws IOException {
+        return put((long) v);
+    }
+
+    /**
+     * @param v The value.
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter put(long v) throws IOException {
+        ensure(20);
+        if (v == Long.MIN_VALUE) {
+            return put("-9223372036854775808");
+        }
+        if (v < 0) {
+            buf[n++] = '-';
+            v = -v;
+        }
+        int len = 1;
+        for (long x = v / 10; x > 0; x /= 10) {
+            len++;
+        }
+        for (int i = n + len - 1; i >= n; i--) {
+            buf[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        n += len;
+        return this;
+    }
+
+    /**
+     * @param code A packed zone code. If it is not valid nothing is written.
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter putZoneCode(long code) throws IOException {
+        ensure(Census_ZoneCode.MAX_LENGTH);
+        n += Census_ZoneCode.decode(code, buf, n);
+        return this;
+    }
+
+    /**
+     * Writes {@code s} as is in UTF-8.
+     *
+     * @param s The characters.
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter put(String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        if (b.length > buf.length) {
+            flush();
+            ByteBuffer x = ByteBuffer.wrap(b);
+            while (x.hasRemaining()) {
+                ch.write(x);
+            }
+        } else {
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, n, b.length);
+            n += b.length;
+        }
+        return this;
+    }
+
+    /**
+     * Writes a line of values.
+     *
+     * @param values The values.
+     * @return This.
+     * @throws IOException If encountered.
+     */
+    public Census_CSVWriter putLine(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                delimiter();
+            }
+            put(values[i]);
+        }
+        return newLine();
+    }
+
+    /**
+     * Flushes and closes the channel.
+     *
+     * @throws IOException If encountered.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            ch.close();
+        }
+    }
+
+    /**
+     * Writes a header and then a line for each row of {@code t}. The ID of
+     * each row is the row index as for {@link Census_CASTable#getRecord(int)}.
+     * Only the columns of {@code t} that were read are written.
+     *
+     * @param f The file.
+     * @param t The table.
+     * @throws IOException If encountered.
+     */
+    public static void write(Path f, Census_CASTable<?> t) throws IOException {
+        try (Census_CSVWriter w = new Census_CSVWriter(f)) {
+            w.write(t);
+        }
+    }
+
+    /**
+     * Writes a header and then a line for each row of {@code t}.
+     *
+     * @param t The table.
+     * @throws IOException If encountered.
+     */
+    public void write(Census_CASTable<?> t) throws IOException {
+        String[] names = t.getColumnNames();
+        List<int[]> cols = new ArrayList<>();
+        List<String> read = new ArrayList<>();
+        for (int c = 0; c < names.length; c++) {
+            if (t.getColumn(c) != null) {
+                cols.add(t.getColumn(c));
+                read.add(names[c]);
+            }
+        }
+        putHeader(read.toArray(new String[read.size()]));
+        for (int row = 0; row < t.getRowCount(); row++) {
+            put(row).delimiter().putZoneCode(t.zoneCodes[row]);
+            for (int[] col : cols) {
+                delimiter().put(col[row]);
+            }
+            newLine();
+        }
+    }
+
+    /**
+     * Writes a header and then a line for each of {@code records} in
+     * iteration order.
+     *
+     * @param <R> The type of record.
+     * @param f The file.
+     * @param type The record class.
+     * @param records The records.
+     * @throws IOException If encountered.
+     */
+    public static <R extends Census_AreaRecord> void write(Path f,
+            Class<R> type, Collection<? extends R> records)
+            throws IOException {
+        try (Census_CSVWriter w = new Census_CSVWriter(f)) {
+            w.write(type, records);
+        }
+    }
+
+    /**
+     * Writes a header and then a line for each of {@code records} in
+     * iteration order.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param records The records.
+     * @throws IOException If encountered.
+     */
+    public <R extends Census_AreaRecord> void write(Class<R> type,
+            Collection<? extends R> records) throws IOException {
+        Census_Cells<R> cells = Census_Cells.of(type);
+        putHeader(cells.getNames());
+        int[] v = new int[cells.size()];
+        for (R r : records) {
+            cells.get(r, v);
+            put(r.getID().getID()).delimiter().putZoneCode(r.zoneCode);
+            for (int c : v) {
+                delimiter().put(c);
+            }
+            newLine();
+        }
+    }
+
+    private void putHeader(String[] names) throws IOException {
+        put("id").delimiter().put("zoneCode");
+        for (String name : names) {
+            delimiter().put(name);
+        }
+        newLine();
+    }
+
+    /**
+     * Writes a header of {@link Census_ISARFrame#VARIABLES} and then a line
+     * for each row of {@code frame}. Booleans are 1 if set and 0 otherwise.
+     *
+     * @param f The file.
+     * @param frame The frame. All its columns must have been read.
+     * @throws IOException If encountered.
+     */
+    public static void write(Path f, Census_ISARFrame frame)
+            throws IOException {
+        try (Census_CSVWriter w = new Census_CSVWriter(f)) {
+            w.putLine(Census_ISARFrame.VARIABLES);
+            int nv = Census_ISARFrame.VARIABLES.length;
+            for (int row = 0; row < frame.size(); row++) {
+                for (int v = 0; v < nv; v++) {
+                    if (v > 0) {
+                        w.delimiter();
+                    }
+                    w.put(frame.get(row, v));
+                }
+                w.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes each file with its own writer. Up to {@code parallelism} files
+     * are written at once.
+     *
+     * @param exports The files and how to write each.
+     * @param parallelism The most files to write at once.
+     * @throws IOException If encountered.
+     */
+    public static void writeAll(Map<Path, Export> exports, int parallelism)
+            throws IOException {
+        ExecutorService x = Executors.newFixedThreadPool(Math.max(1,
+                Math.min(parallelism, exports.size())));
+        try {
+            List<CompletableFuture<Void>> fs = new ArrayList<>();
+            exports.forEach((f, e) -> fs.add(CompletableFuture.runAsync(() -> {
+                try (Census_CSVWriter w = new Census_CSVWriter(f)) {
+                    e.write(w);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, x)));
+            for (CompletableFuture<Void> f : fs) {
+                try {
+                    f.join();
+                } catch (CompletionException ex) {
+                    if (ex.getCause() instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) ex.getCause())
+                                .getCause();
+                    }
+                    throw ex;
+                }
+            }
+        } finally {
+            x.shutdown();
+        }
+    }
+}
@@ -0,0 +1,598 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A binary file of named columns of whole numbers, such as the cells of a CAS
+ * table or the variables of a SAR. Each column is encoded on its own with
+ * whichever of these takes fewer bytes:
+ * <ul>
+ * <li>{@link Encoding#FOR} (frame of reference): each value less the column
+ * minimum is bit packed in as few bits as the largest needs.</li>
+ * <li>{@link Encoding#DICTIONARY}: the distinct values are stored once in
+ * ascending order and the index of each value is bit packed. This suits
+ * columns with few distinct values that are far apart such as zone codes
+ * repeated for many rows.</li>
+ * </ul>
+ * A column with one distinct value takes no bits a row.
+ *
+ * The file starts with a magic number and a format version. The column data
+ * follows and then a footer with the number of rows and, for each column, its
+ * name, type, encoding, minimum, maximum, bits a row, dictionary size and the
+ * position and length of its data. The file ends with the length of the footer
+ * and the magic number. A {@link Reader} reads only the footer on opening and
+ * each column only when it is asked for, so a few columns can be read from a
+ * file with many without the rest being read or decoded. The minimum and
+ * maximum of a column can be used to skip it without reading it.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ColumnFile {
+
+    /**
+     * The magic number at the start and end of every file.
+     */
+    public static final int MAGIC = 0x43434F4C;
+
+    /**
+     * The format version. This is to be incremented if the format changes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The encodings of columns.
+     */
+    public enum Encoding {
+
+        /**
+         * Frame of reference and bit packing.
+         */
+        FOR,
+        /**
+         * Dictionary and bit packing.
+         */
+        DICTIONARY
+    }
+
+    /**
+     * The type of the values of a column.
+     */
+    public enum Type {
+
+        /**
+         * {@code int} values.
+         */
+        INT,
+        /**
+         * {@code long} values.
+         */
+        LONG
+    }
+
+    private Census_ColumnFile() {
+    }
+
+    /**
+     * The description of a column in the footer.
+     */
+    public static class Column {
+
+        /**
+         * The name.
+         */
+        protected final String name;
+
+        /**
+         * The type.
+         */
+        protected final Type type;
+
+        /**
+         * The encoding.
+         */
+        protected final Encoding encoding;
+
+        /**
+         * The smallest value.
+         */
+        protected final long min;
+
+        /**
+         * The largest value.
+         */
+        protected final long max;
+
+        /**
+         * The number of bits a row.
+         */
+        protected final int bits;
+
+        /**
+         * The number of values in the dictionary. This is 0 for
+         * {@link Encoding#FOR}.
+         */
+        protected final int cardinality;
+
+        /**
+         * The position in the file of the data.
+         */
+        protected final long offset;
+
+        /**
+         * The number of bytes of data.
+         */
+        protected final long length;
+
+        /**
+         * @param name What {@link #name} is set to.
+         * @param type What {@link #type} is set to.
+         * @param encoding What {@link #encoding} is set to.
+         * @param min What {@link #min} is set to.
+         * @param max What {@link #max} is set to.
+         * @param bits What {@link #bits} is set to.
+         * @param cardinality What {@link #cardinality} is set to.
+         * @param offset What {@link #offset} is set to.
+         * @param length What {@link #length} is set to.
+         */
+        protected Column(String name, Type type, Encoding encoding, long min,
+                long max, int bits, int cardinality, long offset,
+                long length) {
+            this.name = name;
+            this.type = type;
+            this.encoding = encoding;
+            this.min = min;
+            this.max = max;
+            this.bits = bits;
+            this.cardinality = cardinality;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * @return {@link #name}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return {@link #type}.
+         */
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return {@link #encoding}.
+         */
+        public Encoding getEncoding() {
+            return encoding;
+        }
+
+        /**
+         * @return {@link #min}.
+         */
+        public long getMin() {
+            return min;
+        }
+
+        /**
+         * @return {@link #max}.
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return {@link #bits}.
+         */
+        public int getBits() {
+            return bits;
+        }
+
+        /**
+         * @return {@link #length}.
+         */
+        public long getByteCount() {
+            return length;
+        }
+    }
+
+    /**
+     * For encoding columns and writing them to a file.
+     */
+    public static class Writer {
+
+        private final int rows;
+
+        private final List<Column> columns = new ArrayList<>();
+
+        private final List<long[]> data = new ArrayList<>();
+
+        private long length;
+
+        /**
+         * @param rows The number of rows.
+         */
+        public Writer(int rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * Adds a column.
+         *
+         * @param name The name.
+         * @param values The values. There must be one for each row.
+         * @return This.
+         */
+        public Writer add(String name, int[] values) {
+            long[] v = new long[values.length];
+            for (int i = 0; i < v.length; i++) {
+                v[i] = values[i];
+            }
+            return add(name, Type.INT, v);
+        }
+
+        /**
+         * Adds a column.
+         *
+         * @param name The name.
+         * @param values The values. There must be one for each row.
+         * @return This.
+         */
+        public Writer add(String name, long[] values) {
+            return add(name, Type.LONG, values);
+        }
+
+        private Writer add(String name, Type type, long[] values) {
+            if (values.length != rows) {
+                throw new IllegalArgumentException("Expected " + rows
+                        + " values for " + name);
+            }
+            for (Column c : columns) {
+                if (c.name.equals(name)) {
+                    throw new IllegalArgumentException("Column " + name
+                            + " is already added");
+                }
+            }
+            long min = 0L;
+            long max = 0L;
+            if (rows > 0) {
+                min = Long.MAX_VALUE;
+                max = Long.MIN_VALUE;
+                for (long v : values) {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+            int forBits = getBits(max - min);
+            long[] d = values.clone();
+            Arrays.sort(d);
+            int card = 0;
+            for (int i = 0; i < d.length; i++) {
+                if (i == 0 || d[i] != d[i - 1]) {
+                    d[card++] = d[i];
+                }
+            }
+            int dictBits = getBits(card - 1L);
+            long[] r;
+            int bits;
+            if (getWords(rows, forBits) <= card
+                    + getWords(rows, dictBits)) {
+                bits = forBits;
+                r = new long[getWords(rows, bits)];
+                for (int i = 0; i < rows; i++) {
+                    pack(r, i, bits, values[i] - min);
+                }
+                columns.add(new Column(name, type, Encoding.FOR, min, max,
+                        bits, 0, 0L, r.length * 8L));
+            } else {
+                bits = dictBits;
+                r = new long[card + getWords(rows, bits)];
+                System.arraycopy(d, 0, r, 0, card);
+                for (int i = 0; i < rows; i++) {
+                    pack(r, card, i, bits, Arrays.binarySearch(d, 0, card,
+                            values[i]));
+                }
+                columns.add(new Column(name, type, Encoding.DICTIONARY, min,
+                        max, bits, card, 0L, r.length * 8L));
+            }
+            data.add(r);
+            length += r.length * 8L;
+            return this;
+        }
+
+        /**
+         * Writes the columns to a temporary file which then replaces
+         * {@code f}, so a partly written file is never read.
+         *
+         * @param f The file.
+         * @throws IOException If encountered.
+         */
+        public void write(Path f) throws IOException {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (DataOutputStream dos = new DataOutputStream(baos)) {
+                dos.writeInt(rows);
+                dos.writeInt(columns.size());
+                long offset = 8L;
+                for (Column c : columns) {
+                    dos.writeUTF(c.name);
+                    dos.writeByte(c.type.ordinal());
+                    dos.writeByte(c.encoding.ordinal());
+                    dos.writeLong(c.min);
+                    dos.writeLong(c.max);
+                    dos.writeByte(c.bits);
+                    dos.writeInt(c.cardinality);
+                    dos.writeLong(offset);
+                    dos.writeLong(c.length);
+                    offset += c.length;
+                }
+            }
+            byte[] footer = baos.toByteArray();
+            Files.createDirectories(f.toAbsolutePath().getParent());
+            Path t = Files.createTempFile(f.toAbsolutePath().getParent(),
+                    f.getFileName().toString(), ".tmp");
+            try {
+                try (FileChannel fc = FileChannel.open(t,
+                        StandardOpenOption.WRITE)) {
+                    ByteBuffer b = ByteBuffer.allocate(1 << 16);
+                    b.putInt(MAGIC);
+                    b.putInt(VERSION);
+                    for (long[] d : data) {
+                        for (long v : d) {
+                            if (!b.hasRemaining()) {
+                                write(fc, b);
+                            }
+                            b.putLong(v);
+                        }
+                    }
+                    write(fc, b);
+                    b = ByteBuffer.allocate(footer.length + 8);
+                    b.put(footer);
+                    b.putInt(footer.length);
+                    b.putInt(MAGIC);
+                    write(fc, b);
+                }
+                Files.move(t, f, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(t);
+            }
+        }
+
+        private static void write(FileChannel fc, ByteBuffer b)
+                throws IOException {
+            b.flip();
+            while (b.hasRemaining()) {
+                fc.write(b);
+            }
+            b.clear();
+        }
+
+        /**
+         * @return The number of bytes of column data.
+         */
+        public long getByteCount() {
+            return length;
+        }
+    }
+
+    /**
+     * For reading columns from a file. Only the footer is read on
+     * construction.
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel fc;
+
+        private final int rows;
+
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+
+        /**
+         * @param f The file.
+         * @throws IOException If encountered or if {@code f} is not a column
+         * file of this version.
+         */
+        public Reader(Path f) throws IOException {
+            fc = FileChannel.open(f, StandardOpenOption.READ);
+            try {
+                long size = fc.size();
+                ByteBuffer b = read(0L, 8);
+                if (size < 24L || b.getInt() != MAGIC
+                        || b.getInt() != VERSION) {
+                    throw new IOException(f + " is not a column file of "
+                            + "version " + VERSION);
+                }
+                b = read(size - 8L, 8);
+                int n = b.getInt();
+                if (b.getInt() != MAGIC || n < 8 || n > size - 16L) {
+                    throw new IOException(f + " is not complete");
+                }
+                b = read(size - 8L - n, n);
+                DataInputStream dis = new DataInputStream(
+                        new ByteArrayInputStream(b.array()));
+                rows = dis.readInt();
+                int nc = dis.readInt();
+                for (int i = 0; i < nc; i++) {
+                    Column c = new Column(dis.readUTF(),
+                            Type.values()[dis.readByte()],
+                            Encoding.values()[dis.readByte()], dis.readLong(),
+                            dis.readLong(), dis.readByte(), dis.readInt(),
+                            dis.readLong(), dis.readLong());
+                    columns.put(c.name, c);
+                }
+            } catch (IOException | RuntimeException ex) {
+                fc.close();
+                throw ex;
+            }
+        }
+
+        private ByteBuffer read(long pos, int n) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(n);
+            while (b.hasRemaining()) {
+                if (fc.read(b, pos + b.position()) < 0) {
+                    break;
+                }
+            }
+            b.flip();
+            return b;
+        }
+
+        /**
+         * @return The number of rows.
+         */
+        public int getRowCount() {
+            return rows;
+        }
+
+        /**
+         * @return The names of the columns in the order they were written.
+         */
+        public String[] getColumnNames() {
+            return columns.keySet().toArray(new String[columns.size()]);
+        }
+
+        /**
+         * @param name The column name.
+         * @return The column called {@code name} or {@code null} if there is
+         * none.
+         */
+        public Column getColumn(String name) {
+            return columns.get(name);
+        }
+
+        /**
+         * @param name The column name.
+         * @return The values of the column called {@code name}.
+         * @throws IOException If encountered.
+         */
+        public long[] getLongs(String name) throws IOException {
+            Column c = columns.get(name);
+            if (c == null) {
+                throw new IllegalArgumentException("No column " + name);
+            }
+            long[] r = new long[rows];
+            if (c.bits == 0) {
+                Arrays.fill(r, c.min);
+                return r;
+            }
+            MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY,
+                    c.offset, c.length);
+            long[] d = new long[(int) (c.length >>> 3)];
+            b.asLongBuffer().get(d);
+            if (c.encoding == Encoding.FOR) {
+                for (int i = 0; i < rows; i++) {
+                    r[i] = c.min + unpack(d, 0, i, c.bits);
+                }
+            } else {
+                for (int i = 0; i < rows; i++) {
+                    r[i] = d[(int) unpack(d, c.cardinality, i, c.bits)];
+                }
+            }
+            return r;
+        }
+
+        /**
+         * @param name The column name.
+         * @return The values of the column called {@code name}.
+         * @throws IOException If encountered.
+         * @throws IllegalArgumentException If the column is not of type
+         * {@link Type#INT}.
+         */
+        public int[] getInts(String name) throws IOException {
+            Column c = columns.get(name);
+            if (c != null && c.type != Type.INT) {
+                throw new IllegalArgumentException("Column " + name
+                        + " is not of type " + Type.INT);
+            }
+            long[] v = getLongs(name);
+            int[] r = new int[v.length];
+            for (int i = 0; i < r.length; i++) {
+                r[i] = (int) v[i];
+            }
+            return r;
+        }
+
+        @Override
+        public void close() throws IOException {
+            fc.close();
+        }
+    }
+
+    /**
+     * @param v A value treated as unsigned.
+     * @return The number of bits needed for {@code v}.
+     */
+    private static int getBits(long v) {
+        return 64 - Long.numberOfLeadingZeros(v);
+    }
+
+    /**
+     * @return The number of longs for {@code n} values of {@code bits} bits.
+     */
+    private static int getWords(int n, int bits) {
+        return Math.toIntExact(((long) n * bits + 63) >>> 6);
+    }
+
+    private static void pack(long[] p, int i, int bits, long v) {
+        pack(p, 0, i, bits, v);
+    }
+
+    private static void pack(long[] p, int off, int i, int bits, long v) {
+        if (bits == 0) {
+            return;
+        }
+        long o = (long) i * bits;
+        int w = off + (int) (o >>> 6);
+        int s = (int) (o & 63);
+        p[w] |= v << s;
+        if (s + bits > 64) {
+            p[w + 1] |= v >>> (64 - s);
+        }
+    }
+
+    private static long unpack(long[] p, int off, int i, int bits) {
+        long o = (long) i * bits;
+        int w = off + (int) (o >>> 6);
+        int s = (int) (o & 63);
+        long r = p[w] >>> s;
+        if (s + bits > 64) {
+            r |= p[w + 1] << (64 - s);
+        }
+        return bits == 64 ? r : r & ((1L << bits) - 1L);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * A fingerprint of an input file: its name, size, last modified time and a
+ * CRC32 checksum of its contents. Used to decide whether something generated
+ * from the file is still valid.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_FileFingerprint {
+
+    /**
+     * The file name.
+     */
+    public final String name;
+
+    /**
+     * The file size in bytes.
+     */
+    public final long size;
+
+    /**
+     * The last modified time in milliseconds.
+     */
+    public final long mtime;
+
+    /**
+     * The CRC32 checksum of the file contents.
+     */
+    public final long checksum;
+
+    /**
+     * @param name What {@link #name} is set to.
+     * @param size What {@link #size} is set to.
+     * @param mtime What {@link #mtime} is set to.
+     * @param checksum What {@link #checksum} is set to.
+     */
+    public Census_FileFingerprint(String name, long size, long mtime,
+            long checksum) {
+        this.name = name;
+        this.size = size;
+        this.mtime = mtime;
+        this.checksum = checksum;
+    }
+
+    /**
+     * @param f The file.
+     * @return A fingerprint of {@code f}.
+     * @throws IOException If encountered.
+     */
+    public static Census_FileFingerprint of(Path f) throws IOException {
+        return new Census_FileFingerprint(f.getFileName().toString(),
+                Files.size(f), Files.getLastModifiedTime(f).toMillis(),
+                getChecksum(f));
+    }
+
+    /**
+     * @param f The file.
+     * @return The CRC32 checksum of the contents of {@code f}.
+     * @throws IOException If encountered.
+     */
+    public static long getChecksum(Path f) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel fc = FileChannel.open(f, StandardOpenOption.READ)) {
+            long size = fc.size();
+            long pos = 0;
+            while (pos < size) {
+                long n = Math.min(size - pos, Integer.MAX_VALUE);
+                MappedByteBuffer b = fc.map(FileChannel.MapMode.READ_ONLY,
+                        pos, n);
+                crc.update(b);
+                pos += n;
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Checks if {@code f} matches this. If the size differs it does not. If
+     * the size and last modified time are the same it does. Otherwise the
+     * checksum is calculated and compared, so a file that has been rewritten
+     * with the same contents still matches.
+     *
+     * @param f The file.
+     * @return {@code true} if {@code f} matches this.
+     * @throws IOException If encountered.
+     */
+    public boolean matches(Path f) throws IOException {
+        if (!Files.exists(f) || !f.getFileName().toString().equals(name)
+                || Files.size(f) != size) {
+            return false;
+        }
+        if (Files.getLastModifiedTime(f).toMillis() == mtime) {
+            return true;
+        }
+        return getChecksum(f) == checksum;
+    }
+
+    /**
+     * @param out The output to write to.
+     * @throws IOException If encountered.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeUTF(name);
+        out.writeLong(size);
+        out.writeLong(mtime);
+        out.writeLong(checksum);
+    }
+
+    /**
+     * @param in The input to read from.
+     * @return A fingerprint read from {@code in}.
+     * @throws IOException If encountered.
+     */
+    public static Census_FileFingerprint read(DataInput in) throws IOException {
+        return new Census_FileFingerprint(in.readUTF(), in.readLong(),
+                in.readLong(), in.readLong());
+    }
+
+    @Override
+    public String toString() {
+        return "name=" + name + ", size=" + size + ", mtime=" + mtime
+                + ", checksum=" + checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof Census_FileFingerprint) {
+            Census_FileFingerprint f = (Census_FileFingerprint) o;
+            return name.equals(f.name) && size == f.size && mtime == f.mtime
+                    && checksum == f.checksum;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, size, mtime, checksum);
+    }
+}
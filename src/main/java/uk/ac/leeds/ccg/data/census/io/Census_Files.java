@@ -65,4 +65,76 @@ public class Census_Files extends Data_Files {
         return Paths.get(getGenerated2001Dir().toString(), Census_Strings.s_lut);
     }
 
+    public Path getGenerated2011Dir() throws IOException {
+        return Paths.get(getGeneratedDir().toString(), Census_Strings.s_2011);
+    }
+
+    public Path getGenerated2011LUTDir() throws IOException {
+        return Paths.get(getGenerated2011Dir().toString(), Census_Strings.s_lut);
+    }
+
+    /**
+     * @return The path of the binary snapshot of the 2001 look ups.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2001LUTSnapshot() throws IOException {
+        return Paths.get(getGenerated2001LUTDir().toString(), "lut.dat");
+    }
+
+    /**
+     * @return The path of the binary snapshot of the 2011 look ups.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2011LUTSnapshot() throws IOException {
+        return Paths.get(getGenerated2011LUTDir().toString(), "lut.dat");
+    }
+
+    /**
+     * @return The path of the {@link Census_Manifest} of generated files.
+     * @throws IOException If encountered.
+     */
+    public Path getGeneratedManifest() throws IOException {
+        return Paths.get(getGeneratedDir().toString(), "manifest.dat");
+    }
+
+    /**
+     * @param name The table name, e.g. "CAS001".
+     * @return The path of the {@link Census_ColumnFile} of a 2001 table.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2001ColumnFile(String name) throws IOException {
+        return Paths.get(getGenerated2001Dir().toString(), "columns",
+                name + ".col");
+    }
+
+    /**
+     * @param name The table name.
+     * @return The path of the {@link Census_ColumnFile} of a 2011 table.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2011ColumnFile(String name) throws IOException {
+        return Paths.get(getGenerated2011Dir().toString(), "columns",
+                name + ".col");
+    }
+
+    /**
+     * @param name The table name, e.g. "KS017".
+     * @return The path of the area store of a 2001 table.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2001AreaStore(String name) throws IOException {
+        return Paths.get(getGenerated2001Dir().toString(), "stores",
+                name + ".dat");
+    }
+
+    /**
+     * @param name The table name.
+     * @return The path of the area store of a 2011 table.
+     * @throws IOException If encountered.
+     */
+    public Path getGenerated2011AreaStore(String name) throws IOException {
+        return Paths.get(getGenerated2011Dir().toString(), "stores",
+                name + ".dat");
+    }
+
 }
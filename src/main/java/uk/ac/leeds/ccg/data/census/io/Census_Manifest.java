@@ -0,0 +1,427 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A record of the things generated from input files (artefacts such as
+ * snapshots, column files and stores) and what each was generated from, so
+ * an artefact is only generated again when an input or the way it is
+ * generated has changed. For each artefact there is an {@link Entry} with the
+ * name and version of its loader, a {@link Census_FileFingerprint} of the
+ * artefact itself and one of each input. Inputs are fingerprinted as resolved
+ * by {@link Census_Archives#resolve(Path)}.
+ *
+ * The entries are held in a file which is rewritten each time an entry is
+ * recorded. For example:
+ *
+ * <pre>
+ * Census_Manifest m = new Census_Manifest(files.getGeneratedManifest());
+ * Census_CASTable&lt;Census_CAS001Record&gt; t = m.get(cache, "CAS001", 1,
+ *         List.of(f), p -&gt; Census_CASTable.read(Census_CAS001Record.class, p),
+ *         p -&gt; {
+ *             Census_CASTable&lt;Census_CAS001Record&gt; r
+ *                     = Census_CASTable.load(Census_CAS001Record.class, f);
+ *             r.write(p);
+ *             return r;
+ *         });
+ * </pre>
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_Manifest {
+
+    /**
+     * The magic number at the start of every manifest.
+     */
+    public static final int MAGIC = 0x434D414E;
+
+    /**
+     * The format version. This is to be incremented if the format changes.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * For reading an artefact.
+     *
+     * @param <T> The type of what is read.
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+
+        /**
+         * @param artefact The artefact.
+         * @return What is read.
+         * @throws IOException If encountered.
+         */
+        T read(Path artefact) throws IOException;
+    }
+
+    /**
+     * For generating an artefact from the inputs.
+     *
+     * @param <T> The type of what is generated.
+     */
+    @FunctionalInterface
+    public interface Builder<T> {
+
+        /**
+         * @param artefact The artefact to write.
+         * @return What was generated.
+         * @throws IOException If encountered.
+         */
+        T build(Path artefact) throws IOException;
+    }
+
+    /**
+     * What an artefact was generated from.
+     */
+    public static class Entry {
+
+        /**
+         * The artefact.
+         */
+        public final Path artefact;
+
+        /**
+         * The name of the loader.
+         */
+        public final String loader;
+
+        /**
+         * The version of the loader.
+         */
+        public final int version;
+
+        /**
+         * When the entry was recorded in milliseconds.
+         */
+        public final long time;
+
+        /**
+         * The fingerprint of the artefact.
+         */
+        public final Census_FileFingerprint output;
+
+        /**
+         * The inputs.
+         */
+        public final List<Path> inputs;
+
+        /**
+         * The fingerprint of each of {@link #inputs}.
+         */
+        public final List<Census_FileFingerprint> fingerprints;
+
+        /**
+         * @param artefact What {@link #artefact} is set to.
+         * @param loader What {@link #loader} is set to.
+         * @param version What {@link #version} is set to.
+         * @param time What {@link #time} is set to.
+         * @param output What {@link #output} is set to.
+         * @param inputs What {@link #inputs} is set to.
+         * @param fingerprints What {@link #fingerprints} is set to.
+         */
+        public Entry(Path artefact, String loader, int version, long time,
+                Census_FileFingerprint output, List<Path> inputs,
+                List<Census_FileFingerprint> fingerprints) {
+            this.artefact = artefact;
+            this.loader = loader;
+            this.version = version;
+            this.time = time;
+            this.output = output;
+            this.inputs = Collections.unmodifiableList(inputs);
+            this.fingerprints = Collections.unmodifiableList(fingerprints);
+        }
+
+        /**
+         * @param loader The name of the loader.
+         * @param version The version of the loader.
+         * @param inputs The inputs.
+         * @return {@code true} if the artefact is as recorded and was
+         * generated by {@code loader} at {@code version} from
+         * {@code inputs} as they are now.
+         * @throws IOException If encountered.
+         */
+        public boolean isCurrent(String loader, int version,
+                List<Path> inputs) throws IOException {
+            if (!this.loader.equals(loader) || this.version != version
+                    || !output.matches(artefact)
+                    || inputs.size() != this.inputs.size()) {
+                return false;
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                Path p = Census_Archives.resolve(inputs.get(i));
+                if (!p.toAbsolutePath().normalize().equals(this.inputs.get(i))
+                        || !fingerprints.get(i).matches(p)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "artefact=" + artefact + ", loader=" + loader
+                    + ", version=" + version + ", time=" + time
+                    + ", inputs=" + inputs;
+        }
+    }
+
+    /**
+     * The manifest file.
+     */
+    protected final Path f;
+
+    /**
+     * The entries keyed by artefact.
+     */
+    protected final Map<Path, Entry> entries = new LinkedHashMap<>();
+
+    /**
+     * Reads the manifest {@code f} if it exists. A manifest that is not of
+     * this version, is not complete or cannot be read for any other reason
+     * is replaced with an empty one.
+     *
+     * @param f What {@link #f} is set to.
+     * @throws IOException If encountered.
+     */
+    public Census_Manifest(Path f) throws IOException {
+        this.f = f;
+        if (Files.exists(f) && !read()) {
+            entries.clear();
+            write();
+        }
+    }
+
+    /**
+     * Reads the entries from {@link #f}.
+     *
+     * @return {@code false} if {@link #f} is not a complete manifest of this
+     * version.
+     */
+    private boolean read() {
+        try (DataInputStream dis = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(f)))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+                return false;
+            }
+            long size = Files.size(f);
+            int n = dis.readInt();
+            if (n < 0 || n > size) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                Path a = Paths.get(dis.readUTF());
+                String loader = dis.readUTF();
+                int version = dis.readInt();
+                long time = dis.readLong();
+                Census_FileFingerprint o = Census_FileFingerprint.read(dis);
+                int ni = dis.readInt();
+                if (ni < 0 || ni > size) {
+                    return false;
+                }
+                List<Path> inputs = new ArrayList<>(ni);
+                List<Census_FileFingerprint> fps = new ArrayList<>(ni);
+                for (int j = 0; j < ni; j++) {
+                    inputs.add(Paths.get(dis.readUTF()));
+                    fps.add(Census_FileFingerprint.read(dis));
+                }
+                entries.put(a, new Entry(a, loader, version, time, o, inputs,
+                        fps));
+            }
+            return dis.read() < 0;
+        } catch (IOException | RuntimeException ex) {
+            // Truncated, not UTF-8, a bad path or otherwise not a manifest.
+            return false;
+        }
+    }
+
+    private static Path getKey(Path p) {
+        return p.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @param artefact The artefact.
+     * @return The entry for {@code artefact} or {@code null} if there is
+     * none.
+     */
+    public synchronized Entry getEntry(Path artefact) {
+        return entries.get(getKey(artefact));
+    }
+
+    /**
+     * @return The entries in the order they were first recorded.
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries.values());
+    }
+
+    /**
+     * @param input An input.
+     * @return The entries of the artefacts generated from {@code input}.
+     */
+    public synchronized List<Entry> getEntries(Path input) {
+        Path p = getKey(Census_Archives.resolve(input));
+        List<Entry> r = new ArrayList<>();
+        for (Entry e : entries.values()) {
+            if (e.inputs.contains(p)) {
+                r.add(e);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @param artefact The artefact.
+     * @param loader The name of the loader.
+     * @param version The version of the loader.
+     * @param inputs The inputs.
+     * @return {@code true} if there is an entry for {@code artefact} and it
+     * is current (see {@link Entry#isCurrent(String, int, List)}).
+     * @throws IOException If encountered.
+     */
+    public boolean isCurrent(Path artefact, String loader, int version,
+            List<Path> inputs) throws IOException {
+        Entry e = getEntry(artefact);
+        return e != null && e.isCurrent(loader, version, inputs);
+    }
+
+    /**
+     * Records that {@code artefact} has been generated by {@code loader} at
+     * {@code version} from {@code inputs} as they are now and rewrites the
+     * manifest.
+     *
+     * @param artefact The artefact.
+     * @param loader The name of the loader.
+     * @param version The version of the loader.
+     * @param inputs The inputs.
+     * @throws IOException If encountered.
+     */
+    public void record(Path artefact, String loader, int version,
+            List<Path> inputs) throws IOException {
+        Path a = getKey(artefact);
+        Census_FileFingerprint o = Census_FileFingerprint.of(a);
+        List<Path> ps = new ArrayList<>(inputs.size());
+        List<Census_FileFingerprint> fps = new ArrayList<>(inputs.size());
+        for (Path p : inputs) {
+            Path r = getKey(Census_Archives.resolve(p));
+            ps.add(r);
+            fps.add(Census_FileFingerprint.of(r));
+        }
+        synchronized (this) {
+            entries.put(a, new Entry(a, loader, version,
+                    System.currentTimeMillis(), o, ps, fps));
+            write();
+        }
+    }
+
+    /**
+     * Removes the entry for {@code artefact} and rewrites the manifest.
+     *
+     * @param artefact The artefact.
+     * @return The entry removed or {@code null} if there was none.
+     * @throws IOException If encountered.
+     */
+    public synchronized Entry remove(Path artefact) throws IOException {
+        Entry r = entries.remove(getKey(artefact));
+        if (r != null) {
+            write();
+        }
+        return r;
+    }
+
+    /**
+     * Reads {@code artefact} with {@code reader} if it is current, otherwise
+     * generates it with {@code builder} and records it. If {@code reader}
+     * throws an IOException or a RuntimeException (e.g. the artefact does
+     * not have a column the loader now expects) the artefact is taken to be
+     * stale and is generated again.
+     *
+     * @param <T> The type of what is read or generated.
+     * @param artefact The artefact.
+     * @param loader The name of the loader.
+     * @param version The version of the loader. This is to be incremented if
+     * what the loader generates changes.
+     * @param inputs The inputs.
+     * @param reader For reading {@code artefact}.
+     * @param builder For generating and writing {@code artefact}.
+     * @return What is read or generated.
+     * @throws IOException If encountered.
+     */
+    public <T> T get(Path artefact, String loader, int version,
+            List<Path> inputs, Reader<T> reader, Builder<T> builder)
+            throws IOException {
+        if (isCurrent(artefact, loader, version, inputs)) {
+            try {
+                return reader.read(artefact);
+            } catch (IOException | RuntimeException ex) {
+                remove(artefact);
+            }
+        }
+        T r = builder.build(artefact);
+        record(artefact, loader, version, inputs);
+        return r;
+    }
+
+    /**
+     * Writes the entries to a temporary file which then replaces {@link #f}.
+     */
+    private void write() throws IOException {
+        Files.createDirectories(f.toAbsolutePath().getParent());
+        Path t = Files.createTempFile(f.toAbsolutePath().getParent(),
+                f.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream dos = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(t)))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(VERSION);
+                dos.writeInt(entries.size());
+                for (Entry e : entries.values()) {
+                    dos.writeUTF(e.artefact.toString());
+                    dos.writeUTF(e.loader);
+                    dos.writeInt(e.version);
+                    dos.writeLong(e.time);
+                    e.output.write(dos);
+                    dos.writeInt(e.inputs.size());
+                    for (int i = 0; i < e.inputs.size(); i++) {
+                        dos.writeUTF(e.inputs.get(i).toString());
+                        e.fingerprints.get(i).write(dos);
+                    }
+                }
+            }
+            Files.move(t, f, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(t);
+        }
+    }
+}
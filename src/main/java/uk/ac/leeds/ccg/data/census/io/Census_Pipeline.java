@@ -0,0 +1,382 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import uk.ac.leeds.ccg.data.census.data.Census_Record;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+
+/**
+ * For loading records from a large file with reading and parsing done in
+ * parallel. One thread reads the file in blocks of {@link #blockSize} bytes
+ * and ends each block at the end of its last complete line. A pool of
+ * {@link #parallelism} threads each take a block and decode its lines into a
+ * batch of records with a {@link Census_RecordReader.Decoder}. The batches
+ * are passed to a {@link Sink} in the calling thread, either in the order of
+ * the blocks or as soon as each is decoded.
+ *
+ * At most {@link #capacity} blocks are read and not yet passed to the sink,
+ * so if the sink or the parsers are slower than reading, reading waits and
+ * memory does not grow with the size of the file. Block buffers are reused
+ * and each is scanned where it is without being copied.
+ *
+ * Files are opened with {@link Census_Archives#open(Path)} so they can be in
+ * zip or gzip archives. The ID of each record is the position of the start of
+ * its line in the uncompressed bytes, as for {@link Census_RecordReader}. For
+ * example:
+ *
+ * <pre>
+ * new Census_Pipeline&lt;&gt;('\t', Census_RecordReader.getISARDecoders())
+ *         .run(f, true, batch -&gt; {
+ *             batch.forEach(b::add);
+ *             return true;
+ *         });
+ * </pre>
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <T> The type of record.
+ */
+public class Census_Pipeline<T extends Census_Record> {
+
+    /**
+     * The default number of bytes in a block.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1 << 22;
+
+    /**
+     * For the batches of records.
+     *
+     * @param <T> The type of record.
+     */
+    @FunctionalInterface
+    public interface Sink<T> {
+
+        /**
+         * @param batch The records decoded from a block. The list is not
+         * reused.
+         * @return {@code false} to stop.
+         * @throws IOException If encountered.
+         */
+        boolean accept(List<T> batch) throws IOException;
+    }
+
+    /**
+     * The field delimiter.
+     */
+    protected final char delimiter;
+
+    /**
+     * For creating a decoder for each scanner.
+     */
+    protected final Function<Census_CSVScanner,
+            Census_RecordReader.Decoder<T>> decoders;
+
+    /**
+     * The number of parser threads.
+     */
+    protected final int parallelism;
+
+    /**
+     * The number of bytes in a block.
+     */
+    protected int blockSize = DEFAULT_BLOCK_SIZE;
+
+    /**
+     * The most blocks read and not yet passed to the sink.
+     */
+    protected int capacity;
+
+    /**
+     * Creates a new instance with as many parser threads as there are threads
+     * in the common pool.
+     *
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param decoders What {@link #decoders} is set to.
+     */
+    public Census_Pipeline(char delimiter, Function<Census_CSVScanner,
+            Census_RecordReader.Decoder<T>> decoders) {
+        this(delimiter, decoders, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param decoders What {@link #decoders} is set to.
+     * @param parallelism What {@link #parallelism} is set to.
+     */
+    public Census_Pipeline(char delimiter, Function<Census_CSVScanner,
+            Census_RecordReader.Decoder<T>> decoders, int parallelism) {
+        this.delimiter = delimiter;
+        this.decoders = decoders;
+        this.parallelism = Math.max(1, parallelism);
+        this.capacity = 2 * this.parallelism;
+    }
+
+    /**
+     * @param blockSize What {@link #blockSize} is set to. A block grows if a
+     * line is longer.
+     * @param capacity What {@link #capacity} is set to.
+     */
+    public void setBuffering(int blockSize, int capacity) {
+        this.blockSize = Math.max(1, blockSize);
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * A block of complete lines.
+     */
+    private static class Block {
+
+        final long seq;
+
+        final long pos;
+
+        final byte[] b;
+
+        final int n;
+
+        Block(long seq, long pos, byte[] b, int n) {
+            this.seq = seq;
+            this.pos = pos;
+            this.b = b;
+            this.n = n;
+        }
+    }
+
+    /**
+     * The records of a block or what went wrong. A result with neither marks
+     * the end of a parser.
+     */
+    private static class Result<T> {
+
+        final long seq;
+
+        final List<T> batch;
+
+        final Throwable error;
+
+        Result(long seq, List<T> batch, Throwable error) {
+            this.seq = seq;
+            this.batch = batch;
+            this.error = error;
+        }
+    }
+
+    /**
+     * @param f The file.
+     * @param ordered If {@code true} batches are passed to {@code sink} in
+     * the order of the file, otherwise as they are decoded.
+     * @param sink The sink.
+     * @return The number of records passed to {@code sink}.
+     * @throws IOException If encountered.
+     */
+    public long run(Path f, boolean ordered, Sink<T> sink) throws IOException {
+        return run(Census_Archives.open(f), ordered, sink);
+    }
+
+    /**
+     * @param ch The channel. This is closed.
+     * @param ordered If {@code true} batches are passed to {@code sink} in
+     * the order of the channel, otherwise as they are decoded.
+     * @param sink The sink.
+     * @return The number of records passed to {@code sink}.
+     * @throws IOException If encountered.
+     */
+    public long run(ReadableByteChannel ch, boolean ordered, Sink<T> sink)
+            throws IOException {
+        Semaphore permits = new Semaphore(capacity);
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(capacity
+                + parallelism);
+        BlockingQueue<Result<T>> results = new ArrayBlockingQueue<>(capacity
+                + parallelism + 1);
+        Queue<byte[]> free = new ConcurrentLinkedQueue<>();
+        ExecutorService x = Executors.newFixedThreadPool(parallelism + 1);
+        long r = 0L;
+        try {
+            x.execute(() -> {
+                try {
+                    read(ch, permits, blocks, free);
+                } catch (Throwable ex) {
+                    results.offer(new Result<>(-1L, null, ex));
+                } finally {
+                    try {
+                        for (int i = 0; i < parallelism; i++) {
+                            blocks.put(new Block(-1L, 0L, null, 0));
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            for (int i = 0; i < parallelism; i++) {
+                x.execute(() -> parse(blocks, results, free));
+            }
+            Map<Long, List<T>> pending = new HashMap<>();
+            long next = 0L;
+            int done = 0;
+            while (done < parallelism) {
+                Result<T> res = results.take();
+                if (res.error != null) {
+                    if (res.error instanceof IOException) {
+                        throw (IOException) res.error;
+                    } else if (res.error instanceof UncheckedIOException) {
+                        throw ((UncheckedIOException) res.error).getCause();
+                    } else if (res.error instanceof RuntimeException) {
+                        throw (RuntimeException) res.error;
+                    }
+                    throw new IllegalStateException(res.error);
+                } else if (res.batch == null) {
+                    done++;
+                } else if (!ordered) {
+                    permits.release();
+                    r += res.batch.size();
+                    if (!sink.accept(res.batch)) {
+                        return r;
+                    }
+                } else {
+                    pending.put(res.seq, res.batch);
+                    for (List<T> b = pending.remove(next); b != null;
+                            b = pending.remove(next)) {
+                        next++;
+                        permits.release();
+                        r += b.size();
+                        if (!sink.accept(b)) {
+                            return r;
+                        }
+                    }
+                }
+            }
+            return r;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } finally {
+            x.shutdownNow();
+            ch.close();
+        }
+    }
+
+    /**
+     * Reads blocks ending at line ends.
+     */
+    private void read(ReadableByteChannel ch, Semaphore permits,
+            BlockingQueue<Block> blocks, Queue<byte[]> free)
+            throws IOException, InterruptedException {
+        byte[] carry = new byte[0];
+        int nc = 0;
+        long pos = 0L;
+        long seq = 0L;
+        boolean eof = false;
+        while (!eof) {
+            permits.acquire();
+            byte[] b = free.poll();
+            if (b == null || b.length < Math.max(blockSize, nc + 1)) {
+                b = new byte[Math.max(blockSize, 2 * nc)];
+            }
+            System.arraycopy(carry, 0, b, 0, nc);
+            int n = nc;
+            int end = -1;
+            while (end < 0) {
+                ByteBuffer bb = ByteBuffer.wrap(b, n, b.length - n);
+                while (bb.hasRemaining() && !eof) {
+                    eof = ch.read(bb) < 0;
+                }
+                int m = bb.position();
+                if (eof) {
+                    end = m;
+                } else {
+                    for (int i = m - 1; i >= n && end < 0; i--) {
+                        if (b[i] == '\n') {
+                            end = i + 1;
+                        }
+                    }
+                    if (end < 0) {
+                        // A line longer than the block.
+                        byte[] g = new byte[b.length * 2];
+                        System.arraycopy(b, 0, g, 0, m);
+                        b = g;
+                    }
+                }
+                n = m;
+            }
+            nc = n - end;
+            if (carry.length < nc) {
+                carry = new byte[Math.max(nc, 1024)];
+            }
+            System.arraycopy(b, end, carry, 0, nc);
+            if (end > 0) {
+                blocks.put(new Block(seq++, pos, b, end));
+                pos += end;
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Decodes blocks until the end.
+     */
+    private void parse(BlockingQueue<Block> blocks,
+            BlockingQueue<Result<T>> results, Queue<byte[]> free) {
+        try {
+            try {
+                for (Block k = blocks.take(); k.b != null;
+                        k = blocks.take()) {
+                    List<T> batch = new ArrayList<>();
+                    Census_CSVScanner s = new Census_CSVScanner(k.b, 0, k.n,
+                            (byte) delimiter);
+                    Census_RecordReader.Decoder<T> d = decoders.apply(s);
+                    while (s.next()) {
+                        T t = d.decode(new Census_RecordID(k.pos
+                                + s.getPosition()));
+                        if (t != null) {
+                            batch.add(t);
+                        }
+                    }
+                    free.offer(k.b);
+                    results.put(new Result<>(k.seq, batch, null));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                results.put(new Result<>(-1L, null, ex));
+                return;
+            }
+            results.put(new Result<>(-1L, null, null));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
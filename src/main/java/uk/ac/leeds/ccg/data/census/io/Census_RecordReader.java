@@ -0,0 +1,463 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Record;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_TableParser;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_TableSchema;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_HSARRecord;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARRecord;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_SARDecoder;
+
+/**
+ * For streaming the records of a table file without holding the table. Lines
+ * are scanned with a {@link Census_CSVScanner} with a bounded buffer and each
+ * is decoded into a record as it is needed, so memory does not grow with the
+ * size of the file and a stream that is short circuited (e.g. with
+ * {@link Stream#limit(long)} or {@link Stream#findFirst()}) stops reading.
+ *
+ * The {@link Spliterator} splits the file into byte ranges at line
+ * boundaries. Each range is read with its own channel so parallel streams
+ * read and decode in parallel. Lines with a line terminator within quotes are
+ * not expected.
+ *
+ * The ID of each record is the position in the file of the start of its
+ * line, so IDs are the same however the file is split.
+ *
+ * Streams should be closed (e.g. in a try-with-resources statement) to close
+ * any channels left open by early termination.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ * @param <T> The type of record.
+ */
+public class Census_RecordReader<T extends Census_Record> {
+
+    /**
+     * The default size of the buffer for each range.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The smallest range of bytes that is split.
+     */
+    public static final long MIN_SPLIT = 1L << 20;
+
+    /**
+     * For decoding the current line of a scanner.
+     *
+     * @param <T> The type of record.
+     */
+    @FunctionalInterface
+    public interface Decoder<T> {
+
+        /**
+         * @param id The record ID.
+         * @return The record for the current line or {@code null} if the line
+         * is not a record (e.g. a header or blank line).
+         */
+        T decode(Census_RecordID id);
+    }
+
+    /**
+     * The file.
+     */
+    protected final Path f;
+
+    /**
+     * The field delimiter.
+     */
+    protected final char delimiter;
+
+    /**
+     * For creating a {@link Decoder} for each scanner.
+     */
+    protected final Function<Census_CSVScanner, Decoder<T>> decoders;
+
+    /**
+     * The size of the buffer for each range.
+     */
+    protected final int bufferSize;
+
+    /**
+     * @param f What {@link #f} is set to.
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param decoders What {@link #decoders} is set to.
+     */
+    public Census_RecordReader(Path f, char delimiter,
+            Function<Census_CSVScanner, Decoder<T>> decoders) {
+        this(f, delimiter, decoders, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param f What {@link #f} is set to.
+     * @param delimiter What {@link #delimiter} is set to.
+     * @param decoders What {@link #decoders} is set to.
+     * @param bufferSize What {@link #bufferSize} is set to.
+     */
+    public Census_RecordReader(Path f, char delimiter,
+            Function<Census_CSVScanner, Decoder<T>> decoders, int bufferSize) {
+        this.f = f;
+        this.delimiter = delimiter;
+        this.decoders = decoders;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * A reader for a CAS table file. Lines where the zone code field is not a
+     * zone code are skipped.
+     *
+     * @param <R> The type of record.
+     * @param f The file.
+     * @param type The record class.
+     * @param schema The schema of the file.
+     * @return A new reader.
+     */
+    public static <R extends Census_AreaRecord> Census_RecordReader<R> ofCAS(
+            Path f, Class<R> type, Census_TableSchema schema) {
+        return new Census_RecordReader<>(f, ',', getCASDecoders(type, schema));
+    }
+
+    /**
+     * @param f An ISAR file.
+     * @return A new reader.
+     */
+    public static Census_RecordReader<Census_ISARRecord> ofISAR(Path f) {
+        return new Census_RecordReader<>(f, '\t', getISARDecoders());
+    }
+
+    /**
+     * @param f An HSAR file.
+     * @return A new reader.
+     */
+    public static Census_RecordReader<Census_HSARRecord> ofHSAR(Path f) {
+        return new Census_RecordReader<>(f, '\t', getHSARDecoders());
+    }
+
+    /**
+     * Lines where the zone code field is not a zone code are skipped.
+     *
+     * @param <R> The type of record.
+     * @param type The record class.
+     * @param schema The schema of the file.
+     * @return For creating a decoder of CAS records for each scanner.
+     */
+    public static <R extends Census_AreaRecord>
+            Function<Census_CSVScanner, Decoder<R>> getCASDecoders(
+                    Class<R> type, Census_TableSchema schema) {
+        Census_TableParser<R> p = new Census_TableParser<>(schema, type);
+        Constructor<R> c;
+        try {
+            c = type.getConstructor(Census_RecordID.class);
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalArgumentException(type
+                    + " has no constructor for a Census_RecordID", ex);
+        }
+        return s -> id -> {
+            if (p.getZoneCode(s) == Census_ZoneCode.INVALID) {
+                return null;
+            }
+            try {
+                return p.parse(s, c.newInstance(id));
+            } catch (InstantiationException | IllegalAccessException
+                    | InvocationTargetException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+    }
+
+    /**
+     * Blank lines are skipped.
+     *
+     * @return For creating a decoder of ISAR records for each scanner.
+     */
+    public static Function<Census_CSVScanner, Decoder<Census_ISARRecord>>
+            getISARDecoders() {
+        return s -> {
+            Census_SARDecoder d = new Census_SARDecoder(s);
+            return id -> d.isBlank() ? null : d.getISARRecord(id);
+        };
+    }
+
+    /**
+     * Blank lines are skipped.
+     *
+     * @return For creating a decoder of HSAR records for each scanner.
+     */
+    public static Function<Census_CSVScanner, Decoder<Census_HSARRecord>>
+            getHSARDecoders() {
+        return s -> {
+            Census_SARDecoder d = new Census_SARDecoder(s);
+            return id -> d.isBlank() ? null : d.getHSARRecord(id);
+        };
+    }
+
+    /**
+     * @return A new spliterator over the whole file.
+     * @throws IOException If encountered.
+     */
+    public Spliterator<T> spliterator() throws IOException {
+        long size;
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+            size = ch.size();
+        }
+        return new RangeSpliterator(0L, size, new ConcurrentLinkedQueue<>());
+    }
+
+    /**
+     * @param parallel If {@code true} the stream is parallel.
+     * @return A new stream of the records. This should be closed.
+     * @throws IOException If encountered.
+     */
+    public Stream<T> stream(boolean parallel) throws IOException {
+        RangeSpliterator s = (RangeSpliterator) spliterator();
+        Queue<Closeable> open = s.open;
+        return StreamSupport.stream(s, parallel).onClose(() -> {
+            for (Closeable c = open.poll(); c != null; c = open.poll()) {
+                try {
+                    c.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Reads the records in order in batches.
+     *
+     * @param batchSize The most records in a batch.
+     * @param action Called with each batch. The list is reused so must be
+     * copied if it is to be kept. Reading stops if this returns
+     * {@code false}.
+     * @return The number of records read.
+     * @throws IOException If encountered.
+     */
+    public long forEachBatch(int batchSize, Predicate<List<T>> action)
+            throws IOException {
+        List<T> batch = new ArrayList<>(batchSize);
+        long r = 0L;
+        RangeSpliterator s = (RangeSpliterator) spliterator();
+        try {
+            boolean more = true;
+            while (more) {
+                more = s.tryAdvance(batch::add);
+                if (batch.size() == batchSize || (!more && !batch.isEmpty())) {
+                    r += batch.size();
+                    if (!action.test(batch)) {
+                        break;
+                    }
+                    batch.clear();
+                }
+            }
+        } finally {
+            s.close();
+        }
+        return r;
+    }
+
+    /**
+     * @param pos A position.
+     * @param size The size of the file.
+     * @return The position of the start of the first line that starts at or
+     * after {@code pos}.
+     */
+    private long align(long pos, long size) throws IOException {
+        if (pos <= 0L) {
+            return 0L;
+        }
+        try (FileChannel ch = FileChannel.open(f, StandardOpenOption.READ)) {
+            ByteBuffer b = ByteBuffer.allocate(8192);
+            long p = pos - 1;
+            while (p < size) {
+                b.clear();
+                int n = ch.read(b, p);
+                if (n <= 0) {
+                    break;
+                }
+                for (int i = 0; i < n; i++) {
+                    if (b.get(i) == '\n') {
+                        return p + i + 1;
+                    }
+                }
+                p += n;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A channel for reading a range of a file.
+     */
+    private static class RangeChannel implements ReadableByteChannel {
+
+        private final FileChannel ch;
+
+        private long pos;
+
+        private final long end;
+
+        RangeChannel(FileChannel ch, long start, long end) {
+            this.ch = ch;
+            this.pos = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (pos >= end) {
+                return -1;
+            }
+            int max = (int) Math.min(dst.remaining(), end - pos);
+            int limit = dst.limit();
+            dst.limit(dst.position() + max);
+            int n;
+            try {
+                n = ch.read(dst, pos);
+            } finally {
+                dst.limit(limit);
+            }
+            if (n > 0) {
+                pos += n;
+            }
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return ch.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    /**
+     * A spliterator over the lines that start in a range of the file.
+     */
+    private class RangeSpliterator implements Spliterator<T>, Closeable {
+
+        private long start;
+
+        private final long end;
+
+        private final Queue<Closeable> open;
+
+        private Census_CSVScanner s;
+
+        private Decoder<T> decoder;
+
+        private boolean done;
+
+        RangeSpliterator(long start, long end, Queue<Closeable> open) {
+            this.start = start;
+            this.end = end;
+            this.open = open;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (done) {
+                return false;
+            }
+            try {
+                if (s == null) {
+                    FileChannel ch = FileChannel.open(f,
+                            StandardOpenOption.READ);
+                    s = new Census_CSVScanner(new RangeChannel(ch, start, end),
+                            (byte) delimiter, bufferSize);
+                    decoder = decoders.apply(s);
+                    open.add(this);
+                }
+                while (s.next()) {
+                    T r = decoder.decode(new Census_RecordID(start
+                            + s.getPosition()));
+                    if (r != null) {
+                        action.accept(r);
+                        return true;
+                    }
+                }
+                close();
+                return false;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (s != null || done || end - start < 2 * MIN_SPLIT) {
+                return null;
+            }
+            try {
+                long mid = align(start + (end - start) / 2, end);
+                if (mid <= start || mid >= end) {
+                    return null;
+                }
+                // The prefix is split off as the lines are ordered.
+                RangeSpliterator r = new RangeSpliterator(start, mid, open);
+                start = mid;
+                return r;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - start;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+
+        @Override
+        public void close() throws IOException {
+            done = true;
+            if (s != null) {
+                open.remove(this);
+                s.close();
+            }
+        }
+    }
+}
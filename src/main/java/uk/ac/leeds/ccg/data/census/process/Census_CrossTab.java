@@ -0,0 +1,457 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
+import uk.ac.leeds.ccg.data.census.data.Census_PackedColumn;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARFrame;
+
+/**
+ * For computing many contingency tables in one pass over SAR data. Each
+ * table is a flat {@code long[]} of counts indexed in mixed radix by the code
+ * of each of its {@link Dimension}s, the first dimension being the most
+ * significant. For each row the code of each distinct dimension is got once
+ * and then each table is incremented.
+ *
+ * The rows are split into blocks and each block is counted by a different
+ * task into its own tables which are merged at the end.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CrossTab {
+
+    /**
+     * The number of tasks to split the work into.
+     */
+    protected final int parallelism;
+
+    /**
+     * A variable to tabulate. Each row has a code from 0 to
+     * {@link #getCardinality()} - 1.
+     */
+    public static class Dimension {
+
+        /**
+         * The variable name.
+         */
+        public final String name;
+
+        /**
+         * The value for each code.
+         */
+        protected final short[] values;
+
+        /**
+         * For getting the code of a row.
+         */
+        protected final IntUnaryOperator codes;
+
+        /**
+         * @param name What {@link #name} is set to.
+         * @param values What {@link #values} is set to. These are expected to
+         * be in ascending order.
+         * @param codes What {@link #codes} is set to.
+         */
+        public Dimension(String name, short[] values, IntUnaryOperator codes) {
+            this.name = name;
+            this.values = values;
+            this.codes = codes;
+        }
+
+        /**
+         * @param name The variable name.
+         * @param c The column.
+         * @return A dimension with the codes of {@code c}.
+         */
+        public static Dimension of(String name, Census_PackedColumn c) {
+            return new Dimension(name, c.getDictionary(), c::getCode);
+        }
+
+        /**
+         * @param name The variable name.
+         * @param b The rows that are set.
+         * @return A dimension with code 1 for rows set in {@code b} and 0
+         * otherwise.
+         */
+        public static Dimension of(String name, BitSet b) {
+            return new Dimension(name, new short[]{0, 1},
+                    row -> b.get(row) ? 1 : 0);
+        }
+
+        /**
+         * @return The number of codes.
+         */
+        public int getCardinality() {
+            return values.length;
+        }
+
+        /**
+         * @param code The code.
+         * @return The value of {@code code}.
+         */
+        public short getValue(int code) {
+            return values[code];
+        }
+
+        /**
+         * @param value The value.
+         * @return The code of {@code value} or -1 if there is none.
+         */
+        public int getCode(short value) {
+            int r = Arrays.binarySearch(values, value);
+            return r < 0 ? -1 : r;
+        }
+    }
+
+    /**
+     * A contingency table.
+     */
+    public static class Table {
+
+        /**
+         * The dimensions.
+         */
+        protected final Dimension[] dimensions;
+
+        /**
+         * The stride of each dimension in {@link #counts}.
+         */
+        protected final int[] strides;
+
+        /**
+         * The counts.
+         */
+        public final long[] counts;
+
+        /**
+         * @param dimensions What {@link #dimensions} is set to.
+         */
+        public Table(Dimension... dimensions) {
+            this.dimensions = dimensions;
+            strides = new int[dimensions.length];
+            long n = 1L;
+            for (int d = dimensions.length - 1; d >= 0; d--) {
+                strides[d] = (int) n;
+                n *= dimensions[d].getCardinality();
+                if (n > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("Too many cells.");
+                }
+            }
+            counts = new long[(int) n];
+        }
+
+        /**
+         * @return The number of dimensions.
+         */
+        public int getDimensionCount() {
+            return dimensions.length;
+        }
+
+        /**
+         * @param d The dimension index.
+         * @return Dimension {@code d}.
+         */
+        public Dimension getDimension(int d) {
+            return dimensions[d];
+        }
+
+        /**
+         * @param codes The code for each dimension.
+         * @return The index in {@link #counts} of {@code codes}.
+         */
+        public int getIndex(int... codes) {
+            int r = 0;
+            for (int d = 0; d < strides.length; d++) {
+                r += codes[d] * strides[d];
+            }
+            return r;
+        }
+
+        /**
+         * @param codes The code for each dimension.
+         * @return The count for {@code codes}.
+         */
+        public long get(int... codes) {
+            return counts[getIndex(codes)];
+        }
+
+        /**
+         * @param values The value for each dimension.
+         * @return The count for {@code values}.
+         */
+        public long getCount(short... values) {
+            int r = 0;
+            for (int d = 0; d < strides.length; d++) {
+                int c = dimensions[d].getCode(values[d]);
+                if (c < 0) {
+                    return 0L;
+                }
+                r += c * strides[d];
+            }
+            return counts[r];
+        }
+
+        /**
+         * @return The sum of {@link #counts}.
+         */
+        public long getTotal() {
+            long r = 0L;
+            for (long c : counts) {
+                r += c;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * Creates a new instance that splits the work into as many tasks as there
+     * are threads in the common pool.
+     */
+    public Census_CrossTab() {
+        this(ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param parallelism What {@link #parallelism} is set to.
+     */
+    public Census_CrossTab(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param f The frame.
+     * @param name The name of a short or boolean variable of {@code f}.
+     * @return A dimension for the variable called {@code name}.
+     */
+    public static Dimension getDimension(Census_ISARFrame f, String name) {
+        int v = Census_ISARFrame.indexOf(name);
+        if (v == Census_ISARFrame.SEX) {
+            return Dimension.of(name, f.getSEX());
+        } else if (v == Census_ISARFrame.STUDENT) {
+            return Dimension.of(name, f.getSTUDENT());
+        }
+        if (v < 0) {
+            throw new IllegalArgumentException("No variable " + name);
+        }
+        return Dimension.of(name, f.requireColumn(v));
+    }
+
+    /**
+     * @param f The frame.
+     * @param requests The variable names for each table.
+     * @return The tables in the order of {@code requests}.
+     */
+    public Table[] tabulate(Census_ISARFrame f, String[]... requests) {
+        Map<String, Dimension> m = new HashMap<>();
+        Table[] ts = new Table[requests.length];
+        for (int t = 0; t < requests.length; t++) {
+            Dimension[] ds = new Dimension[requests[t].length];
+            for (int d = 0; d < ds.length; d++) {
+                ds[d] = m.computeIfAbsent(requests[t][d],
+                        n -> getDimension(f, n));
+            }
+            ts[t] = new Table(ds);
+        }
+        return tabulate(f.size(), ts);
+    }
+
+    /**
+     * Tabulates records. The variables are short, int or boolean fields of
+     * {@code type} or its super classes. The values of each variable are got
+     * from the records once into a {@link Census_PackedColumn}.
+     *
+     * @param <R> The type of record.
+     * @param records The records.
+     * @param type The record class.
+     * @param requests The field names for each table.
+     * @return The tables in the order of {@code requests}.
+     */
+    public <R> Table[] tabulate(Collection<? extends R> records,
+            Class<R> type, String[]... requests) {
+        Map<String, Field> fields = new LinkedHashMap<>();
+        for (String[] request : requests) {
+            for (String n : request) {
+                fields.computeIfAbsent(n, x -> getField(type, x));
+            }
+        }
+        int nRows = records.size();
+        Field[] fs = fields.values().toArray(new Field[fields.size()]);
+        short[][] values = new short[fs.length][nRows];
+        int row = 0;
+        try {
+            for (R r : records) {
+                for (int i = 0; i < fs.length; i++) {
+                    values[i][row] = getShort(fs[i], r);
+                }
+                row++;
+            }
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+        Map<String, Dimension> m = new HashMap<>();
+        int i = 0;
+        for (String n : fields.keySet()) {
+            m.put(n, Dimension.of(n, Census_PackedColumn.of(values[i], nRows)));
+            values[i++] = null;
+        }
+        Table[] ts = new Table[requests.length];
+        for (int t = 0; t < requests.length; t++) {
+            Dimension[] ds = new Dimension[requests[t].length];
+            for (int d = 0; d < ds.length; d++) {
+                ds[d] = m.get(requests[t][d]);
+            }
+            ts[t] = new Table(ds);
+        }
+        return tabulate(nRows, ts);
+    }
+
+    private static Field getField(Class<?> type, String name) {
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            try {
+                Field f = c.getDeclaredField(name);
+                Class<?> t = f.getType();
+                if (t != short.class && t != int.class && t != boolean.class) {
+                    throw new IllegalArgumentException(name
+                            + " is not a short, int or boolean");
+                }
+                f.setAccessible(true);
+                return f;
+            } catch (NoSuchFieldException ex) {
+                // Try the super class.
+            }
+        }
+        throw new IllegalArgumentException(type + " has no field " + name);
+    }
+
+    private static short getShort(Field f, Object r)
+            throws IllegalAccessException {
+        Class<?> t = f.getType();
+        if (t == boolean.class) {
+            return f.getBoolean(r) ? (short) 1 : (short) 0;
+        } else if (t == short.class) {
+            return f.getShort(r);
+        }
+        int v = f.getInt(r);
+        if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(f.getName() + " value " + v
+                    + " is out of range");
+        }
+        return (short) v;
+    }
+
+    /**
+     * Counts rows {@code 0} to {@code nRows} into {@code tables}.
+     *
+     * @param nRows The number of rows.
+     * @param tables The tables to add the counts to.
+     * @return {@code tables}.
+     */
+    public Table[] tabulate(int nRows, Table... tables) {
+        // The distinct dimensions and the index of each in a row of codes.
+        List<Dimension> ds = new ArrayList<>();
+        int[][] dis = new int[tables.length][];
+        for (int t = 0; t < tables.length; t++) {
+            Dimension[] tds = tables[t].dimensions;
+            dis[t] = new int[tds.length];
+            for (int d = 0; d < tds.length; d++) {
+                int i = indexOf(ds, tds[d]);
+                if (i < 0) {
+                    i = ds.size();
+                    ds.add(tds[d]);
+                }
+                dis[t][d] = i;
+            }
+        }
+        Dimension[] dims = ds.toArray(new Dimension[ds.size()]);
+        int blocks = Math.max(1, Math.min(parallelism, nRows / 4096));
+        List<CompletableFuture<long[][]>> fs = new ArrayList<>();
+        for (int b = 0; b < blocks; b++) {
+            int r0 = (int) ((long) nRows * b / blocks);
+            int r1 = (int) ((long) nRows * (b + 1) / blocks);
+            long[][] cs = new long[tables.length][];
+            for (int t = 0; t < tables.length; t++) {
+                cs[t] = blocks == 1 ? tables[t].counts
+                        : new long[tables[t].counts.length];
+            }
+            fs.add(CompletableFuture.supplyAsync(() -> {
+                count(dims, tables, dis, r0, r1, cs);
+                return cs;
+            }));
+        }
+        List<long[][]> css = new ArrayList<>();
+        for (CompletableFuture<long[][]> f : fs) {
+            css.add(f.join());
+        }
+        if (blocks > 1) {
+            IntStream.range(0, tables.length).parallel().forEach(t -> {
+                long[] r = tables[t].counts;
+                for (long[][] cs : css) {
+                    long[] c = cs[t];
+                    for (int i = 0; i < c.length; i++) {
+                        r[i] += c[i];
+                    }
+                    // Free the partial table as soon as it is merged.
+                    cs[t] = null;
+                }
+            });
+        }
+        return tables;
+    }
+
+    private static int indexOf(List<Dimension> ds, Dimension d) {
+        for (int i = 0; i < ds.size(); i++) {
+            if (ds.get(i) == d) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts rows {@code r0} to {@code r1} into {@code cs}.
+     */
+    private static void count(Dimension[] dims, Table[] tables, int[][] dis,
+            int r0, int r1, long[][] cs) {
+        int[] codes = new int[dims.length];
+        for (int row = r0; row < r1; row++) {
+            for (int d = 0; d < dims.length; d++) {
+                codes[d] = dims[d].codes.applyAsInt(row);
+            }
+            for (int t = 0; t < tables.length; t++) {
+                int[] di = dis[t];
+                int[] strides = tables[t].strides;
+                int i = 0;
+                for (int d = 0; d < di.length; d++) {
+                    i += codes[di[d]] * strides[d];
+                }
+                cs[t][i]++;
+            }
+        }
+    }
+}
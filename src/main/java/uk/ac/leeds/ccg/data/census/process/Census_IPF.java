@@ -0,0 +1,262 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+import uk.ac.leeds.ccg.data.census.data.Census_PackedColumn;
+
+/**
+ * For reweighting SAR records by iterative proportional fitting (IPF) so that
+ * the weighted tabulations of the records fit the constraint tables of each
+ * area. Each constraint is an {@code int[]} of the cell of each record (-1 for
+ * records not in the table) and targets as columns as in
+ * {@link uk.ac.leeds.ccg.data.census.data.cas.Census_CASTable}
+ * ({@code targets[cell][area]}). In each iteration each constraint in turn
+ * has its weighted cell totals computed and the weights of the records in
+ * each cell scaled so the totals match. Iterations stop when no cell total
+ * was out by more than {@link #tolerance} at the start of an iteration or
+ * after {@link #maxIterations}.
+ *
+ * Areas are fitted in parallel with a weight array for each task. As weights
+ * for every record for every area are too many to hold for all OAs, the
+ * weights of each area are passed to a {@link Sink} as they are fitted.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_IPF {
+
+    /**
+     * For the weights of each area.
+     */
+    public interface Sink {
+
+        /**
+         * @param area The area index.
+         * @param weights The weight of each record. This array is reused so
+         * must be copied if it is to be kept.
+         * @param error The largest absolute difference between a weighted
+         * cell total and its target at the start of the last iteration.
+         */
+        void accept(int area, double[] weights, double error);
+    }
+
+    /**
+     * The number of records.
+     */
+    protected final int nRecords;
+
+    /**
+     * The number of areas.
+     */
+    protected final int nAreas;
+
+    /**
+     * The cell of each record for each constraint.
+     */
+    protected final List<int[]> categories = new ArrayList<>();
+
+    /**
+     * The targets for each constraint: {@code targets[cell][area]}.
+     */
+    protected final List<int[][]> targets = new ArrayList<>();
+
+    /**
+     * The number of tasks to split the work into.
+     */
+    protected final int parallelism;
+
+    /**
+     * The largest absolute difference between a weighted cell total and its
+     * target for a fit to have converged.
+     */
+    protected double tolerance = 1.0E-3d;
+
+    /**
+     * The most iterations for each area.
+     */
+    protected int maxIterations = 100;
+
+    /**
+     * Creates a new instance that splits the work into as many tasks as there
+     * are threads in the common pool.
+     *
+     * @param nRecords What {@link #nRecords} is set to.
+     * @param nAreas What {@link #nAreas} is set to.
+     */
+    public Census_IPF(int nRecords, int nAreas) {
+        this(nRecords, nAreas, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param nRecords What {@link #nRecords} is set to.
+     * @param nAreas What {@link #nAreas} is set to.
+     * @param parallelism What {@link #parallelism} is set to.
+     */
+    public Census_IPF(int nRecords, int nAreas, int parallelism) {
+        this.nRecords = nRecords;
+        this.nAreas = nAreas;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param tolerance What {@link #tolerance} is set to.
+     * @param maxIterations What {@link #maxIterations} is set to.
+     */
+    public void setConvergence(double tolerance, int maxIterations) {
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Adds a constraint.
+     *
+     * @param targets The targets: {@code targets[cell][area]}.
+     * @param categories The cell of each record or -1 if it is in none.
+     */
+    public void add(int[][] targets, int[] categories) {
+        if (categories.length != nRecords) {
+            throw new IllegalArgumentException("Expected " + nRecords
+                    + " categories.");
+        }
+        for (int[] t : targets) {
+            if (t.length != nAreas) {
+                throw new IllegalArgumentException("Expected targets for "
+                        + nAreas + " areas.");
+            }
+        }
+        for (int c : categories) {
+            if (c >= targets.length) {
+                throw new IllegalArgumentException("Category " + c
+                        + " is out of range.");
+            }
+        }
+        this.targets.add(targets);
+        this.categories.add(categories);
+    }
+
+    /**
+     * @param c A SAR column.
+     * @param cell The cell for each value in {@code c} or -1 for values in no
+     * cell.
+     * @return The cell of each row of {@code c}. {@code cell} is applied once
+     * for each distinct value.
+     */
+    public static int[] getCategories(Census_PackedColumn c,
+            IntUnaryOperator cell) {
+        short[] d = c.getDictionary();
+        int[] cells = new int[d.length];
+        for (int i = 0; i < d.length; i++) {
+            cells[i] = cell.applyAsInt(d[i]);
+        }
+        int[] r = new int[c.size()];
+        for (int row = 0; row < r.length; row++) {
+            r[row] = cells[c.getCode(row)];
+        }
+        return r;
+    }
+
+    /**
+     * Fits each area and passes the weights to {@code sink}. {@code sink} is
+     * called from different threads.
+     *
+     * @param sink The sink.
+     */
+    public void run(Sink sink) {
+        AtomicInteger next = new AtomicInteger();
+        List<CompletableFuture<Void>> fs = new ArrayList<>();
+        for (int t = 0; t < parallelism; t++) {
+            fs.add(CompletableFuture.runAsync(() -> {
+                double[] w = new double[nRecords];
+                double[][] sums = newSums();
+                for (int a = next.getAndIncrement(); a < nAreas;
+                        a = next.getAndIncrement()) {
+                    Arrays.fill(w, 1d);
+                    double e = fit(a, w, sums);
+                    sink.accept(a, w, e);
+                }
+            }));
+        }
+        for (CompletableFuture<Void> f : fs) {
+            f.join();
+        }
+    }
+
+    /**
+     * @return The weights for each area: {@code weights[area][record]}.
+     */
+    public double[][] run() {
+        double[][] r = new double[nAreas][];
+        run((a, w, e) -> r[a] = w.clone());
+        return r;
+    }
+
+    private double[][] newSums() {
+        double[][] r = new double[targets.size()][];
+        for (int k = 0; k < r.length; k++) {
+            r[k] = new double[targets.get(k).length];
+        }
+        return r;
+    }
+
+    /**
+     * @param a The area index.
+     * @param w The starting weights which are fitted.
+     * @return The largest absolute difference between a weighted cell total
+     * and its target at the start of the last iteration.
+     */
+    public double fit(int a, double[] w) {
+        return fit(a, w, newSums());
+    }
+
+    private double fit(int a, double[] w, double[][] sums) {
+        double e = Double.POSITIVE_INFINITY;
+        for (int it = 0; it < maxIterations && e > tolerance; it++) {
+            e = 0d;
+            for (int k = 0; k < sums.length; k++) {
+                int[] cat = categories.get(k);
+                int[][] t = targets.get(k);
+                double[] s = sums[k];
+                Arrays.fill(s, 0d);
+                for (int i = 0; i < nRecords; i++) {
+                    int c = cat[i];
+                    if (c >= 0) {
+                        s[c] += w[i];
+                    }
+                }
+                // Reuse the sums for the scale factors.
+                for (int c = 0; c < s.length; c++) {
+                    double target = t[c][a];
+                    e = Math.max(e, Math.abs(s[c] - target));
+                    s[c] = s[c] > 0d ? target / s[c] : 1d;
+                }
+                for (int i = 0; i < nRecords; i++) {
+                    int c = cat[i];
+                    if (c >= 0) {
+                        w[i] *= s[c];
+                    }
+                }
+            }
+        }
+        return e;
+    }
+}
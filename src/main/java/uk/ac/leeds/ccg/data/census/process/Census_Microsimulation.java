@@ -0,0 +1,404 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * For spatial microsimulation by combinatorial optimisation. For each area a
+ * number of candidates (SAR persons or households) are selected so that the
+ * tabulation of the selection fits the constraint tables of the area. The
+ * fit is the total absolute error (TAE) over all the cells of all the
+ * constraints. A selection is improved by simulated annealing: at each step a
+ * selected candidate is swapped for a random one and the swap is kept if the
+ * TAE does not increase or otherwise with probability
+ * {@code exp(-increase / temperature)}. Only the cells the two candidates
+ * count in are updated, so each step takes time in proportion to the number
+ * of constraints, not the number of cells or the size of the selection.
+ *
+ * Constraints are added with a {@link Builder}. The targets of a constraint
+ * are columns as in {@link uk.ac.leeds.ccg.data.census.data.cas.Census_CASTable}
+ * ({@code targets[cell][area]}). For example, with ISAR records and CAS001
+ * and KS017 tables with rows in the same order of areas:
+ *
+ * <pre>
+ * Census_Microsimulation m = new Census_Microsimulation.Builder(isars.size())
+ *         .add(cas001.cols, i -&gt; ageSexCell(isars.get(i)))
+ *         .add(ks017.cols, i -&gt; carsCell(isars.get(i)))
+ *         .build();
+ * Census_Microsimulation.Result r = m.run(populations, 1L);
+ * </pre>
+ *
+ * Areas are fitted in parallel. The random numbers for each area come from a
+ * seed that depends only on the seed passed to {@link #run(int[], long)} and
+ * the area index, so results do not depend on the number of threads.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_Microsimulation {
+
+    /**
+     * The number of candidates.
+     */
+    protected final int nCandidates;
+
+    /**
+     * The number of areas.
+     */
+    protected final int nAreas;
+
+    /**
+     * The number of cells over all constraints.
+     */
+    protected final int nCells;
+
+    /**
+     * The cells each candidate counts in. A cell repeated is counted more
+     * than once.
+     */
+    protected final int[][] cells;
+
+    /**
+     * The targets: {@code targets[area][cell]}.
+     */
+    protected final int[][] targets;
+
+    /**
+     * The number of tasks to split the work into.
+     */
+    protected final int parallelism;
+
+    /**
+     * The number of swaps tried for each selected candidate.
+     */
+    protected int iterations = 200;
+
+    /**
+     * The starting temperature.
+     */
+    protected double temperature = 10d;
+
+    /**
+     * The factor the temperature is multiplied by after each swap tried.
+     */
+    protected double cooling = 0.9999d;
+
+    /**
+     * The results of {@link #run(int[], long)}.
+     */
+    public static class Result {
+
+        /**
+         * The indexes of the candidates selected for each area.
+         */
+        public final int[][] selections;
+
+        /**
+         * The TAE of each area.
+         */
+        public final long[] errors;
+
+        Result(int nAreas) {
+            selections = new int[nAreas][];
+            errors = new long[nAreas];
+        }
+
+        /**
+         * @return The sum of {@link #errors}.
+         */
+        public long getTotalError() {
+            long r = 0L;
+            for (long e : errors) {
+                r += e;
+            }
+            return r;
+        }
+    }
+
+    /**
+     * For adding constraints.
+     */
+    public static class Builder {
+
+        private final int nCandidates;
+
+        private final List<int[][]> targets = new ArrayList<>();
+
+        private final List<IntFunction<int[]>> cells = new ArrayList<>();
+
+        private int parallelism = ForkJoinPool.getCommonPoolParallelism();
+
+        /**
+         * @param nCandidates The number of candidates.
+         */
+        public Builder(int nCandidates) {
+            this.nCandidates = nCandidates;
+        }
+
+        /**
+         * Adds a constraint where each candidate counts in at most one cell.
+         *
+         * @param targets The targets: {@code targets[cell][area]}.
+         * @param cell The cell each candidate counts in or -1 if it counts in
+         * none.
+         * @return This.
+         */
+        public Builder add(int[][] targets, IntUnaryOperator cell) {
+            return addMultiple(targets, i -> {
+                int c = cell.applyAsInt(i);
+                return c < 0 ? new int[0] : new int[]{c};
+            });
+        }
+
+        /**
+         * Adds a constraint where each candidate may count in several cells
+         * such as a household counting each of its persons.
+         *
+         * @param targets The targets: {@code targets[cell][area]}.
+         * @param cells The cells each candidate counts in.
+         * @return This.
+         */
+        public Builder addMultiple(int[][] targets,
+                IntFunction<int[]> cells) {
+            if (!this.targets.isEmpty() && targets.length > 0
+                    && this.targets.get(0).length > 0
+                    && targets[0].length != this.targets.get(0)[0].length) {
+                throw new IllegalArgumentException("Expected targets for "
+                        + this.targets.get(0)[0].length + " areas.");
+            }
+            this.targets.add(targets);
+            this.cells.add(cells);
+            return this;
+        }
+
+        /**
+         * @param parallelism The number of tasks to split the work into.
+         * @return This.
+         */
+        public Builder setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @return A new instance.
+         */
+        public Census_Microsimulation build() {
+            int nAreas = 0;
+            int nCells = 0;
+            int[] offsets = new int[targets.size()];
+            for (int k = 0; k < targets.size(); k++) {
+                int[][] t = targets.get(k);
+                offsets[k] = nCells;
+                nCells += t.length;
+                if (t.length > 0) {
+                    nAreas = t[0].length;
+                }
+            }
+            int[][] ts = new int[nAreas][nCells];
+            for (int k = 0; k < targets.size(); k++) {
+                int[][] t = targets.get(k);
+                for (int c = 0; c < t.length; c++) {
+                    for (int a = 0; a < nAreas; a++) {
+                        ts[a][offsets[k] + c] = t[c][a];
+                    }
+                }
+            }
+            int[][] cs = new int[nCandidates][];
+            for (int i = 0; i < nCandidates; i++) {
+                int[] r = new int[0];
+                for (int k = 0; k < cells.size(); k++) {
+                    int[] c = cells.get(k).apply(i);
+                    int n = r.length;
+                    r = Arrays.copyOf(r, n + c.length);
+                    for (int j = 0; j < c.length; j++) {
+                        if (c[j] < 0 || c[j] >= targets.get(k).length) {
+                            throw new IllegalArgumentException("Candidate "
+                                    + i + " cell " + c[j] + " is out of "
+                                    + "range for constraint " + k);
+                        }
+                        r[n + j] = offsets[k] + c[j];
+                    }
+                }
+                cs[i] = r;
+            }
+            return new Census_Microsimulation(nCandidates, nAreas, nCells, cs,
+                    ts, parallelism);
+        }
+    }
+
+    /**
+     * @param nCandidates What {@link #nCandidates} is set to.
+     * @param nAreas What {@link #nAreas} is set to.
+     * @param nCells What {@link #nCells} is set to.
+     * @param cells What {@link #cells} is set to.
+     * @param targets What {@link #targets} is set to.
+     * @param parallelism What {@link #parallelism} is set to.
+     */
+    protected Census_Microsimulation(int nCandidates, int nAreas, int nCells,
+            int[][] cells, int[][] targets, int parallelism) {
+        this.nCandidates = nCandidates;
+        this.nAreas = nAreas;
+        this.nCells = nCells;
+        this.cells = cells;
+        this.targets = targets;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param iterations What {@link #iterations} is set to.
+     * @param temperature What {@link #temperature} is set to.
+     * @param cooling What {@link #cooling} is set to.
+     */
+    public void setSchedule(int iterations, double temperature,
+            double cooling) {
+        this.iterations = iterations;
+        this.temperature = temperature;
+        this.cooling = cooling;
+    }
+
+    /**
+     * @return The number of areas.
+     */
+    public int getAreaCount() {
+        return nAreas;
+    }
+
+    /**
+     * @param sizes The number of candidates to select for each area.
+     * @param seed The seed.
+     * @return The selections and their errors.
+     */
+    public Result run(int[] sizes, long seed) {
+        if (sizes.length != nAreas) {
+            throw new IllegalArgumentException("Expected " + nAreas
+                    + " sizes.");
+        }
+        Result r = new Result(nAreas);
+        AtomicInteger next = new AtomicInteger();
+        List<CompletableFuture<Void>> fs = new ArrayList<>();
+        for (int t = 0; t < parallelism; t++) {
+            fs.add(CompletableFuture.runAsync(() -> {
+                int[] est = new int[nCells];
+                for (int a = next.getAndIncrement(); a < nAreas;
+                        a = next.getAndIncrement()) {
+                    Arrays.fill(est, 0);
+                    SplittableRandom random = new SplittableRandom(
+                            mix(seed ^ mix(a)));
+                    r.selections[a] = fit(a, sizes[a], random, est);
+                    r.errors[a] = getError(a, est);
+                }
+            }));
+        }
+        for (CompletableFuture<Void> f : fs) {
+            f.join();
+        }
+        return r;
+    }
+
+    /**
+     * @param a The area index.
+     * @param est The tabulation of a selection.
+     * @return The TAE of {@code est} for area {@code a}.
+     */
+    protected long getError(int a, int[] est) {
+        int[] target = targets[a];
+        long r = 0L;
+        for (int c = 0; c < nCells; c++) {
+            r += Math.abs(est[c] - target[c]);
+        }
+        return r;
+    }
+
+    /**
+     * Fits area {@code a}.
+     *
+     * @param a The area index.
+     * @param size The number of candidates to select.
+     * @param random The random numbers.
+     * @param est For the tabulation of the selection. This is expected to be
+     * all 0.
+     * @return The indexes of the candidates selected.
+     */
+    protected int[] fit(int a, int size, SplittableRandom random, int[] est) {
+        int[] target = targets[a];
+        int[] sel = new int[size];
+        if (nCandidates == 0) {
+            return new int[0];
+        }
+        for (int s = 0; s < size; s++) {
+            sel[s] = random.nextInt(nCandidates);
+            for (int c : cells[sel[s]]) {
+                est[c]++;
+            }
+        }
+        double t = temperature;
+        long steps = (long) iterations * size;
+        for (long i = 0; i < steps; i++) {
+            int s = random.nextInt(size);
+            int o = sel[s];
+            int n = random.nextInt(nCandidates);
+            if (n == o) {
+                continue;
+            }
+            long delta = change(cells[o], -1, est, target)
+                    + change(cells[n], 1, est, target);
+            if (delta <= 0 || (t > 0d
+                    && random.nextDouble() < Math.exp(-delta / t))) {
+                sel[s] = n;
+            } else {
+                change(cells[n], -1, est, target);
+                change(cells[o], 1, est, target);
+            }
+            t *= cooling;
+        }
+        return sel;
+    }
+
+    /**
+     * Adds {@code d} to {@code est} for each of {@code cs}.
+     *
+     * @return The change in TAE.
+     */
+    private static long change(int[] cs, int d, int[] est, int[] target) {
+        long r = 0L;
+        for (int c : cs) {
+            int e = est[c];
+            int t = target[c];
+            r += Math.abs(e + d - t) - Math.abs(e - t);
+            est[c] = e + d;
+        }
+        return r;
+    }
+
+    /**
+     * The MurmurHash3 64 bit finaliser.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
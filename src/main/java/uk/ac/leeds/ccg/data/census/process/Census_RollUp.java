@@ -0,0 +1,247 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_LUT;
+
+/**
+ * For aggregating counts for Output Areas (OAs) into Lower Layer Super Output
+ * Area (LSOA), Middle Layer Super Output Area (MSOA) and Local Authority
+ * District (LAD) totals in one pass using the parent arrays of a
+ * {@link Census_LUT}.
+ *
+ * Counts are held as columns: {@code cols[cell][area]}. The work is split
+ * into blocks of cells and blocks of OAs. Each block of cells is written by
+ * different tasks so needs no merging. Where there are fewer cells than
+ * threads the OAs are also split and each task adds into its own accumulators
+ * which are merged at the end.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_RollUp {
+
+    /**
+     * The look up.
+     */
+    protected final Census_LUT lut;
+
+    /**
+     * The number of tasks to split the work into.
+     */
+    protected final int parallelism;
+
+    /**
+     * Totals for LSOAs, MSOAs and LADs.
+     */
+    public static class Totals {
+
+        /**
+         * The LSOA totals: {@code LSOA[cell][lsoa]}.
+         */
+        public final int[][] LSOA;
+
+        /**
+         * The MSOA totals: {@code MSOA[cell][msoa]}.
+         */
+        public final int[][] MSOA;
+
+        /**
+         * The LAD totals: {@code LAD[cell][lad]}.
+         */
+        public final int[][] LAD;
+
+        /**
+         * @param cols The OA counts. Cells with a {@code null} column are
+         * not allocated.
+         * @param c0 The first cell to allocate.
+         * @param c1 The cell after the last to allocate.
+         * @param lut The look up.
+         */
+        Totals(int[][] cols, int c0, int c1, Census_LUT lut) {
+            int nCells = cols.length;
+            LSOA = new int[nCells][];
+            MSOA = new int[nCells][];
+            LAD = new int[nCells][];
+            for (int c = c0; c < c1; c++) {
+                if (cols[c] == null) {
+                    continue;
+                }
+                LSOA[c] = new int[lut.getLSOACount()];
+                MSOA[c] = new int[lut.getMSOACount()];
+                LAD[c] = new int[lut.getLADCount()];
+            }
+        }
+
+        /**
+         * @return The number of cells.
+         */
+        public int getCellCount() {
+            return LSOA.length;
+        }
+    }
+
+    /**
+     * Creates a new instance that splits the work into as many tasks as there
+     * are threads in the common pool.
+     *
+     * @param lut What {@link #lut} is set to.
+     */
+    public Census_RollUp(Census_LUT lut) {
+        this(lut, ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param lut What {@link #lut} is set to.
+     * @param parallelism What {@link #parallelism} is set to.
+     */
+    public Census_RollUp(Census_LUT lut, int parallelism) {
+        this.lut = lut;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Gets the cells of each record into columns indexed by OA index and
+     * rolls these up. The cells of records with the same OA are added and
+     * records with a zone code that is not an OA in {@link #lut} are left
+     * out.
+     *
+     * @param <R> The type of record.
+     * @param records The OA records.
+     * @param cells For getting the cells of each record.
+     * @return The totals.
+     */
+    public <R extends Census_AreaRecord> Totals rollUp(
+            Collection<? extends R> records, Census_Cells<R> cells) {
+        int nCells = cells.size();
+        int[][] cols = new int[nCells][lut.getOACount()];
+        int[] row = new int[nCells];
+        for (R r : records) {
+            int oa = lut.OAIndex.get(r.zoneCode);
+            if (oa >= 0) {
+                cells.get(r, row);
+                for (int c = 0; c < nCells; c++) {
+                    cols[c][oa] += row[c];
+                }
+            }
+        }
+        return rollUp(cols);
+    }
+
+    /**
+     * @param cols The OA counts: {@code cols[cell][oa]}. Cells with a
+     * {@code null} column, such as those not read by
+     * {@link uk.ac.leeds.ccg.data.census.data.cas.Census_CASTable#read}, are
+     * skipped and their totals are {@code null}.
+     * @return The totals.
+     */
+    public Totals rollUp(int[][] cols) {
+        int nCells = cols.length;
+        int nOAs = lut.getOACount();
+        Totals r = new Totals(cols, 0, nCells, lut);
+        if (nCells == 0) {
+            return r;
+        }
+        int cellBlocks = Math.min(nCells, parallelism);
+        int oaBlocks = Math.max(1, Math.min(parallelism / cellBlocks,
+                nOAs / 4096));
+        List<CompletableFuture<Totals>> fs = new ArrayList<>();
+        for (int cb = 0; cb < cellBlocks; cb++) {
+            int c0 = (int) ((long) nCells * cb / cellBlocks);
+            int c1 = (int) ((long) nCells * (cb + 1) / cellBlocks);
+            for (int ob = 0; ob < oaBlocks; ob++) {
+                int o0 = (int) ((long) nOAs * ob / oaBlocks);
+                int o1 = (int) ((long) nOAs * (ob + 1) / oaBlocks);
+                Totals t = oaBlocks == 1 ? r : new Totals(cols, c0, c1, lut);
+                fs.add(CompletableFuture.supplyAsync(() -> {
+                    add(cols, c0, c1, o0, o1, t);
+                    return t;
+                }));
+            }
+        }
+        List<Totals> ts = new ArrayList<>();
+        for (CompletableFuture<Totals> f : fs) {
+            ts.add(f.join());
+        }
+        if (oaBlocks > 1) {
+            IntStream.range(0, nCells).parallel().forEach(c -> {
+                for (Totals t : ts) {
+                    if (t.LSOA[c] == null) {
+                        continue;
+                    }
+                    add(t.LSOA[c], r.LSOA[c]);
+                    add(t.MSOA[c], r.MSOA[c]);
+                    add(t.LAD[c], r.LAD[c]);
+                    // Free the accumulator column as soon as it is merged.
+                    t.LSOA[c] = null;
+                    t.MSOA[c] = null;
+                    t.LAD[c] = null;
+                }
+            });
+        }
+        return r;
+    }
+
+    /**
+     * Adds the counts of OAs {@code o0} to {@code o1} for cells {@code c0} to
+     * {@code c1} to {@code t}.
+     */
+    private void add(int[][] cols, int c0, int c1, int o0, int o1, Totals t) {
+        int[] oa2lsoa = lut.OA2LSOA;
+        int[] oa2msoa = lut.OA2MSOA;
+        int[] oa2lad = lut.OA2LAD;
+        for (int c = c0; c < c1; c++) {
+            int[] col = cols[c];
+            if (col == null) {
+                continue;
+            }
+            int[] lsoa = t.LSOA[c];
+            int[] msoa = t.MSOA[c];
+            int[] lad = t.LAD[c];
+            for (int oa = o0; oa < o1; oa++) {
+                int v = col[oa];
+                if (v != 0) {
+                    int p = oa2lsoa[oa];
+                    if (p >= 0) {
+                        lsoa[p] += v;
+                    }
+                    p = oa2msoa[oa];
+                    if (p >= 0) {
+                        msoa[p] += v;
+                    }
+                    p = oa2lad[oa];
+                    if (p >= 0) {
+                        lad[p] += v;
+                    }
+                }
+            }
+        }
+    }
+
+    private static void add(int[] a, int[] b) {
+        for (int i = 0; i < a.length; i++) {
+            b[i] += a[i];
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.SplittableRandom;
+
+/**
+ * For drawing record indexes with probability in proportion to their weights
+ * in constant time using the alias method (Vose's version). Each draw takes
+ * one random int and one random double. A sampler is immutable so can be
+ * shared by threads each with its own {@link SplittableRandom} (e.g. got by
+ * {@link SplittableRandom#split()}), so there is no contention.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_Sampler {
+
+    /**
+     * The record index for each column.
+     */
+    protected final int[] indexes;
+
+    /**
+     * The probability of each column choosing its own record.
+     */
+    protected final double[] probs;
+
+    /**
+     * The column of the other record of each column.
+     */
+    protected final int[] aliases;
+
+    /**
+     * The sum of the weights.
+     */
+    protected final double total;
+
+    /**
+     * @param weights The weight of each record. These must not be negative
+     * and at least one must be positive.
+     */
+    public Census_Sampler(double[] weights) {
+        this(weights, null, 0, weights.length);
+    }
+
+    /**
+     * Creates a sampler for the records {@code indexes[from]} to
+     * {@code indexes[to - 1]}.
+     *
+     * @param weights The weight of each record.
+     * @param indexes The record indexes. If {@code null} the records are
+     * {@code from} to {@code to - 1}.
+     * @param from The first position in {@code indexes}.
+     * @param to The position after the last in {@code indexes}.
+     */
+    protected Census_Sampler(double[] weights, int[] indexes, int from,
+            int to) {
+        int n = to - from;
+        this.indexes = new int[n];
+        double t = 0d;
+        for (int i = 0; i < n; i++) {
+            int j = indexes == null ? from + i : indexes[from + i];
+            double w = weights[j];
+            if (w < 0d || Double.isNaN(w) || Double.isInfinite(w)) {
+                throw new IllegalArgumentException("Weight " + w + " of "
+                        + j + " is not valid.");
+            }
+            this.indexes[i] = j;
+            t += w;
+        }
+        if (!(t > 0d)) {
+            throw new IllegalArgumentException("No positive weights.");
+        }
+        total = t;
+        probs = new double[n];
+        aliases = new int[n];
+        // Scaled weights and stacks of the small and large columns.
+        double[] p = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int ns = 0;
+        int nl = 0;
+        for (int i = 0; i < n; i++) {
+            p[i] = weights[this.indexes[i]] * n / t;
+            if (p[i] < 1d) {
+                small[ns++] = i;
+            } else {
+                large[nl++] = i;
+            }
+        }
+        while (ns > 0 && nl > 0) {
+            int s = small[--ns];
+            int l = large[--nl];
+            probs[s] = p[s];
+            aliases[s] = l;
+            p[l] = (p[l] + p[s]) - 1d;
+            if (p[l] < 1d) {
+                small[ns++] = l;
+            } else {
+                large[nl++] = l;
+            }
+        }
+        // What is left is 1 apart from rounding error.
+        while (nl > 0) {
+            probs[large[--nl]] = 1d;
+        }
+        while (ns > 0) {
+            probs[small[--ns]] = 1d;
+        }
+    }
+
+    /**
+     * @return The number of records.
+     */
+    public int size() {
+        return indexes.length;
+    }
+
+    /**
+     * @return The sum of the weights.
+     */
+    public double getTotal() {
+        return total;
+    }
+
+    /**
+     * @param random The random numbers.
+     * @return A record index.
+     */
+    public int sample(SplittableRandom random) {
+        int c = random.nextInt(probs.length);
+        return indexes[random.nextDouble() < probs[c] ? c : aliases[c]];
+    }
+
+    /**
+     * @param r For the record indexes.
+     * @param random The random numbers.
+     * @return {@code r} filled with record indexes.
+     */
+    public int[] sample(int[] r, SplittableRandom random) {
+        for (int i = 0; i < r.length; i++) {
+            r[i] = sample(random);
+        }
+        return r;
+    }
+
+    /**
+     * A sampler for each stratum, for example for each REGION.
+     */
+    public static class Stratified {
+
+        /**
+         * The sampler for each stratum. Those for strata with no positive
+         * weights are {@code null}.
+         */
+        protected final Census_Sampler[] samplers;
+
+        /**
+         * @param weights The weight of each record.
+         * @param strata The stratum of each record from 0 or -1 for records
+         * in no stratum.
+         * @param nStrata The number of strata.
+         */
+        public Stratified(double[] weights, int[] strata, int nStrata) {
+            // Group the records by stratum with a counting sort.
+            int[] offsets = new int[nStrata + 1];
+            for (int s : strata) {
+                if (s >= 0) {
+                    offsets[s + 1]++;
+                }
+            }
+            for (int s = 0; s < nStrata; s++) {
+                offsets[s + 1] += offsets[s];
+            }
+            int[] pos = offsets.clone();
+            int[] indexes = new int[offsets[nStrata]];
+            for (int i = 0; i < strata.length; i++) {
+                if (strata[i] >= 0) {
+                    indexes[pos[strata[i]]++] = i;
+                }
+            }
+            samplers = new Census_Sampler[nStrata];
+            for (int s = 0; s < nStrata; s++) {
+                double t = 0d;
+                for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                    t += weights[indexes[i]];
+                }
+                if (t > 0d) {
+                    samplers[s] = new Census_Sampler(weights, indexes,
+                            offsets[s], offsets[s + 1]);
+                }
+            }
+        }
+
+        /**
+         * @return The number of strata.
+         */
+        public int getStratumCount() {
+            return samplers.length;
+        }
+
+        /**
+         * @param s The stratum.
+         * @return The sampler for {@code s} or {@code null} if there are no
+         * records in {@code s} with positive weights.
+         */
+        public Census_Sampler getSampler(int s) {
+            return samplers[s];
+        }
+
+        /**
+         * @param s The stratum.
+         * @param random The random numbers.
+         * @return A record index from stratum {@code s}.
+         * @throws IllegalArgumentException If there are no records in
+         * {@code s} with positive weights.
+         */
+        public int sample(int s, SplittableRandom random) {
+            Census_Sampler r = samplers[s];
+            if (r == null) {
+                throw new IllegalArgumentException("Stratum " + s
+                        + " has no records with positive weights.");
+            }
+            return r.sample(random);
+        }
+    }
+}
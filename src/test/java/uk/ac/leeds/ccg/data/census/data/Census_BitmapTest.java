@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+import java.util.BitSet;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Census_Bitmap}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_BitmapTest {
+
+    /**
+     * The number of ints in the sets. This is four chunks and a bit.
+     */
+    private static final int N = 4 * 65536 + 1000;
+
+    /**
+     * @return A set with {@code counts[k]} random ints in chunk {@code k}.
+     * Chunks of more than {@link Census_Bitmap#ARRAY_MAX} ints have a
+     * {@code long[]} container.
+     */
+    private static BitSet getBitSet(Random r, int... counts) {
+        BitSet bs = new BitSet();
+        for (int k = 0; k < counts.length; k++) {
+            while (bs.cardinality() < sum(counts, k)) {
+                bs.set(k * 65536 + r.nextInt(65536));
+            }
+        }
+        return bs;
+    }
+
+    private static int sum(int[] counts, int k) {
+        int r = 0;
+        for (int i = 0; i <= k; i++) {
+            r += counts[i];
+        }
+        return r;
+    }
+
+    private static BitSet range(int start, int end) {
+        BitSet r = new BitSet();
+        r.set(start, end);
+        return r;
+    }
+
+    @Test
+    public void testOf() {
+        BitSet bs = getBitSet(new Random(1), 10, 4096, 4097, 60000, 0);
+        Census_Bitmap b = Census_Bitmap.of(bs);
+        assertEquals(bs, b.toBitSet());
+        assertEquals(bs.cardinality(), b.getCardinality());
+        assertEquals(bs, Census_Bitmap.of(bs.stream().toArray()).toBitSet());
+        assertTrue(b.contains(bs.nextSetBit(65536)));
+        assertFalse(b.contains(bs.nextClearBit(65536)));
+        assertFalse(b.contains(-1));
+    }
+
+    @Test
+    public void testSetOperations() {
+        Random r = new Random(2);
+        // Chunks that change container type when combined.
+        BitSet x = getBitSet(r, 3000, 2500, 4096, 60000, 100);
+        BitSet y = getBitSet(r, 3000, 2500, 10, 5000, 0);
+        Census_Bitmap bx = Census_Bitmap.of(x);
+        Census_Bitmap by = Census_Bitmap.of(y);
+        BitSet and = (BitSet) x.clone();
+        and.and(y);
+        assertEquals(and, bx.and(by).toBitSet());
+        assertEquals(and, by.and(bx).toBitSet());
+        BitSet or = (BitSet) x.clone();
+        or.or(y);
+        assertEquals(or, bx.or(by).toBitSet());
+        assertEquals(or, by.or(bx).toBitSet());
+        BitSet andNot = (BitSet) x.clone();
+        andNot.andNot(y);
+        assertEquals(andNot, bx.andNot(by).toBitSet());
+        andNot = (BitSet) y.clone();
+        andNot.andNot(x);
+        assertEquals(andNot, by.andNot(bx).toBitSet());
+        assertTrue(bx.andNot(bx).isEmpty());
+        assertEquals(x, bx.or(Census_Bitmap.EMPTY).toBitSet());
+    }
+
+    @Test
+    public void testRange() {
+        int[][] ranges = {{0, 0}, {0, 1}, {3, 64}, {63, 65}, {5, 4101},
+            {100, 65536}, {0, 65536}, {65535, 65537}, {1000, N}};
+        for (int[] e : ranges) {
+            Census_Bitmap b = Census_Bitmap.range(e[0], e[1]);
+            assertEquals(range(e[0], e[1]), b.toBitSet(), e[0] + "-" + e[1]);
+            assertEquals(e[1] - e[0], b.getCardinality());
+        }
+    }
+
+    @Test
+    public void testNot() {
+        BitSet bs = getBitSet(new Random(3), 10, 4096, 61440, 65536, 0);
+        Census_Bitmap b = Census_Bitmap.of(bs);
+        for (int n : new int[]{0, 1, 64, 65536, 65536 + 4097, 3 * 65536, N}) {
+            BitSet expected = range(0, n);
+            expected.andNot(bs);
+            Census_Bitmap not = b.not(n);
+            assertEquals(expected, not.toBitSet(), "n " + n);
+            assertEquals(expected.cardinality(), not.getCardinality());
+            assertEquals(b.and(Census_Bitmap.range(0, n)).toBitSet(),
+                    not.not(n).toBitSet(), "n " + n);
+        }
+    }
+}
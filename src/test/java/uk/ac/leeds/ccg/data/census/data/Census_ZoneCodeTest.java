@@ -0,0 +1,119 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_ZoneCodeIndex;
+
+/**
+ * Tests for {@link Census_ZoneCode} and {@link Census_ZoneCodeIndex}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ZoneCodeTest {
+
+    private static final String[] CODES = {"E00000001", "W06000015",
+        "00AAFA0001", "S92000003", "95AA01S1", "E", "ZZZZZZZZZZZZ"};
+
+    @Test
+    public void testRoundTrip() {
+        for (String s : CODES) {
+            long c = Census_ZoneCode.encode(s);
+            assertTrue(c >= 0, s);
+            assertEquals(s, Census_ZoneCode.decode(c));
+            assertEquals(s.length(), Census_ZoneCode.length(c));
+            byte[] b = new byte[Census_ZoneCode.MAX_LENGTH + 2];
+            int n = Census_ZoneCode.decode(c, b, 2);
+            assertEquals(s, new String(b, 2, n, StandardCharsets.US_ASCII));
+            assertEquals(c, Census_ZoneCode.encode(b, 2, n));
+        }
+        assertEquals(Census_ZoneCode.encode("E00000001"),
+                Census_ZoneCode.encode("e00000001"));
+    }
+
+    @Test
+    public void testParse() {
+        String s = "\"00AAFA0001\",12,3";
+        assertEquals(Census_ZoneCode.encode("00AAFA0001"),
+                Census_ZoneCode.parse(s, 1, 11));
+        assertEquals(Census_ZoneCode.encode("00AAFA0001"),
+                Census_ZoneCode.encode(s, 1, 11));
+        assertThrows(IllegalArgumentException.class,
+                () -> Census_ZoneCode.parse(s, 1, 13));
+        // Padded and shorter codes in a fixed width field.
+        assertEquals(Census_ZoneCode.encode("95AA01S1"),
+                Census_ZoneCode.parse("\" 95AA01S1 \",1", 1, 11));
+        assertEquals(Census_ZoneCode.encode("E00000001"),
+                Census_ZoneCode.parse("\"E00000001\",1", 1, 11));
+        assertThrows(IllegalArgumentException.class,
+                () -> Census_ZoneCode.parse("\"   \",1", 1, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> Census_ZoneCode.parse("\"E0 01\",1", 1, 6));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertEquals(Census_ZoneCode.INVALID, Census_ZoneCode.encode(""));
+        assertEquals(Census_ZoneCode.INVALID, Census_ZoneCode.encode("E0-1"));
+        assertEquals(Census_ZoneCode.INVALID,
+                Census_ZoneCode.encode("E000000000001"));
+        assertNull(Census_ZoneCode.decode(Census_ZoneCode.INVALID));
+        assertEquals(0, Census_ZoneCode.decode(Census_ZoneCode.INVALID,
+                new byte[1], 0));
+    }
+
+    @Test
+    public void testOrder() {
+        String[] s = {"E0", "E00", "E00000002", "E00000001", "00AAFA0001",
+            "W06000015", "E01000001", "E1"};
+        long[] c = new long[s.length];
+        for (int i = 0; i < s.length; i++) {
+            c[i] = Census_ZoneCode.encode(s[i]);
+        }
+        String[] sorted = s.clone();
+        Arrays.sort(sorted);
+        Arrays.sort(c);
+        for (int i = 0; i < s.length; i++) {
+            assertEquals(sorted[i], Census_ZoneCode.decode(c[i]));
+        }
+    }
+
+    @Test
+    public void testIndex() {
+        long[] c = {Census_ZoneCode.encode("W1"), Census_ZoneCode.encode("E2"),
+            Census_ZoneCode.encode("E1")};
+        Census_ZoneCodeIndex index = new Census_ZoneCodeIndex(c);
+        assertEquals(3, index.size());
+        assertEquals(2, index.get("E1"));
+        assertEquals(0, index.get(c[0]));
+        assertEquals(1, index.get("xE2x", 1, 3));
+        assertEquals(1, index.get("E2".getBytes(StandardCharsets.US_ASCII), 0,
+                2));
+        assertEquals(-1, index.get("E3"));
+        assertEquals(-1, index.get(Census_ZoneCode.INVALID));
+        int[] r = new int[3];
+        index.get(new long[]{c[2], Census_ZoneCode.encode("X"), c[0]}, r);
+        assertArrayEquals(new int[]{2, -1, 0}, r);
+    }
+}
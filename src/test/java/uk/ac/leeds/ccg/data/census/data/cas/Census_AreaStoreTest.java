@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * Tests for {@link Census_AreaStore}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_AreaStoreTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * @param n The number of rows.
+     * @return A table with zone codes that are not in order.
+     */
+    private static Census_CASTable<Census_CAS001Record> getTable(int n) {
+        Random r = new Random(3);
+        long[] codes = new long[n];
+        for (int i = 0; i < n; i++) {
+            codes[i] = Census_ZoneCode.encode(String.format("E%08d",
+                    (i * 7919) % 100000));
+        }
+        Census_CASTable<Census_CAS001Record> t = new Census_CASTable<>(
+                Census_CAS001Record.class, codes);
+        for (int c = 0; c < t.getColumnCount(); c++) {
+            int[] col = t.getColumn(c);
+            for (int i = 0; i < n; i++) {
+                col[i] = r.nextInt(1000);
+            }
+        }
+        return t;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        // Enough rows for the data to be written in more than one chunk.
+        int n = 3000;
+        Census_CASTable<Census_CAS001Record> t = getTable(n);
+        assertTrue(4L * n * t.getColumnCount() > Census_AreaStore.CHUNK_SIZE);
+        Path f = dir.resolve("stores/cas001.dat");
+        Census_AreaStore.write(f, t);
+        Census_AreaStore<Census_CAS001Record> s = Census_AreaStore.open(
+                Census_CAS001Record.class, f);
+        assertEquals(n, s.getRowCount());
+        assertEquals(t.getColumnCount(), s.getColumnCount());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, s.getRowIndex(t.zoneCodes[i]));
+            assertEquals(t.zoneCodes[i], s.getZoneCode(i));
+            for (int c = 0; c < t.getColumnCount(); c++) {
+                assertEquals(t.get(i, c), s.get(i, c));
+            }
+        }
+        String name = t.getColumnNames()[9];
+        Census_AreaStore<Census_CAS001Record>.Row row = s.getRow(
+                Census_ZoneCode.decode(t.zoneCodes[17]));
+        assertEquals(17, row.getIndex());
+        assertEquals(t.get(17, 5), row.get(5));
+        assertEquals(t.get(17, 9), row.get(name));
+        assertEquals(9, s.getColumnIndex(name));
+        assertNull(s.getRow("E99999999"));
+        assertEquals(-1, s.getRowIndex("E99999999"));
+    }
+
+    @Test
+    public void testOtherType() throws IOException {
+        Path f = dir.resolve("cas001.dat");
+        Census_AreaStore.write(f, getTable(10));
+        assertThrows(IOException.class, () -> Census_AreaStore.open(
+                Census_CAS002Record.class, f));
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        Path f = dir.resolve("cas001.dat");
+        Census_AreaStore.write(f, getTable(10));
+        byte[] b = Files.readAllBytes(f);
+        for (int n : new int[]{0, 15, 20, 40, 200, b.length - 1}) {
+            Files.write(f, Arrays.copyOf(b, n));
+            assertThrows(IOException.class, () -> Census_AreaStore.open(
+                    Census_CAS001Record.class, f), "length " + n);
+        }
+    }
+
+    @Test
+    public void testIncomplete() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(10);
+        Path f = dir.resolve("cas001.col");
+        t.write(f);
+        Census_CASTable<Census_CAS001Record> r = Census_CASTable.read(
+                Census_CAS001Record.class, f, t.getColumnNames()[0]);
+        assertThrows(IllegalArgumentException.class,
+                () -> Census_AreaStore.write(dir.resolve("x.dat"), r));
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiFunction;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS002Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS006Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS008Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS010Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS013Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS015Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS016Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS017Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS020Record;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS09bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS09cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS12bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS12cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS14bRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.ks.Census_CASKS14cRecord;
+import uk.ac.leeds.ccg.data.census.data.cas.uv.Census_CASUV003Record;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.io.Census_CSVScanner;
+
+/**
+ * Tests that each schema in {@link Census_CASSchemas} gives the same record
+ * as the line constructor of the record class.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CASSchemasTest {
+
+    /**
+     * @param schema The schema.
+     * @return A line with a zone code and then a field more than the
+     * greatest position in {@code schema}. The fields are distinct and so are
+     * the sums of pairs of them.
+     */
+    private static String getLine(Census_TableSchema schema) {
+        int n = 0;
+        for (int c = 0; c < schema.getCellCount(); c++) {
+            for (int p : schema.getPositions(c)) {
+                n = Math.max(n, p);
+            }
+        }
+        StringBuilder r = new StringBuilder("\"60QS000001\"");
+        for (int i = 1; i <= n + 1; i++) {
+            r.append(',').append(i * i + 1);
+        }
+        return r.toString();
+    }
+
+    /**
+     * Checks that parsing a line with {@code schema} gives the same record as
+     * {@code legacy}.
+     */
+    private static <R extends Census_AreaRecord> void check(
+            Census_TableSchema schema, Class<R> type,
+            BiFunction<Census_RecordID, String, R> legacy)
+            throws IOException, ReflectiveOperationException {
+        String line = getLine(schema);
+        R expected = legacy.apply(new Census_RecordID(0), line);
+        byte[] b = line.getBytes(StandardCharsets.US_ASCII);
+        Census_CSVScanner s = new Census_CSVScanner(b, 0, b.length,
+                (byte) ',');
+        assertTrue(s.next());
+        R r = new Census_TableParser<>(schema, type).parse(s, type
+                .getConstructor(Census_RecordID.class)
+                .newInstance(new Census_RecordID(0)));
+        assertEquals(expected.toCSV(), r.toCSV(), schema.table);
+        if (!schema.isInt()) {
+            return;
+        }
+        Census_Cells<R> cells = Census_Cells.of(type);
+        int[] e = new int[cells.size()];
+        int[] a = new int[cells.size()];
+        cells.get(expected, e);
+        cells.get(r, a);
+        assertArrayEquals(e, a, schema.table);
+    }
+
+    @Test
+    public void testCAS() throws Exception {
+        check(Census_CASSchemas.CAS001, Census_CAS001Record.class,
+                Census_CAS001Record::new);
+        check(Census_CASSchemas.CAS002, Census_CAS002Record.class,
+                Census_CAS002Record::new);
+        check(Census_CASSchemas.CAS003, Census_CAS003Record.class,
+                Census_CAS003Record::new);
+        check(Census_CASSchemas.CAS003_NI, Census_CAS003Record.class,
+                (id, l) -> new Census_CAS003Record(id, l, true));
+        check(Census_CASSchemas.CAS044,
+                Census_ZoneCodeAreaEastingNorthingRecord.class,
+                Census_ZoneCodeAreaEastingNorthingRecord::new);
+        check(Census_CASSchemas.UV003, Census_CASUV003Record.class,
+                Census_CASUV003Record::new);
+    }
+
+    @Test
+    public void testKS() throws Exception {
+        check(Census_CASSchemas.KS002, Census_CASKS002Record.class,
+                Census_CASKS002Record::new);
+        check(Census_CASSchemas.KS006, Census_CASKS006Record.class,
+                Census_CASKS006Record::new);
+        check(Census_CASSchemas.KS008, Census_CASKS008Record.class,
+                Census_CASKS008Record::new);
+        check(Census_CASSchemas.KS09b, Census_CASKS09bRecord.class,
+                Census_CASKS09bRecord::new);
+        check(Census_CASSchemas.KS09c, Census_CASKS09cRecord.class,
+                Census_CASKS09cRecord::new);
+        check(Census_CASSchemas.KS010, Census_CASKS010Record.class,
+                Census_CASKS010Record::new);
+        check(Census_CASSchemas.KS12b, Census_CASKS12bRecord.class,
+                Census_CASKS12bRecord::new);
+        check(Census_CASSchemas.KS12c, Census_CASKS12cRecord.class,
+                Census_CASKS12cRecord::new);
+        check(Census_CASSchemas.KS14b, Census_CASKS14bRecord.class,
+                Census_CASKS14bRecord::new);
+        check(Census_CASSchemas.KS14c, Census_CASKS14cRecord.class,
+                Census_CASKS14cRecord::new);
+        check(Census_CASSchemas.KS016, Census_CASKS016Record.class,
+                Census_CASKS016Record::new);
+        check(Census_CASSchemas.KS017, Census_CASKS017Record.class,
+                Census_CASKS017Record::new);
+        check(Census_CASSchemas.KS020, Census_CASKS020Record.class,
+                Census_CASKS020Record::new);
+    }
+
+    @Test
+    public void testKSCountries() throws Exception {
+        for (String country : new String[]{"England", "Scotland"}) {
+            check(Census_CASSchemas.KS013, Census_CASKS013Record.class,
+                    (id, l) -> new Census_CASKS013Record(id, l, country));
+        }
+        check(Census_CASSchemas.KS013_NI, Census_CASKS013Record.class,
+                (id, l) -> new Census_CASKS013Record(id, l,
+                        "Northern Ireland"));
+        check(Census_CASSchemas.KS015, Census_CASKS015Record.class,
+                (id, l) -> new Census_CASKS015Record(id, l, "England"));
+        check(Census_CASSchemas.KS015_SCOTLAND, Census_CASKS015Record.class,
+                (id, l) -> new Census_CASKS015Record(id, l, "Scotland"));
+        check(Census_CASSchemas.KS015_NI, Census_CASKS015Record.class,
+                (id, l) -> new Census_CASKS015Record(id, l,
+                        "Northern Ireland"));
+    }
+
+    @Test
+    public void testGet() {
+        assertEquals(Census_CASSchemas.CAS001,
+                Census_CASSchemas.get(Census_CAS001Record.class));
+        assertEquals(Census_CASSchemas.KS015,
+                Census_CASSchemas.get(Census_CASKS015Record.class));
+    }
+}
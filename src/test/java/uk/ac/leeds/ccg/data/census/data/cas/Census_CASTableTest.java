@@ -0,0 +1,139 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.cas;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.cas.uv.Census_CASUV003Record;
+
+/**
+ * Tests for {@link Census_CASTable}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CASTableTest {
+
+    @TempDir
+    Path dir;
+
+    private static Census_CASTable<Census_CAS001Record> getTable(int n) {
+        Random r = new Random(1);
+        long[] codes = new long[n];
+        for (int i = 0; i < n; i++) {
+            codes[i] = Census_ZoneCode.encode(String.format("00AAFA%04d",
+                    i + 1));
+        }
+        Census_CASTable<Census_CAS001Record> t = new Census_CASTable<>(
+                Census_CAS001Record.class, codes);
+        for (int c = 0; c < t.getColumnCount(); c++) {
+            int[] col = t.getColumn(c);
+            for (int i = 0; i < n; i++) {
+                col[i] = r.nextInt(100);
+            }
+        }
+        return t;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(50);
+        Path f = dir.resolve("cas001.col");
+        t.write(f);
+        Census_CASTable<Census_CAS001Record> r = Census_CASTable.read(
+                Census_CAS001Record.class, f);
+        assertTrue(r.isComplete());
+        assertArrayEquals(t.zoneCodes, r.zoneCodes);
+        for (int c = 0; c < t.getColumnCount(); c++) {
+            assertArrayEquals(t.getColumn(c), r.getColumn(c));
+        }
+        assertArrayEquals(t.sums(), r.sums());
+        assertEquals(7, r.getRow("00AAFA0008"));
+        Census_CAS001Record rec = r.getRecord(7);
+        assertEquals(t.zoneCodes[7], rec.zoneCode);
+        int[] cells = new int[t.getColumnCount()];
+        r.getRow(7, cells);
+        assertEquals(t.get(7, 3), cells[3]);
+    }
+
+    @Test
+    public void testProjectedRead() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(20);
+        Path f = dir.resolve("cas001.col");
+        t.write(f);
+        String[] names = t.getColumnNames();
+        Census_CASTable<Census_CAS001Record> r = Census_CASTable.read(
+                Census_CAS001Record.class, f, names[3], names[7]);
+        assertFalse(r.isComplete());
+        assertArrayEquals(t.getColumn(3), r.getColumn(3));
+        assertArrayEquals(t.getColumn(7), r.getColumn(7));
+        assertNull(r.getColumn(0));
+        assertThrows(IllegalStateException.class, () -> r.get(0, 0));
+        assertThrows(IllegalStateException.class, () -> r.sum(0));
+        assertEquals(t.get(2, 7), r.get(2, 7));
+        assertThrows(IllegalStateException.class, () -> r.getRecord(2));
+        Census_CAS001Record rec = t.getRecord(5);
+        assertThrows(IllegalStateException.class, () -> r.getRecord(2, rec));
+        int[] cells = new int[t.getColumnCount()];
+        Census_Cells.of(Census_CAS001Record.class).get(rec, cells);
+        assertEquals(t.get(5, 0), cells[0]);
+        assertEquals(t.get(5, 7), cells[7]);
+        assertEquals(t.zoneCodes[5], rec.zoneCode);
+        assertThrows(IllegalArgumentException.class, () -> Census_CASTable
+                .read(Census_CAS001Record.class, f, "none"));
+        Path g = dir.resolve("projected.col");
+        r.write(g);
+        assertThrows(IOException.class, () -> Census_CASTable.read(
+                Census_CAS001Record.class, g, names[0]));
+    }
+
+    @Test
+    public void testLoad() throws IOException {
+        Path f = dir.resolve("uv003.csv");
+        Files.write(f, ("Zone Code,allPeople,males,females\n"
+                + "\"00AAFA0001\",10,4,6\n"
+                + "\"00AAFA0002\",20,9,11\n").getBytes(StandardCharsets.UTF_8));
+        Census_CASTable<Census_CASUV003Record> t = Census_CASTable.load(
+                Census_CASUV003Record.class, f);
+        assertEquals(2, t.getRowCount());
+        assertEquals(30L, t.sum(t.getColumnIndex("allPeople")));
+        assertEquals(1, t.getRow("00AAFA0002"));
+        Census_CASUV003Record r = t.getRecord(1);
+        assertEquals(9, r.getMales());
+        r.zoneCode = t.zoneCodes[0];
+        assertEquals(0, t.set(r));
+        assertEquals(9, t.get(0, t.getColumnIndex("males")));
+        Census_CASTable<Census_CASUV003Record> s = Census_CASTable.load(
+                Census_CASUV003Record.class, f, new long[]{
+                    Census_ZoneCode.encode("00AAFA0002"),
+                    Census_ZoneCode.encode("00AAFA0003")});
+        assertEquals(20, s.get(0, s.getColumnIndex("allPeople")));
+        assertEquals(0, s.get(1, s.getColumnIndex("allPeople")));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * Tests for {@link Census_LUTSnapshot}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_LUTSnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    private static long[] codes(String... s) {
+        long[] r = new long[s.length];
+        for (int i = 0; i < s.length; i++) {
+            r[i] = Census_ZoneCode.encode(s[i]);
+        }
+        return r;
+    }
+
+    /**
+     * @return A look up with an OA that has no LAD.
+     */
+    private static Census_LUT getLUT() {
+        return new Census_LUT(
+                codes("E00000001", "E00000002", "E00000003", "W00000001"),
+                codes("E01000001", "E01000002"),
+                codes("E02000001"),
+                codes("E06000001", "W06000001"),
+                new String[]{"Hartlepool", "Ynys Môn"},
+                new int[]{0, 0, 1, 1}, new int[]{0, 0, 0, -1},
+                new int[]{0, 0, 0, -1});
+    }
+
+    private Path getInput() throws IOException {
+        Path r = dir.resolve("lut.csv");
+        Files.write(r, "OA,LSOA\n".getBytes(StandardCharsets.UTF_8));
+        return r;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Census_LUT lut = getLUT();
+        Path in = getInput();
+        Path f = dir.resolve("snapshot/lut.dat");
+        Census_LUTSnapshot.write(f, List.of(in), lut);
+        Census_LUT r = Census_LUTSnapshot.read(f, List.of(in));
+        assertNotNull(r);
+        assertArrayEquals(lut.OAs, r.OAs);
+        assertArrayEquals(lut.LSOAs, r.LSOAs);
+        assertArrayEquals(lut.MSOAs, r.MSOAs);
+        assertArrayEquals(lut.LADs, r.LADs);
+        assertArrayEquals(lut.LADNAMEs, r.LADNAMEs);
+        assertArrayEquals(lut.OA2LSOA, r.OA2LSOA);
+        assertArrayEquals(lut.OA2MSOA, r.OA2MSOA);
+        assertArrayEquals(lut.OA2LAD, r.OA2LAD);
+        assertArrayEquals(lut.LSOA2LAD, r.LSOA2LAD);
+        assertArrayEquals(new int[]{2, 3}, r.LSOA2OAs.get(1));
+        assertEquals(2, r.OAIndex.get("E00000003"));
+        assertEquals(-1, r.OA2LAD[3]);
+    }
+
+    @Test
+    public void testChangedInput() throws IOException {
+        Path in = getInput();
+        Path f = dir.resolve("lut.dat");
+        Census_LUTSnapshot.write(f, List.of(in), getLUT());
+        Files.write(in, "OA,LSOA,MSOA\n".getBytes(StandardCharsets.UTF_8));
+        assertNull(Census_LUTSnapshot.read(f, List.of(in)));
+        assertNull(Census_LUTSnapshot.read(dir.resolve("none.dat"),
+                List.of(in)));
+    }
+
+    @Test
+    public void testTruncated() throws IOException {
+        Path in = getInput();
+        Path f = dir.resolve("lut.dat");
+        Census_LUTSnapshot.write(f, List.of(in), getLUT());
+        byte[] b = Files.readAllBytes(f);
+        for (int n : new int[]{0, 7, 12, b.length / 2, b.length - 1}) {
+            Files.write(f, Arrays.copyOf(b, n));
+            assertNull(Census_LUTSnapshot.read(f, List.of(in)), "length " + n);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+
+/**
+ * Tests for {@link Census_LUT}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_LUTTest {
+
+    private static long[] codes(String prefix, int n) {
+        long[] r = new long[n];
+        for (int i = 0; i < n; i++) {
+            r[i] = Census_ZoneCode.encode(prefix + (i + 1));
+        }
+        return r;
+    }
+
+    /**
+     * @return A look up where LSOA 1 and MSOA 0 span LADs 0 and 1 and LSOA 2
+     * has an OA with no LAD.
+     */
+    private static Census_LUT getLUT() {
+        return new Census_LUT(codes("E0000000", 6), codes("E0100000", 3),
+                codes("E0200000", 2), codes("E0600000", 2),
+                new String[]{"a", "b"},
+                new int[]{0, 0, 1, 1, 2, 2}, new int[]{0, 0, 0, 0, 1, 1},
+                new int[]{0, 0, 0, 1, 1, -1});
+    }
+
+    @Test
+    public void testParents() {
+        Census_LUT lut = getLUT();
+        assertArrayEquals(new int[]{0, 0, 1}, lut.LSOA2MSOA);
+        assertArrayEquals(new int[]{0, -1, 1}, lut.LSOA2LAD);
+        assertArrayEquals(new int[]{-1, 1}, lut.MSOA2LAD);
+    }
+
+    @Test
+    public void testChildren() {
+        Census_LUT lut = getLUT();
+        assertArrayEquals(new int[]{0, 1}, lut.LAD2LSOAs.get(0));
+        assertArrayEquals(new int[]{1, 2}, lut.LAD2LSOAs.get(1));
+        assertArrayEquals(new int[]{0}, lut.LAD2MSOAs.get(0));
+        assertArrayEquals(new int[]{0, 1}, lut.LAD2MSOAs.get(1));
+        assertArrayEquals(new int[]{0, 1}, lut.MSOA2LSOAs.get(0));
+        assertArrayEquals(new int[]{2}, lut.MSOA2LSOAs.get(1));
+        assertArrayEquals(new int[]{3, 4}, lut.LAD2OAs.get(1));
+    }
+}
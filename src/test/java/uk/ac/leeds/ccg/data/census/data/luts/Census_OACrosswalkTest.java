@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.luts;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Census_OACrosswalk}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_OACrosswalkTest {
+
+    /**
+     * @return A crosswalk where 2001 OA 0 is unchanged, 1 is split into
+     * three, 2 and 3 are merged and 4 has no links. The links are not in
+     * order.
+     */
+    private static Census_OACrosswalk getCrosswalk() {
+        return Census_OACrosswalk.of(new int[]{1, 3, 0, 1, 2, 1},
+                new int[]{3, 4, 0, 1, 4, 2},
+                new byte[]{'S', 'M', 'U', 'S', 'M', 'S'}, 5, 5);
+    }
+
+    /**
+     * @return A crosswalk of {@code nOA01} 2001 OAs each split at random
+     * into up to 5 of {@code nOA11} 2011 OAs with random weights.
+     */
+    private static Census_OACrosswalk getRandomCrosswalk(Random r,
+            int nOA01, int nOA11) {
+        int[] oa01s = new int[nOA01 * 5];
+        int[] oa11s = new int[oa01s.length];
+        int n = 0;
+        for (int o = 0; o < nOA01; o++) {
+            int k = 1 + r.nextInt(5);
+            int start = r.nextInt(nOA11 - k);
+            for (int i = 0; i < k; i++) {
+                oa01s[n] = o;
+                oa11s[n++] = start + i;
+            }
+        }
+        Census_OACrosswalk c = Census_OACrosswalk.of(
+                Arrays.copyOf(oa01s, n),
+                Arrays.copyOf(oa11s, n), new byte[n], nOA01, nOA11);
+        double[] sizes11 = new double[nOA11];
+        for (int i = 0; i < nOA11; i++) {
+            sizes11[i] = r.nextInt(4) == 0 ? 0d : r.nextDouble() * 300d;
+        }
+        return c.weightedBy(sizes11);
+    }
+
+    @Test
+    public void testLinks() {
+        Census_OACrosswalk c = getCrosswalk();
+        assertEquals(6, c.getLinkCount());
+        assertEquals(5, c.getOA01Count());
+        assertEquals(5, c.getOA11Count());
+        assertArrayEquals(new int[]{1, 2, 3}, c.OA01ToOA11.get(1));
+        assertArrayEquals(new int[]{2, 3}, c.OA11ToOA01.get(4));
+        assertTrue(c.isSplit(1));
+        assertFalse(c.isSplit(2));
+        assertTrue(c.isMerged(4));
+        assertEquals(Census_OACrosswalk.UNCHANGED, c.getChange(0));
+        assertEquals(0, c.getChange(4));
+        // Each link in the reverse lookup is the link with that 2011 OA.
+        for (int oa11 = 0; oa11 < c.getOA11Count(); oa11++) {
+            for (int i = c.OA11ToOA01.offsets[oa11];
+                    i < c.OA11ToOA01.offsets[oa11 + 1]; i++) {
+                assertEquals(oa11, c.OA01ToOA11.indexes[c.OA11ToOA01Links[i]]);
+            }
+        }
+    }
+
+    @Test
+    public void testEqualWeights() {
+        Census_OACrosswalk c = getCrosswalk();
+        assertArrayEquals(new int[]{5, 4, 3, 3, 15},
+                c.apportion(new int[]{5, 10, 7, 8, 99}));
+        double[] d = c.apportion(new double[]{5d, 10d, 7d, 8d, 99d});
+        assertEquals(10d / 3d, d[2], 1.0E-12d);
+        assertEquals(15d, d[4], 1.0E-12d);
+    }
+
+    /**
+     * Largest remainder keeps the count of each 2001 OA and gives each 2011
+     * OA its share rounded down or up.
+     */
+    @Test
+    public void testLargestRemainder() {
+        Random r = new Random(29);
+        Census_OACrosswalk c = getRandomCrosswalk(r, 200, 150);
+        int[] counts01 = new int[c.getOA01Count()];
+        long total = 0L;
+        for (int o = 0; o < counts01.length; o++) {
+            counts01[o] = r.nextInt(500);
+            total += counts01[o];
+        }
+        int[] counts11 = c.apportion(counts01);
+        long sum = 0L;
+        for (int x : counts11) {
+            assertTrue(x >= 0);
+            sum += x;
+        }
+        assertEquals(total, sum);
+        // One 2001 OA at a time.
+        int[] one = new int[counts01.length];
+        for (int o = 0; o < counts01.length; o++) {
+            one[o] = counts01[o];
+            int[] r11 = c.apportion(one);
+            one[o] = 0;
+            int s = 0;
+            for (int l = c.OA01ToOA11.offsets[o];
+                    l < c.OA01ToOA11.offsets[o + 1]; l++) {
+                int x = r11[c.OA01ToOA11.indexes[l]];
+                double share = counts01[o] * c.weights[l];
+                assertTrue(x >= Math.floor(share) && x <= Math.ceil(share),
+                        "2001 OA " + o + " link " + l);
+                s += x;
+            }
+            assertEquals(counts01[o], s, "2001 OA " + o);
+        }
+        double[] d = new double[counts01.length];
+        for (int o = 0; o < d.length; o++) {
+            d[o] = counts01[o];
+        }
+        double dsum = 0d;
+        for (double x : c.apportion(d)) {
+            dsum += x;
+        }
+        assertEquals(total, dsum, 1.0E-6d);
+    }
+}
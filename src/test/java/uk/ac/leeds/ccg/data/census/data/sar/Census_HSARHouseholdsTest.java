@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+
+/**
+ * Tests for {@link Census_HSARHouseholds}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_HSARHouseholdsTest {
+
+    private static final int AGEH = Census_HSARHouseholds.indexOf("AGEH");
+
+    /**
+     * The HHID and PNUM of each person, not in order.
+     */
+    private static final int[][] PERSONS = {{7, 2}, {3, 1}, {7, 1}, {3, 2},
+        {3, 3}, {9, 1}};
+
+    /**
+     * @return HSAR records for {@link #PERSONS}. The ID2 of each is 100 plus
+     * its position, AGEH is ten times PNUM plus HHID and the first person of
+     * each household is its HRP.
+     */
+    private static List<Census_HSARRecord> getRecords() {
+        List<Census_HSARRecord> r = new ArrayList<>();
+        for (int k = 0; k < PERSONS.length; k++) {
+            int[] p = PERSONS[k];
+            StringBuilder sb = new StringBuilder();
+            for (int v = 0; v < Census_HSARHouseholds.VARIABLES.length; v++) {
+                if (v > 0) {
+                    sb.append(',');
+                }
+                if (v == Census_HSARHouseholds.HHID) {
+                    sb.append(p[0]);
+                } else if (v == Census_HSARHouseholds.PNUM) {
+                    sb.append(p[1]);
+                } else if (v == Census_HSARHouseholds.ID2) {
+                    sb.append(100 + k);
+                } else if (v == Census_HSARHouseholds.HRP) {
+                    sb.append(p[1] == 1 ? 1 : 0);
+                } else if (v == AGEH) {
+                    sb.append(10 * p[1] + p[0]);
+                } else {
+                    sb.append(1);
+                }
+            }
+            r.add(new Census_HSARRecord(new Census_RecordID(k),
+                    sb.toString()));
+        }
+        return r;
+    }
+
+    /**
+     * @return The CSV of {@code r} without the ID which is the position of
+     * the person.
+     */
+    private static String getValues(Census_HSARRecord r) {
+        String s = r.toCSV();
+        return s.substring(s.indexOf(',', s.indexOf(',') + 1));
+    }
+
+    @Test
+    public void testGrouping() {
+        Census_HSARHouseholds h = Census_HSARHouseholds.of(getRecords());
+        assertEquals(3, h.getHouseholdCount());
+        assertEquals(PERSONS.length, h.getPersonCount());
+        assertArrayEquals(new int[]{3, 2, 1}, h.getSizes());
+        assertEquals(3, h.getHHID(0));
+        assertEquals(9, h.getHHID(2));
+        assertEquals(1, h.indexOfHHID(7));
+        assertEquals(-1, h.indexOfHHID(8));
+        // Persons are in order of HHID and then PNUM.
+        long[] id2s = {101, 103, 104, 102, 100, 105};
+        int[] households = {0, 0, 0, 1, 1, 2};
+        for (int i = 0; i < h.getPersonCount(); i++) {
+            assertEquals(households[i], h.getHousehold(i));
+            assertEquals(id2s[i], h.get(i, Census_HSARHouseholds.ID2));
+            assertEquals(h.getHHID(households[i]),
+                    h.get(i, Census_HSARHouseholds.HHID));
+        }
+        assertEquals(3, h.getStart(1));
+        assertEquals(5, h.getEnd(1));
+        assertEquals(0, h.getHRP(0));
+        assertEquals(3, h.getHRP(1));
+    }
+
+    @Test
+    public void testAggregates() {
+        Census_HSARHouseholds h = Census_HSARHouseholds.of(getRecords());
+        assertArrayEquals(new int[]{1, 1, 1}, h.count(AGEH, a -> a < 20));
+        assertArrayEquals(new long[]{13 + 23 + 33, 17 + 27, 19}, h.sum(AGEH));
+        BitSet any = h.any(AGEH, a -> a > 30);
+        assertEquals(1, any.cardinality());
+        assertEquals(true, any.get(0));
+        assertArrayEquals(new int[]{1, 1, 1},
+                h.count(Census_HSARHouseholds.HRP, x -> x == 1L));
+    }
+
+    @Test
+    public void testRecords() {
+        List<Census_HSARRecord> rs = getRecords();
+        Census_HSARHouseholds h = Census_HSARHouseholds.of(rs);
+        List<Census_HSARRecord> hh = h.getRecords(1);
+        assertEquals(2, hh.size());
+        // Person 4 (HHID 7, PNUM 2) was the first record.
+        assertEquals(getValues(rs.get(0)), getValues(hh.get(1)));
+        assertEquals(getValues(rs.get(2)), getValues(hh.get(0)));
+        assertEquals(getValues(rs.get(5)), getValues(h.getRecord(5)));
+        assertEquals(5L, h.getRecord(5).getID().getID());
+        assertEquals(19L, h.getColumn(AGEH).get(5));
+        assertThrows(IllegalArgumentException.class,
+                () -> h.getColumn(Census_HSARHouseholds.HRP));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.data.sar;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.Census_Bitmap;
+
+/**
+ * Tests for {@link Census_ISARIndex}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ISARIndexTest {
+
+    private static final int REGION = Census_ISARFrame.indexOf("REGION");
+
+    private static final int LLTI = Census_ISARFrame.indexOf("LLTI");
+
+    private static final int AGE0 = Census_ISARFrame.indexOf("AGE0");
+
+    /**
+     * @return A frame of {@code n} rows with random values.
+     */
+    private static Census_ISARFrame getFrame(int n) {
+        Random r = new Random(7);
+        Census_ISARFrame.Builder b = new Census_ISARFrame.Builder(n);
+        for (int row = 0; row < n; row++) {
+            long[] values = new long[Census_ISARFrame.VARIABLES.length];
+            values[Census_ISARFrame.ID2] = row;
+            for (int v = 1; v < values.length; v++) {
+                values[v] = r.nextInt(v == REGION ? 12 : v == AGE0 ? 90 : 2);
+            }
+            b.add(values);
+        }
+        return b.build();
+    }
+
+    /**
+     * @return The number of rows of {@code frame} that are students in
+     * region 3 with a limiting long term illness.
+     */
+    private static int count(Census_ISARFrame frame) {
+        int r = 0;
+        for (int row = 0; row < frame.size(); row++) {
+            if (frame.getSTUDENT(row) && frame.get(row, REGION) == 3
+                    && frame.get(row, LLTI) == 1) {
+                r++;
+            }
+        }
+        return r;
+    }
+
+    @Test
+    public void testFilter() {
+        Census_ISARFrame frame = getFrame(70000);
+        for (Census_ISARIndex i : new Census_ISARIndex[]{
+            new Census_ISARIndex(frame, "REGION", "LLTI"),
+            new Census_ISARIndex(frame)}) {
+            Census_Bitmap b = i.is("STUDENT").and(i.eq("REGION", (short) 3))
+                    .and(i.eq("LLTI", (short) 1));
+            assertEquals(count(frame), i.count(b));
+            Census_Bitmap young = i.in("AGE0", (short) 0, (short) 1);
+            young.stream().forEach(row
+                    -> assertTrue(frame.get(row, AGE0) <= 1));
+            Census_Bitmap old = i.not(young);
+            assertEquals(frame.size(), i.count(young) + i.count(old));
+            assertTrue(young.and(old).isEmpty());
+            assertEquals(i.count(i.not(i.is("SEX"))),
+                    i.count(i.eq("SEX", (short) 0)));
+            assertTrue(i.eq("REGION", (short) 99).isEmpty());
+        }
+        assertTrue(new Census_ISARIndex(frame, "REGION").isIndexed("REGION"));
+        assertFalse(new Census_ISARIndex(frame).isIndexed("REGION"));
+    }
+
+    @Test
+    public void testUnknownVariable() {
+        Census_ISARFrame frame = getFrame(10);
+        assertThrows(IllegalArgumentException.class,
+                () -> new Census_ISARIndex(frame, "NOTAVARIABLE"));
+        Census_ISARIndex i = new Census_ISARIndex(frame);
+        assertThrows(IllegalArgumentException.class,
+                () -> i.eq("NOTAVARIABLE", (short) 1));
+    }
+}
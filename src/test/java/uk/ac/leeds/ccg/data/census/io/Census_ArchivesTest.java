@@ -0,0 +1,154 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link Census_Archives}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ArchivesTest {
+
+    @TempDir
+    Path dir;
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a zip with an entry for each name which has the lines
+     * {@code name,1} and {@code x,2}.
+     */
+    private static void zip(Path f, String... names) throws IOException {
+        try (ZipOutputStream z = new ZipOutputStream(
+                Files.newOutputStream(f))) {
+            for (String n : names) {
+                z.putNextEntry(new ZipEntry(n));
+                if (!n.endsWith("/")) {
+                    z.write(bytes(n + ",1\nx,2\n"));
+                }
+                z.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * @return The first field of each line.
+     */
+    private static List<String> read(Census_CSVScanner s) throws IOException {
+        List<String> r = new ArrayList<>();
+        while (s.next()) {
+            r.add(s.getString(0));
+        }
+        return r;
+    }
+
+    @Test
+    public void testResolve() throws IOException {
+        Path f = dir.resolve("a.csv");
+        assertEquals(f, Census_Archives.resolve(f));
+        Files.write(dir.resolve("a.zip"), new byte[0]);
+        assertEquals(dir.resolve("a.zip"), Census_Archives.resolve(f));
+        Files.write(dir.resolve("a.csv.gz"), new byte[0]);
+        assertEquals(dir.resolve("a.csv.gz"), Census_Archives.resolve(f));
+        Files.write(f, new byte[0]);
+        assertEquals(f, Census_Archives.resolve(f));
+    }
+
+    @Test
+    public void testNewScanner() throws IOException {
+        try (OutputStream o = new GZIPOutputStream(
+                Files.newOutputStream(dir.resolve("a.csv.gz")))) {
+            o.write(bytes("g,1\nh,2\n"));
+        }
+        try (Census_CSVScanner s = Census_Archives.newScanner(
+                dir.resolve("a.csv"))) {
+            assertEquals(Arrays.asList("g", "h"), read(s));
+        }
+        // A zip with the entry is found by the entry name.
+        zip(dir.resolve("b.zip"), "dir/", "dir/b.csv", "c.csv");
+        try (Census_CSVScanner s = Census_Archives.newScanner(
+                dir.resolve("b.csv"))) {
+            assertEquals(Arrays.asList("dir/b.csv", "x"), read(s));
+        }
+        // A zip with one entry is read whatever the entry is called.
+        zip(dir.resolve("d.zip"), "other.csv");
+        try (Census_CSVScanner s = Census_Archives.newScanner(
+                dir.resolve("d.csv"))) {
+            assertEquals(Arrays.asList("other.csv", "x"), read(s));
+        }
+        // b.zip has more than one entry and none called b.txt.
+        assertThrows(FileNotFoundException.class,
+                () -> Census_Archives.open(dir.resolve("b.txt")));
+    }
+
+    @Test
+    public void testEntries() throws IOException {
+        Path z = dir.resolve("b.zip");
+        zip(z, "dir/", "dir/b.csv", "readme.txt", "c.csv");
+        assertEquals(Arrays.asList("dir/b.csv", "c.csv"),
+                Census_Archives.getEntries(z, ".*\\.csv"));
+        assertEquals(Arrays.asList("dir/b.csv", "readme.txt", "c.csv"),
+                Census_Archives.getEntries(z, ".*"));
+        try (Census_CSVScanner s = new Census_CSVScanner(
+                Census_Archives.open(z, "b.csv"), (byte) ',',
+                Census_CSVScanner.DEFAULT_BUFFER_SIZE)) {
+            assertEquals(Arrays.asList("dir/b.csv", "x"), read(s));
+        }
+        assertThrows(FileNotFoundException.class,
+                () -> Census_Archives.open(z, "d.csv"));
+    }
+
+    @Test
+    public void testReadEntries() throws IOException {
+        Path z = dir.resolve("b.zip");
+        String[] names = new String[20];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "e" + (names.length - i) + ".csv";
+        }
+        zip(z, names);
+        List<String> r = Census_Archives.readEntries(z, ".*", ',',
+                (n, s) -> n + ":" + read(s), 4);
+        assertEquals(names.length, r.size());
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i] + ":[" + names[i] + ", x]", r.get(i));
+        }
+        IOException ex = assertThrows(IOException.class,
+                () -> Census_Archives.readEntries(z, ".*", ',', (n, s) -> {
+                    throw new IOException(n);
+                }, 2));
+        assertEquals(names[0], ex.getMessage());
+    }
+}
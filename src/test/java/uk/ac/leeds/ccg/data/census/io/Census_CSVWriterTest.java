@@ -0,0 +1,181 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_CAS001Record;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_CASSchemas;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_CASTable;
+import uk.ac.leeds.ccg.data.census.data.cas.Census_TableSchema;
+
+/**
+ * Tests for {@link Census_CSVWriter}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CSVWriterTest {
+
+    @TempDir
+    Path dir;
+
+    private static Census_CASTable<Census_CAS001Record> getTable(int n) {
+        Random r = new Random(4);
+        String[] prefixes = {"E00", "W06", "00AAFA", "95"};
+        long[] codes = new long[n];
+        for (int i = 0; i < n; i++) {
+            String p = prefixes[i % prefixes.length];
+            codes[i] = Census_ZoneCode.encode(p + String.format("%0"
+                    + (10 - p.length()) + "d", i));
+        }
+        Census_CASTable<Census_CAS001Record> t = new Census_CASTable<>(
+                Census_CAS001Record.class, codes);
+        for (int[] col : t.cols) {
+            for (int i = 0; i < n; i++) {
+                col[i] = r.nextInt(2000000) - 1000000;
+            }
+        }
+        return t;
+    }
+
+    /**
+     * @return The CAS001 schema with the fields moved one along for the ID
+     * written before the zone code.
+     */
+    private static Census_TableSchema getWrittenSchema() {
+        Census_TableSchema s = Census_CASSchemas.CAS001;
+        int n = s.getCellCount();
+        String[] codes = new String[n];
+        String[] names = new String[n];
+        Census_TableSchema.Type[] types = new Census_TableSchema.Type[n];
+        int[][] positions = new int[n][];
+        for (int c = 0; c < n; c++) {
+            codes[c] = s.getCode(c);
+            names[c] = s.getName(c);
+            types[c] = s.getType(c);
+            positions[c] = s.getPositions(c);
+            for (int i = 0; i < positions[c].length; i++) {
+                positions[c][i]++;
+            }
+        }
+        return new Census_TableSchema(s.table, s.zoneCodeField + 1, codes,
+                names, types, positions);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(300);
+        Path f = dir.resolve("t.csv");
+        Census_CSVWriter.write(f, t);
+        List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+        assertEquals(t.getRowCount() + 1, lines.size());
+        /*
+         * The header field zoneCode is itself an alphanumeric zone code, so
+         * the header is left out of the file that is loaded.
+         */
+        Path g = dir.resolve("rows.csv");
+        Files.write(g, lines.subList(1, lines.size()), StandardCharsets.UTF_8);
+        Census_CASTable<Census_CAS001Record> r = Census_CASTable.load(
+                Census_CAS001Record.class, g, getWrittenSchema());
+        assertArrayEquals(t.zoneCodes, r.zoneCodes);
+        for (int c = 0; c < t.getColumnCount(); c++) {
+            assertArrayEquals(t.getColumn(c), r.getColumn(c));
+        }
+        // The lines are as for the records.
+        assertEquals(t.getRecord(0).toCSVHeader(), lines.get(0));
+        for (int row = 0; row < t.getRowCount(); row++) {
+            assertEquals(t.getRecord(row).toCSV(), lines.get(row + 1));
+        }
+    }
+
+    @Test
+    public void testProjected() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(20);
+        Path col = dir.resolve("t.col");
+        t.write(col);
+        String[] names = t.getColumnNames();
+        Census_CASTable<Census_CAS001Record> r = Census_CASTable.read(
+                Census_CAS001Record.class, col, names[7], names[3]);
+        Path f = dir.resolve("p.csv");
+        Census_CSVWriter.write(f, r);
+        List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+        assertEquals("id,zoneCode," + names[3] + "," + names[7],
+                lines.get(0));
+        byte[] b = new byte[Census_ZoneCode.MAX_LENGTH];
+        for (int row = 0; row < t.getRowCount(); row++) {
+            int len = Census_ZoneCode.decode(t.zoneCodes[row], b, 0);
+            assertEquals(row + "," + new String(b, 0, len,
+                    StandardCharsets.US_ASCII) + "," + t.get(row, 3) + ","
+                    + t.get(row, 7), lines.get(row + 1));
+        }
+    }
+
+    @Test
+    public void testWriteAll() throws IOException {
+        Census_CASTable<Census_CAS001Record> t = getTable(100);
+        List<Census_CAS001Record> records = new ArrayList<>();
+        for (int row = 0; row < t.getRowCount(); row++) {
+            records.add(t.getRecord(row));
+        }
+        Path f = dir.resolve("t.csv");
+        Census_CSVWriter.write(f, t);
+        Map<Path, Census_CSVWriter.Export> exports = new LinkedHashMap<>();
+        for (int i = 0; i < 6; i++) {
+            exports.put(dir.resolve("p" + i + ".csv"),
+                    w -> w.write(Census_CAS001Record.class, records));
+        }
+        Census_CSVWriter.writeAll(exports, 3);
+        List<String> expected = Files.readAllLines(f, StandardCharsets.UTF_8);
+        for (Path p : exports.keySet()) {
+            assertEquals(expected, Files.readAllLines(p,
+                    StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testPut() throws IOException {
+        Path f = dir.resolve("n.csv");
+        // A small buffer so values span flushes.
+        try (Census_CSVWriter w = new Census_CSVWriter(f, ';', 64)) {
+            for (int i = 0; i < 10; i++) {
+                w.put(Long.MIN_VALUE).delimiter().put(Long.MAX_VALUE)
+                        .delimiter().put(0).delimiter().put(-7).delimiter()
+                        .putZoneCode(Census_ZoneCode.encode("00AAFA0001"))
+                        .newLine();
+            }
+            w.putLine("a", "b");
+        }
+        List<String> lines = Files.readAllLines(f, StandardCharsets.UTF_8);
+        assertEquals(11, lines.size());
+        assertEquals("-9223372036854775808;9223372036854775807;0;-7;"
+                + "00AAFA0001", lines.get(9));
+        assertEquals(Arrays.asList("a;b"), lines.subList(10, 11));
+    }
+}
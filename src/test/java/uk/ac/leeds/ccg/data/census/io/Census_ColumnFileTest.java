@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link Census_ColumnFile}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ColumnFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Random r = new Random(1);
+        int n = 10007;
+        long[] few = {123456789012L, 987654321098L, 5L};
+        long[] codes = new long[n];
+        long[] big = new long[n];
+        long[] extreme = new long[n];
+        int[] small = new int[n];
+        int[] negative = new int[n];
+        int[] constant = new int[n];
+        for (int i = 0; i < n; i++) {
+            codes[i] = few[r.nextInt(few.length)];
+            big[i] = r.nextLong();
+            extreme[i] = i % 2 == 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+            small[i] = r.nextInt(7);
+            negative[i] = r.nextInt(2000) - 1000;
+            constant[i] = 42;
+        }
+        Path f = dir.resolve("columns/t.col");
+        new Census_ColumnFile.Writer(n).add("codes", codes).add("big", big)
+                .add("extreme", extreme).add("small", small)
+                .add("negative", negative).add("constant", constant).write(f);
+        try (Census_ColumnFile.Reader c = new Census_ColumnFile.Reader(f)) {
+            assertEquals(n, c.getRowCount());
+            assertArrayEquals(new String[]{"codes", "big", "extreme", "small",
+                "negative", "constant"}, c.getColumnNames());
+            assertArrayEquals(codes, c.getLongs("codes"));
+            assertArrayEquals(big, c.getLongs("big"));
+            assertArrayEquals(extreme, c.getLongs("extreme"));
+            assertArrayEquals(small, c.getInts("small"));
+            assertArrayEquals(negative, c.getInts("negative"));
+            assertArrayEquals(constant, c.getInts("constant"));
+            assertEquals(Census_ColumnFile.Encoding.DICTIONARY,
+                    c.getColumn("codes").getEncoding());
+            assertEquals(Census_ColumnFile.Type.INT,
+                    c.getColumn("small").getType());
+            assertEquals(3, c.getColumn("small").getBits());
+            assertEquals(-1000, c.getColumn("negative").getMin());
+            assertEquals(0, c.getColumn("constant").getBits());
+            assertThrows(IllegalArgumentException.class,
+                    () -> c.getInts("big"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> c.getLongs("none"));
+        }
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        Path f = dir.resolve("empty.col");
+        new Census_ColumnFile.Writer(0).add("v", new int[0]).write(f);
+        try (Census_ColumnFile.Reader c = new Census_ColumnFile.Reader(f)) {
+            assertEquals(0, c.getRowCount());
+            assertArrayEquals(new int[0], c.getInts("v"));
+        }
+    }
+}
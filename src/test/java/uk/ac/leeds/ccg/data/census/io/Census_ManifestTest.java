@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for {@link Census_Manifest}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_ManifestTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * The number of times the artefact has been built.
+     */
+    private int builds;
+
+    private String build(Path artefact) throws IOException {
+        builds++;
+        Files.createDirectories(artefact.getParent());
+        Files.write(artefact, ("built " + builds).getBytes(
+                StandardCharsets.UTF_8));
+        return "built";
+    }
+
+    private static String read(Path artefact) throws IOException {
+        return new String(Files.readAllBytes(artefact), StandardCharsets.UTF_8);
+    }
+
+    private static void write(Path f, String s) throws IOException {
+        Files.write(f, s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRebuild() throws IOException {
+        Path in = dir.resolve("in.csv");
+        write(in, "a,1\n");
+        Path a = dir.resolve("generated/a.dat");
+        Path f = dir.resolve("generated/manifest.dat");
+        Census_Manifest m = new Census_Manifest(f);
+        assertEquals("built", m.get(a, "L", 1, List.of(in),
+                Census_ManifestTest::read, this::build));
+        assertEquals("built 1", m.get(a, "L", 1, List.of(in),
+                Census_ManifestTest::read, this::build));
+        // The entries are kept.
+        m = new Census_Manifest(f);
+        assertNotNull(m.getEntry(a));
+        assertEquals(1, m.getEntries(in).size());
+        assertEquals("built 1", m.get(a, "L", 1, List.of(in),
+                Census_ManifestTest::read, this::build));
+        // Touching an input without changing it is not a change.
+        Files.setLastModifiedTime(in, FileTime.fromMillis(12345000L));
+        assertTrue(m.isCurrent(a, "L", 1, List.of(in)));
+        // The input fingerprint changes.
+        write(in, "a,2\n");
+        assertEquals("built", m.get(a, "L", 1, List.of(in),
+                Census_ManifestTest::read, this::build));
+        assertEquals(2, builds);
+        // The loader version changes.
+        m.get(a, "L", 2, List.of(in), Census_ManifestTest::read, this::build);
+        assertEquals(3, builds);
+        // The artefact fingerprint changes.
+        write(a, "changed");
+        m.get(a, "L", 2, List.of(in), Census_ManifestTest::read, this::build);
+        assertEquals(4, builds);
+        assertEquals("built 4", read(a));
+    }
+
+    @Test
+    public void testReaderFails() throws IOException {
+        Path in = dir.resolve("in.csv");
+        write(in, "a,1\n");
+        Path a = dir.resolve("a.dat");
+        Census_Manifest m = new Census_Manifest(dir.resolve("manifest.dat"));
+        m.get(a, "L", 1, List.of(in), Census_ManifestTest::read, this::build);
+        assertEquals("built", m.get(a, "L", 1, List.of(in), p -> {
+            throw new IllegalArgumentException("No column");
+        }, this::build));
+        assertEquals(2, builds);
+        assertEquals("built", m.get(a, "L", 1, List.of(in), p -> {
+            throw new IOException("Truncated");
+        }, this::build));
+        assertEquals(3, builds);
+        assertTrue(m.isCurrent(a, "L", 1, List.of(in)));
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+        Path f = dir.resolve("manifest.dat");
+        write(f, "not a manifest");
+        Census_Manifest m = new Census_Manifest(f);
+        assertTrue(m.getEntries().isEmpty());
+        assertEquals(12, Files.size(f));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARFrame;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARRecord;
+
+/**
+ * Tests that {@link Census_RecordReader} and {@link Census_Pipeline} give the
+ * same ISAR records as the line constructor of {@link Census_ISARRecord}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_RecordReaderTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Writes an ISAR file of {@code n} lines with some blank lines and no
+     * line terminator at the end. It is more than
+     * {@link Census_RecordReader#MIN_SPLIT} bytes so a parallel stream is
+     * split.
+     */
+    private Path getISAR(int n) throws IOException {
+        Random r = new Random(5);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            if (i % 1000 == 7) {
+                sb.append('\n');
+            }
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append(1000000 + i / 3).append(" \t").append(1 + i % 3)
+                    .append(" \t");
+            for (int v = 2; v < 88; v++) {
+                int x = v == 71 || v == 75 ? r.nextInt(2) : r.nextInt(50);
+                sb.append(x).append(" \t");
+            }
+        }
+        Path f = dir.resolve("isar.txt");
+        Files.write(f, sb.toString().getBytes(StandardCharsets.US_ASCII));
+        return f;
+    }
+
+    /**
+     * @return The records from the line constructor with the ID of each the
+     * position of its line.
+     */
+    private static List<String> getExpected(Path f) throws IOException {
+        byte[] b = Files.readAllBytes(f);
+        List<Census_ISARRecord> r = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i <= b.length; i++) {
+            if (i == b.length || b[i] == '\n') {
+                String line = new String(b, start, i - start,
+                        StandardCharsets.US_ASCII);
+                if (!line.trim().isEmpty()) {
+                    r.add(new Census_ISARRecord(new Census_RecordID(start),
+                            line));
+                }
+                start = i + 1;
+            }
+        }
+        return toStrings(r);
+    }
+
+    /**
+     * @return The ID and the value of each of
+     * {@link Census_ISARFrame#VARIABLES} of each record.
+     */
+    private static List<String> toStrings(List<Census_ISARRecord> records) {
+        Census_ISARFrame.Builder b = new Census_ISARFrame.Builder(
+                records.size());
+        records.forEach(b::add);
+        Census_ISARFrame frame = b.build();
+        List<String> r = new ArrayList<>(records.size());
+        for (int row = 0; row < frame.size(); row++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(records.get(row).getID().getID());
+            for (int v = 0; v < Census_ISARFrame.VARIABLES.length; v++) {
+                sb.append(',').append(frame.get(row, v));
+            }
+            r.add(sb.toString());
+        }
+        return r;
+    }
+
+    @Test
+    public void testStream() throws IOException {
+        Path f = getISAR(8000);
+        List<String> expected = getExpected(f);
+        Census_RecordReader<Census_ISARRecord> reader
+                = Census_RecordReader.ofISAR(f);
+        for (boolean parallel : new boolean[]{false, true}) {
+            try (Stream<Census_ISARRecord> s = reader.stream(parallel)) {
+                assertEquals(expected, toStrings(s.collect(
+                        Collectors.toList())), "parallel " + parallel);
+            }
+        }
+        List<String> batches = new ArrayList<>();
+        long n = reader.forEachBatch(999, b -> {
+            batches.addAll(toStrings(b));
+            return true;
+        });
+        assertEquals(expected.size(), n);
+        assertEquals(expected, batches);
+    }
+
+    @Test
+    public void testPipeline() throws IOException {
+        Path f = getISAR(3000);
+        List<String> expected = getExpected(f);
+        for (int parallelism : new int[]{1, 3}) {
+            for (boolean ordered : new boolean[]{true, false}) {
+                Census_Pipeline<Census_ISARRecord> p = new Census_Pipeline<>(
+                        '\t', Census_RecordReader.getISARDecoders(),
+                        parallelism);
+                // Blocks smaller than a line and of a few lines.
+                for (int blockSize : new int[]{100, 4096}) {
+                    p.setBuffering(blockSize, 2);
+                    List<Census_ISARRecord> records = new ArrayList<>();
+                    long n = p.run(f, ordered, b -> {
+                        records.addAll(b);
+                        return true;
+                    });
+                    assertEquals(expected.size(), n);
+                    if (!ordered) {
+                        Collections.sort(records, Comparator.comparingLong(
+                                x -> x.getID().getID()));
+                    }
+                    assertEquals(expected, toStrings(records), "parallelism "
+                            + parallelism + " ordered " + ordered
+                            + " block size " + blockSize);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.sar.Census_ISARFrame;
+
+/**
+ * Tests for {@link Census_CrossTab}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_CrossTabTest {
+
+    private static final int REGION = Census_ISARFrame.indexOf("REGION");
+
+    private static final int LLTI = Census_ISARFrame.indexOf("LLTI");
+
+    /**
+     * @return A frame of {@code n} rows with REGION values 1 to 12 and
+     * random SEX and LLTI.
+     */
+    private static Census_ISARFrame getFrame(int n) {
+        Random r = new Random(23);
+        Census_ISARFrame.Builder b = new Census_ISARFrame.Builder(n);
+        for (int row = 0; row < n; row++) {
+            long[] values = new long[Census_ISARFrame.VARIABLES.length];
+            values[Census_ISARFrame.ID2] = row;
+            values[REGION] = 1 + r.nextInt(12);
+            values[LLTI] = r.nextInt(2);
+            values[Census_ISARFrame.SEX] = r.nextInt(2);
+            b.add(values);
+        }
+        return b.build();
+    }
+
+    @Test
+    public void testTabulateFrame() {
+        Census_ISARFrame f = getFrame(50000);
+        long[][] expected = new long[2][13];
+        long[] llti = new long[2];
+        for (int row = 0; row < f.size(); row++) {
+            expected[f.getSEX(row) ? 1 : 0][(int) f.get(row, REGION)]++;
+            llti[(int) f.get(row, LLTI)]++;
+        }
+        long[] first = null;
+        for (int parallelism : new int[]{1, 4}) {
+            Census_CrossTab.Table[] ts = new Census_CrossTab(parallelism)
+                    .tabulate(f, new String[]{"SEX", "REGION"},
+                            new String[]{"LLTI"},
+                            new String[]{"REGION", "SEX", "LLTI"});
+            Census_CrossTab.Table t = ts[0];
+            assertEquals(2, t.getDimensionCount());
+            assertEquals(12, t.getDimension(1).getCardinality());
+            for (short sex = 0; sex < 2; sex++) {
+                for (short region = 1; region <= 12; region++) {
+                    assertEquals(expected[sex][region],
+                            t.getCount(sex, region));
+                }
+            }
+            assertEquals(0L, t.getCount((short) 0, (short) 13));
+            assertEquals(llti[1], ts[1].getCount((short) 1));
+            assertEquals(f.size(), ts[2].getTotal());
+            long sum = 0L;
+            for (short l = 0; l < 2; l++) {
+                sum += ts[2].getCount((short) 3, (short) 1, l);
+            }
+            assertEquals(expected[1][3], sum);
+            if (first == null) {
+                first = ts[2].counts;
+            } else {
+                assertArrayEquals(first, ts[2].counts);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Census_CrossTab(
+                1).tabulate(f, new String[]{"NOTAVARIABLE"}));
+    }
+
+    /**
+     * A record with a field of each type that can be tabulated.
+     */
+    public static class Person {
+
+        protected short age;
+
+        protected int tenure;
+
+        protected boolean student;
+
+        protected double income;
+
+        public Person(int age, int tenure, boolean student) {
+            this.age = (short) age;
+            this.tenure = tenure;
+            this.student = student;
+        }
+    }
+
+    @Test
+    public void testTabulateRecords() {
+        List<Person> ps = new ArrayList<>();
+        ps.add(new Person(20, 1, true));
+        ps.add(new Person(20, 2, true));
+        ps.add(new Person(40, 1, false));
+        ps.add(new Person(20, 1, false));
+        ps.add(new Person(40, 1, false));
+        Census_CrossTab.Table[] ts = new Census_CrossTab(1).tabulate(ps,
+                Person.class, new String[]{"age", "student"},
+                new String[]{"tenure"});
+        Census_CrossTab.Table t = ts[0];
+        assertEquals(1L, t.getCount((short) 20, (short) 0));
+        assertEquals(2L, t.getCount((short) 20, (short) 1));
+        assertEquals(2L, t.getCount((short) 40, (short) 0));
+        assertEquals(0L, t.getCount((short) 40, (short) 1));
+        assertEquals(4L, ts[1].getCount((short) 1));
+        assertEquals(1L, ts[1].getCount((short) 2));
+        assertEquals(t.getIndex(1, 0), t.strides[0]);
+        assertThrows(IllegalArgumentException.class, () -> new Census_CrossTab(
+                1).tabulate(ps, Person.class, new String[]{"income"}));
+        assertThrows(IllegalArgumentException.class, () -> new Census_CrossTab(
+                1).tabulate(ps, Person.class, new String[]{"none"}));
+    }
+}
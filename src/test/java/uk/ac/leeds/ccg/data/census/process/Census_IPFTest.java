@@ -0,0 +1,145 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.Arrays;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Census_IPF}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_IPFTest {
+
+    private static final int N_RECORDS = 500;
+
+    private static final int N_AREAS = 12;
+
+    private final int[] ageSex = new int[N_RECORDS];
+
+    /**
+     * The tenure of each record or -1 for records in no cell.
+     */
+    private final int[] tenure = new int[N_RECORDS];
+
+    private final int[][] ageSexTargets = new int[8][N_AREAS];
+
+    private final int[][] tenureTargets = new int[3][N_AREAS];
+
+    /**
+     * Sets up targets tabulated from a random population of the records so
+     * that the constraints are consistent.
+     */
+    public Census_IPFTest() {
+        Random r = new Random(13);
+        for (int i = 0; i < N_RECORDS; i++) {
+            ageSex[i] = r.nextInt(8);
+            tenure[i] = i % 50 == 0 ? -1 : r.nextInt(3);
+        }
+        for (int a = 0; a < N_AREAS; a++) {
+            int n = 200 + r.nextInt(800);
+            for (int k = 0; k < n; k++) {
+                int i = r.nextInt(N_RECORDS);
+                ageSexTargets[ageSex[i]][a]++;
+                if (tenure[i] >= 0) {
+                    tenureTargets[tenure[i]][a]++;
+                }
+            }
+        }
+    }
+
+    private Census_IPF get(int parallelism) {
+        Census_IPF r = new Census_IPF(N_RECORDS, N_AREAS, parallelism);
+        r.add(ageSexTargets, ageSex);
+        r.add(tenureTargets, tenure);
+        r.setConvergence(1.0E-6d, 1000);
+        return r;
+    }
+
+    private static double[] tabulate(double[] w, int[] categories, int n) {
+        double[] r = new double[n];
+        for (int i = 0; i < w.length; i++) {
+            if (categories[i] >= 0) {
+                r[categories[i]] += w[i];
+            }
+        }
+        return r;
+    }
+
+    private static void assertFits(int[][] targets, double[] sums, int a) {
+        for (int c = 0; c < sums.length; c++) {
+            assertEquals(targets[c][a], sums[c], 1.0E-5d, "area " + a
+                    + " cell " + c);
+        }
+    }
+
+    @Test
+    public void testConverges() {
+        double[][] w = get(1).run();
+        for (int a = 0; a < N_AREAS; a++) {
+            assertFits(ageSexTargets, tabulate(w[a], ageSex, 8), a);
+            assertFits(tenureTargets, tabulate(w[a], tenure, 3), a);
+            for (int i = 0; i < N_RECORDS; i++) {
+                assertTrue(w[a][i] >= 0d);
+            }
+        }
+    }
+
+    @Test
+    public void testSink() {
+        double[][] expected = get(1).run();
+        double[][] w = new double[N_AREAS][];
+        double[] errors = new double[N_AREAS];
+        get(4).run((a, weights, e) -> {
+            w[a] = weights.clone();
+            errors[a] = e;
+        });
+        for (int a = 0; a < N_AREAS; a++) {
+            assertArrayEquals(expected[a], w[a]);
+            assertTrue(errors[a] <= 1.0E-6d, "area " + a);
+        }
+    }
+
+    @Test
+    public void testMaxIterations() {
+        Census_IPF ipf = get(1);
+        ipf.setConvergence(0d, 1);
+        double[] w = new double[N_RECORDS];
+        Arrays.fill(w, 1d);
+        double e = ipf.fit(0, w);
+        assertTrue(e > 0d);
+        // After one iteration the last constraint fits exactly.
+        assertFits(tenureTargets, tabulate(w, tenure, 3), 0);
+    }
+
+    @Test
+    public void testAdd() {
+        Census_IPF ipf = new Census_IPF(3, 2, 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> ipf.add(new int[][]{{1, 2}}, new int[2]));
+        assertThrows(IllegalArgumentException.class,
+                () -> ipf.add(new int[][]{{1, 2, 3}}, new int[3]));
+        assertThrows(IllegalArgumentException.class,
+                () -> ipf.add(new int[][]{{1, 2}}, new int[]{0, 1, 0}));
+    }
+}
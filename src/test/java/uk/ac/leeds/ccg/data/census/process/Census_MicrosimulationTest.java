@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Census_Microsimulation}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_MicrosimulationTest {
+
+    private static final int N_CANDIDATES = 300;
+
+    private static final int N_AREAS = 20;
+
+    /**
+     * The age-sex cell of each candidate.
+     */
+    private final int[] ageSex = new int[N_CANDIDATES];
+
+    /**
+     * The cars cell of each candidate or -1 for none.
+     */
+    private final int[] cars = new int[N_CANDIDATES];
+
+    /**
+     * The cells of the persons of each candidate household.
+     */
+    private final int[][] persons = new int[N_CANDIDATES][];
+
+    private final int[][] ageSexTargets = new int[6][N_AREAS];
+
+    private final int[][] carsTargets = new int[3][N_AREAS];
+
+    private final int[][] personTargets = new int[4][N_AREAS];
+
+    private final int[] sizes = new int[N_AREAS];
+
+    public Census_MicrosimulationTest() {
+        Random r = new Random(11);
+        for (int i = 0; i < N_CANDIDATES; i++) {
+            ageSex[i] = r.nextInt(6);
+            cars[i] = r.nextInt(4) - 1;
+            persons[i] = new int[1 + r.nextInt(3)];
+            for (int j = 0; j < persons[i].length; j++) {
+                persons[i][j] = r.nextInt(4);
+            }
+        }
+        // Targets from a random selection so a perfect fit exists.
+        for (int a = 0; a < N_AREAS; a++) {
+            sizes[a] = 20 + r.nextInt(40);
+            for (int k = 0; k < sizes[a]; k++) {
+                int i = r.nextInt(N_CANDIDATES);
+                ageSexTargets[ageSex[i]][a]++;
+                if (cars[i] >= 0) {
+                    carsTargets[cars[i]][a]++;
+                }
+                for (int p : persons[i]) {
+                    personTargets[p][a]++;
+                }
+            }
+        }
+    }
+
+    private Census_Microsimulation get(int parallelism) {
+        return new Census_Microsimulation.Builder(N_CANDIDATES)
+                .add(ageSexTargets, i -> ageSex[i])
+                .add(carsTargets, i -> cars[i])
+                .addMultiple(personTargets, i -> persons[i])
+                .setParallelism(parallelism).build();
+    }
+
+    /**
+     * @return The TAE of {@code selection} for area {@code a} tabulated from
+     * scratch.
+     */
+    private long getError(int a, int[] selection) {
+        int[][] est = {new int[6], new int[3], new int[4]};
+        for (int i : selection) {
+            est[0][ageSex[i]]++;
+            if (cars[i] >= 0) {
+                est[1][cars[i]]++;
+            }
+            for (int p : persons[i]) {
+                est[2][p]++;
+            }
+        }
+        int[][][] targets = {ageSexTargets, carsTargets, personTargets};
+        long r = 0L;
+        for (int k = 0; k < est.length; k++) {
+            for (int c = 0; c < est[k].length; c++) {
+                r += Math.abs(est[k][c] - targets[k][c][a]);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * The TAE of each area is kept up to date from the change of each swap.
+     * With a high temperature many swaps that make the fit worse are kept,
+     * so the errors only match a full recompute if every change is right.
+     */
+    @Test
+    public void testErrorsMatchRecompute() {
+        Census_Microsimulation m = get(1);
+        for (double temperature : new double[]{0d, 10d, 1000d}) {
+            m.setSchedule(20, temperature, 0.9999d);
+            Census_Microsimulation.Result r = m.run(sizes, 3L);
+            for (int a = 0; a < N_AREAS; a++) {
+                assertEquals(sizes[a], r.selections[a].length);
+                assertEquals(getError(a, r.selections[a]), r.errors[a],
+                        "area " + a + " temperature " + temperature);
+            }
+        }
+    }
+
+    /**
+     * With a temperature of 0 only swaps whose change is not positive are
+     * kept, so no area fits worse than its starting selection.
+     */
+    @Test
+    public void testNoWorseThanStart() {
+        Census_Microsimulation m = get(1);
+        m.setSchedule(0, 0d, 1d);
+        Census_Microsimulation.Result start = m.run(sizes, 5L);
+        m.setSchedule(50, 0d, 1d);
+        Census_Microsimulation.Result r = m.run(sizes, 5L);
+        for (int a = 0; a < N_AREAS; a++) {
+            assertEquals(getError(a, start.selections[a]), start.errors[a]);
+            assertTrue(r.errors[a] <= start.errors[a], "area " + a);
+        }
+        assertTrue(r.getTotalError() < start.getTotalError());
+    }
+
+    @Test
+    public void testParallelism() {
+        Census_Microsimulation.Result r1 = get(1).run(sizes, 7L);
+        Census_Microsimulation.Result r4 = get(4).run(sizes, 7L);
+        assertArrayEquals(r1.errors, r4.errors);
+        for (int a = 0; a < N_AREAS; a++) {
+            assertArrayEquals(r1.selections[a], r4.selections[a]);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import uk.ac.leeds.ccg.data.census.data.Census_AreaRecord;
+import uk.ac.leeds.ccg.data.census.data.Census_Cells;
+import uk.ac.leeds.ccg.data.census.data.Census_ZoneCode;
+import uk.ac.leeds.ccg.data.census.data.cas.uv.Census_CASUV003Record;
+import uk.ac.leeds.ccg.data.census.data.id.Census_RecordID;
+import uk.ac.leeds.ccg.data.census.data.luts.Census_LUT;
+
+/**
+ * Tests for {@link Census_RollUp}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_RollUpTest {
+
+    /**
+     * A record with an int and a double cell.
+     */
+    public static class MixedRecord extends Census_AreaRecord {
+
+        /**
+         * The names of the cells.
+         */
+        public static final String[] CELLS = {"count", "area"};
+
+        /**
+         * A count.
+         */
+        protected int count;
+
+        /**
+         * An area.
+         */
+        protected double area;
+
+        /**
+         * @param rID The ID.
+         */
+        public MixedRecord(Census_RecordID rID) {
+            super(rID);
+        }
+    }
+
+    private static long code(String s) {
+        return Census_ZoneCode.encode(s);
+    }
+
+    /**
+     * @return A look up of 6 OAs in 3 LSOAs, 2 MSOAs and 2 LADs. The last OA
+     * has no LAD.
+     */
+    private static Census_LUT getLUT() {
+        long[] oas = new long[6];
+        for (int i = 0; i < oas.length; i++) {
+            oas[i] = code("E0000000" + (i + 1));
+        }
+        return new Census_LUT(oas,
+                new long[]{code("E01000001"), code("E01000002"),
+                    code("E01000003")},
+                new long[]{code("E02000001"), code("E02000002")},
+                new long[]{code("E06000001"), code("E06000002")},
+                new String[]{"a", "b"},
+                new int[]{0, 0, 1, 1, 2, 2}, new int[]{0, 0, 0, 1, 1, 1},
+                new int[]{0, 0, 0, 1, 1, -1});
+    }
+
+    @Test
+    public void testRollUpRecords() {
+        Census_Cells<Census_CASUV003Record> cells = Census_Cells.of(
+                Census_CASUV003Record.class);
+        List<Census_CASUV003Record> records = new ArrayList<>();
+        String[] codes = {"E00000001", "E00000002", "E00000003", "E00000004",
+            "E00000005", "E00000006", "E00000001", "E00000009"};
+        for (int i = 0; i < codes.length; i++) {
+            Census_CASUV003Record r = new Census_CASUV003Record(
+                    new Census_RecordID(i));
+            r.setZoneCode(codes[i]);
+            cells.set(r, new int[]{10 * (i + 1), 4 * (i + 1), 6 * (i + 1)});
+            records.add(r);
+        }
+        // OA counts of allPeople: 10 + 70, 20, 30, 40, 50, 60. The record for
+        // E00000009 is not an OA in the look up so is left out.
+        for (int parallelism : new int[]{1, 4}) {
+            Census_RollUp.Totals t = new Census_RollUp(getLUT(), parallelism)
+                    .rollUp(records, cells);
+            assertArrayEquals(new int[]{100, 70, 110}, t.LSOA[0]);
+            assertArrayEquals(new int[]{130, 150}, t.MSOA[0]);
+            assertArrayEquals(new int[]{130, 90}, t.LAD[0]);
+            assertArrayEquals(new int[]{52, 60}, t.MSOA[1]);
+            assertArrayEquals(new int[]{78, 54}, t.LAD[2]);
+        }
+    }
+
+    @Test
+    public void testRollUpColumns() {
+        int[][] cols = {{1, 2, 3, 4, 5, 6}, null};
+        Census_RollUp.Totals t = new Census_RollUp(getLUT(), 2).rollUp(cols);
+        assertArrayEquals(new int[]{3, 7, 11}, t.LSOA[0]);
+        assertArrayEquals(new int[]{6, 15}, t.MSOA[0]);
+        assertArrayEquals(new int[]{6, 9}, t.LAD[0]);
+        assertNull(t.LSOA[1]);
+        assertNull(t.LAD[1]);
+    }
+
+    @Test
+    public void testDoubleCells() {
+        // Double cells cannot be held in int columns so are not summed as 0.
+        assertThrows(IllegalArgumentException.class,
+                () -> Census_Cells.of(MixedRecord.class));
+    }
+}
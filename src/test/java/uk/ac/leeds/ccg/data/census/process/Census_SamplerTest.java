@@ -0,0 +1,112 @@
+/*
+ * Copyright 2019 Centre for Computational Geography, University of Leeds.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.ac.leeds.ccg.data.census.process;
+
+import java.util.SplittableRandom;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for {@link Census_Sampler}.
+ *
+ * @author Andy Turner
+ * @version 1.0.0
+ */
+public class Census_SamplerTest {
+
+    private static final double[] WEIGHTS = {1d, 0d, 3d, 0.5d, 10d, 2.5d, 0d,
+        7d, 0.25d, 1d};
+
+    /**
+     * @return The probability of the alias table of {@code s} drawing each
+     * record.
+     */
+    private static double[] getProbabilities(Census_Sampler s, int n) {
+        double[] r = new double[n];
+        int columns = s.size();
+        for (int c = 0; c < columns; c++) {
+            r[s.indexes[c]] += s.probs[c] / columns;
+            r[s.indexes[s.aliases[c]]] += (1d - s.probs[c]) / columns;
+        }
+        return r;
+    }
+
+    @Test
+    public void testAliasTable() {
+        Census_Sampler s = new Census_Sampler(WEIGHTS);
+        assertEquals(WEIGHTS.length, s.size());
+        assertEquals(25.25d, s.getTotal(), 1.0E-12d);
+        double[] p = getProbabilities(s, WEIGHTS.length);
+        for (int i = 0; i < WEIGHTS.length; i++) {
+            assertEquals(WEIGHTS[i] / s.getTotal(), p[i], 1.0E-12d, "" + i);
+        }
+    }
+
+    @Test
+    public void testFrequencies() {
+        Census_Sampler s = new Census_Sampler(WEIGHTS);
+        int n = 1000000;
+        int[] counts = new int[WEIGHTS.length];
+        SplittableRandom random = new SplittableRandom(17L);
+        for (int i : s.sample(new int[n], random)) {
+            counts[i]++;
+        }
+        for (int i = 0; i < WEIGHTS.length; i++) {
+            double p = WEIGHTS[i] / s.getTotal();
+            // Within 5 standard deviations.
+            double sd = Math.sqrt(n * p * (1d - p));
+            assertEquals(n * p, counts[i], 5d * sd + 1E-9d, "" + i);
+        }
+    }
+
+    @Test
+    public void testStratified() {
+        int[] strata = {0, 0, 1, -1, 1, 0, 2, 2, 1, 0};
+        Census_Sampler.Stratified s = new Census_Sampler.Stratified(WEIGHTS,
+                strata, 3);
+        assertEquals(3, s.getStratumCount());
+        // Stratum 2 only has records 6 and 7 and record 6 has no weight.
+        SplittableRandom random = new SplittableRandom(19L);
+        for (int k = 0; k < 1000; k++) {
+            assertEquals(7, s.sample(2, random));
+            int i = s.sample(1, random);
+            assertTrue(i == 2 || i == 4 || i == 8, "" + i);
+        }
+        double[] p = getProbabilities(s.getSampler(0), WEIGHTS.length);
+        assertEquals(1d / 4.5d, p[0], 1.0E-12d);
+        assertEquals(0d, p[1], 1.0E-12d);
+        assertEquals(2.5d / 4.5d, p[5], 1.0E-12d);
+        assertEquals(1d / 4.5d, p[9], 1.0E-12d);
+        Census_Sampler.Stratified t = new Census_Sampler.Stratified(WEIGHTS,
+                new int[]{0, 1, 0, 0, 0, 0, 1, 0, 0, 0}, 2);
+        assertNull(t.getSampler(1));
+        assertThrows(IllegalArgumentException.class,
+                () -> t.sample(1, random));
+    }
+
+    @Test
+    public void testInvalid() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new Census_Sampler(new double[]{0d, 0d}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Census_Sampler(new double[]{1d, -1d}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Census_Sampler(new double[]{1d, Double.NaN}));
+    }
+}